@@ -58,7 +58,11 @@ public class AdminHomePage {
             new StaffHomePage(databaseHelper, user).show(primaryStage);
         });
         
-        layout.getChildren().addAll(adminLabel, changePasswordButton, reviewerApprovalButton, staffFunctionsButton);
+        // Button to navigate to the Query Metrics page
+        Button queryMetricsButton = new Button("Query Metrics");
+        queryMetricsButton.setOnAction(e -> new QueryMetricsPage(databaseHelper, user).show(primaryStage));
+        
+        layout.getChildren().addAll(adminLabel, changePasswordButton, reviewerApprovalButton, staffFunctionsButton, queryMetricsButton);
         Scene adminScene = new Scene(layout, 800, 400);
         
         // Set the scene to primary stage
@@ -1,15 +1,21 @@
 package application;
 
 import databasePart1.DatabaseHelper;
+import databasePart1.SearchIndex;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * The AnswerManager class handles CRUD operations for Answer objects.
+ * The AnswerManager class handles CRUD operations for Answer objects. Main and subset answers
+ * are stored through the helper's repositories, which also keep the review queue; this class
+ * keeps the caches, the search index and the event bus in step with them.
  */
 public class AnswerManager {
     private final DatabaseHelper databaseHelper;
+    private final AnswerRepository answers;
+    private final SubsetAnswerRepository subsetAnswers;
 
     /**
      * Constructor to initialize the AnswerManager.
@@ -17,70 +23,52 @@ public class AnswerManager {
      */
     public AnswerManager(DatabaseHelper databaseHelper) {
         this.databaseHelper = databaseHelper;
+        this.answers = databaseHelper.getRepositories().answers();
+        this.subsetAnswers = databaseHelper.getRepositories().subsetAnswers();
     }
 
     /**
-     * Saves a new answer to the database, preventing duplicates.
+     * Saves a new answer to the database, preventing duplicates. The unique index on contentHash
+     * rejects an answer with the same text, author and question in the same statement.
      * @param answer the Answer object to save
+     * @return true if the answer was inserted, false if it is a duplicate or could not be saved
      */
-    public void saveAnswer(Answer answer) {
-        String checkQuery = "SELECT COUNT(*) FROM answers WHERE text = ? AND author = ? AND questionId = ?";
-        String insertQuery = "INSERT INTO answers (text, author, questionId) VALUES (?, ?, ?)";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
-             PreparedStatement insertStmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-            checkStmt.setString(1, answer.getText());
-            checkStmt.setString(2, answer.getAuthor());
-            checkStmt.setInt(3, answer.getQuestionId());
-            ResultSet rs = checkStmt.executeQuery();
-            if (rs.next() && rs.getInt(1) > 0) {
-                return; // Duplicate answer found; do not insert
-            }
-            insertStmt.setString(1, answer.getText());
-            insertStmt.setString(2, answer.getAuthor());
-            insertStmt.setInt(3, answer.getQuestionId());
-            insertStmt.executeUpdate();
-            try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    answer.setId(generatedKeys.getInt(1));
-                }
+    public boolean saveAnswer(Answer answer) {
+        try {
+            if (!answers.insert(answer)) {
+                return false;
             }
+            databaseHelper.getContentCache().answerAdded(answer.getQuestionId());
+            databaseHelper.getSearchIndex().index(SearchIndex.DocType.ANSWER, answer.getId(), answer.getQuestionId(), answer.getText());
+            databaseHelper.getEventBus().publish(new Events.AnswerCreated(answer, false));
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return false;
     }
     
     /**
-     * Saves a new subset answer to the database, preventing duplicates.
+     * Saves a new subset answer to the database, preventing duplicates. The unique index on
+     * contentHash rejects a subset answer with the same text, author and subset question.
      * @param answer the subset Answer object to save
+     * @return true if the answer was inserted, false if it is a duplicate or could not be saved
      */
-    public void saveSubSetAnswer(Answer answer) {
-        String checkQuery = "SELECT COUNT(*) FROM subSetAnswers WHERE text = ? AND author = ? AND saID = ?";
-        String insertQuery = "INSERT INTO subSetAnswers (text, author, saID) VALUES (?, ?, ?)";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
-             PreparedStatement insertStmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-            checkStmt.setString(1, answer.getText());
-            checkStmt.setString(2, answer.getAuthor());
-            checkStmt.setInt(3, answer.getQuestionId());
-            ResultSet rs = checkStmt.executeQuery();
-            if (rs.next() && rs.getInt(1) > 0) {
-                System.out.println("Duplicate subset answer detected, not inserting: " + answer.getText());
-                return;
-            }
-            insertStmt.setString(1, answer.getText());
-            insertStmt.setString(2, answer.getAuthor());
-            insertStmt.setInt(3, answer.getQuestionId());
+    public boolean saveSubSetAnswer(Answer answer) {
+        try {
             System.out.println("Inserting subset answer for saID: " + answer.getQuestionId());
-            insertStmt.executeUpdate();
-            try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    answer.setId(generatedKeys.getInt(1));
-                }
+            if (!subsetAnswers.insert(answer)) {
+                System.out.println("Duplicate subset answer detected, not inserting: " + answer.getText());
+                return false;
             }
+            databaseHelper.getContentCache().subSetAnswerAdded(answer.getQuestionId());
+            databaseHelper.getSearchIndex().index(SearchIndex.DocType.SUBSET_ANSWER, answer.getId(), answer.getQuestionId(), answer.getText());
+            databaseHelper.getEventBus().publish(new Events.AnswerCreated(answer, true));
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return false;
     }
     
     /**
@@ -89,21 +77,43 @@ public class AnswerManager {
      * @return a list of Answer objects
      */
     public List<Answer> getAnswersForQuestion(int questionId) {
-        List<Answer> answers = new ArrayList<>();
-        String query = "SELECT id, text, author, questionId FROM answers WHERE questionId = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, questionId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    answers.add(new Answer(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("questionId")));
-                }
-            }
+        System.out.println("Fetching main question answers for question ID: " + questionId);
+        try {
+            return answers.findByQuestion(questionId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        System.out.println("Fetching main question answers for question ID: " + questionId);
-        return answers;
+        return new ArrayList<>();
+    }
+
+    /**
+     * Retrieves one page of the answers to a main question in ID order, starting after the given ID.
+     * @param questionId the ID of the main question
+     * @param afterId the ID of the last answer of the previous page, or 0 for the first page
+     * @param limit the maximum number of answers to return
+     * @return a list of at most limit Answer objects
+     */
+    public List<Answer> getAnswersPage(int questionId, int afterId, int limit) {
+        try {
+            return answers.findPage(questionId, afterId, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Counts the answers to a main question without loading them.
+     * @param questionId the ID of the main question
+     * @return the number of answers, or 0 if the count fails
+     */
+    public int countAnswersForQuestion(int questionId) {
+        try {
+            return answers.countByQuestion(questionId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
     }
     
     /**
@@ -112,21 +122,18 @@ public class AnswerManager {
      * @return a list of subset Answer objects
      */
     public List<Answer> getSubSetAnswersForQuestion(int subsetQuestionID) {
-        List<Answer> answers = new ArrayList<>();
-        String query = "SELECT * FROM subSetAnswers WHERE saID = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, subsetQuestionID);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    answers.add(new Answer(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("saID")));
-                }
-            }
+        System.out.println("Fetching subset answers for question ID: " + subsetQuestionID);
+        try {
+            return new ArrayList<>(databaseHelper.getContentCache().get(ContentCache.Region.SUBSET_ANSWERS,
+                    subsetQuestionID, () -> loadSubSetAnswers(subsetQuestionID)));
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        System.out.println("Fetching subset answers for question ID: " + subsetQuestionID);
-        return answers;
+        return new ArrayList<>();
+    }
+
+    private List<Answer> loadSubSetAnswers(int subsetQuestionID) throws SQLException {
+        return Collections.unmodifiableList(subsetAnswers.findBySubsetQuestion(subsetQuestionID));
     }
     
     /**
@@ -171,13 +178,14 @@ public class AnswerManager {
      * @return true if the update was successful, false otherwise
      */
     public boolean updateAnswer(int answerId, String newText, String userName) {
-        String query = "UPDATE answers SET text = ? WHERE id = ? AND author = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, newText);
-            pstmt.setInt(2, answerId);
-            pstmt.setString(3, userName);
-            return pstmt.executeUpdate() > 0;
+        try {
+            boolean updated = answers.updateText(answerId, newText, userName);
+            if (updated) {
+                databaseHelper.getContentCache().answerChanged(answerId);
+                databaseHelper.getSearchIndex().update(SearchIndex.DocType.ANSWER, answerId, newText);
+                databaseHelper.getEventBus().publish(new Events.AnswerUpdated(answerId, false, newText));
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -189,16 +197,18 @@ public class AnswerManager {
      * @param answerId the ID of the subset answer to update
      * @param newText the new answer text
      * @param userName the username of the editor
-     * @return true if the update was successful, false otherwise
+     * @return true if the update was successful, false otherwise or if the new text duplicates
+     *         another subset answer of the author to the same subset question
      */
     public boolean updatesubSetAnswer(int answerId, String newText, String userName) {
-        String query = "UPDATE subSetAnswers SET text = ? WHERE id = ? AND author = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, newText);
-            pstmt.setInt(2, answerId);
-            pstmt.setString(3, userName);
-            return pstmt.executeUpdate() > 0;
+        try {
+            boolean updated = subsetAnswers.updateText(answerId, newText, userName);
+            if (updated) {
+                databaseHelper.getContentCache().subSetAnswerChanged(answerId);
+                databaseHelper.getSearchIndex().update(SearchIndex.DocType.SUBSET_ANSWER, answerId, newText);
+                databaseHelper.getEventBus().publish(new Events.AnswerUpdated(answerId, true, newText));
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -213,19 +223,16 @@ public class AnswerManager {
      * @return true if deletion was successful, false otherwise
      */
     public boolean deleteAnswer(int answerId, String userName, boolean isAdmin) {
-        String checkQuery = "SELECT author FROM answers WHERE id = ?";
-        String deleteQuery = "DELETE FROM answers WHERE id = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
-             PreparedStatement deleteStmt = conn.prepareStatement(deleteQuery)) {
-            checkStmt.setInt(1, answerId);
-            ResultSet rs = checkStmt.executeQuery();
-            if (rs.next()) {
-                String author = rs.getString("author");
-                if (author.equals(userName) || isAdmin) {
-                    deleteStmt.setInt(1, answerId);
-                    return deleteStmt.executeUpdate() > 0;
+        try {
+            Answer answer = answers.findById(answerId);
+            if (answer != null && (answer.getAuthor().equals(userName) || isAdmin)) {
+                boolean deleted = answers.delete(answerId);
+                if (deleted) {
+                    databaseHelper.getContentCache().answerDeleted(answerId);
+                    databaseHelper.getSearchIndex().remove(SearchIndex.DocType.ANSWER, answerId);
+                    databaseHelper.getEventBus().publish(new Events.AnswerDeleted(answerId));
                 }
+                return deleted;
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -239,19 +246,11 @@ public class AnswerManager {
      * @return a list of Answer objects written by the user
      */
     public List<Answer> getAnswersByUser(String userName) {
-        List<Answer> answers = new ArrayList<>();
-        String query = "SELECT id, text, author, questionId FROM answers WHERE author = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    answers.add(new Answer(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("questionId")));
-                }
-            }
+        try {
+            return answers.findByAuthor(userName);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return answers;
+        return new ArrayList<>();
     }
 }
@@ -6,12 +6,20 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.stage.Modality;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import databasePart1.DatabaseHelper;
 
 /**
  * The AnswerPage class allows users to create, view, edit, and delete answers for a specific question.
  * Students can also view reviews for each answer using the "View Reviews" button.
+ * Answers are ranked for the viewing user by the weightage they give the reviewers of each answer.
+ * While the page is shown, answers and reviews written anywhere in the application are applied
+ * to the list in place.
  */
 public class AnswerPage {
     private final AnswerManager answerManager;
@@ -19,7 +27,16 @@ public class AnswerPage {
     private final DatabaseHelper databaseHelper;
     private final Stage primaryStage;
     private final Question question;
+    private final ThreadLoader threadLoader;
+    private final AnswerRanking ranking;
     private ListView<HBox> answerList;
+    // The shown row and the loaded reviews of each answer, by answer ID.
+    private final Map<Integer, HBox> rows = new HashMap<>();
+    private final Map<Integer, List<Review>> reviewsByAnswer = new HashMap<>();
+    // The authors of the shown answers, loaded with their rows, by user name.
+    private final Map<String, User> authors = new HashMap<>();
+    // The viewing user's score of each shown answer; answers without an entry score 0.
+    private Map<Integer, Double> scores = new HashMap<>();
 
     public AnswerPage(AnswerManager answerManager, User user, DatabaseHelper databaseHelper, Stage primaryStage, Question question) {
         this.answerManager = answerManager;
@@ -27,6 +44,8 @@ public class AnswerPage {
         this.databaseHelper = databaseHelper;
         this.primaryStage = primaryStage;
         this.question = question;
+        this.threadLoader = new ThreadLoader(databaseHelper);
+        this.ranking = new AnswerRanking(databaseHelper);
     }
 
     public void show() {
@@ -45,16 +64,26 @@ public class AnswerPage {
         answerList = new ListView<>();
         refreshAnswerList();
 
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
         submitButton.setOnAction(e -> {
             String text = answerField.getText().trim();
             if (!text.isEmpty() && text.length() <= 500) {
-                Answer newAnswer = answerManager.createAnswer(answerManager.getAnswersForQuestion(question.getId()).size() + 1, text, user.getUserName(), question.getId());
-                if (newAnswer != null) {
-                    answerManager.saveAnswer(newAnswer);
-                    refreshAnswerList();
-                    messageLabel.setText("Answer added successfully!");
-                }
-                answerField.clear();
+                // The database assigns the ID when the answer is saved, off the UI thread; the
+                // AnswerCreated event adds the row.
+                Answer newAnswer = new Answer(0, text, user.getUserName(), question.getId());
+                submitButton.setDisable(true);
+                async.deliver(async.supply(() -> answerManager.saveAnswer(newAnswer)), saved -> {
+                    submitButton.setDisable(false);
+                    if (saved) {
+                        messageLabel.setText("Answer added successfully!");
+                    } else {
+                        messageLabel.setText("You have already posted this answer.");
+                    }
+                    answerField.clear();
+                }, error -> {
+                    submitButton.setDisable(false);
+                    messageLabel.setText("The answer could not be saved.");
+                });
             } else {
                 messageLabel.setText("Invalid answer. Ensure it's not empty and under 500 characters.");
             }
@@ -71,54 +100,216 @@ public class AnswerPage {
         primaryStage.setScene(scene);
         primaryStage.setTitle("Answer Management");
         primaryStage.toFront();
+        EventBus eventBus = databaseHelper.getEventBus();
+        EventBus.cancelWhenSceneChanges(primaryStage,
+                eventBus.subscribe(Events.AnswerCreated.class, this::answersCreated),
+                eventBus.subscribe(Events.AnswerUpdated.class, this::answersUpdated),
+                eventBus.subscribe(Events.AnswerDeleted.class, this::answersDeleted),
+                eventBus.subscribe(Events.ReviewSaved.class, this::reviewsSaved),
+                eventBus.subscribe(Events.ReviewUpdated.class, this::reviewsUpdated),
+                eventBus.subscribe(Events.ReviewDeleted.class, this::reviewsDeleted));
+    }
+
+    private void answersCreated(List<Events.AnswerCreated> events) {
+        List<Answer> added = new ArrayList<>();
+        for (Events.AnswerCreated event : events) {
+            if (!event.isClarification() && event.getAnswer().getQuestionId() == question.getId()) {
+                added.add(event.getAnswer());
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        // The author's role decides the "See Reviewer" button, so it is looked up off the UI thread.
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        async.deliver(async.supply(() -> databaseHelper.getUserDirectory().loadAll(authorNames(added))), loaded -> {
+            authors.putAll(loaded);
+            for (Answer a : added) {
+                if (!rows.containsKey(a.getId())) {
+                    HBox row = buildAnswerRow(a, authors.get(a.getAuthor()));
+                    rows.put(a.getId(), row);
+                    answerList.getItems().add(rankedIndex(a), row);
+                }
+            }
+        });
+    }
+
+    private void answersUpdated(List<Events.AnswerUpdated> events) {
+        for (Events.AnswerUpdated event : events) {
+            HBox row = rows.get(event.getAnswerId());
+            if (event.isClarification() || row == null) {
+                continue;
+            }
+            Answer old = (Answer) row.getUserData();
+            Answer updated = new Answer(old.getId(), event.getText(), old.getAuthor(), old.getQuestionId());
+            updated.setSuperlike(old.isSuperlike());
+            // The author was loaded with the row, so the UI thread does not look it up again.
+            HBox replacement = buildAnswerRow(updated, authors.get(old.getAuthor()));
+            rows.put(updated.getId(), replacement);
+            answerList.getItems().set(answerList.getItems().indexOf(row), replacement);
+        }
+    }
+
+    private void answersDeleted(List<Events.AnswerDeleted> events) {
+        for (Events.AnswerDeleted event : events) {
+            HBox row = rows.remove(event.getAnswerId());
+            reviewsByAnswer.remove(event.getAnswerId());
+            scores.remove(event.getAnswerId());
+            if (row != null) {
+                answerList.getItems().remove(row);
+            }
+        }
+    }
+
+    private void reviewsSaved(List<Events.ReviewSaved> events) {
+        boolean shown = false;
+        for (Events.ReviewSaved event : events) {
+            Review review = event.getReview();
+            if (rows.containsKey(review.getQuestionId())) {
+                reviewsByAnswer.computeIfAbsent(review.getQuestionId(), id -> new ArrayList<>()).add(review);
+                shown = true;
+            }
+        }
+        if (shown) {
+            // A review by a trusted reviewer moves the answer up, so the scores are read again.
+            rescore();
+        }
+    }
+
+    private void reviewsUpdated(List<Events.ReviewUpdated> events) {
+        for (Events.ReviewUpdated event : events) {
+            for (List<Review> reviews : reviewsByAnswer.values()) {
+                reviews.replaceAll(r -> r.getId() != event.getReviewId() ? r
+                        : new Review(r.getId(), event.getText(), r.getAuthor(), r.getQuestionId()));
+            }
+        }
+    }
+
+    private void reviewsDeleted(List<Events.ReviewDeleted> events) {
+        boolean shown = false;
+        for (Events.ReviewDeleted event : events) {
+            Review review = event.getReview();
+            List<Review> reviews = reviewsByAnswer.get(review.getQuestionId());
+            if (reviews != null) {
+                reviews.removeIf(r -> r.getId() == review.getId());
+                shown = true;
+            }
+        }
+        if (shown) {
+            // The deleted review no longer counts towards the answer's score.
+            rescore();
+        }
+    }
+
+    // Reads the viewing user's scores off the UI thread and reorders the shown rows by them.
+    private void rescore() {
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        async.deliverLatest("answerScores", async.supply(() -> ranking.getScores(user.getUserName(), question.getId())), updated -> {
+            scores = updated;
+            List<HBox> ranked = new ArrayList<>(answerList.getItems());
+            ranked.sort(Comparator.comparing((HBox row) -> (Answer) row.getUserData(), AnswerRanking.byScore(scores)));
+            answerList.getItems().setAll(ranked);
+        });
+    }
+
+    // The position that keeps the list in ranked order when the answer is inserted.
+    private int rankedIndex(Answer answer) {
+        Comparator<Answer> order = AnswerRanking.byScore(scores);
+        List<HBox> items = answerList.getItems();
+        int index = items.size();
+        while (index > 0 && order.compare((Answer) items.get(index - 1).getUserData(), answer) > 0) {
+            index--;
+        }
+        return index;
     }
 
     private void refreshAnswerList() {
+        // Load the answers together with their reviews in a fixed number of queries, off the UI thread.
+        // The authors are looked up in one query on the same worker, so rendering does not query.
+        CompletableFuture<ThreadLoader.QuestionThread> loaded = threadLoader.loadAsync(question.getId());
+        CompletableFuture<Map<String, User>> authorsLoaded = loaded.thenApply(thread -> thread == null
+                ? new HashMap<String, User>() : databaseHelper.getUserDirectory().loadAll(authorNames(thread.getAnswers())));
+        // The viewing user's scores are precomputed, so ranking is one indexed lookup next to the thread.
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        CompletableFuture<Map<Integer, Double>> scored = async.supply(() -> ranking.getScores(user.getUserName(), question.getId()));
+        // The thread is loaded by the time its authors are.
+        CompletableFuture<Runnable> shown = authorsLoaded.thenCombine(scored,
+                (answerAuthors, answerScores) -> () -> showAnswers(loaded.join(), answerAuthors, answerScores));
+        async.deliverLatest("answers", shown, Runnable::run);
+    }
+
+    private static List<String> authorNames(List<Answer> answers) {
+        List<String> authorNames = new ArrayList<>();
+        for (Answer a : answers) {
+            authorNames.add(a.getAuthor());
+        }
+        return authorNames;
+    }
+
+    private void showAnswers(ThreadLoader.QuestionThread thread, Map<String, User> answerAuthors, Map<Integer, Double> answerScores) {
         answerList.getItems().clear();
-        List<Answer> answers = answerManager.getAnswersForQuestion(question.getId());
+        rows.clear();
+        reviewsByAnswer.clear();
+        authors.clear();
+        scores = answerScores;
+        if (thread == null) {
+            return;
+        }
+        List<Answer> answers = AnswerRanking.rank(thread.getAnswers(), scores);
+        authors.putAll(answerAuthors);
         for (Answer a : answers) {
-            HBox row = new HBox(10);
-
-            String displayText = a.getText();
-            Label answerLabel;
-            if (a.isSuperlike()) {
-                displayText += "  ⭐️ Highlighted by Staff";
-                answerLabel = new Label(displayText);
-                answerLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #2a5d84;");
-            } else {
-                answerLabel = new Label(displayText);
-            }
+            reviewsByAnswer.put(a.getId(), new ArrayList<>(thread.getReviewsForAnswer(a.getId())));
+            HBox row = buildAnswerRow(a, authors.get(a.getAuthor()));
+            rows.put(a.getId(), row);
+            answerList.getItems().add(row);
+        }
+    }
 
-            Button editButton = new Button("Edit");
-            editButton.setDisable(!a.getAuthor().equals(user.getUserName()));
-            editButton.setOnAction(e -> showEditPopup(a));
+    private HBox buildAnswerRow(Answer a, User author) {
+        HBox row = new HBox(10);
+        row.setUserData(a);
 
-            Button deleteButton = new Button("Delete");
-            boolean isAdmin = "admin".equals(user.getRole());
-            deleteButton.setDisable(!a.getAuthor().equals(user.getUserName()) && !isAdmin);
-            deleteButton.setOnAction(e -> {
-                if (answerManager.deleteAnswer(a.getId(), user.getUserName(), isAdmin)) {
-                    refreshAnswerList();
-                }
-            });
-
-            Button viewReviewsButton = new Button("View Reviews");
-            viewReviewsButton.setOnAction(e -> {
-                StudentReviewPopup reviewPopup = new StudentReviewPopup(databaseHelper, a.getId());
-                reviewPopup.show();
-            });
-
-            Button viewReviewerButton = new Button("See Reviewer");
-            User author = new User(a.getAuthor(), databaseHelper);
-            viewReviewerButton.setDisable(!author.getRole().equals("reviewer"));
-            viewReviewerButton.setOnAction(e -> {
-                ReviewerPage reviewPage = new ReviewerPage(user, a.getAuthor(), databaseHelper, primaryStage, question);
-                reviewPage.show();
-            });
-
-            row.getChildren().addAll(answerLabel, editButton, deleteButton, viewReviewsButton, viewReviewerButton);
-            answerList.getItems().add(row);
+        String displayText = a.getText();
+        Label answerLabel;
+        if (a.isSuperlike()) {
+            displayText += "  ⭐️ Highlighted by Staff";
+            answerLabel = new Label(displayText);
+            answerLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #2a5d84;");
+        } else {
+            answerLabel = new Label(displayText);
         }
+
+        Button editButton = new Button("Edit");
+        editButton.setDisable(!a.getAuthor().equals(user.getUserName()));
+        editButton.setOnAction(e -> showEditPopup(a));
+
+        Button deleteButton = new Button("Delete");
+        boolean isAdmin = "admin".equals(user.getRole());
+        deleteButton.setDisable(!a.getAuthor().equals(user.getUserName()) && !isAdmin);
+        // The AnswerDeleted event removes the row once the delete is stored.
+        deleteButton.setOnAction(e -> {
+            deleteButton.setDisable(true);
+            AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+            async.deliver(async.supply(() -> answerManager.deleteAnswer(a.getId(), user.getUserName(), isAdmin)),
+                    deleted -> deleteButton.setDisable(deleted));
+        });
+
+        Button viewReviewsButton = new Button("View Reviews");
+        viewReviewsButton.setOnAction(e -> {
+            List<Review> reviews = reviewsByAnswer.getOrDefault(a.getId(), new ArrayList<>());
+            StudentReviewPopup reviewPopup = new StudentReviewPopup(databaseHelper, a.getId(), reviews);
+            reviewPopup.show();
+        });
+
+        Button viewReviewerButton = new Button("See Reviewer");
+        viewReviewerButton.setDisable(author == null || !"reviewer".equals(author.getRole()));
+        viewReviewerButton.setOnAction(e -> {
+            ReviewerPage reviewPage = new ReviewerPage(user, a.getAuthor(), databaseHelper, primaryStage, question);
+            reviewPage.show();
+        });
+
+        row.getChildren().addAll(answerLabel, editButton, deleteButton, viewReviewsButton, viewReviewerButton);
+        return row;
     }
 
     private void showEditPopup(Answer answer) {
@@ -133,10 +324,14 @@ public class AnswerPage {
         saveButton.setOnAction(e -> {
             String newText = editField.getText().trim();
             if (!newText.isEmpty() && newText.length() <= 500) {
-                if (answerManager.updateAnswer(answer.getId(), newText, user.getUserName())) {
-                    refreshAnswerList();
-                    popupStage.close();
-                }
+                saveButton.setDisable(true);
+                AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+                async.deliver(async.supply(() -> answerManager.updateAnswer(answer.getId(), newText, user.getUserName())), updated -> {
+                    saveButton.setDisable(false);
+                    if (updated) {
+                        popupStage.close();
+                    }
+                });
             }
         });
 
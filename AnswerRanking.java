@@ -0,0 +1,164 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AnswerRanking class orders the answers to a question for the student viewing them. An
+ * answer's score for a student is the sum, over the reviews of the answer, of the weightage the
+ * student gives the review's author in trustedReviewers. Reviews by reviewers the student does
+ * not trust add nothing.
+ *
+ * Scores are kept in the answerScores table, one row per student and answer with a non-zero
+ * score, and adjusted by the writes that change them: saving or deleting a review, and adding,
+ * reweighting or removing a trusted reviewer. Ranking a page is then a primary-key lookup per
+ * answer instead of a join of reviews with trustedReviewers. The static methods take the
+ * connection of the write they belong to.
+ */
+public class AnswerRanking {
+
+    // Scores this close to zero are left over from adding and subtracting the same weights.
+    private static final double ZERO = 1e-9;
+
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the AnswerRanking.
+     * @param databaseHelper the database helper instance
+     */
+    public AnswerRanking(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Adds a new review to the scores of every student who trusts its author.
+     * @param conn the connection to use
+     * @param reviewer the author of the review
+     * @param answerId the ID of the reviewed answer
+     * @throws SQLException if the update fails
+     */
+    public static void reviewAdded(Connection conn, String reviewer, int answerId) throws SQLException {
+        applyReview(conn, reviewer, answerId, 1);
+    }
+
+    /**
+     * Takes a deleted review out of the scores of every student who trusts its author.
+     * @param conn the connection to use
+     * @param reviewer the author of the review
+     * @param answerId the ID of the reviewed answer
+     * @throws SQLException if the update fails
+     */
+    public static void reviewRemoved(Connection conn, String reviewer, int answerId) throws SQLException {
+        applyReview(conn, reviewer, answerId, -1);
+    }
+
+    private static void applyReview(Connection conn, String reviewer, int answerId, int sign) throws SQLException {
+        String merge = "MERGE INTO answerScores s USING (SELECT studentUserName, SUM(weightage) AS weight "
+                + "FROM trustedReviewers WHERE reviewerUserName = ? GROUP BY studentUserName) t "
+                + "ON (s.studentUserName = t.studentUserName AND s.answerId = ?) "
+                + "WHEN MATCHED THEN UPDATE SET score = s.score + ? * t.weight "
+                + "WHEN NOT MATCHED THEN INSERT (studentUserName, answerId, score) VALUES (t.studentUserName, ?, ? * t.weight)";
+        try (PreparedStatement pstmt = conn.prepareStatement(merge)) {
+            pstmt.setString(1, reviewer);
+            pstmt.setInt(2, answerId);
+            pstmt.setDouble(3, sign);
+            pstmt.setInt(4, answerId);
+            pstmt.setDouble(5, sign);
+            if (pstmt.executeUpdate() == 0) {
+                return;
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM answerScores WHERE answerId = ? AND ABS(score) < ?")) {
+            pstmt.setInt(1, answerId);
+            pstmt.setDouble(2, ZERO);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Shifts a student's score of every answer the reviewer has reviewed by the change in the
+     * weightage the student gives the reviewer.
+     * @param conn the connection to use
+     * @param studentUserName the student
+     * @param reviewerUserName the trusted reviewer
+     * @param delta the new total weightage minus the old one; negative when trust is removed
+     * @throws SQLException if the update fails
+     */
+    public static void weightChanged(Connection conn, String studentUserName, String reviewerUserName, double delta) throws SQLException {
+        if (delta == 0) {
+            return;
+        }
+        String merge = "MERGE INTO answerScores s USING (SELECT answerId, COUNT(*) AS reviews "
+                + "FROM reviews WHERE author = ? GROUP BY answerId) r "
+                + "ON (s.studentUserName = ? AND s.answerId = r.answerId) "
+                + "WHEN MATCHED THEN UPDATE SET score = s.score + ? * r.reviews "
+                + "WHEN NOT MATCHED THEN INSERT (studentUserName, answerId, score) VALUES (?, r.answerId, ? * r.reviews)";
+        try (PreparedStatement pstmt = conn.prepareStatement(merge)) {
+            pstmt.setString(1, reviewerUserName);
+            pstmt.setString(2, studentUserName);
+            pstmt.setDouble(3, delta);
+            pstmt.setString(4, studentUserName);
+            pstmt.setDouble(5, delta);
+            if (pstmt.executeUpdate() == 0) {
+                return;
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM answerScores WHERE studentUserName = ? AND ABS(score) < ?")) {
+            pstmt.setString(1, studentUserName);
+            pstmt.setDouble(2, ZERO);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Retrieves a student's scores of the answers to a question.
+     * @param studentUserName the student viewing the answers
+     * @param questionId the ID of the question
+     * @return the non-zero scores, by answer ID
+     */
+    public Map<Integer, Double> getScores(String studentUserName, int questionId) {
+        Map<Integer, Double> scores = new HashMap<>();
+        String query = "SELECT s.answerId, s.score FROM answers a "
+                + "JOIN answerScores s ON s.studentUserName = ? AND s.answerId = a.id WHERE a.questionId = ?";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, studentUserName);
+            pstmt.setInt(2, questionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    scores.put(rs.getInt("answerId"), rs.getDouble("score"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return scores;
+    }
+
+    /**
+     * Orders answers by score, highest first, and answers with equal scores in posting order.
+     * @param scores the scores from getScores
+     * @return the comparator
+     */
+    public static Comparator<Answer> byScore(Map<Integer, Double> scores) {
+        Comparator<Answer> byScore = Comparator.comparingDouble(a -> scores.getOrDefault(a.getId(), 0.0));
+        return byScore.reversed().thenComparingInt(Answer::getId);
+    }
+
+    /**
+     * Sorts answers into ranked order.
+     * @param answers the answers
+     * @param scores the scores from getScores
+     * @return a new list with the answers in ranked order
+     */
+    public static List<Answer> rank(List<Answer> answers, Map<Integer, Double> scores) {
+        List<Answer> ranked = new ArrayList<>(answers);
+        ranked.sort(byScore(scores));
+        return ranked;
+    }
+}
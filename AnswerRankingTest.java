@@ -0,0 +1,174 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * AnswerRankingTest
+ *
+ * This class contains automated JUnit tests to verify that the answer scores follow saved and
+ * deleted reviews and changes to trusted reviewer weightage, and that answers are ranked by them,
+ * with ties in posting order.
+ */
+public class AnswerRankingTest {
+
+    private static DatabaseHelper dbHelper;
+
+    /**
+     * Setup method to establish the database connection to a fresh in-memory database.
+     */
+    @BeforeClass
+    public static void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+    }
+
+    /**
+     * Cleanup method to close the database connection after all tests.
+     */
+    @AfterClass
+    public static void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that saving and deleting reviews and changing trusted reviewer weightage
+     * keep a student's answer scores, and so the ranking, current.
+     */
+    @Test
+    public void testAnswerScoresFollowReviewsAndWeights() throws SQLException {
+        String suffix = String.valueOf(System.nanoTime() % 100000);
+        String student = "rankStudent" + suffix;
+        String trusted = "rankReviewerA" + suffix;
+        String other = "rankReviewerB" + suffix;
+        dbHelper.register(new User(student, "Passw0rd!", "user"));
+        dbHelper.register(new User(trusted, "Passw0rd!", "reviewer"));
+        dbHelper.register(new User(other, "Passw0rd!", "reviewer"));
+        QuestionManager questionManager = new QuestionManager(dbHelper);
+        Question question = new Question(0, "Ranking check " + suffix, student);
+        assertTrue("Question should be saved", questionManager.saveQuestion(question));
+        try {
+            AnswerManager answerManager = new AnswerManager(dbHelper);
+            ReviewManager reviewManager = new ReviewManager(dbHelper);
+            TrustedReviewerManager trustedManager = new TrustedReviewerManager(dbHelper);
+            AnswerRanking ranking = new AnswerRanking(dbHelper);
+            Answer first = new Answer(0, "First answer " + suffix, other, question.getId());
+            Answer second = new Answer(0, "Second answer " + suffix, other, question.getId());
+            assertTrue(answerManager.saveAnswer(first));
+            assertTrue(answerManager.saveAnswer(second));
+
+            trustedManager.addTrustedReviewer(student, trusted, 2.0);
+            Review review = new Review(0, "Clear and correct", trusted, second.getId());
+            reviewManager.saveReview(review);
+            reviewManager.saveReview(new Review(0, "Missing a step", other, first.getId()));
+            Map<Integer, Double> scores = ranking.getScores(student, question.getId());
+            assertEquals("Only the trusted review should count", 1, scores.size());
+            assertEquals(2.0, scores.get(second.getId()), 1e-9);
+            assertEquals("Trusted review should rank its answer first", second.getId(),
+                    AnswerRanking.rank(Arrays.asList(first, second), scores).get(0).getId());
+
+            trustedManager.addTrustedReviewer(student, other, 3.0);
+            assertEquals(3.0, ranking.getScores(student, question.getId()).get(first.getId()), 1e-9);
+            assertTrue(trustedManager.updateWeightage(student, trusted, 5.0));
+            assertEquals(5.0, ranking.getScores(student, question.getId()).get(second.getId()), 1e-9);
+            assertTrue(trustedManager.removeTrustedReviewer(student, other));
+            assertFalse("Untrusted reviewer's answer should score 0",
+                    ranking.getScores(student, question.getId()).containsKey(first.getId()));
+            assertTrue(reviewManager.deleteReview(review.getId(), trusted, false));
+            assertTrue("No scores should be left", ranking.getScores(student, question.getId()).isEmpty());
+        } finally {
+            questionManager.deleteQuestion(question.getId(), student, true);
+            try (Connection conn = dbHelper.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM cse360users WHERE userName LIKE 'rank%" + suffix + "'");
+            }
+        }
+    }
+
+    /**
+     * Test 2: Verify that answers with equal scores keep their posting order, that unscored
+     * answers come last, that reviews by reviewers the student does not trust add nothing even
+     * when another student trusts them, and that trusting a reviewer later counts their earlier
+     * reviews.
+     */
+    @Test
+    public void testTiesAndUntrustedReviewers() throws SQLException {
+        String suffix = String.valueOf(System.nanoTime() % 100000);
+        String student = "tieStudent" + suffix;
+        String otherStudent = "tieOtherStudent" + suffix;
+        String trustedA = "tieReviewerA" + suffix;
+        String trustedB = "tieReviewerB" + suffix;
+        String untrusted = "tieReviewerC" + suffix;
+        for (String user : Arrays.asList(student, otherStudent)) {
+            dbHelper.register(new User(user, "Passw0rd!", "user"));
+        }
+        for (String user : Arrays.asList(trustedA, trustedB, untrusted)) {
+            dbHelper.register(new User(user, "Passw0rd!", "reviewer"));
+        }
+        QuestionManager questionManager = new QuestionManager(dbHelper);
+        Question question = new Question(0, "Tie check " + suffix, student);
+        assertTrue("Question should be saved", questionManager.saveQuestion(question));
+        try {
+            AnswerManager answerManager = new AnswerManager(dbHelper);
+            ReviewManager reviewManager = new ReviewManager(dbHelper);
+            TrustedReviewerManager trustedManager = new TrustedReviewerManager(dbHelper);
+            AnswerRanking ranking = new AnswerRanking(dbHelper);
+            List<Answer> answers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Answer answer = new Answer(0, "Tie answer " + i + " " + suffix, otherStudent, question.getId());
+                assertTrue(answerManager.saveAnswer(answer));
+                answers.add(answer);
+            }
+
+            trustedManager.addTrustedReviewer(student, trustedA, 2.0);
+            trustedManager.addTrustedReviewer(student, trustedB, 2.0);
+            trustedManager.addTrustedReviewer(otherStudent, untrusted, 5.0);
+            reviewManager.saveReview(new Review(0, "Good", trustedB, answers.get(3).getId()));
+            reviewManager.saveReview(new Review(0, "Good", trustedA, answers.get(1).getId()));
+            reviewManager.saveReview(new Review(0, "Best", untrusted, answers.get(0).getId()));
+            reviewManager.saveReview(new Review(0, "Best again", untrusted, answers.get(0).getId()));
+
+            Map<Integer, Double> scores = ranking.getScores(student, question.getId());
+            assertEquals("Only the trusted reviews should count", 2, scores.size());
+            assertFalse(scores.containsKey(answers.get(0).getId()));
+            assertEquals(10.0, ranking.getScores(otherStudent, question.getId()).get(answers.get(0).getId()), 1e-9);
+
+            List<Answer> shuffled = Arrays.asList(answers.get(2), answers.get(3), answers.get(0), answers.get(1));
+            List<Answer> ranked = AnswerRanking.rank(shuffled, scores);
+            assertEquals("Tied answers should keep posting order, then the unscored ones",
+                    Arrays.asList(answers.get(1), answers.get(3), answers.get(0), answers.get(2)), ranked);
+            assertEquals("The input should not be reordered", answers.get(2), shuffled.get(0));
+            assertEquals(answers, AnswerRanking.rank(answers, new HashMap<>()));
+
+            trustedManager.addTrustedReviewer(student, untrusted, 1.0);
+            scores = ranking.getScores(student, question.getId());
+            assertEquals("Both earlier reviews should count once trusted", 2.0, scores.get(answers.get(0).getId()), 1e-9);
+            assertEquals(Arrays.asList(answers.get(0), answers.get(1), answers.get(3), answers.get(2)),
+                    AnswerRanking.rank(answers, scores));
+            assertTrue(trustedManager.removeTrustedReviewer(student, untrusted));
+            assertFalse("Removing trust should drop the score row",
+                    ranking.getScores(student, question.getId()).containsKey(answers.get(0).getId()));
+        } finally {
+            questionManager.deleteQuestion(question.getId(), student, true);
+            try (Connection conn = dbHelper.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM cse360users WHERE userName LIKE 'tie%" + suffix + "'");
+            }
+        }
+    }
+}
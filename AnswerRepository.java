@@ -0,0 +1,64 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage of the answers to main questions. Lists are in ID order.
+ */
+public interface AnswerRepository {
+
+    /**
+     * Stores a new answer and sets its ID. JdbcRepositories also queues it for every
+     * reviewer in the same transaction.
+     * @param answer the answer to store
+     * @return true if it was stored, false if the author already gave the question an answer with the same text
+     * @throws SQLException if the question does not exist or the answer cannot be stored
+     */
+    boolean insert(Answer answer) throws SQLException;
+
+    /**
+     * @param id the answer ID
+     * @return the answer, or null if there is none
+     */
+    Answer findById(int id) throws SQLException;
+
+    /**
+     * @param questionId the question ID
+     * @return the answers to the question
+     */
+    List<Answer> findByQuestion(int questionId) throws SQLException;
+
+    /**
+     * @param questionId the question ID
+     * @param afterId the ID of the last answer of the previous page, or 0 for the first page
+     * @param limit the maximum number of answers to return
+     * @return at most limit answers to the question with IDs above afterId
+     */
+    List<Answer> findPage(int questionId, int afterId, int limit) throws SQLException;
+
+    /**
+     * @param questionId the question ID
+     * @return the number of answers to the question
+     */
+    int countByQuestion(int questionId) throws SQLException;
+
+    /**
+     * @param author the author's username
+     * @return the author's answers
+     */
+    List<Answer> findByAuthor(String author) throws SQLException;
+
+    /**
+     * Replaces the text of an answer if it was written by the given author.
+     * @return true if the answer was changed, false if not or if the author already posted the new
+     *         text to the same question
+     */
+    boolean updateText(int id, String text, String author) throws SQLException;
+
+    /**
+     * Deletes an answer with its reviews.
+     * @return true if the answer existed
+     */
+    boolean delete(int id) throws SQLException;
+}
@@ -0,0 +1,205 @@
+package application;
+
+import javafx.application.Platform;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The AsyncDataAccess class runs database work off the JavaFX Application Thread and hands the
+ * results back to it through Platform.runLater.
+ *
+ * At most maxConcurrency queries run at once, matching the size of the connection pool. Where the
+ * runtime offers virtual threads each query gets its own; otherwise a fixed pool of daemon
+ * threads with a bounded queue is used. Requests made under the same key supersede each other:
+ * the older one is cancelled if it has not started, and its result is dropped if it has.
+ */
+public class AsyncDataAccess {
+    // Maximum number of queries waiting for a platform thread before new ones are rejected.
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * A unit of database work.
+     * @param <T> the result type
+     */
+    public interface Query<T> {
+        T run() throws SQLException;
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Executor resultExecutor;
+    private final Map<String, CompletableFuture<?>> latest = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an executor whose results are delivered on the JavaFX Application Thread.
+     * @param maxConcurrency the maximum number of queries running at once
+     */
+    public AsyncDataAccess(int maxConcurrency) {
+        this(maxConcurrency, Platform::runLater);
+    }
+
+    /**
+     * Creates an executor.
+     * @param maxConcurrency the maximum number of queries running at once
+     * @param resultExecutor where result callbacks run
+     */
+    public AsyncDataAccess(int maxConcurrency, Executor resultExecutor) {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) {
+            this.executor = virtual;
+            this.permits = new Semaphore(maxConcurrency);
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                        Thread t = new Thread(r, "data-access-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.permits = null;
+        }
+        this.resultExecutor = resultExecutor;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() exists from Java 21; the code targets Java 11.
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs a query on the data access executor.
+     * A query cancelled before it starts never runs.
+     * @param query the work to run
+     * @return a future completed with the query's result
+     */
+    public <T> CompletableFuture<T> supply(Query<T> query) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                boolean acquired = false;
+                try {
+                    if (permits != null) {
+                        permits.acquire();
+                        acquired = true;
+                    }
+                    if (!future.isDone()) {
+                        future.complete(query.run());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.cancel(false);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    if (acquired) {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Delivers the result of a future to the UI thread. Cancelled futures deliver nothing.
+     * @param future the pending result
+     * @param onResult called with the result on the UI thread
+     * @param onError called with the failure on the UI thread
+     */
+    public <T> void deliver(CompletableFuture<T> future, Consumer<? super T> onResult, Consumer<Throwable> onError) {
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            resultExecutor.execute(() -> {
+                if (error == null) {
+                    onResult.accept(result);
+                } else {
+                    onError.accept(unwrap(error));
+                }
+            });
+        });
+    }
+
+    /**
+     * Delivers the result of a future to the UI thread, printing failures.
+     * @param future the pending result
+     * @param onResult called with the result on the UI thread
+     */
+    public <T> void deliver(CompletableFuture<T> future, Consumer<? super T> onResult) {
+        deliver(future, onResult, Throwable::printStackTrace);
+    }
+
+    /**
+     * Delivers the result of a future to the UI thread unless a newer request was made under the
+     * same key in the meantime. The previous request under the key is cancelled.
+     * @param key identifies the view the result is for, such as "search.questions"
+     * @param future the pending result
+     * @param onResult called with the result on the UI thread
+     * @param onError called with the failure on the UI thread
+     */
+    public <T> void deliverLatest(String key, CompletableFuture<T> future, Consumer<? super T> onResult, Consumer<Throwable> onError) {
+        CompletableFuture<?> previous = latest.put(key, future);
+        if (previous != null && previous != future) {
+            previous.cancel(false);
+        }
+        deliver(future, result -> {
+            if (latest.remove(key, future)) {
+                onResult.accept(result);
+            }
+        }, error -> {
+            if (latest.remove(key, future)) {
+                onError.accept(error);
+            }
+        });
+    }
+
+    /**
+     * Delivers the result of a future to the UI thread unless it was superseded, printing failures.
+     * @param key identifies the view the result is for
+     * @param future the pending result
+     * @param onResult called with the result on the UI thread
+     */
+    public <T> void deliverLatest(String key, CompletableFuture<T> future, Consumer<? super T> onResult) {
+        deliverLatest(key, future, onResult, Throwable::printStackTrace);
+    }
+
+    /**
+     * Stops accepting work and interrupts running queries.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
@@ -0,0 +1,752 @@
+package application;
+
+import databasePart1.ContentHash;
+import databasePart1.DatabaseHelper;
+import databasePart1.SchemaMigrator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The BulkTransfer class streams users, questions, clarification questions, answers and reviews
+ * between the database and JSONL or CSV files, for moving course content from one term to the next.
+ *
+ * Imports read the file one record at a time and insert in JDBC batches, committing once per chunk,
+ * so a failed chunk rolls back on its own and memory use does not grow with the file. Exports page
+ * through the table by id and write each row as it is read. Rows keep their ids, so answers still
+ * point at their questions after a round trip; import parents before children.
+ *
+ * Usage: BulkTransfer import|export users|questions|subsetquestions|answers|reviews file.jsonl|file.csv [chunkSize]
+ */
+public class BulkTransfer {
+    /** Rows per batch and per transaction when none is given. */
+    public static final int DEFAULT_CHUNK_SIZE = 5000;
+
+    private enum Type { INT, DOUBLE, BOOLEAN, STRING }
+
+    /**
+     * A column that is imported and exported, with the value used when a record leaves it out.
+     */
+    private static final class Column {
+        final String name;
+        final Type type;
+        final Object defaultValue;
+
+        Column(String name, Type type, Object defaultValue) {
+            this.name = name;
+            this.type = type;
+            this.defaultValue = defaultValue;
+        }
+    }
+
+    /**
+     * The tables that can be transferred. The first column is always the id.
+     */
+    public enum Entity {
+        USERS("cse360users", null,
+            new Column("id", Type.INT, null),
+            new Column("userName", Type.STRING, null),
+            new Column("password", Type.STRING, null),
+            new Column("role", Type.STRING, null),
+            new Column("rating", Type.DOUBLE, 0.0)),
+        QUESTIONS("questions", new String[] { "text", "author" },
+            new Column("id", Type.INT, null),
+            new Column("text", Type.STRING, null),
+            new Column("author", Type.STRING, null)),
+        SUBSET_QUESTIONS("subSetQuestions", null,
+            new Column("id", Type.INT, null),
+            new Column("qID", Type.INT, null),
+            new Column("text", Type.STRING, null),
+            new Column("author", Type.STRING, null)),
+        ANSWERS("answers", new String[] { "text", "author", "questionId" },
+            new Column("id", Type.INT, null),
+            new Column("text", Type.STRING, null),
+            new Column("author", Type.STRING, null),
+            new Column("questionId", Type.INT, null),
+            new Column("resolved", Type.BOOLEAN, false),
+            new Column("superliked", Type.BOOLEAN, false)),
+        REVIEWS("reviews", null,
+            new Column("id", Type.INT, null),
+            new Column("text", Type.STRING, null),
+            new Column("author", Type.STRING, null),
+            new Column("answerId", Type.INT, null));
+
+        private final String table;
+        private final String[] hashColumns;    // Fields of the contentHash, in the managers' order
+        private final Column[] columns;
+
+        Entity(String table, String[] hashColumns, Column... columns) {
+            this.table = table;
+            this.hashColumns = hashColumns;
+            this.columns = columns;
+        }
+
+        public String getTable() { return table; }
+
+        /**
+         * @param name an entity name such as "answers" or "subsetquestions"
+         * @return the entity
+         */
+        public static Entity fromName(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace("_", "").replace("SUBSET", "SUBSET_"));
+        }
+    }
+
+    /**
+     * The file formats, chosen by file extension.
+     */
+    public enum Format {
+        JSONL, CSV;
+
+        /**
+         * @param file a path ending in .jsonl (or .json) or .csv
+         * @return the format of the file
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".json")) {
+                return JSONL;
+            }
+            throw new IllegalArgumentException("Unknown file format: " + file);
+        }
+    }
+
+    /**
+     * How many rows a transfer moved and how long it took.
+     */
+    public static final class Report {
+        private final Entity entity;
+        private final String direction;
+        private final long rows;
+        private final long nanos;
+
+        Report(Entity entity, String direction, long rows, long nanos) {
+            this.entity = entity;
+            this.direction = direction;
+            this.rows = rows;
+            this.nanos = nanos;
+        }
+
+        public Entity getEntity() { return entity; }
+        public long getRows() { return rows; }
+        public double getSeconds() { return nanos / 1e9; }
+        public double getRowsPerSecond() { return nanos == 0 ? 0 : rows * 1e9 / nanos; }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %d %s in %.2f s (%.0f rows/s)", direction, rows,
+                    entity.getTable(), getSeconds(), getRowsPerSecond());
+        }
+    }
+
+    private final DatabaseHelper databaseHelper;
+    private final int chunkSize;
+
+    /**
+     * Constructor to initialize the BulkTransfer with the default chunk size.
+     * @param databaseHelper the database helper instance
+     */
+    public BulkTransfer(DatabaseHelper databaseHelper) {
+        this(databaseHelper, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor to initialize the BulkTransfer.
+     * @param databaseHelper the database helper instance
+     * @param chunkSize rows per batch and per transaction
+     */
+    public BulkTransfer(DatabaseHelper databaseHelper, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.databaseHelper = databaseHelper;
+        this.chunkSize = chunkSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: BulkTransfer import|export users|questions|subsetquestions|answers|reviews "
+                    + "file.jsonl|file.csv [chunkSize]");
+            System.exit(2);
+        }
+        DatabaseHelper databaseHelper = new DatabaseHelper();
+        databaseHelper.connectToDatabase();
+        try {
+            BulkTransfer transfer = new BulkTransfer(databaseHelper,
+                    args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_CHUNK_SIZE);
+            Entity entity = Entity.fromName(args[1]);
+            Path file = Paths.get(args[2]);
+            Report report = "export".equals(args[0]) ? transfer.exportFile(entity, file) : transfer.importFile(entity, file);
+            System.out.println(report);
+        } finally {
+            databaseHelper.closeConnection();
+        }
+    }
+
+    /**
+     * Imports a JSONL or CSV file into a table. Records without an id get a generated one; records
+     * with an id keep it, and the table's id sequence is moved past the largest one afterwards.
+     * @param entity the table to load
+     * @param file the file to read
+     * @return the number of rows loaded and the rate
+     * @throws IOException if the file cannot be read or a record is malformed
+     * @throws SQLException if a chunk cannot be inserted; earlier chunks stay committed
+     */
+    public Report importFile(Entity entity, Path file) throws IOException, SQLException {
+        long start = System.nanoTime();
+        long rows = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             Connection conn = databaseHelper.getConnection()) {
+            RecordReader records = Format.of(file) == Format.CSV ? new CsvRecordReader(reader) : new JsonRecordReader(reader);
+            Map<String, Object> record = records.next();
+            if (record == null) {
+                return new Report(entity, "Imported", 0, System.nanoTime() - start);
+            }
+            boolean withIds = record.get("id") != null;
+            int first = withIds ? 0 : 1;
+            StringBuilder names = new StringBuilder();
+            StringBuilder marks = new StringBuilder();
+            for (int c = first; c < entity.columns.length; c++) {
+                names.append(entity.columns[c].name).append(", ");
+                marks.append("?, ");
+            }
+            if (entity.hashColumns != null) {
+                names.append("contentHash, ");
+                marks.append("?, ");
+            }
+            String insert = "INSERT INTO " + entity.table + " (" + names.substring(0, names.length() - 2)
+                    + ") VALUES (" + marks.substring(0, marks.length() - 2) + ")";
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(insert)) {
+                Object[] values = new Object[entity.columns.length];
+                int pending = 0;
+                while (record != null) {
+                    for (int c = 0; c < entity.columns.length; c++) {
+                        values[c] = convert(entity.columns[c], record.get(entity.columns[c].name), records.getRecordNumber());
+                    }
+                    int p = 1;
+                    for (int c = first; c < entity.columns.length; c++) {
+                        pstmt.setObject(p++, values[c]);
+                    }
+                    if (entity.hashColumns != null) {
+                        Object[] fields = new Object[entity.hashColumns.length];
+                        for (int h = 0; h < fields.length; h++) {
+                            fields[h] = values[indexOf(entity, entity.hashColumns[h])];
+                        }
+                        pstmt.setString(p, ContentHash.of(fields));
+                    }
+                    pstmt.addBatch();
+                    rows++;
+                    if (++pending == chunkSize) {
+                        commitChunk(conn, pstmt, rows);
+                        pending = 0;
+                    }
+                    record = records.next();
+                }
+                if (pending > 0) {
+                    commitChunk(conn, pstmt, rows);
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            if (withIds) {
+                restartIdentity(conn, entity.table);
+            }
+        }
+        afterImport(entity);
+        return new Report(entity, "Imported", rows, System.nanoTime() - start);
+    }
+
+    /**
+     * Exports a table to a JSONL or CSV file, reading it a chunk of rows at a time by id.
+     * @param entity the table to export
+     * @param file the file to write, replaced if it exists
+     * @return the number of rows written and the rate
+     * @throws IOException if the file cannot be written
+     * @throws SQLException if the table cannot be read
+     */
+    public Report exportFile(Entity entity, Path file) throws IOException, SQLException {
+        long start = System.nanoTime();
+        long rows = 0;
+        boolean csv = Format.of(file) == Format.CSV;
+        StringBuilder names = new StringBuilder();
+        for (Column column : entity.columns) {
+            names.append(names.length() == 0 ? "" : ", ").append(column.name);
+        }
+        String page = "SELECT " + names + " FROM " + entity.table + " WHERE id > ? ORDER BY id LIMIT ?";
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(page)) {
+            if (csv) {
+                for (int c = 0; c < entity.columns.length; c++) {
+                    writer.write(c == 0 ? "" : ",");
+                    writeCsv(writer, entity.columns[c].name);
+                }
+                writer.write('\n');
+            }
+            int lastId = Integer.MIN_VALUE;
+            int read;
+            pstmt.setInt(2, chunkSize);
+            do {
+                pstmt.setInt(1, lastId);
+                read = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = rs.getInt(1);
+                        if (csv) {
+                            writeCsvRow(writer, entity, rs);
+                        } else {
+                            writeJsonRow(writer, entity, rs);
+                        }
+                        read++;
+                    }
+                }
+                rows += read;
+            } while (read == chunkSize);
+        }
+        return new Report(entity, "Exported", rows, System.nanoTime() - start);
+    }
+
+    private static void commitChunk(Connection conn, PreparedStatement pstmt, long rows) throws SQLException {
+        try {
+            pstmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Chunk ending at record " + rows + " failed: " + e.getMessage(), e.getSQLState(), e);
+        }
+    }
+
+    // Moves the id sequence past imported ids, so rows inserted later do not collide with them.
+    private static void restartIdentity(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            int next = 1;
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+                if (rs.next()) {
+                    next = rs.getInt(1);
+                }
+            }
+            stmt.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+        }
+    }
+
+    // Brings the caches, review queues, answer scores and reviewer statistics that the managers keep up to date in line with the import.
+    private void afterImport(Entity entity) throws SQLException {
+        ReviewQueue reviewQueue = new ReviewQueue(databaseHelper);
+        databaseHelper.getContentCache().invalidateAll();
+        switch (entity) {
+        case USERS:
+            databaseHelper.getUserDirectory().invalidateAll();
+            break;
+        case REVIEWS:
+            reviewQueue.removeReviewed();
+            try (Connection conn = databaseHelper.getConnection()) {
+                SchemaMigrator.rebuildAnswerScores(conn);
+                SchemaMigrator.rebuildReviewerStats(conn);
+            }
+            return;
+        case SUBSET_QUESTIONS:
+            databaseHelper.getSearchIndex().invalidate();
+            return;
+        default:
+            databaseHelper.getSearchIndex().invalidate();
+            break;
+        }
+        // New questions, answers or reviewers: queue what each reviewer has not reviewed yet.
+        List<String> reviewers = new ArrayList<>();
+        try (Connection conn = databaseHelper.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT userName FROM cse360users WHERE role = 'reviewer'")) {
+            while (rs.next()) {
+                reviewers.add(rs.getString(1));
+            }
+        }
+        for (String reviewer : reviewers) {
+            reviewQueue.enqueueAllFor(reviewer);
+        }
+    }
+
+    private static int indexOf(Entity entity, String name) {
+        for (int c = 0; c < entity.columns.length; c++) {
+            if (entity.columns[c].name.equals(name)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static Object convert(Column column, Object raw, long recordNumber) throws IOException {
+        if (raw == null || (column.type != Type.STRING && "".equals(raw))) {
+            return column.defaultValue;
+        }
+        try {
+            switch (column.type) {
+            case INT:
+                return raw instanceof Number ? ((Number) raw).intValue() : Integer.parseInt(raw.toString().trim());
+            case DOUBLE:
+                return raw instanceof Number ? ((Number) raw).doubleValue() : Double.parseDouble(raw.toString().trim());
+            case BOOLEAN:
+                if (raw instanceof Boolean) {
+                    return raw;
+                }
+                String text = raw.toString().trim();
+                return "true".equalsIgnoreCase(text) || "1".equals(text);
+            default:
+                return raw.toString();
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Record " + recordNumber + ": " + column.name + " is not a number: " + raw);
+        }
+    }
+
+    private static Object read(Column column, ResultSet rs, int index) throws SQLException {
+        Object value;
+        switch (column.type) {
+        case INT:
+            value = rs.getInt(index);
+            break;
+        case DOUBLE:
+            value = rs.getDouble(index);
+            break;
+        case BOOLEAN:
+            value = rs.getBoolean(index);
+            break;
+        default:
+            value = rs.getString(index);
+            break;
+        }
+        return rs.wasNull() ? null : value;
+    }
+
+    private static void writeJsonRow(Writer writer, Entity entity, ResultSet rs) throws IOException, SQLException {
+        writer.write('{');
+        for (int c = 0; c < entity.columns.length; c++) {
+            Column column = entity.columns[c];
+            if (c > 0) {
+                writer.write(',');
+            }
+            writeJsonString(writer, column.name);
+            writer.write(':');
+            Object value = read(column, rs, c + 1);
+            if (value instanceof String) {
+                writeJsonString(writer, (String) value);
+            } else {
+                writer.write(String.valueOf(value));
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+            case '"': writer.write("\\\""); break;
+            case '\\': writer.write("\\\\"); break;
+            case '\n': writer.write("\\n"); break;
+            case '\r': writer.write("\\r"); break;
+            case '\t': writer.write("\\t"); break;
+            default:
+                if (ch < 0x20) {
+                    writer.write(String.format("\\u%04x", (int) ch));
+                } else {
+                    writer.write(ch);
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static void writeCsvRow(Writer writer, Entity entity, ResultSet rs) throws IOException, SQLException {
+        for (int c = 0; c < entity.columns.length; c++) {
+            if (c > 0) {
+                writer.write(',');
+            }
+            Object value = read(entity.columns[c], rs, c + 1);
+            if (value != null) {
+                writeCsv(writer, value.toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeCsv(Writer writer, String value) throws IOException {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Reads one record at a time from a file.
+     */
+    private interface RecordReader {
+        /** @return the next record keyed by column name, or null at the end of the file */
+        Map<String, Object> next() throws IOException;
+
+        /** @return the 1-based number of the last record returned */
+        long getRecordNumber();
+    }
+
+    /**
+     * Reads CSV with a header row. Quoted fields may contain commas, quotes ("") and line breaks.
+     * An unquoted empty field is null; a quoted empty field is the empty string.
+     */
+    private static final class CsvRecordReader implements RecordReader {
+        private final BufferedReader reader;
+        private final List<String> header;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private long recordNumber = 0;
+
+        CsvRecordReader(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            this.header = readRow() ? new ArrayList<>(fields) : new ArrayList<>();
+        }
+
+        @Override
+        public Map<String, Object> next() throws IOException {
+            if (!readRow()) {
+                return null;
+            }
+            recordNumber++;
+            if (fields.size() != header.size()) {
+                throw new IOException("Record " + recordNumber + " has " + fields.size() + " fields, expected " + header.size());
+            }
+            Map<String, Object> record = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                record.put(header.get(i), fields.get(i));
+            }
+            return record;
+        }
+
+        @Override
+        public long getRecordNumber() {
+            return recordNumber;
+        }
+
+        // Reads the fields of the next non-blank row; false at the end of the file.
+        private boolean readRow() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            int ch = reader.read();
+            while (ch == '\n' || ch == '\r') {
+                ch = reader.read();
+            }
+            if (ch == -1) {
+                return false;
+            }
+            while (true) {
+                if (quoted) {
+                    if (ch == -1) {
+                        throw new IOException("Unterminated quoted field after record " + recordNumber);
+                    }
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int nextCh = reader.read();
+                        if (nextCh == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (ch == ',' || ch == '\n' || ch == '\r' || ch == -1) {
+                    fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+                    field.setLength(0);
+                    wasQuoted = false;
+                    if (ch != ',') {
+                        return true;
+                    }
+                } else {
+                    field.append((char) ch);
+                }
+                ch = reader.read();
+            }
+        }
+    }
+
+    /**
+     * Reads one flat JSON object per line. Values may be strings, numbers, true, false or null.
+     */
+    private static final class JsonRecordReader implements RecordReader {
+        private final BufferedReader reader;
+        private long recordNumber = 0;
+        private String line;
+        private int pos;
+
+        JsonRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, Object> next() throws IOException {
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.trim().isEmpty());
+            recordNumber++;
+            pos = 0;
+            Map<String, Object> record = new HashMap<>();
+            expect('{');
+            skipSpace();
+            if (peek() == '}') {
+                return record;
+            }
+            while (true) {
+                skipSpace();
+                String name = readString();
+                expect(':');
+                record.put(name, readValue());
+                skipSpace();
+                char ch = take();
+                if (ch == '}') {
+                    return record;
+                }
+                if (ch != ',') {
+                    throw error("expected ',' or '}'");
+                }
+            }
+        }
+
+        @Override
+        public long getRecordNumber() {
+            return recordNumber;
+        }
+
+        private Object readValue() throws IOException {
+            skipSpace();
+            char ch = peek();
+            if (ch == '"') {
+                return readString();
+            }
+            if (line.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            if (line.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            }
+            if (line.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            }
+            int start = pos;
+            while (pos < line.length() && "+-0123456789.eE".indexOf(line.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("expected a value");
+            }
+            String number = line.substring(start, pos);
+            try {
+                if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                    return Long.parseLong(number);
+                }
+                return Double.parseDouble(number);
+            } catch (NumberFormatException e) {
+                throw error("bad number " + number);
+            }
+        }
+
+        private String readString() throws IOException {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char ch = take();
+                if (ch == '"') {
+                    return value.toString();
+                }
+                if (ch != '\\') {
+                    value.append(ch);
+                    continue;
+                }
+                char escaped = take();
+                switch (escaped) {
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (pos + 4 > line.length()) {
+                        throw error("bad unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("bad unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default: value.append(escaped); break;
+                }
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            skipSpace();
+            if (take() != expected) {
+                throw error("expected '" + expected + "'");
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() throws IOException {
+            if (pos >= line.length()) {
+                throw error("unexpected end of line");
+            }
+            return line.charAt(pos);
+        }
+
+        private char take() throws IOException {
+            char ch = peek();
+            pos++;
+            return ch;
+        }
+
+        private IOException error(String message) {
+            return new IOException("Record " + recordNumber + ", column " + (pos + 1) + ": " + message);
+        }
+    }
+}
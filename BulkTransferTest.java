@@ -0,0 +1,177 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * BulkTransferTest
+ *
+ * This class contains automated JUnit tests to verify the bulk import and export of tables:
+ * JSONL and CSV round trips between two databases, the rollback of a failed chunk alone, and
+ * the id sequence moved past imported ids.
+ */
+public class BulkTransferTest {
+
+    // Text with the characters both formats have to quote or escape.
+    private static final String AWKWARD_TEXT = "Quotes \"here\", a comma,\nnew line, tab\tand é";
+
+    private DatabaseHelper source;
+    private Path directory;
+
+    /**
+     * Setup method to open an empty source database and a directory for the files.
+     */
+    @Before
+    public void setup() throws Exception {
+        source = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        source.connectToDatabase();
+        directory = Files.createTempDirectory("bulk-transfer-test");
+    }
+
+    /**
+     * Cleanup method to close the database and delete the files.
+     */
+    @After
+    public void cleanup() throws IOException {
+        source.closeConnection();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Test 1: Verify that questions and answers exported to JSONL and imported into another
+     * database keep their ids, text and flags, and export to the same file again.
+     */
+    @Test
+    public void testJsonlRoundTrip() throws Exception {
+        assertRoundTrip("jsonl");
+    }
+
+    /**
+     * Test 2: Verify the same round trip through CSV, whose quoted fields carry commas, quotes
+     * and line breaks.
+     */
+    @Test
+    public void testCsvRoundTrip() throws Exception {
+        assertRoundTrip("csv");
+    }
+
+    /**
+     * Test 3: Verify that a chunk that fails is rolled back on its own, leaving the chunks before
+     * it committed.
+     */
+    @Test
+    public void testFailedChunkRollsBackAlone() throws Exception {
+        Path file = directory.resolve("questions.jsonl");
+        Files.write(file, Arrays.asList(
+                "{\"text\":\"First\",\"author\":\"alice\"}",
+                "{\"text\":\"Second\",\"author\":\"alice\"}",
+                "{\"text\":\"Third\",\"author\":\"alice\"}",
+                "{\"text\":\"Third\",\"author\":\"alice\"}",
+                "{\"text\":\"Fifth\",\"author\":\"alice\"}"), StandardCharsets.UTF_8);
+        try {
+            new BulkTransfer(source, 2).importFile(BulkTransfer.Entity.QUESTIONS, file);
+            fail("The duplicate in the second chunk should fail the import");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Chunk ending at record 4 failed"));
+        }
+        List<Question> questions = source.getRepositories().questions().findAll();
+        assertEquals("Only the first chunk should be committed", 2, questions.size());
+        assertEquals("First", questions.get(0).getText());
+        assertEquals("Second", questions.get(1).getText());
+    }
+
+    /**
+     * Test 4: Verify that importing rows with ids moves the id sequence past the largest one, so
+     * the next question saved does not collide with an imported one.
+     */
+    @Test
+    public void testImportedIdsRestartIdentity() throws Exception {
+        Path file = directory.resolve("questions.csv");
+        Files.write(file, Arrays.asList(
+                "id,text,author",
+                "10,Imported ten,alice",
+                "20,Imported twenty,bob"), StandardCharsets.UTF_8);
+        BulkTransfer.Report report = new BulkTransfer(source).importFile(BulkTransfer.Entity.QUESTIONS, file);
+        assertEquals(2, report.getRows());
+
+        Question saved = new Question(0, "Saved after the import", "alice");
+        assertTrue(new QuestionManager(source).saveQuestion(saved));
+        assertEquals(21, saved.getId());
+        assertEquals("Imported twenty", source.getRepositories().questions().findById(20).getText());
+    }
+
+    // Exports questions and answers from the source, imports them into a new database and exports again.
+    private void assertRoundTrip(String extension) throws Exception {
+        QuestionManager questionManager = new QuestionManager(source);
+        AnswerManager answerManager = new AnswerManager(source);
+        Question first = new Question(0, AWKWARD_TEXT, "alice");
+        Question second = new Question(0, "Plain question", "bob");
+        assertTrue(questionManager.saveQuestion(first));
+        assertTrue(questionManager.saveQuestion(second));
+        questionManager.deleteQuestion(first.getId(), "alice", false);
+        assertTrue(questionManager.saveQuestion(first));
+        Answer answer = new Answer(0, AWKWARD_TEXT, "bob", first.getId());
+        assertTrue(answerManager.saveAnswer(answer));
+        assertTrue(answerManager.saveAnswer(new Answer(0, "Plain answer", "alice", second.getId())));
+        try (Connection conn = source.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE answers SET superliked = TRUE WHERE id = " + answer.getId());
+        }
+
+        Path questionsOut = directory.resolve("questions." + extension);
+        Path answersOut = directory.resolve("answers." + extension);
+        BulkTransfer exporter = new BulkTransfer(source, 1);
+        assertEquals(2, exporter.exportFile(BulkTransfer.Entity.QUESTIONS, questionsOut).getRows());
+        assertEquals(2, exporter.exportFile(BulkTransfer.Entity.ANSWERS, answersOut).getRows());
+
+        DatabaseHelper target = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        target.connectToDatabase();
+        try {
+            BulkTransfer transfer = new BulkTransfer(target);
+            transfer.importFile(BulkTransfer.Entity.QUESTIONS, questionsOut);
+            transfer.importFile(BulkTransfer.Entity.ANSWERS, answersOut);
+
+            Question copied = target.getRepositories().questions().findById(first.getId());
+            assertNotNull("The question should keep its id, which is not the first one", copied);
+            assertEquals(AWKWARD_TEXT, copied.getText());
+            List<Answer> answers = target.getRepositories().answers().findByQuestion(first.getId());
+            assertEquals(1, answers.size());
+            assertEquals(answer.getId(), answers.get(0).getId());
+            assertEquals(AWKWARD_TEXT, answers.get(0).getText());
+            assertTrue(answers.get(0).isSuperlike());
+            assertFalse("The content hash should come with the import",
+                    new QuestionManager(target).saveQuestion(new Question(0, AWKWARD_TEXT, "alice")));
+
+            Path questionsAgain = directory.resolve("questions-again." + extension);
+            Path answersAgain = directory.resolve("answers-again." + extension);
+            transfer.exportFile(BulkTransfer.Entity.QUESTIONS, questionsAgain);
+            transfer.exportFile(BulkTransfer.Entity.ANSWERS, answersAgain);
+            assertArrayEquals(Files.readAllBytes(questionsOut), Files.readAllBytes(questionsAgain));
+            assertArrayEquals(Files.readAllBytes(answersOut), Files.readAllBytes(answersAgain));
+        } finally {
+            target.closeConnection();
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class ChangePasswordPage {
             }
 
             // Validate new password format
-            String passwordValidation = PasswordEvaluator.evaluatePassword(newPassword);
+            String passwordValidation = PasswordEvaluator.evaluate(newPassword).getErrorMessage();
             if (!passwordValidation.isEmpty()) {
                 errorLabel.setText("Invalid password: " + passwordValidation);
                 return;
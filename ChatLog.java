@@ -0,0 +1,416 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+/**
+ * The ChatLog class stores the staff chat as an append-only log of messages, each identified by
+ * its offset: 0 for the first message ever posted, 1 for the next, and so on.
+ *
+ * The log is a directory of fixed-size segment files, each named after the offset of its first
+ * message and memory-mapped whole, so appending a message is a copy into memory and the operating
+ * system writes it out. When a segment is full the next message starts a new one. Next to each
+ * segment an index file, also memory-mapped, holds the byte position of every message in it, so
+ * a read from any offset goes straight to the message however long the history is.
+ *
+ * A record is its payload length, a CRC32 of the payload, and the payload: the time sent, the
+ * author and the text. The length is written last, so a record cut short by a crash reads as the
+ * end of the log, and on opening the newest segment is scanned and its index rebuilt up to the
+ * last complete record.
+ *
+ * Several instances of the application can share the directory, as they share the database in
+ * server mode. Appends are serialized across them by an exclusive lock on a lock file in the
+ * directory, and each instance first picks up the messages the others appended, so every message
+ * gets the next offset. Reads take no lock and see every message appended through this ChatLog
+ * before they start, and those of other instances up to the last append or refresh.
+ */
+public class ChatLog implements AutoCloseable {
+    /** Size of a segment file in bytes. */
+    public static final int DEFAULT_SEGMENT_BYTES = 8 * 1024 * 1024;
+
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String LOCK_FILE = "chat.lock";
+    // Payload length and CRC32.
+    private static final int HEADER_BYTES = 8;
+    // Time sent and author length.
+    private static final int FIXED_PAYLOAD_BYTES = 10;
+    // Index capacity as a fraction of the segment: one four-byte entry per 32 bytes.
+    private static final int BYTES_PER_INDEX_ENTRY = 32;
+    // A file lock is held per JVM, so logs in one JVM on the same directory take turns on these first.
+    private static final ConcurrentHashMap<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * A message read from the log.
+     */
+    public static final class Entry {
+        private final long offset;
+        private final long sentAtMillis;
+        private final String author;
+        private final String text;
+
+        Entry(long offset, long sentAtMillis, String author, String text) {
+            this.offset = offset;
+            this.sentAtMillis = sentAtMillis;
+            this.author = author;
+            this.text = text;
+        }
+
+        public long getOffset() { return offset; }
+        public String getAuthor() { return author; }
+        public String getText() { return text; }
+        public LocalDateTime getSentAt() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(sentAtMillis), ZoneId.systemDefault());
+        }
+    }
+
+    private static final class Segment {
+        final long baseOffset;
+        final MappedByteBuffer log;
+        final MappedByteBuffer index;
+        final int maxRecords;
+        // Written by the appending thread only; readers go by nextOffset.
+        int size = 0;
+        int count = 0;
+
+        Segment(long baseOffset, MappedByteBuffer log, MappedByteBuffer index) {
+            this.baseOffset = baseOffset;
+            this.log = log;
+            this.index = index;
+            this.maxRecords = index.capacity() / 4;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final FileChannel lockChannel;
+    private final Object jvmLock;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private Segment active;
+    // Published after each append, so a reader that sees an offset below it sees its record.
+    private volatile long nextOffset;
+    private boolean closed = false;
+
+    /**
+     * Opens the log in a directory with the default segment size, creating it if needed.
+     * @param directory where the segment files are kept
+     * @throws IOException if the files cannot be opened
+     */
+    public ChatLog(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens the log in a directory, creating it if needed.
+     * @param directory where the segment files are kept
+     * @param segmentBytes the size of new segment files
+     * @throws IOException if the files cannot be opened
+     */
+    public ChatLog(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < 1024) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        this.jvmLock = JVM_LOCKS.computeIfAbsent(directory.toAbsolutePath().normalize(), key -> new Object());
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            locked(() -> {
+                open();
+                return null;
+            });
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    // Maps the segments and recovers the newest. The caller holds the file lock, so no other
+    // instance is appending while the end of the log is found and cleared.
+    private void open() throws IOException {
+        TreeSet<Long> baseOffsets = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + LOG_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    baseOffsets.add(Long.parseLong(name.substring(0, name.length() - LOG_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not a segment file.
+                }
+            }
+        }
+        if (baseOffsets.isEmpty()) {
+            baseOffsets.add(0L);
+        }
+        for (long baseOffset : baseOffsets) {
+            Segment segment = mapSegment(baseOffset);
+            Long nextBase = baseOffsets.higher(baseOffset);
+            if (nextBase != null) {
+                // Sealed segments hold every offset up to the next one.
+                segment.count = (int) (nextBase - baseOffset);
+            }
+            segments.put(baseOffset, segment);
+        }
+        active = segments.lastEntry().getValue();
+        catchUp();
+    }
+
+    /**
+     * Appends a message. The message is in memory shared with the operating system when this
+     * returns; it is forced to disk when its segment fills up or the log is closed.
+     * @param author the username of the sender
+     * @param text the message
+     * @return the offset of the message
+     * @throws IOException if a new segment cannot be created
+     */
+    public synchronized long append(String author, String text) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Chat log is closed");
+        }
+        byte[] authorBytes = author.getBytes(StandardCharsets.UTF_8);
+        byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = FIXED_PAYLOAD_BYTES + authorBytes.length + textBytes.length;
+        if (authorBytes.length > Short.MAX_VALUE || HEADER_BYTES + payloadLength > segmentBytes) {
+            throw new IllegalArgumentException("Chat message too long");
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        payload.putLong(System.currentTimeMillis()).putShort((short) authorBytes.length).put(authorBytes).put(textBytes);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+
+        return locked(() -> {
+            catchUp();
+            Segment segment = active;
+            if (segment.count == segment.maxRecords || segment.size + HEADER_BYTES + payloadLength > segment.log.capacity()) {
+                segment = roll();
+            }
+            int position = segment.size;
+            ByteBuffer writer = segment.log.duplicate();
+            writer.position(position + HEADER_BYTES);
+            writer.put(payload.array());
+            writer.putInt(position + 4, (int) crc.getValue());
+            writer.putInt(position, payloadLength);
+            segment.index.putInt(segment.count * 4, position);
+            segment.size = position + HEADER_BYTES + payloadLength;
+            segment.count++;
+            long offset = nextOffset;
+            nextOffset = offset + 1;
+            return offset;
+        });
+    }
+
+    /**
+     * Picks up the messages other instances sharing the directory appended since this one last
+     * appended or refreshed, so the reads after it return them.
+     * @throws IOException if a segment another instance started cannot be opened
+     */
+    public synchronized void refresh() throws IOException {
+        if (closed) {
+            return;
+        }
+        locked(() -> {
+            catchUp();
+            return null;
+        });
+    }
+
+    // An action that needs the log to itself.
+    private interface LockedAction<T> {
+        T run() throws IOException;
+    }
+
+    // Runs the action holding this JVM's lock on the directory and then the lock file, so no
+    // other instance appends or recovers meanwhile.
+    private <T> T locked(LockedAction<T> action) throws IOException {
+        synchronized (jvmLock) {
+            FileLock lock = lockChannel.lock();
+            try {
+                return action.run();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * @return the directory of the segment files
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the offset the next message will get, which is also the number of messages
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * Reads messages in order starting at an offset, for example to resume after the last one seen.
+     * @param fromOffset the offset of the first message to return
+     * @param maxEntries the maximum number of messages to return
+     * @return the messages, empty if there are none from fromOffset on
+     */
+    public List<Entry> read(long fromOffset, int maxEntries) {
+        long end = nextOffset;
+        List<Entry> entries = new ArrayList<>();
+        for (long offset = Math.max(fromOffset, 0); offset < end && entries.size() < maxEntries; offset++) {
+            entries.add(readEntry(offset));
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the messages just before an offset, oldest first, for scrolling back.
+     * @param beforeOffset the offset after the last message to return
+     * @param maxEntries the maximum number of messages to return
+     * @return the messages
+     */
+    public List<Entry> readBefore(long beforeOffset, int maxEntries) {
+        long end = Math.min(beforeOffset, nextOffset);
+        long start = Math.max(0, end - maxEntries);
+        return read(start, (int) (end - start));
+    }
+
+    /**
+     * Reads the newest messages, oldest first.
+     * @param maxEntries the maximum number of messages to return
+     * @return the messages
+     */
+    public List<Entry> tail(int maxEntries) {
+        return readBefore(Long.MAX_VALUE, maxEntries);
+    }
+
+    /**
+     * Forces the open segment to disk and releases the lock file. Later appends are refused;
+     * reads still work.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            active.log.force();
+            active.index.force();
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private Entry readEntry(long offset) {
+        Map.Entry<Long, Segment> found = segments.floorEntry(offset);
+        Segment segment = found.getValue();
+        int position = segment.index.getInt((int) (offset - segment.baseOffset) * 4);
+        ByteBuffer record = segment.log.duplicate();
+        record.position(position);
+        int payloadLength = record.getInt();
+        record.getInt();
+        long sentAtMillis = record.getLong();
+        byte[] author = new byte[record.getShort()];
+        record.get(author);
+        byte[] text = new byte[payloadLength - FIXED_PAYLOAD_BYTES - author.length];
+        record.get(text);
+        return new Entry(offset, sentAtMillis, new String(author, StandardCharsets.UTF_8), new String(text, StandardCharsets.UTF_8));
+    }
+
+    // Reads the records appended to the open segment since it was last scanned, following it into
+    // the segments started after it, and publishes the new end. The caller holds the file lock.
+    private void catchUp() throws IOException {
+        scan(active);
+        // A segment is only started when the one before it has a record, so an empty one is the last.
+        while (active.count > 0 && Files.exists(segmentFile(active.baseOffset + active.count, LOG_SUFFIX))) {
+            Segment next = mapSegment(active.baseOffset + active.count);
+            segments.put(next.baseOffset, next);
+            active = next;
+            scan(active);
+        }
+        nextOffset = active.baseOffset + active.count;
+    }
+
+    // Seals the open segment and starts the next one at the current offset.
+    private Segment roll() throws IOException {
+        active.log.force();
+        active.index.force();
+        Segment next = mapSegment(nextOffset);
+        segments.put(next.baseOffset, next);
+        active = next;
+        return next;
+    }
+
+    // Maps a segment and its index, creating both at full size if they do not exist. An existing
+    // segment keeps the size it was created with.
+    private Segment mapSegment(long baseOffset) throws IOException {
+        Path logFile = segmentFile(baseOffset, LOG_SUFFIX);
+        Path indexFile = segmentFile(baseOffset, INDEX_SUFFIX);
+        int logBytes = Files.exists(logFile) && Files.size(logFile) > 0 ? (int) Files.size(logFile) : segmentBytes;
+        int indexBytes = logBytes / BYTES_PER_INDEX_ENTRY * 4;
+        return new Segment(baseOffset, map(logFile, logBytes), map(indexFile, indexBytes));
+    }
+
+    private Path segmentFile(long baseOffset, String suffix) {
+        return directory.resolve(String.format("%020d", baseOffset) + suffix);
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        // The mapping stays valid after the channel is closed.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    // Finds the complete records of the newest segment from where the last scan stopped and
+    // rebuilds their index entries, which may not have reached the disk. Anything after the last
+    // complete record, such as a record cut short by a crash, is cleared so a later append cannot
+    // end up in front of leftover bytes that look like a record.
+    private static void scan(Segment segment) {
+        ByteBuffer log = segment.log;
+        int position = segment.size;
+        int count = segment.count;
+        CRC32 crc = new CRC32();
+        while (position + HEADER_BYTES <= log.capacity() && count < segment.maxRecords) {
+            int payloadLength = log.getInt(position);
+            if (payloadLength < FIXED_PAYLOAD_BYTES || position + HEADER_BYTES + payloadLength > log.capacity()) {
+                break;
+            }
+            ByteBuffer payload = log.duplicate();
+            payload.position(position + HEADER_BYTES).limit(position + HEADER_BYTES + payloadLength);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != log.getInt(position + 4)) {
+                break;
+            }
+            segment.index.putInt(count * 4, position);
+            count++;
+            position += HEADER_BYTES + payloadLength;
+        }
+        if (position + HEADER_BYTES <= log.capacity() && log.getInt(position) != 0) {
+            for (int i = position; i < log.capacity(); i++) {
+                log.put(i, (byte) 0);
+            }
+        }
+        segment.size = position;
+        segment.count = count;
+    }
+}
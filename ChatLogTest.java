@@ -0,0 +1,228 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ChatLogTest
+ *
+ * This class contains automated JUnit tests to verify the staff chat log: appending and reading
+ * by offset, scrolling back, rolling over to new segments, recovering after a crash, sharing one
+ * directory between instances, and where DatabaseHelper keeps the log.
+ */
+public class ChatLogTest {
+
+    // The smallest segment ChatLog allows, so a few dozen messages fill several.
+    private static final int SMALL_SEGMENT = 1024;
+
+    private Path directory;
+
+    /**
+     * Setup method to create an empty directory for the log.
+     */
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("chat-log-test");
+    }
+
+    /**
+     * Cleanup method to delete the log files.
+     */
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Test 1: Verify that messages get consecutive offsets and are read back in order from any offset.
+     */
+    @Test
+    public void testAppendAndRead() throws IOException {
+        try (ChatLog log = new ChatLog(directory)) {
+            assertEquals(0, log.getNextOffset());
+            assertTrue(log.read(0, 10).isEmpty());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i, log.append("staff" + i, "Message " + i));
+            }
+            assertEquals(5, log.getNextOffset());
+
+            List<ChatLog.Entry> entries = log.read(2, 2);
+            assertEquals(2, entries.size());
+            assertEquals(2, entries.get(0).getOffset());
+            assertEquals("staff2", entries.get(0).getAuthor());
+            assertEquals("Message 3", entries.get(1).getText());
+            assertEquals(5, log.read(0, Integer.MAX_VALUE).size());
+            assertTrue(log.read(5, 10).isEmpty());
+        }
+    }
+
+    /**
+     * Test 2: Verify that readBefore and tail return the messages just before an offset, oldest first.
+     */
+    @Test
+    public void testReadBefore() throws IOException {
+        try (ChatLog log = new ChatLog(directory)) {
+            for (int i = 0; i < 10; i++) {
+                log.append("staff", "Message " + i);
+            }
+            List<ChatLog.Entry> before = log.readBefore(6, 3);
+            assertEquals(3, before.size());
+            assertEquals("Message 3", before.get(0).getText());
+            assertEquals("Message 5", before.get(2).getText());
+            assertEquals("Fewer messages than asked for should all be returned", 2, log.readBefore(2, 5).size());
+            assertTrue(log.readBefore(0, 5).isEmpty());
+
+            List<ChatLog.Entry> tail = log.tail(4);
+            assertEquals(4, tail.size());
+            assertEquals(6, tail.get(0).getOffset());
+            assertEquals(9, tail.get(3).getOffset());
+        }
+    }
+
+    /**
+     * Test 3: Verify that a full segment rolls over to a new one and that every message, across
+     * segment boundaries, is read back after the log is reopened.
+     */
+    @Test
+    public void testRollAndReopen() throws IOException {
+        int messages = 100;
+        try (ChatLog log = new ChatLog(directory, SMALL_SEGMENT)) {
+            for (int i = 0; i < messages; i++) {
+                log.append("staff", "Roll-over message number " + i);
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue("The messages should fill several segments",
+                    files.filter(file -> file.toString().endsWith(".log")).count() > 2);
+        }
+        try (ChatLog log = new ChatLog(directory, SMALL_SEGMENT)) {
+            assertEquals(messages, log.getNextOffset());
+            List<ChatLog.Entry> entries = log.read(0, Integer.MAX_VALUE);
+            assertEquals(messages, entries.size());
+            for (int i = 0; i < messages; i++) {
+                assertEquals(i, entries.get(i).getOffset());
+                assertEquals("Roll-over message number " + i, entries.get(i).getText());
+            }
+            assertEquals(messages, log.append("staff", "After reopening"));
+        }
+    }
+
+    /**
+     * Test 4: Verify that a record cut short by a crash is dropped on reopening and the next
+     * message takes its place.
+     */
+    @Test
+    public void testRecoverTornRecord() throws IOException {
+        int end;
+        try (ChatLog log = new ChatLog(directory)) {
+            end = 0;
+            for (int i = 0; i < 3; i++) {
+                log.append("staff", "Kept " + i);
+                end += recordBytes("staff", "Kept " + i);
+            }
+        }
+        // A crash after the payload and CRC of a fourth record, with a length that runs past what was written.
+        try (RandomAccessFile segment = new RandomAccessFile(directory.resolve(String.format("%020d.log", 0)).toFile(), "rw")) {
+            segment.seek(end);
+            segment.writeInt(500);
+            segment.writeInt(12345);
+            segment.write("torn".getBytes(StandardCharsets.UTF_8));
+        }
+        try (ChatLog log = new ChatLog(directory)) {
+            assertEquals(3, log.getNextOffset());
+            assertEquals("Kept 2", log.tail(1).get(0).getText());
+            assertEquals(3, log.append("staff", "After the crash"));
+        }
+        try (ChatLog log = new ChatLog(directory)) {
+            List<ChatLog.Entry> entries = log.read(0, Integer.MAX_VALUE);
+            assertEquals(4, entries.size());
+            assertEquals("After the crash", entries.get(3).getText());
+        }
+    }
+
+    /**
+     * Test 5: Verify that two instances sharing a directory, as in server mode, give out
+     * consecutive offsets, follow each other's segments, and see each other's messages after a refresh.
+     */
+    @Test
+    public void testSharedDirectory() throws IOException {
+        try (ChatLog first = new ChatLog(directory, SMALL_SEGMENT);
+             ChatLog second = new ChatLog(directory, SMALL_SEGMENT)) {
+            assertEquals(0, first.append("alice", "Hello from the first instance"));
+            assertEquals("The second instance should append after the first", 1,
+                    second.append("bob", "Hello from the second instance"));
+            assertTrue(first.read(1, 10).isEmpty());
+            first.refresh();
+            assertEquals("Hello from the second instance", first.read(1, 10).get(0).getText());
+
+            for (int i = 2; i < 80; i++) {
+                ChatLog log = i % 3 == 0 ? second : first;
+                assertEquals(i, log.append("staff", "Alternating message " + i));
+            }
+            first.refresh();
+            second.refresh();
+            List<ChatLog.Entry> seenByFirst = first.read(0, Integer.MAX_VALUE);
+            List<ChatLog.Entry> seenBySecond = second.read(0, Integer.MAX_VALUE);
+            assertEquals(80, seenByFirst.size());
+            assertEquals(80, seenBySecond.size());
+            for (int i = 2; i < 80; i++) {
+                assertEquals("Alternating message " + i, seenByFirst.get(i).getText());
+                assertEquals("Alternating message " + i, seenBySecond.get(i).getText());
+            }
+        }
+    }
+
+    /**
+     * Test 6: Verify that the chat log goes next to the database file, and that an in-memory
+     * database keeps it in a temporary directory that is deleted when the helper closes.
+     */
+    @Test
+    public void testChatDirectoryFollowsDataSource() throws Exception {
+        Path home = Paths.get(System.getProperty("user.home"));
+        assertEquals(home.resolve("FoundationChat"),
+                DataSourceConfig.file(DataSourceConfig.DEFAULT_PATH, 0).getChatDirectory());
+        assertEquals(Paths.get("/data/foundation.chat"), DataSourceConfig.file("/data/foundation", 0).getChatDirectory());
+        assertEquals(home.resolve("shared/foundation.chat"),
+                DataSourceConfig.of("jdbc:h2:tcp://localhost:9092/~/shared/foundation;CACHE_SIZE=1024", "sa", "").getChatDirectory());
+        assertEquals(Paths.get("/data/foundation.chat"),
+                DataSourceConfig.of("jdbc:h2:file:/data/foundation", "sa", "").getChatDirectory());
+        assertNull(DataSourceConfig.isolatedMemory().getChatDirectory());
+
+        DatabaseHelper dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+        Path chatDirectory;
+        try {
+            ChatLog log = dbHelper.getChatLog();
+            log.append("staff", "Only for this test");
+            chatDirectory = log.getDirectory();
+            assertTrue("The chat of an in-memory database should be in a temporary directory",
+                    chatDirectory.startsWith(Paths.get(System.getProperty("java.io.tmpdir"))));
+            assertFalse(chatDirectory.startsWith(home.resolve("FoundationChat")));
+        } finally {
+            dbHelper.closeConnection();
+        }
+        assertFalse("The temporary chat directory should be deleted", Files.exists(chatDirectory));
+    }
+
+    // The bytes of a record: length, CRC32, time sent, author length, author and text.
+    private static int recordBytes(String author, String text) {
+        return 8 + 10 + author.getBytes(StandardCharsets.UTF_8).length + text.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
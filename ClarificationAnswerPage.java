@@ -52,11 +52,12 @@ public class ClarificationAnswerPage {
         submitButton.setOnAction(e -> {
             String text = answerField.getText().trim();
             if (!text.isEmpty() && text.length() <= 500) {
-                Answer newAnswer = answerManager.createSubSetAnswer(answerManager.getSubSetAnswersForQuestion(question.getId()).size() + 1, text, user.getUserName(), question.getId());
-                if (newAnswer != null) {
-                    answerManager.saveSubSetAnswer(newAnswer);
+                Answer newAnswer = new Answer(answerManager.getSubSetAnswersForQuestion(question.getId()).size() + 1, text, user.getUserName(), question.getId());
+                if (answerManager.saveSubSetAnswer(newAnswer)) {
                     refreshAnswerList();
                     messageLabel.setText("Answer added successfully!");
+                } else {
+                    messageLabel.setText("You have already posted this answer.");
                 }
                 answerField.clear();
             } else {
@@ -85,6 +86,8 @@ public class ClarificationAnswerPage {
         System.out.println(question.getText());
         System.out.println(question.getAnswers());
         List<Answer> answers = answerManager.getSubSetAnswersForQuestion(question.getId());
+        // The resolved flag is the same for every row, so read it once per refresh.
+        boolean resolved = databaseHelper.isSubSetResolved(question.getId());
         for (Answer a : answers) {
             HBox row = new HBox(10);
             Label answerLabel = new Label(a.getText());
@@ -104,7 +107,7 @@ public class ClarificationAnswerPage {
             
             Label checkmarkLabel = new Label("✔"); //resolved indication
             
-            checkmarkLabel.setVisible(databaseHelper.isSubSetResolved(question.getId()));
+            checkmarkLabel.setVisible(resolved);
             
             Button resolveQuestionButton = new Button("Resolved");
             resolveQuestionButton.setOnAction(e -> {
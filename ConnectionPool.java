@@ -0,0 +1,457 @@
+package databasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ConnectionPool class keeps a bounded set of open JDBC connections and hands them out
+ * as leases. Closing a leased connection returns it to the pool instead of closing the
+ * physical connection, so callers can keep using try-with-resources as before.
+ * Each physical connection carries a StatementCache, so prepared statements survive
+ * across leases. When the pool is given QueryMetrics, every statement a lease hands out
+ * is measured.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long leaseTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+    private final QueryMetrics queryMetrics;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PhysicalConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed = false;
+
+    // Pool metrics
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger leasedConnections = new AtomicInteger();
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong returnCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    /**
+     * Creates a pool with default sizing: up to 8 connections, one kept warm, leases time out
+     * after 10 seconds, idle connections are evicted after 5 minutes and each connection
+     * caches up to 64 prepared statements.
+     * @param url the JDBC URL
+     * @param user the database user
+     * @param password the database password
+     */
+    public ConnectionPool(String url, String user, String password) {
+        this(url, user, password, null);
+    }
+
+    /**
+     * Creates a pool with default sizing whose statements are measured.
+     * @param url the JDBC URL
+     * @param user the database user
+     * @param password the database password
+     * @param queryMetrics where statement executions are recorded, or null to not record them
+     */
+    public ConnectionPool(String url, String user, String password, QueryMetrics queryMetrics) {
+        this(url, user, password, 8, 1, 10_000, 300_000, 5_000, 64, queryMetrics);
+    }
+
+    /**
+     * Creates a pool.
+     * @param url the JDBC URL
+     * @param user the database user
+     * @param password the database password
+     * @param maxSize the maximum number of physical connections
+     * @param minIdle the number of idle connections the evictor leaves open
+     * @param leaseTimeoutMillis how long lease() waits for a free connection
+     * @param idleTimeoutMillis how long a connection may sit idle before it is evicted
+     * @param validationIntervalMillis idle time after which a connection is validated before reuse
+     * @param statementCacheSize prepared statements cached per connection, 0 to disable caching
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                          long leaseTimeoutMillis, long idleTimeoutMillis, long validationIntervalMillis,
+                          int statementCacheSize) {
+        this(url, user, password, maxSize, minIdle, leaseTimeoutMillis, idleTimeoutMillis,
+                validationIntervalMillis, statementCacheSize, null);
+    }
+
+    /**
+     * Creates a pool whose statements are measured.
+     * @param url the JDBC URL
+     * @param user the database user
+     * @param password the database password
+     * @param maxSize the maximum number of physical connections
+     * @param minIdle the number of idle connections the evictor leaves open
+     * @param leaseTimeoutMillis how long lease() waits for a free connection
+     * @param idleTimeoutMillis how long a connection may sit idle before it is evicted
+     * @param validationIntervalMillis idle time after which a connection is validated before reuse
+     * @param statementCacheSize prepared statements cached per connection, 0 to disable caching
+     * @param queryMetrics where statement executions are recorded, or null to not record them
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                          long leaseTimeoutMillis, long idleTimeoutMillis, long validationIntervalMillis,
+                          int statementCacheSize, QueryMetrics queryMetrics) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.queryMetrics = queryMetrics;
+        this.permits = new Semaphore(maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, idleTimeoutMillis / 4);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Leases a connection from the pool, opening a new one if none is idle and the pool is
+     * not at capacity. The returned connection must be closed to give it back.
+     * @return a leased connection
+     * @throws SQLException if the pool is closed, the wait times out, or a connection cannot be opened
+     */
+    public Connection lease() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(leaseTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + leaseTimeoutMillis + " ms waiting for a pooled connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+        totalWaitNanos.addAndGet(System.nanoTime() - start);
+
+        try {
+            PhysicalConnection physical = null;
+            PhysicalConnection candidate;
+            // Most recently returned first, so hot connections (and their cached statements)
+            // stay hot and cold ones age out.
+            while (physical == null && (candidate = idleConnections.pollFirst()) != null) {
+                if (isUsable(candidate)) {
+                    physical = candidate;
+                } else {
+                    validationFailureCount.incrementAndGet();
+                    destroy(candidate);
+                }
+            }
+            if (physical == null) {
+                physical = open();
+            }
+            leasedConnections.incrementAndGet();
+            leaseCount.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes every idle connection and refuses further leases. Connections that are still
+     * leased are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PhysicalConnection idle;
+        while ((idle = idleConnections.pollFirst()) != null) {
+            destroy(idle);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool metrics.
+     * @return the current pool statistics
+     */
+    public Stats getStats() {
+        return new Stats(maxSize, openConnections.get(), leasedConnections.get(), idleConnections.size(),
+                leaseCount.get(), returnCount.get(), createdCount.get(), destroyedCount.get(),
+                evictedCount.get(), validationFailureCount.get(), timeoutCount.get(), totalWaitNanos.get(),
+                statementCacheHits.get(), statementCacheMisses.get(), statementCacheEvictions.get());
+    }
+
+    private PhysicalConnection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        openConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        StatementCache cache = statementCacheSize > 0
+                ? new StatementCache(connection, statementCacheSize, statementCacheHits, statementCacheMisses, statementCacheEvictions)
+                : null;
+        return new PhysicalConnection(connection, cache);
+    }
+
+    private void destroy(PhysicalConnection physical) {
+        try {
+            if (physical.statementCache != null) {
+                physical.statementCache.closeAll();
+            }
+            physical.connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            openConnections.decrementAndGet();
+            destroyedCount.incrementAndGet();
+        }
+    }
+
+    private boolean isUsable(PhysicalConnection idle) {
+        try {
+            if (idle.connection.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - idle.idleSince < validationIntervalMillis) {
+                return true;
+            }
+            return idle.connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Called by a lease when its holder closes it.
+    private void release(PhysicalConnection physical, boolean broken) {
+        leasedConnections.decrementAndGet();
+        returnCount.incrementAndGet();
+        try {
+            if (broken || closed || physical.connection.isClosed()) {
+                destroy(physical);
+            } else {
+                physical.idleSince = System.currentTimeMillis();
+                idleConnections.offerFirst(physical);
+            }
+        } catch (SQLException e) {
+            destroy(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        // The oldest idle connections sit at the tail of the deque.
+        Iterator<PhysicalConnection> it = idleConnections.descendingIterator();
+        while (it.hasNext() && idleConnections.size() > minIdle) {
+            PhysicalConnection idle = it.next();
+            if (now - idle.idleSince >= idleTimeoutMillis && idleConnections.removeFirstOccurrence(idle)) {
+                evictedCount.incrementAndGet();
+                destroy(idle);
+            }
+        }
+    }
+
+    private Connection wrap(PhysicalConnection physical) {
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new Lease(physical));
+    }
+
+    private static final class PhysicalConnection {
+        final Connection connection;
+        final StatementCache statementCache;
+        volatile long idleSince;
+
+        PhysicalConnection(Connection connection, StatementCache statementCache) {
+            this.connection = connection;
+            this.statementCache = statementCache;
+        }
+    }
+
+    /**
+     * Invocation handler behind every leased connection. close() hands the physical
+     * connection back to the pool after resetting the state a caller may have changed.
+     * prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the
+     * connection's statement cache. Statements are measured when the pool has QueryMetrics.
+     */
+    private final class Lease implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean released = false;
+
+        Lease(PhysicalConnection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(physical, !reset());
+                    }
+                    return null;
+                case "isClosed":
+                    return released || physical.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical.connection + (released ? ", released]" : "]");
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (name.equals("prepareStatement") && physical.statementCache != null && isCacheable(method)) {
+                int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                Statement statement = physical.statementCache.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys);
+                statements.add(statement);
+                return measured(statement, (String) args[0]);
+            }
+            try {
+                Object result = method.invoke(physical.connection, args);
+                if (result instanceof Statement) {
+                    statements.add((Statement) result);
+                    return measured((Statement) result, args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private Statement measured(Statement statement, String sql) {
+            return queryMetrics == null ? statement : queryMetrics.measure(statement, sql);
+        }
+
+        private boolean isCacheable(Method method) {
+            Class<?>[] types = method.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+
+        // Closes (or returns to the cache) statements left open by the caller and restores auto-commit.
+        // Returns false if the connection should not be reused.
+        private boolean reset() {
+            try {
+                for (Statement statement : statements) {
+                    if (!statement.isClosed()) {
+                        statement.close();
+                    }
+                }
+                statements.clear();
+                if (!physical.connection.getAutoCommit()) {
+                    physical.connection.rollback();
+                    physical.connection.setAutoCommit(true);
+                }
+                return true;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * An immutable snapshot of the pool metrics.
+     */
+    public static final class Stats {
+        private final int maxSize;
+        private final int open;
+        private final int leased;
+        private final int idle;
+        private final long leases;
+        private final long returns;
+        private final long created;
+        private final long destroyed;
+        private final long evicted;
+        private final long validationFailures;
+        private final long timeouts;
+        private final long totalWaitNanos;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+        private final long statementCacheEvictions;
+
+        Stats(int maxSize, int open, int leased, int idle, long leases, long returns, long created,
+              long destroyed, long evicted, long validationFailures, long timeouts, long totalWaitNanos,
+              long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+            this.maxSize = maxSize;
+            this.open = open;
+            this.leased = leased;
+            this.idle = idle;
+            this.leases = leases;
+            this.returns = returns;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.evicted = evicted;
+            this.validationFailures = validationFailures;
+            this.timeouts = timeouts;
+            this.totalWaitNanos = totalWaitNanos;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+            this.statementCacheEvictions = statementCacheEvictions;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public int getOpen() { return open; }
+        public int getLeased() { return leased; }
+        public int getIdle() { return idle; }
+        public long getLeases() { return leases; }
+        public long getReturns() { return returns; }
+        public long getCreated() { return created; }
+        public long getDestroyed() { return destroyed; }
+        public long getEvicted() { return evicted; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getTimeouts() { return timeouts; }
+        public double getAverageWaitMillis() { return leases == 0 ? 0 : totalWaitNanos / 1_000_000.0 / leases; }
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+        public long getStatementCacheEvictions() { return statementCacheEvictions; }
+        public double getStatementCacheHitRate() {
+            long lookups = statementCacheHits + statementCacheMisses;
+            return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+        }
+
+        public String toString() {
+            return "open=" + open + "/" + maxSize + ", leased=" + leased + ", idle=" + idle
+                    + ", leases=" + leases + ", created=" + created + ", evicted=" + evicted
+                    + ", validationFailures=" + validationFailures + ", timeouts=" + timeouts
+                    + String.format(", avgWait=%.3f ms", getAverageWaitMillis())
+                    + ", statementCache hits=" + statementCacheHits + " misses=" + statementCacheMisses
+                    + String.format(" (%.1f%%)", getStatementCacheHitRate() * 100);
+        }
+    }
+}
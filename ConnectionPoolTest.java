@@ -0,0 +1,213 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ConnectionPoolTest
+ *
+ * This class contains automated JUnit tests to verify the connection pool: a returned lease is
+ * reused and reset, a lease times out when the pool is at its maximum size, a broken connection
+ * is rejected when it is validated, idle connections are evicted down to the minimum, and the
+ * statistics count all of it.
+ */
+public class ConnectionPoolTest {
+
+    private static final AtomicLong DATABASES = new AtomicLong();
+
+    private String url;
+    private ConnectionPool pool;
+
+    /**
+     * Setup method to name a new in-memory database for each test.
+     */
+    @Before
+    public void setup() {
+        url = "jdbc:h2:mem:pool_test_" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Cleanup method to close the pool.
+     */
+    @After
+    public void cleanup() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Test 1: Verify that closing a lease returns its connection, which the next lease reuses
+     * with an open transaction rolled back and auto-commit restored, and that a returned handle
+     * cannot be used.
+     */
+    @Test
+    public void testLeaseAndReturn() throws SQLException {
+        pool = new ConnectionPool(url, "sa", "", 2, 0, 1_000, 300_000, 5_000, 8);
+        Connection first = pool.lease();
+        try (Statement stmt = first.createStatement()) {
+            stmt.execute("CREATE TABLE items (id INT PRIMARY KEY)");
+        }
+        first.setAutoCommit(false);
+        try (Statement stmt = first.createStatement()) {
+            stmt.executeUpdate("INSERT INTO items VALUES (1)");
+        }
+        assertEquals(1, pool.getStats().getLeased());
+        first.close();
+        assertTrue(first.isClosed());
+        try {
+            first.createStatement();
+            fail("A returned handle should not be usable");
+        } catch (SQLException e) {
+            // expected
+        }
+
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(0, stats.getLeased());
+        assertEquals(1, stats.getIdle());
+        assertEquals(1, stats.getReturns());
+
+        try (Connection second = pool.lease();
+             PreparedStatement pstmt = second.prepareStatement("SELECT COUNT(*) FROM items");
+             ResultSet rs = pstmt.executeQuery()) {
+            assertTrue("Auto-commit should be restored", second.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals("The open transaction should have been rolled back", 0, rs.getInt(1));
+        }
+        assertEquals("The returned connection should be reused", 1, pool.getStats().getCreated());
+        assertEquals(2, pool.getStats().getLeases());
+    }
+
+    /**
+     * Test 2: Verify that a lease waits no longer than the lease timeout when every connection is
+     * leased, and that a connection returned later can be leased again.
+     */
+    @Test
+    public void testTimeoutAtMaxSize() throws SQLException {
+        pool = new ConnectionPool(url, "sa", "", 1, 0, 100, 300_000, 5_000, 8);
+        Connection held = pool.lease();
+        long start = System.nanoTime();
+        try {
+            pool.lease();
+            fail("The second lease should time out");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Timed out after 100 ms"));
+        }
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("Waited " + waitedMillis + " ms", waitedMillis >= 90 && waitedMillis < 5_000);
+        assertEquals(1, pool.getStats().getTimeouts());
+        assertEquals(1, pool.getStats().getOpen());
+
+        held.close();
+        try (Connection again = pool.lease()) {
+            assertFalse(again.isClosed());
+        }
+        assertEquals(1, pool.getStats().getTimeouts());
+    }
+
+    /**
+     * Test 3: Verify that an idle connection that fails validation is destroyed and replaced by a
+     * new one instead of being handed out.
+     */
+    @Test
+    public void testBrokenConnectionRejectedAtValidation() throws SQLException {
+        // Validates every idle connection before it is reused.
+        pool = new ConnectionPool(url, "sa", "", 2, 0, 1_000, 300_000, 0, 8);
+        pool.lease().close();
+        assertEquals(1, pool.getStats().getIdle());
+
+        // Shutting the database down closes the pooled connection under the pool.
+        try (Connection direct = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = direct.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        }
+
+        try (Connection fresh = pool.lease();
+             Statement stmt = fresh.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1")) {
+            assertTrue(rs.next());
+        }
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(1, stats.getValidationFailures());
+        assertEquals(2, stats.getCreated());
+        assertEquals(1, stats.getDestroyed());
+        assertEquals(1, stats.getOpen());
+    }
+
+    /**
+     * Test 4: Verify that connections idle for longer than the idle timeout are evicted, down to
+     * the minimum number of idle connections.
+     */
+    @Test
+    public void testIdleEviction() throws Exception {
+        // The evictor runs every second at most.
+        pool = new ConnectionPool(url, "sa", "", 3, 1, 1_000, 100, 5_000, 8);
+        Connection a = pool.lease();
+        Connection b = pool.lease();
+        Connection c = pool.lease();
+        a.close();
+        b.close();
+        c.close();
+        assertEquals(3, pool.getStats().getIdle());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pool.getStats().getEvicted() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Thread.sleep(100);
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(2, stats.getEvicted());
+        assertEquals("The minimum idle connection should stay open", 1, stats.getIdle());
+        assertEquals(1, stats.getOpen());
+    }
+
+    /**
+     * Test 5: Verify that the statistics count leases, returns and cached statements, and that a
+     * closed pool refuses leases and closes connections returned to it.
+     */
+    @Test
+    public void testStats() throws SQLException {
+        pool = new ConnectionPool(url, "sa", "", 2, 0, 1_000, 300_000, 5_000, 8);
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = pool.lease();
+                 PreparedStatement pstmt = conn.prepareStatement("SELECT ?")) {
+                pstmt.setInt(1, i);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    assertTrue(rs.next());
+                }
+            }
+        }
+        Connection held = pool.lease();
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(2, stats.getMaxSize());
+        assertEquals(4, stats.getLeases());
+        assertEquals(3, stats.getReturns());
+        assertEquals(1, stats.getLeased());
+        assertEquals(1, stats.getStatementCacheMisses());
+        assertEquals(2, stats.getStatementCacheHits());
+        assertEquals(2.0 / 3, stats.getStatementCacheHitRate(), 1e-9);
+        assertTrue(stats.getAverageWaitMillis() >= 0);
+        assertTrue(stats.toString(), stats.toString().startsWith("open=1/2, leased=1, idle=0, leases=4"));
+
+        pool.close();
+        try {
+            pool.lease();
+            fail("A closed pool should refuse leases");
+        } catch (SQLException e) {
+            assertEquals("Connection pool is closed", e.getMessage());
+        }
+        held.close();
+        assertEquals("A connection returned to a closed pool should be closed", 0, pool.getStats().getOpen());
+    }
+}
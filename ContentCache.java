@@ -0,0 +1,325 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ContentCache class keeps recently read questions, answers and reviews in memory, so going
+ * back to a page that was just shown does not query the database again. It sits in front of
+ * QuestionManager, AnswerManager, ReviewManager, QuestionReviewManager and ThreadLoader, which
+ * read through it and report their writes to it.
+ *
+ * Each write drops exactly the cached results that contain the changed row, found by id. All
+ * regions share one weight budget and least-recently-used order.
+ */
+public class ContentCache {
+    /** Total approximate size in bytes of the cached results. */
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    /** How long a result is served before it is read again. */
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    /**
+     * The kinds of cached results.
+     */
+    public enum Region {
+        QUESTION_PAGE,          // List<Question>, keyed by "afterId:limit"
+        THREAD,                 // ThreadLoader.QuestionThread, keyed by question ID
+        SUBSET_QUESTIONS,       // List<Question>, keyed by main question ID
+        SUBSET_ANSWERS,         // List<Answer>, keyed by subset question ID
+        REVIEWS_FOR_ANSWER,     // List<Review>, keyed by answer ID
+        REVIEWS_BY_AUTHOR,      // List<Review>, keyed by reviewer name
+        QUESTION_REVIEWS        // List<QuestionReview>, keyed by question ID
+    }
+
+    private static final class Key {
+        final Region region;
+        final Object id;
+
+        Key(Region region, Object id) {
+            this.region = region;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return region == other.region && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(region, id);
+        }
+    }
+
+    private final EntityCache<Key, Object> cache;
+
+    /**
+     * Constructor to initialize the ContentCache with the default size and time to live.
+     */
+    public ContentCache() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Constructor to initialize the ContentCache.
+     * @param maxBytes the approximate memory the cached results may use
+     * @param ttl how long a result is served after it was read
+     * @param unit the unit of ttl
+     */
+    public ContentCache(long maxBytes, long ttl, TimeUnit unit) {
+        this.cache = new EntityCache<>(maxBytes, ttl, unit, ContentCache::weigh);
+    }
+
+    /**
+     * Returns a cached result, loading it on a miss.
+     * @param region the kind of result
+     * @param id what the result is for, such as a question ID
+     * @param loader reads the result from the database
+     * @return the result
+     * @throws SQLException if the loader fails
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Region region, Object id, EntityCache.Loader<T> loader) throws SQLException {
+        return (T) cache.get(new Key(region, id), loader);
+    }
+
+    /**
+     * @return the hit, miss and eviction counters
+     */
+    public EntityCache.Stats getStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * Drops every cached result, for example after a bulk load.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * A question was added or deleted, which shifts the question pages.
+     */
+    public void questionsChanged() {
+        cache.invalidateIf((key, value) -> key.region == Region.QUESTION_PAGE);
+    }
+
+    /**
+     * A main question's text changed.
+     * @param questionId the ID of the question
+     */
+    public void questionChanged(int questionId) {
+        cache.invalidateIf((key, value) -> (key.region == Region.QUESTION_PAGE && hasQuestion(value, questionId))
+                || (key.region == Region.THREAD && key.id.equals(questionId)));
+    }
+
+    /**
+     * A main question was deleted along with everything that hangs off it.
+     * @param questionId the ID of the question
+     */
+    public void questionDeleted(int questionId) {
+        // The cascade removes answers and reviews this cache cannot list without the thread, so
+        // results that may hold them go too.
+        cache.invalidateIf((key, value) -> key.region != Region.QUESTION_REVIEWS || key.id.equals(questionId));
+    }
+
+    /**
+     * A subset question was added to a main question.
+     * @param mainQuestionId the ID of the main question
+     */
+    public void subSetQuestionAdded(int mainQuestionId) {
+        cache.invalidateIf((key, value) -> (key.region == Region.SUBSET_QUESTIONS || key.region == Region.THREAD)
+                && key.id.equals(mainQuestionId));
+    }
+
+    /**
+     * A subset question's text changed.
+     * @param subSetQuestionId the ID of the subset question
+     */
+    public void subSetQuestionChanged(int subSetQuestionId) {
+        cache.invalidateIf((key, value) -> (key.region == Region.SUBSET_QUESTIONS && hasQuestion(value, subSetQuestionId))
+                || (key.region == Region.THREAD && hasClarification(value, subSetQuestionId)));
+    }
+
+    /**
+     * A main answer was added to a question.
+     * @param questionId the ID of the question
+     */
+    public void answerAdded(int questionId) {
+        cache.invalidate(new Key(Region.THREAD, questionId));
+    }
+
+    /**
+     * A main answer's text or flags changed.
+     * @param answerId the ID of the answer
+     */
+    public void answerChanged(int answerId) {
+        cache.invalidateIf((key, value) -> key.region == Region.THREAD && hasAnswer(value, answerId));
+    }
+
+    /**
+     * A main answer was deleted along with its reviews.
+     * @param answerId the ID of the answer
+     */
+    public void answerDeleted(int answerId) {
+        cache.invalidateIf((key, value) -> (key.region == Region.THREAD && hasAnswer(value, answerId))
+                || (key.region == Region.REVIEWS_FOR_ANSWER && key.id.equals(answerId))
+                || (key.region == Region.REVIEWS_BY_AUTHOR && hasReviewOfAnswer(value, answerId)));
+    }
+
+    /**
+     * A subset answer was added to a subset question.
+     * @param subSetQuestionId the ID of the subset question
+     */
+    public void subSetAnswerAdded(int subSetQuestionId) {
+        cache.invalidateIf((key, value) -> (key.region == Region.SUBSET_ANSWERS && key.id.equals(subSetQuestionId))
+                || (key.region == Region.THREAD && hasClarification(value, subSetQuestionId)));
+    }
+
+    /**
+     * A subset answer's text changed.
+     * @param answerId the ID of the subset answer
+     */
+    public void subSetAnswerChanged(int answerId) {
+        cache.invalidateIf((key, value) -> (key.region == Region.SUBSET_ANSWERS && hasAnswer(value, answerId))
+                || (key.region == Region.THREAD && hasClarificationAnswer(value, answerId)));
+    }
+
+    /**
+     * A review was added to an answer.
+     * @param answerId the ID of the reviewed answer
+     * @param author the reviewer
+     */
+    public void reviewAdded(int answerId, String author) {
+        cache.invalidateIf((key, value) -> (key.region == Region.REVIEWS_FOR_ANSWER && key.id.equals(answerId))
+                || (key.region == Region.REVIEWS_BY_AUTHOR && key.id.equals(author))
+                || (key.region == Region.THREAD && hasAnswer(value, answerId)));
+    }
+
+    /**
+     * A review's text changed or the review was deleted.
+     * @param reviewId the ID of the review
+     */
+    public void reviewChanged(int reviewId) {
+        cache.invalidateIf((key, value) -> hasReview(value, reviewId));
+    }
+
+    /**
+     * A review was added to a question.
+     * @param questionId the ID of the question
+     */
+    public void questionReviewAdded(int questionId) {
+        cache.invalidateIf((key, value) -> (key.region == Region.QUESTION_REVIEWS || key.region == Region.THREAD)
+                && key.id.equals(questionId));
+    }
+
+    private static boolean hasQuestion(Object value, int questionId) {
+        for (Object item : (Collection<?>) value) {
+            if (((Question) item).getId() == questionId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAnswer(Object value, int answerId) {
+        List<?> answers = value instanceof ThreadLoader.QuestionThread
+                ? ((ThreadLoader.QuestionThread) value).getAnswers() : (List<?>) value;
+        for (Object item : answers) {
+            if (((Answer) item).getId() == answerId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasClarification(Object value, int subSetQuestionId) {
+        return hasQuestion(((ThreadLoader.QuestionThread) value).getClarifications(), subSetQuestionId);
+    }
+
+    private static boolean hasClarificationAnswer(Object value, int answerId) {
+        for (Question clarification : ((ThreadLoader.QuestionThread) value).getClarifications()) {
+            if (hasAnswer(clarification.getAnswers(), answerId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasReviewOfAnswer(Object value, int answerId) {
+        for (Object item : (Collection<?>) value) {
+            if (((Review) item).getQuestionId() == answerId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Matches review lists and threads that hold the review.
+    private static boolean hasReview(Object value, int reviewId) {
+        if (value instanceof ThreadLoader.QuestionThread) {
+            ThreadLoader.QuestionThread thread = (ThreadLoader.QuestionThread) value;
+            for (Answer answer : thread.getAnswers()) {
+                if (hasReview(thread.getReviewsForAnswer(answer.getId()), reviewId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (Object item : (Collection<?>) value) {
+            if (item instanceof Review && ((Review) item).getId() == reviewId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Approximate retained size in bytes: object headers plus two bytes per character.
+    static long weigh(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        if (value instanceof Collection) {
+            long size = 32;
+            for (Object item : (Collection<?>) value) {
+                size += 8 + weigh(item);
+            }
+            return size;
+        }
+        if (value instanceof Question) {
+            Question q = (Question) value;
+            return 48 + weigh(q.getText()) + weigh(q.getAuthor()) + weigh(q.getAnswers());
+        }
+        if (value instanceof Answer) {
+            Answer a = (Answer) value;
+            return 40 + weigh(a.getText()) + weigh(a.getAuthor());
+        }
+        if (value instanceof Review) {
+            Review r = (Review) value;
+            return 32 + weigh(r.getText()) + weigh(r.getAuthor());
+        }
+        if (value instanceof QuestionReview) {
+            QuestionReview r = (QuestionReview) value;
+            return 32 + weigh(r.getText()) + weigh(r.getReviewer());
+        }
+        if (value instanceof ThreadLoader.QuestionThread) {
+            ThreadLoader.QuestionThread thread = (ThreadLoader.QuestionThread) value;
+            long size = 64 + weigh(thread.getQuestion()) + weigh(thread.getClarifications()) + weigh(thread.getQuestionReviews());
+            for (Answer answer : thread.getAnswers()) {
+                size += 48 + weigh(thread.getReviewsForAnswer(answer.getId()));
+            }
+            return size;
+        }
+        return 64;
+    }
+}
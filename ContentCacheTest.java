@@ -0,0 +1,187 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * ContentCacheTest
+ *
+ * This class contains automated JUnit tests to verify the content cache: results expire after
+ * their time to live, the least recently used results are evicted by weight, edits and deletes
+ * drop exactly the results that hold the changed row, and the hit rate is counted.
+ */
+public class ContentCacheTest {
+
+    private DatabaseHelper dbHelper;
+
+    /**
+     * Setup method to open an empty database.
+     */
+    @Before
+    public void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+    }
+
+    /**
+     * Cleanup method to close the database.
+     */
+    @After
+    public void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that a result is served from memory until its time to live runs out, and is
+     * loaded again after that.
+     */
+    @Test
+    public void testExpiresAfterTimeToLive() throws Exception {
+        ContentCache cache = new ContentCache(ContentCache.DEFAULT_MAX_BYTES, 100, TimeUnit.MILLISECONDS);
+        AtomicInteger loads = new AtomicInteger();
+        EntityCache.Loader<List<Question>> loader = () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(new Question(1, "Cached question", "alice"));
+        };
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 1, loader);
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 1, loader);
+        assertEquals(1, loads.get());
+
+        Thread.sleep(150);
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 1, loader);
+        assertEquals("An expired result should be loaded again", 2, loads.get());
+        assertEquals(1, cache.getStats().getExpirations());
+    }
+
+    /**
+     * Test 2: Verify that results past the weight budget evict the least recently used ones, and
+     * that a result heavier than the whole budget is served without being cached.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsedByWeight() throws Exception {
+        List<Question> page = Arrays.asList(new Question(1, "A question of some length", "alice"));
+        long pageWeight = ContentCache.weigh(page);
+        ContentCache cache = new ContentCache(pageWeight * 2, 5, TimeUnit.MINUTES);
+        AtomicInteger loads = new AtomicInteger();
+        EntityCache.Loader<List<Question>> loader = () -> {
+            loads.incrementAndGet();
+            return page;
+        };
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 1, loader);
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 2, loader);
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 1, loader);
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 3, loader);
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(2 * pageWeight, cache.getStats().getWeight());
+
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 1, loader);
+        assertEquals("The recently used result should still be cached", 3, loads.get());
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 2, loader);
+        assertEquals("The least recently used result should have been evicted", 4, loads.get());
+
+        List<Question> heavy = Arrays.asList(page.get(0), page.get(0), page.get(0));
+        cache.get(ContentCache.Region.SUBSET_QUESTIONS, 4, () -> heavy);
+        assertEquals("A result heavier than the budget should not be cached", 2, cache.getStats().getSize());
+    }
+
+    /**
+     * Test 3: Verify that editing or deleting through the managers drops the cached results that
+     * hold the changed row, so the next read sees the change, while other threads stay cached.
+     */
+    @Test
+    public void testEditsAndDeletesInvalidate() {
+        QuestionManager questionManager = new QuestionManager(dbHelper);
+        AnswerManager answerManager = new AnswerManager(dbHelper);
+        ThreadLoader threadLoader = new ThreadLoader(dbHelper);
+        Question first = new Question(0, "First question", "alice");
+        Question second = new Question(0, "Second question", "bob");
+        assertTrue(questionManager.saveQuestion(first));
+        assertTrue(questionManager.saveQuestion(second));
+        Answer answer = new Answer(0, "Original answer", "bob", first.getId());
+        assertTrue(answerManager.saveAnswer(answer));
+
+        ContentCache cache = dbHelper.getContentCache();
+        assertEquals("Original answer", threadLoader.load(first.getId()).getAnswers().get(0).getText());
+        threadLoader.load(second.getId());
+        assertEquals("First question", questionManager.getQuestionsPage(0, 10).get(0).getText());
+        long hits = cache.getStats().getHits();
+
+        assertTrue(answerManager.updateAnswer(answer.getId(), "Edited answer", "bob"));
+        assertEquals("Edited answer", threadLoader.load(first.getId()).getAnswers().get(0).getText());
+        threadLoader.load(second.getId());
+        assertEquals("Only the other thread should be a hit", hits + 1, cache.getStats().getHits());
+
+        assertTrue(questionManager.editQuestion(first.getId(), "First question, edited", "alice"));
+        assertEquals("First question, edited", questionManager.getQuestionsPage(0, 10).get(0).getText());
+
+        assertTrue(answerManager.deleteAnswer(answer.getId(), "bob", false));
+        assertTrue(threadLoader.load(first.getId()).getAnswers().isEmpty());
+
+        assertTrue(questionManager.deleteQuestion(second.getId(), "bob", false));
+        assertEquals(1, questionManager.getQuestionsPage(0, 10).size());
+    }
+
+    /**
+     * Test 4: Verify that the statistics count hits and misses and report the hit rate.
+     */
+    @Test
+    public void testHitRateStats() throws Exception {
+        ContentCache cache = new ContentCache();
+        assertEquals(0.0, cache.getStats().getHitRate(), 0.0);
+        for (int i = 0; i < 4; i++) {
+            cache.get(ContentCache.Region.REVIEWS_BY_AUTHOR, "rita", () -> Arrays.asList(new Review(1, "Good", "rita", 1)));
+        }
+        EntityCache.Stats stats = cache.getStats();
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.75, stats.getHitRate(), 1e-9);
+        assertTrue(stats.toString(), stats.toString().contains("hitRate=75.0%"));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(0, cache.getStats().getWeight());
+    }
+
+    /**
+     * Test 5: Verify that a cached thread is not shared: changing the question, answers and
+     * reviews of a loaded thread does not change what the next caller loads.
+     */
+    @Test
+    public void testCachedThreadIsCopiedOnRead() {
+        Question question = new Question(0, "Shared question", "alice");
+        assertTrue(new QuestionManager(dbHelper).saveQuestion(question));
+        Answer answer = new Answer(0, "Shared answer", "bob", question.getId());
+        assertTrue(new AnswerManager(dbHelper).saveAnswer(answer));
+        new ReviewManager(dbHelper).saveReview(new Review(0, "Shared review", "carol", answer.getId()));
+        ThreadLoader threadLoader = new ThreadLoader(dbHelper);
+
+        ThreadLoader.QuestionThread first = threadLoader.load(question.getId());
+        first.getQuestion().setText("Changed by a caller");
+        first.getAnswers().get(0).setText("Changed by a caller");
+        first.getAnswers().get(0).setSuperlike(true);
+        first.getAnswers().add(new Answer(99, "Added by a caller", "bob", question.getId()));
+        first.getReviewsForAnswer(answer.getId()).get(0).setText("Changed by a caller");
+        long hits = dbHelper.getContentCache().getStats().getHits();
+
+        ThreadLoader.QuestionThread second = threadLoader.load(question.getId());
+        assertEquals("The second load should be a hit", hits + 1, dbHelper.getContentCache().getStats().getHits());
+        assertEquals("Shared question", second.getQuestion().getText());
+        assertEquals(1, second.getAnswers().size());
+        assertEquals("Shared answer", second.getAnswers().get(0).getText());
+        assertFalse(second.getAnswers().get(0).isSuperlike());
+        assertEquals("Shared review", second.getReviewsForAnswer(answer.getId()).get(0).getText());
+    }
+}
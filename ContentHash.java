@@ -0,0 +1,58 @@
+package databasePart1;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+
+/**
+ * The ContentHash class computes the value stored in the contentHash columns: a SHA-256 digest of
+ * the fields that make a post a duplicate (its text, its author and what it belongs to). A unique
+ * index on the column lets one INSERT both store a post and reject a duplicate, using an index
+ * lookup instead of comparing the full text of every row.
+ */
+public final class ContentHash {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // MessageDigest instances are not thread-safe, so each thread keeps its own.
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private ContentHash() {
+    }
+
+    /**
+     * Hashes the given fields. Each field is prefixed with its length, so different splits of the
+     * same characters ("ab", "c" and "a", "bc") hash differently.
+     * @param fields the identifying fields of a post, in a fixed order
+     * @return 64 lowercase hexadecimal characters
+     */
+    public static String of(Object... fields) {
+        StringBuilder input = new StringBuilder();
+        for (Object field : fields) {
+            String value = String.valueOf(field);
+            input.append(value.length()).append(':').append(value);
+        }
+        byte[] digest = DIGEST.get().digest(input.toString().getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Checks whether an exception reports a unique index or primary key violation.
+     * @param e the exception thrown by an INSERT
+     * @return true if the row was rejected as a duplicate
+     */
+    public static boolean isDuplicate(SQLException e) {
+        return "23505".equals(e.getSQLState());
+    }
+}
@@ -0,0 +1,46 @@
+package application;
+
+import java.time.LocalDateTime;
+
+/**
+ * The Conversation class is one user's view of the messages exchanged with another user: who the
+ * other user is, how many of their messages are unread, and the newest message either way.
+ */
+public class Conversation {
+    private final int id;
+    private final String otherUserName;
+    private final int unread;
+    private final int lastMessageId;
+    private final String lastMessageText;
+    private final LocalDateTime lastSentAt;
+
+    /**
+     * Constructor to initialize the Conversation.
+     * @param id the conversation ID
+     * @param otherUserName the user on the other side
+     * @param unread the number of messages from the other user not read yet
+     * @param lastMessageId the ID of the newest message, the inbox sort key
+     * @param lastMessageText the text of the newest message, or null if it was deleted
+     * @param lastSentAt when the newest message was sent, or null if it was deleted
+     */
+    public Conversation(int id, String otherUserName, int unread, int lastMessageId, String lastMessageText, LocalDateTime lastSentAt) {
+        this.id = id;
+        this.otherUserName = otherUserName;
+        this.unread = unread;
+        this.lastMessageId = lastMessageId;
+        this.lastMessageText = lastMessageText;
+        this.lastSentAt = lastSentAt;
+    }
+
+    public int getId() { return id; }
+    public String getOtherUserName() { return otherUserName; }
+    public int getUnread() { return unread; }
+    public int getLastMessageId() { return lastMessageId; }
+    public String getLastMessageText() { return lastMessageText; }
+    public LocalDateTime getLastSentAt() { return lastSentAt; }
+
+    @Override
+    public String toString() {
+        return otherUserName + (unread > 0 ? " (" + unread + " unread)" : "");
+    }
+}
@@ -0,0 +1,307 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The DataSourceConfig class says which H2 database DatabaseHelper connects to. There are three modes:
+ *
+ * FILE   an embedded database file, with an optional cache size; the default, ~/FoundationDatabase.
+ * MEMORY a private in-memory database that lives until the JVM exits, for tests and benchmarks.
+ * SERVER a database file served by a local H2 TCP server, so several instances of the application
+ *        on one machine share it. The first instance starts the server if none is listening.
+ *
+ * fromSystemProperties() picks the mode at launch, so no code changes are needed:
+ *   -Dfoundation.db.mode=file|memory|server   (default file)
+ *   -Dfoundation.db.path=~/FoundationDatabase  database file for file and server modes
+ *   -Dfoundation.db.cacheSizeKb=65536          H2 page cache for file and server modes
+ *   -Dfoundation.db.name=foundation            in-memory database name; a new database per helper if unset
+ *   -Dfoundation.db.port=9092                  TCP port for server mode
+ *   -Dfoundation.db.startServer=false          never start a server, only connect to one
+ *   -Dfoundation.db.chatPath=~/FoundationChat  staff chat log directory for file and server modes
+ *   -Dfoundation.db.engine=h2|memory          where the repositories keep their rows (default h2)
+ *   -Dfoundation.db.user, -Dfoundation.db.password
+ *
+ * The memory engine keeps the questions, answers, subset questions and answers, reviews, messages
+ * and users of the repositories in MemoryRepositories, with a write-ahead log next to the database
+ * (<path>.wal) in file and server modes and no log in memory mode. The other tables stay in H2.
+ *
+ * The staff chat log is kept in files next to the database: ~/FoundationChat for the default
+ * database and <path>.chat for any other. An in-memory database has no chat directory, so its
+ * chat lasts as long as the helper, like the database.
+ */
+public final class DataSourceConfig {
+
+    public enum Mode { FILE, MEMORY, SERVER }
+
+    public enum Engine { H2, MEMORY }
+
+    public static final String DEFAULT_PATH = "~/FoundationDatabase";
+    public static final String DEFAULT_CHAT_PATH = "~/FoundationChat";
+    public static final int DEFAULT_PORT = 9092;
+    static final String PROPERTY_PREFIX = "foundation.db.";
+
+    private static final AtomicLong MEMORY_DATABASES = new AtomicLong();
+    // The TCP server this JVM started, kept so it is started only once.
+    private static Object tcpServer;
+
+    private final Mode mode;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int port;
+    private final boolean startServer;
+    private final String chatPath;
+    private final Engine engine;
+    private final String logPath;
+
+    private DataSourceConfig(Mode mode, String url, String user, String password, int port, boolean startServer, String chatPath,
+            Engine engine, String logPath) {
+        this.mode = mode;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.port = port;
+        this.startServer = startServer;
+        this.chatPath = chatPath;
+        this.engine = engine;
+        this.logPath = logPath;
+    }
+
+    /**
+     * An embedded database file.
+     * @param path the database path without the .mv.db extension, such as ~/FoundationDatabase
+     * @param cacheSizeKb the page cache size in KB, or 0 for H2's default
+     * @return the configuration
+     */
+    public static DataSourceConfig file(String path, int cacheSizeKb) {
+        return new DataSourceConfig(Mode.FILE, "jdbc:h2:" + path + cacheSetting(cacheSizeKb), "sa", "", 0, false, chatPathFor(path),
+                Engine.H2, path + ".wal");
+    }
+
+    /**
+     * A named in-memory database, shared by every helper in the JVM that uses the same name.
+     * @param name the database name
+     * @return the configuration
+     */
+    public static DataSourceConfig memory(String name) {
+        return new DataSourceConfig(Mode.MEMORY, "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "", 0, false, null, Engine.H2, null);
+    }
+
+    /**
+     * An in-memory database no other configuration uses, so each test class gets an empty schema.
+     * @return the configuration
+     */
+    public static DataSourceConfig isolatedMemory() {
+        return memory("foundation_" + ProcessHandle.current().pid() + "_" + MEMORY_DATABASES.incrementAndGet());
+    }
+
+    /**
+     * A database file served by an H2 TCP server on this machine.
+     * @param path the database path on the server, such as ~/FoundationDatabase
+     * @param port the server's TCP port
+     * @param cacheSizeKb the page cache size in KB, or 0 for H2's default
+     * @param startServer whether to start a server in this JVM when none is listening
+     * @return the configuration
+     */
+    public static DataSourceConfig server(String path, int port, int cacheSizeKb, boolean startServer) {
+        String url = "jdbc:h2:tcp://localhost:" + port + "/" + path + cacheSetting(cacheSizeKb);
+        return new DataSourceConfig(Mode.SERVER, url, "sa", "", port, startServer, chatPathFor(path), Engine.H2, path + ".wal");
+    }
+
+    /**
+     * Any JDBC URL, as given to DatabaseHelper(url, user, password). The mode and the database
+     * path, which places the chat log and the write-ahead log, are read from the URL.
+     * @param url the JDBC URL
+     * @param user the database user
+     * @param password the database password
+     * @return the configuration
+     */
+    public static DataSourceConfig of(String url, String user, String password) {
+        Mode mode = url.startsWith("jdbc:h2:mem:") ? Mode.MEMORY
+                : url.startsWith("jdbc:h2:tcp:") ? Mode.SERVER : Mode.FILE;
+        String chatPath = null;
+        String logPath = null;
+        if (mode != Mode.MEMORY) {
+            // jdbc:h2:[file:]path[;options] or jdbc:h2:tcp://host:port/path[;options]
+            String path = url.substring("jdbc:h2:".length());
+            if (mode == Mode.SERVER) {
+                path = path.substring(path.indexOf('/', "tcp://".length()) + 1);
+            } else if (path.startsWith("file:")) {
+                path = path.substring("file:".length());
+            }
+            int options = path.indexOf(';');
+            if (options >= 0) {
+                path = path.substring(0, options);
+            }
+            chatPath = chatPathFor(path);
+            logPath = path + ".wal";
+        }
+        return new DataSourceConfig(mode, url, user, password, 0, false, chatPath, Engine.H2, logPath);
+    }
+
+    /**
+     * Reads the configuration from the foundation.db.* system properties.
+     * @return the configuration; the application's database file when none are set
+     */
+    public static DataSourceConfig fromSystemProperties() {
+        String modeName = System.getProperty(PROPERTY_PREFIX + "mode", "file").trim().toUpperCase(Locale.ROOT);
+        Mode mode;
+        try {
+            mode = Mode.valueOf(modeName);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("foundation.db.mode must be file, memory or server, not " + modeName.toLowerCase(Locale.ROOT));
+        }
+        String engineName = System.getProperty(PROPERTY_PREFIX + "engine", "h2").trim().toUpperCase(Locale.ROOT);
+        Engine engine;
+        try {
+            engine = Engine.valueOf(engineName);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("foundation.db.engine must be h2 or memory, not " + engineName.toLowerCase(Locale.ROOT));
+        }
+        String path = System.getProperty(PROPERTY_PREFIX + "path", DEFAULT_PATH);
+        int cacheSizeKb = Integer.getInteger(PROPERTY_PREFIX + "cacheSizeKb", 0);
+        DataSourceConfig config;
+        switch (mode) {
+            case MEMORY:
+                String name = System.getProperty(PROPERTY_PREFIX + "name");
+                config = name == null ? isolatedMemory() : memory(name);
+                break;
+            case SERVER:
+                config = server(path, Integer.getInteger(PROPERTY_PREFIX + "port", DEFAULT_PORT), cacheSizeKb,
+                        Boolean.parseBoolean(System.getProperty(PROPERTY_PREFIX + "startServer", "true")));
+                break;
+            default:
+                config = file(path, cacheSizeKb);
+                break;
+        }
+        String chatPath = System.getProperty(PROPERTY_PREFIX + "chatPath");
+        if (chatPath != null && mode != Mode.MEMORY) {
+            config = config.withChatPath(chatPath);
+        }
+        return config.withEngine(engine).withCredentials(System.getProperty(PROPERTY_PREFIX + "user", config.user),
+                System.getProperty(PROPERTY_PREFIX + "password", config.password));
+    }
+
+    /**
+     * @param user the database user
+     * @param password the database password
+     * @return a copy of this configuration with other credentials
+     */
+    public DataSourceConfig withCredentials(String user, String password) {
+        return new DataSourceConfig(mode, url, user, password, port, startServer, chatPath, engine, logPath);
+    }
+
+    /**
+     * @param chatPath the directory of the staff chat log, with ~ for the home directory; null to
+     *        keep the chat only as long as the helper
+     * @return a copy of this configuration with another chat directory
+     */
+    public DataSourceConfig withChatPath(String chatPath) {
+        return new DataSourceConfig(mode, url, user, password, port, startServer, chatPath, engine, logPath);
+    }
+
+    /**
+     * @param engine where the repositories keep their rows
+     * @return a copy of this configuration with another engine
+     */
+    public DataSourceConfig withEngine(Engine engine) {
+        return new DataSourceConfig(mode, url, user, password, port, startServer, chatPath, engine, logPath);
+    }
+
+    public Mode getMode() { return mode; }
+    public Engine getEngine() { return engine; }
+    public String getUrl() { return url; }
+    public String getUser() { return user; }
+    public String getPassword() { return password; }
+
+    /**
+     * @return the directory of the staff chat log, or null if the chat should last only as long as
+     *         the helper, as for an in-memory database
+     */
+    public Path getChatDirectory() {
+        return resolve(chatPath);
+    }
+
+    /**
+     * @return the write-ahead log of the memory engine, or null if its rows should last only as
+     *         long as the helper, as for an in-memory database
+     */
+    public Path getLogFile() {
+        return resolve(logPath);
+    }
+
+    // ~ is the home directory, as in H2 database paths.
+    private static Path resolve(String path) {
+        if (path == null) {
+            return null;
+        }
+        if (path.equals("~") || path.startsWith("~/") || path.startsWith("~\\")) {
+            return Paths.get(System.getProperty("user.home"), path.substring(1).replaceFirst("^[/\\\\]", ""));
+        }
+        return Paths.get(path);
+    }
+
+    /**
+     * Gets the database ready to connect to. In server mode this starts a TCP server in this JVM
+     * when none is listening on the port; it serves local connections only and stops with the JVM,
+     * so the other instances need the one that started it to stay open.
+     * @throws IllegalStateException if the server cannot be started
+     */
+    public void prepare() {
+        if (mode != Mode.SERVER || !startServer || isListening(port)) {
+            return;
+        }
+        synchronized (DataSourceConfig.class) {
+            if (tcpServer != null || isListening(port)) {
+                return;
+            }
+            // Loaded by name like the JDBC driver, so the application does not link against H2.
+            try {
+                Class<?> serverClass = Class.forName("org.h2.tools.Server");
+                Object server = serverClass.getMethod("createTcpServer", String[].class).invoke(null,
+                        (Object) new String[] { "-tcpPort", String.valueOf(port), "-tcpDaemon", "-ifNotExists" });
+                serverClass.getMethod("start").invoke(server);
+                tcpServer = server;
+                System.out.println("Started H2 TCP server on port " + port);
+            } catch (InvocationTargetException e) {
+                // Another instance may have started one on the port since it was checked.
+                if (!isListening(port)) {
+                    throw new IllegalStateException("Could not start the H2 TCP server on port " + port, e.getCause());
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("H2 is not on the class path", e);
+            }
+        }
+    }
+
+    private static boolean isListening(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port), 200);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // The chat log of the default database keeps its established directory; others go next to theirs.
+    private static String chatPathFor(String databasePath) {
+        return databasePath.equals(DEFAULT_PATH) ? DEFAULT_CHAT_PATH : databasePath + ".chat";
+    }
+
+    private static String cacheSetting(int cacheSizeKb) {
+        return cacheSizeKb > 0 ? ";CACHE_SIZE=" + cacheSizeKb : "";
+    }
+
+    @Override
+    public String toString() {
+        String description = mode.name().toLowerCase(Locale.ROOT) + " " + url;
+        return engine == Engine.H2 ? description : description + " (" + engine.name().toLowerCase(Locale.ROOT) + " engine)";
+    }
+}
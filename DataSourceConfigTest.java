@@ -0,0 +1,189 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * DataSourceConfigTest
+ *
+ * This class contains automated JUnit tests to verify the database configurations: the URL, chat
+ * directory and write-ahead log of each mode, the paths read back from a JDBC URL, the copies
+ * made by the with methods, and the choices read from the foundation.db.* system properties.
+ */
+public class DataSourceConfigTest {
+
+    private static final String[] PROPERTIES = {
+            "mode", "path", "cacheSizeKb", "name", "port", "startServer", "chatPath", "engine", "user", "password",
+    };
+
+    /**
+     * Cleanup method to clear the system properties a test set.
+     */
+    @After
+    public void cleanup() {
+        for (String property : PROPERTIES) {
+            System.clearProperty(DataSourceConfig.PROPERTY_PREFIX + property);
+        }
+    }
+
+    /**
+     * Test 1: Verify the URL, chat directory and log file of a database file, with ~ resolved to
+     * the home directory and the default database keeping its own chat directory.
+     */
+    @Test
+    public void testFile() {
+        DataSourceConfig config = DataSourceConfig.file("/data/forum", 65536);
+        assertEquals(DataSourceConfig.Mode.FILE, config.getMode());
+        assertEquals(DataSourceConfig.Engine.H2, config.getEngine());
+        assertEquals("jdbc:h2:/data/forum;CACHE_SIZE=65536", config.getUrl());
+        assertEquals("sa", config.getUser());
+        assertEquals(Paths.get("/data/forum.chat"), config.getChatDirectory());
+        assertEquals(Paths.get("/data/forum.wal"), config.getLogFile());
+
+        String home = System.getProperty("user.home");
+        DataSourceConfig defaults = DataSourceConfig.file(DataSourceConfig.DEFAULT_PATH, 0);
+        assertEquals("jdbc:h2:~/FoundationDatabase", defaults.getUrl());
+        assertEquals(Paths.get(home, "FoundationChat"), defaults.getChatDirectory());
+        assertEquals(Paths.get(home, "FoundationDatabase.wal"), defaults.getLogFile());
+    }
+
+    /**
+     * Test 2: Verify that in-memory databases have no chat directory or log file, and that each
+     * isolated one gets a name of its own.
+     */
+    @Test
+    public void testMemory() {
+        DataSourceConfig named = DataSourceConfig.memory("shared");
+        assertEquals(DataSourceConfig.Mode.MEMORY, named.getMode());
+        assertEquals("jdbc:h2:mem:shared;DB_CLOSE_DELAY=-1", named.getUrl());
+        assertNull(named.getChatDirectory());
+        assertNull(named.getLogFile());
+
+        DataSourceConfig first = DataSourceConfig.isolatedMemory();
+        DataSourceConfig second = DataSourceConfig.isolatedMemory();
+        assertNotEquals(first.getUrl(), second.getUrl());
+        assertNull(first.getLogFile());
+    }
+
+    /**
+     * Test 3: Verify the URL and paths of a database served over TCP.
+     */
+    @Test
+    public void testServer() {
+        DataSourceConfig config = DataSourceConfig.server("/data/forum", 9123, 0, false);
+        assertEquals(DataSourceConfig.Mode.SERVER, config.getMode());
+        assertEquals("jdbc:h2:tcp://localhost:9123//data/forum", config.getUrl());
+        assertEquals(Paths.get("/data/forum.chat"), config.getChatDirectory());
+        assertEquals(Paths.get("/data/forum.wal"), config.getLogFile());
+    }
+
+    /**
+     * Test 4: Verify that a JDBC URL gives the mode and the database path, without the file:
+     * prefix, the server address or the options.
+     */
+    @Test
+    public void testOfUrl() {
+        DataSourceConfig file = DataSourceConfig.of("jdbc:h2:file:/data/forum;AUTO_SERVER=TRUE", "admin", "pw");
+        assertEquals(DataSourceConfig.Mode.FILE, file.getMode());
+        assertEquals("admin", file.getUser());
+        assertEquals("pw", file.getPassword());
+        assertEquals(Paths.get("/data/forum.chat"), file.getChatDirectory());
+        assertEquals(Paths.get("/data/forum.wal"), file.getLogFile());
+
+        DataSourceConfig server = DataSourceConfig.of("jdbc:h2:tcp://localhost:9092/~/forum;CACHE_SIZE=1024", "sa", "");
+        assertEquals(DataSourceConfig.Mode.SERVER, server.getMode());
+        assertEquals(Paths.get(System.getProperty("user.home"), "forum.wal"), server.getLogFile());
+
+        DataSourceConfig memory = DataSourceConfig.of("jdbc:h2:mem:forum", "sa", "");
+        assertEquals(DataSourceConfig.Mode.MEMORY, memory.getMode());
+        assertNull(memory.getChatDirectory());
+        assertNull(memory.getLogFile());
+    }
+
+    /**
+     * Test 5: Verify that the with methods return changed copies and leave the original alone,
+     * and that toString names the memory engine only when it is selected.
+     */
+    @Test
+    public void testCopies() {
+        DataSourceConfig original = DataSourceConfig.file("/data/forum", 0);
+        DataSourceConfig changed = original.withCredentials("admin", "pw").withChatPath("/chat").withEngine(DataSourceConfig.Engine.MEMORY);
+        assertEquals("admin", changed.getUser());
+        assertEquals(Paths.get("/chat"), changed.getChatDirectory());
+        assertEquals(DataSourceConfig.Engine.MEMORY, changed.getEngine());
+        assertEquals(original.getUrl(), changed.getUrl());
+        assertEquals(original.getLogFile(), changed.getLogFile());
+        assertEquals("sa", original.getUser());
+        assertEquals(DataSourceConfig.Engine.H2, original.getEngine());
+        assertNull(original.withChatPath(null).getChatDirectory());
+
+        assertEquals("file jdbc:h2:/data/forum", original.toString());
+        assertEquals("file jdbc:h2:/data/forum (memory engine)", changed.toString());
+    }
+
+    /**
+     * Test 6: Verify that without system properties the application's database file is used,
+     * and that the properties select the mode, engine, port, chat directory and credentials.
+     */
+    @Test
+    public void testFromSystemProperties() {
+        DataSourceConfig defaults = DataSourceConfig.fromSystemProperties();
+        assertEquals(DataSourceConfig.Mode.FILE, defaults.getMode());
+        assertEquals(DataSourceConfig.Engine.H2, defaults.getEngine());
+        assertEquals("jdbc:h2:~/FoundationDatabase", defaults.getUrl());
+
+        setProperty("mode", "Server");
+        setProperty("path", "/data/forum");
+        setProperty("port", "9124");
+        setProperty("startServer", "false");
+        setProperty("cacheSizeKb", "2048");
+        setProperty("chatPath", "/chat");
+        setProperty("engine", " memory ");
+        setProperty("user", "admin");
+        setProperty("password", "pw");
+        DataSourceConfig server = DataSourceConfig.fromSystemProperties();
+        assertEquals(DataSourceConfig.Mode.SERVER, server.getMode());
+        assertEquals("jdbc:h2:tcp://localhost:9124//data/forum;CACHE_SIZE=2048", server.getUrl());
+        assertEquals(DataSourceConfig.Engine.MEMORY, server.getEngine());
+        assertEquals(Paths.get("/chat"), server.getChatDirectory());
+        assertEquals("admin", server.getUser());
+        assertEquals("pw", server.getPassword());
+
+        setProperty("mode", "memory");
+        setProperty("name", "forum_test");
+        DataSourceConfig memory = DataSourceConfig.fromSystemProperties();
+        assertEquals("jdbc:h2:mem:forum_test;DB_CLOSE_DELAY=-1", memory.getUrl());
+        assertNull("An in-memory database ignores the chat path", memory.getChatDirectory());
+    }
+
+    /**
+     * Test 7: Verify that an unknown mode or engine is rejected with the values that are allowed.
+     */
+    @Test
+    public void testUnknownModeOrEngine() {
+        setProperty("mode", "cloud");
+        try {
+            DataSourceConfig.fromSystemProperties();
+            fail("An unknown mode should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("foundation.db.mode must be file, memory or server, not cloud", e.getMessage());
+        }
+
+        System.clearProperty(DataSourceConfig.PROPERTY_PREFIX + "mode");
+        setProperty("engine", "Disk");
+        try {
+            DataSourceConfig.fromSystemProperties();
+            fail("An unknown engine should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("foundation.db.engine must be h2 or memory, not disk", e.getMessage());
+        }
+    }
+
+    private static void setProperty(String name, String value) {
+        System.setProperty(DataSourceConfig.PROPERTY_PREFIX + name, value);
+    }
+}
@@ -1,7 +1,29 @@
 package databasePart1;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import application.Answer;
+import application.AsyncDataAccess;
+import application.ContentCache;
+import application.EventBus;
+import application.Question;
 import application.User;
+import application.JdbcRepositories;
+import application.MemoryRepositories;
+import application.Repositories;
+import application.UserDirectory;
 
 /**
  * The DatabaseHelper class is responsible for managing the connection to the database,
@@ -10,23 +32,66 @@ import application.User;
  */
 public class DatabaseHelper {
 
-    // JDBC driver name and database URL 
+    // JDBC driver name; the database URL and credentials come from a DataSourceConfig
     static final String JDBC_DRIVER = "org.h2.Driver";   
-    static final String DB_URL = "jdbc:h2:~/FoundationDatabase";  
 
-    // Database credentials 
-    static final String USER = "sa"; 
-    static final String PASS = ""; 
+
+    // Directory of the slow query log, which is written only when foundation.slowQueryMillis is set
+    static final Path SLOW_QUERY_LOG_DIR = Paths.get(System.getProperty("user.home"), "FoundationLogs");
+    static final String SLOW_QUERY_MILLIS_PROPERTY = "foundation.slowQueryMillis";
+
+    // Maximum number of rows a search returns
+    public static final int SEARCH_RESULT_LIMIT = 50;
 
     private Connection connection = null;
     private Statement statement = null; 
+    private ConnectionPool connectionPool = null;
+    private AsyncDataAccess asyncDataAccess = null;
+    private ChatLog chatLog = null;
+    // The chat directory of an in-memory database, deleted with the helper.
+    private Path temporaryChatDirectory = null;
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final UserDirectory userDirectory = new UserDirectory(this);
+    private Repositories repositories = new JdbcRepositories(this);
+    private final ContentCache contentCache = new ContentCache();
+    private final EventBus eventBus = new EventBus();
+    private final QueryMetrics queryMetrics = new QueryMetrics();
+    private final DataSourceConfig dataSource;
+    private final String dbUrl;
+    private final String dbUser;
+    private final String dbPassword;
+
+    // Uses the database chosen by the foundation.db.* system properties; the application's file database by default.
+    public DatabaseHelper() {
+        this(DataSourceConfig.fromSystemProperties());
+    }
+
+    // Uses another database, for example an in-memory one for tests and benchmarks.
+    public DatabaseHelper(String dbUrl, String dbUser, String dbPassword) {
+        this(DataSourceConfig.of(dbUrl, dbUser, dbPassword));
+    }
+
+    public DatabaseHelper(DataSourceConfig dataSource) {
+        this.dataSource = dataSource;
+        this.dbUrl = dataSource.getUrl();
+        this.dbUser = dataSource.getUser();
+        this.dbPassword = dataSource.getPassword();
+    }
 
     public void connectToDatabase() throws SQLException {
         try {
             Class.forName(JDBC_DRIVER); // Load the JDBC driver
-            System.out.println("Connecting to database...");
-            connection = DriverManager.getConnection(DB_URL, USER, PASS);
+            System.out.println("Connecting to " + dataSource + " database...");
+            dataSource.prepare(); // Starts the local TCP server in server mode
+            // Statements on this connection and on the pooled ones are recorded in the query metrics.
+            connection = queryMetrics.wrap(DriverManager.getConnection(dbUrl, dbUser, dbPassword));
+            queryMetrics.registerMBean(dbUrl);
+            String slowQueryMillis = System.getProperty(SLOW_QUERY_MILLIS_PROPERTY);
+            if (slowQueryMillis != null) {
+                enableSlowQueryLog(SLOW_QUERY_LOG_DIR, Long.parseLong(slowQueryMillis.trim()));
+            }
             statement = connection.createStatement(); 
+            getConnection().close(); // Open the first pooled connection used by the managers
             
             // You can use this command to clear the database and restart from fresh.
             //statement.execute("DROP ALL OBJECTS");
@@ -34,6 +99,12 @@ public class DatabaseHelper {
             //deleteAllTables();
             
             createTables();  // Create the necessary tables if they don't exist
+            SchemaMigrator.forApplication().migrate(connection);  // Add indexes and later schema changes
+            if (dataSource.getEngine() == DataSourceConfig.Engine.MEMORY) {
+                // Replays the write-ahead log, if there is one, before the first read.
+                Path logFile = dataSource.getLogFile();
+                repositories = logFile == null ? new MemoryRepositories() : MemoryRepositories.open(logFile, false);
+            }
             
             System.out.println("Database tables created successfully.");
         } catch (ClassNotFoundException e) {
@@ -186,12 +257,91 @@ public class DatabaseHelper {
         }
     }
     
-    // Gets the database connection.
+    // Leases a connection from the pool. Closing it returns it to the pool, so callers
+    // should keep using try-with-resources.
     public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(DB_URL, USER, PASS);
+        return getConnectionPool().lease();
+    }
+    
+    // Returns the connection pool, creating it on first use.
+    public synchronized ConnectionPool getConnectionPool() {
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool(dbUrl, dbUser, dbPassword, queryMetrics);
+        }
+        return connectionPool;
+    }
+    
+    // Returns the executor that runs queries off the JavaFX Application Thread, creating it on first use.
+    // It runs at most as many queries at once as the pool has connections.
+    public synchronized AsyncDataAccess getAsyncDataAccess() {
+        if (asyncDataAccess == null) {
+            asyncDataAccess = new AsyncDataAccess(getConnectionPool().getStats().getMaxSize());
+        }
+        return asyncDataAccess;
+    }
+    
+    // Returns the staff chat log, opening it on first use in the data source's chat directory.
+    // An in-memory database gets a temporary one, so tests never write to the home directory.
+    public synchronized ChatLog getChatLog() throws IOException {
+        if (chatLog == null) {
+            Path directory = dataSource.getChatDirectory();
+            if (directory == null) {
+                directory = Files.createTempDirectory("foundation-chat");
+                temporaryChatDirectory = directory;
+            }
+            chatLog = new ChatLog(directory);
+        }
+        return chatLog;
+    }
+    
+    // Returns a snapshot of the connection pool metrics.
+    public ConnectionPool.Stats getPoolStats() {
+        return getConnectionPool().getStats();
+    }
+    
+    // Returns the repositories of questions, answers, reviews, messages and users the managers store through:
+    // the H2 tables, or MemoryRepositories when the configuration selects the memory engine.
+    public Repositories getRepositories() {
+        return repositories;
+    }
+    
+    // Returns the configuration of the database this helper connects to.
+    public DataSourceConfig getDataSource() {
+        return dataSource;
+    }
+    
+    // Returns the per-query execution counts, latencies and rows of every statement run through this helper.
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+    
+    // Starts writing statements that take at least thresholdMillis to a rolling log in the directory,
+    // with their parameters and plan. Replaces a log enabled before.
+    public void enableSlowQueryLog(Path directory, long thresholdMillis) {
+        SlowQueryLog previous;
+        synchronized (this) {
+            previous = queryMetrics.getSlowQueryLog();
+            // The log leases from the pool directly: its writer thread must not need this helper's
+            // lock, which is held by whoever closes the helper.
+            ConnectionPool pool = getConnectionPool();
+            queryMetrics.setSlowQueryLog(new SlowQueryLog(directory, thresholdMillis, pool::lease));
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+    
+    // Stops the slow query log, writing the entries already queued. The log is closed outside this
+    // helper's lock, as its writer may still be leasing a connection for a plan.
+    public void disableSlowQueryLog() {
+        SlowQueryLog log;
+        synchronized (this) {
+            log = queryMetrics.getSlowQueryLog();
+            queryMetrics.setSlowQueryLog(null);
+        }
+        if (log != null) {
+            log.close();
         }
-        return connection;
     }
     
     // Checks if a user already exists in the database based on their userName.
@@ -280,50 +430,193 @@ public class DatabaseHelper {
         }
     }
 
-    // New method: Search for questions and answers by keyword (combined search, not case sensitive).
-    public ResultSet searchQuestionsAndAnswers(String keyword) throws SQLException {
-        String searchQuery = "SELECT q.id AS questionId, q.text AS questionText, q.author AS questionAuthor, " +
-                             "a.id AS answerId, a.text AS answerText, a.author AS answerAuthor " +
-                             "FROM questions q LEFT JOIN answers a ON q.id = a.questionId " +
-                             "WHERE LOWER(q.text) LIKE LOWER(?) OR LOWER(a.text) LIKE LOWER(?)";
-        PreparedStatement pstmt = connection.prepareStatement(searchQuery);
-        String likeKeyword = "%" + keyword + "%";
-        pstmt.setString(1, likeKeyword);
-        pstmt.setString(2, likeKeyword);
-        return pstmt.executeQuery();
+    // Returns the full-text index used by the search methods. Managers keep it current.
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    // Returns the shared cache of user profiles used to look up authors in batches.
+    public UserDirectory getUserDirectory() {
+        return userDirectory;
+    }
+
+    // Returns the cache of recently read questions, answers and reviews. Managers invalidate it on writes.
+    public ContentCache getContentCache() {
+        return contentCache;
+    }
+
+    // Returns the bus the managers publish their writes on, for pages that update in place.
+    public EventBus getEventBus() {
+        return eventBus;
     }
     
-    // New method: Search only questions by keyword (not case sensitive).
-    public ResultSet searchQuestions(String keyword) throws SQLException {
-        String query = "SELECT id, text, author FROM questions WHERE LOWER(text) LIKE LOWER(?)";
-        PreparedStatement pstmt = connection.prepareStatement(query);
-        pstmt.setString(1, "%" + keyword + "%");
-        return pstmt.executeQuery();
+    // Search for questions and answers by keyword. Returns the matching questions, best first,
+    // with the matching answers of each question attached.
+    public List<Question> searchQuestionsAndAnswers(String keyword) throws SQLException {
+        ensureSearchIndexLoaded();
+        List<SearchIndex.Hit> hits = searchIndex.search(keyword,
+                EnumSet.of(SearchIndex.DocType.QUESTION, SearchIndex.DocType.ANSWER), SEARCH_RESULT_LIMIT);
+        List<Integer> questionIds = new ArrayList<>();
+        List<Integer> answerIds = new ArrayList<>();
+        for (SearchIndex.Hit hit : hits) {
+            int questionId = hit.getType() == SearchIndex.DocType.QUESTION ? hit.getId() : hit.getParentId();
+            if (!questionIds.contains(questionId)) {
+                questionIds.add(questionId);
+            }
+            if (hit.getType() == SearchIndex.DocType.ANSWER) {
+                answerIds.add(hit.getId());
+            }
+        }
+        List<Question> questions = loadQuestionsById(questionIds);
+        Map<Integer, Question> byId = new HashMap<>();
+        for (Question q : questions) {
+            byId.put(q.getId(), q);
+        }
+        for (Answer a : loadAnswersById(answerIds)) {
+            Question q = byId.get(a.getQuestionId());
+            if (q != null) {
+                q.addAnswer(a);
+            }
+        }
+        return questions;
     }
     
-    // New method: Search only answers by keyword (not case sensitive).
-    public ResultSet searchAnswers(String keyword) throws SQLException {
-        String query = "SELECT id, text, author, questionId FROM answers WHERE LOWER(text) LIKE LOWER(?)";
-        PreparedStatement pstmt = connection.prepareStatement(query);
-        pstmt.setString(1, "%" + keyword + "%");
-        return pstmt.executeQuery();
+    // Search only questions by keyword (not case sensitive), best match first.
+    public List<Question> searchQuestions(String keyword) throws SQLException {
+        return searchQuestions(keyword, SEARCH_RESULT_LIMIT);
     }
     
-    // New method: Get answers for a specific question.
-    public ResultSet getAnswersForQuestion(int questionId) throws SQLException {
-        String query = "SELECT id, text, author, superliked FROM answers WHERE questionId = ?";
-        PreparedStatement pstmt = connection.prepareStatement(query);
-        pstmt.setInt(1, questionId);
-        return pstmt.executeQuery();
+    // Search only questions by keyword, returning at most limit rows.
+    public List<Question> searchQuestions(String keyword, int limit) throws SQLException {
+        ensureSearchIndexLoaded();
+        return loadQuestionsById(searchIndex.searchIds(keyword, SearchIndex.DocType.QUESTION, limit));
+    }
+    
+    // Runs searchQuestions off the JavaFX Application Thread.
+    public CompletableFuture<List<Question>> searchQuestionsAsync(String keyword) {
+        return getAsyncDataAccess().supply(() -> searchQuestions(keyword));
+    }
+    
+    // Search only answers by keyword (not case sensitive), best match first.
+    public List<Answer> searchAnswers(String keyword) throws SQLException {
+        return searchAnswers(keyword, SEARCH_RESULT_LIMIT);
     }
     
-    // New method: Get the question related to a specific answer.
-    public ResultSet getQuestionForAnswer(int answerId) throws SQLException {
+    // Search only answers by keyword, returning at most limit rows.
+    public List<Answer> searchAnswers(String keyword, int limit) throws SQLException {
+        ensureSearchIndexLoaded();
+        return loadAnswersById(searchIndex.searchIds(keyword, SearchIndex.DocType.ANSWER, limit));
+    }
+    
+    // Runs searchAnswers off the JavaFX Application Thread.
+    public CompletableFuture<List<Answer>> searchAnswersAsync(String keyword) {
+        return getAsyncDataAccess().supply(() -> searchAnswers(keyword));
+    }
+    
+    private void ensureSearchIndexLoaded() throws SQLException {
+        if (!searchIndex.isLoaded()) {
+            try (Connection conn = getConnection()) {
+                searchIndex.ensureLoaded(conn);
+            }
+        }
+    }
+    
+    // Fetches the questions with the given ids, keeping the order of the ids.
+    private List<Question> loadQuestionsById(List<Integer> ids) throws SQLException {
+        Map<Integer, Question> rows = new LinkedHashMap<>();
+        for (int id : ids) {
+            rows.put(id, null);
+        }
+        if (!ids.isEmpty()) {
+            String query = "SELECT id, text, author FROM questions WHERE id IN (" + placeholders(ids.size()) + ")";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(query)) {
+                for (int i = 0; i < ids.size(); i++) {
+                    pstmt.setInt(i + 1, ids.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.put(rs.getInt("id"), new Question(rs.getInt("id"), rs.getString("text"), rs.getString("author")));
+                    }
+                }
+            }
+        }
+        List<Question> questions = new ArrayList<>();
+        for (Question q : rows.values()) {
+            if (q != null) {
+                questions.add(q);
+            }
+        }
+        return questions;
+    }
+    
+    // Fetches the answers with the given ids, keeping the order of the ids.
+    private List<Answer> loadAnswersById(List<Integer> ids) throws SQLException {
+        Map<Integer, Answer> rows = new LinkedHashMap<>();
+        for (int id : ids) {
+            rows.put(id, null);
+        }
+        if (!ids.isEmpty()) {
+            String query = "SELECT id, text, author, questionId FROM answers WHERE id IN (" + placeholders(ids.size()) + ")";
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(query)) {
+                for (int i = 0; i < ids.size(); i++) {
+                    pstmt.setInt(i + 1, ids.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.put(rs.getInt("id"), new Answer(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("questionId")));
+                    }
+                }
+            }
+        }
+        List<Answer> answers = new ArrayList<>();
+        for (Answer a : rows.values()) {
+            if (a != null) {
+                answers.add(a);
+            }
+        }
+        return answers;
+    }
+    
+    // Builds "?, ?, ..." for an IN list of the given size.
+    public static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+    
+    // Gets the answers to a specific question, in ID order, on a pooled connection.
+    public List<Answer> getAnswersForQuestion(int questionId) throws SQLException {
+        String query = "SELECT id, text, author, superliked FROM answers WHERE questionId = ? ORDER BY id";
+        List<Answer> answers = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, questionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Answer answer = new Answer(rs.getInt("id"), rs.getString("text"), rs.getString("author"), questionId);
+                    answer.setSuperlike(rs.getBoolean("superliked"));
+                    answers.add(answer);
+                }
+            }
+        }
+        return answers;
+    }
+    
+    // Gets the question a specific answer belongs to, on a pooled connection; null if there is none.
+    public Question getQuestionForAnswer(int answerId) throws SQLException {
         String query = "SELECT q.id, q.text, q.author FROM questions q " +
                        "JOIN answers a ON q.id = a.questionId WHERE a.id = ?";
-        PreparedStatement pstmt = connection.prepareStatement(query);
-        pstmt.setInt(1, answerId);
-        return pstmt.executeQuery();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, answerId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? new Question(rs.getInt("id"), rs.getString("text"), rs.getString("author")) : null;
+            }
+        }
     }
     
     public ResultSet checkTableStructure() throws SQLException {
@@ -348,6 +641,9 @@ public class DatabaseHelper {
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.execute(query);
+            searchIndex.invalidate();
+            userDirectory.invalidateAll();
+            contentCache.invalidateAll();
             System.out.println("All tables deleted successfully.");
         } catch (SQLException e) {
             e.printStackTrace();
@@ -463,7 +759,11 @@ public class DatabaseHelper {
         String query = "UPDATE answers SET superliked = TRUE WHERE id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setInt(1, answerId);
-            return pstmt.executeUpdate() > 0;
+            boolean updated = pstmt.executeUpdate() > 0;
+            if (updated) {
+                contentCache.answerChanged(answerId);
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -475,7 +775,9 @@ public class DatabaseHelper {
         String query = "UPDATE cse360users SET rating = -1 WHERE userName = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, userName);
-            return pstmt.executeUpdate() > 0;
+            boolean flagged = pstmt.executeUpdate() > 0;
+            userDirectory.invalidate(userName);
+            return flagged;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -517,5 +819,36 @@ public class DatabaseHelper {
         } catch(SQLException se) { 
             se.printStackTrace();
         } 
+        // Before the pool closes, so the queued entries can still capture their plans.
+        disableSlowQueryLog();
+        synchronized (this) {
+            if (asyncDataAccess != null) {
+                asyncDataAccess.shutdown();
+                asyncDataAccess = null;
+            }
+            if (connectionPool != null) {
+                connectionPool.close();
+                connectionPool = null;
+            }
+            if (chatLog != null) {
+                chatLog.close();
+                chatLog = null;
+            }
+            repositories.close();
+            repositories = new JdbcRepositories(this);
+            if (temporaryChatDirectory != null) {
+                deleteDirectory(temporaryChatDirectory);
+                temporaryChatDirectory = null;
+            }
+            queryMetrics.unregisterMBean();
+        }
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 }
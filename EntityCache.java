@@ -0,0 +1,200 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * The EntityCache class is a bounded read-through cache. Each value has a weight (roughly its size
+ * in bytes); when the total weight passes the limit, the least recently used values are evicted.
+ * Values also expire a fixed time after they were loaded.
+ *
+ * Values are loaded outside the cache lock. If an invalidation happens while a value is loading,
+ * the loaded value is returned to its caller but not cached, since it may predate the change.
+ */
+public class EntityCache<K, V> {
+
+    /**
+     * Loads a value that is missing from the cache.
+     */
+    public interface Loader<V> {
+        V load() throws SQLException;
+    }
+
+    /**
+     * A snapshot of the cache counters.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final int size;
+        private final long weight;
+
+        Stats(long hits, long misses, long evictions, long expirations, int size, long weight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+        public int getSize() { return size; }
+        public long getWeight() { return weight; }
+
+        /** @return the share of lookups served from memory, between 0 and 1 */
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "hits=%d misses=%d hitRate=%.1f%% evictions=%d expirations=%d entries=%d weight=%d",
+                    hits, misses, getHitRate() * 100, evictions, expirations, size, weight);
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long weight;
+        final long expiresAt;
+
+        Entry(V value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<? super V> weigher;
+    // Access order, so iteration starts at the least recently used entry.
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight = 0;
+    private long version = 0;   // Bumped by every invalidation
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+
+    /**
+     * Constructor to initialize the EntityCache.
+     * @param maxWeight the total weight of the values kept
+     * @param ttl how long a value is served after it was loaded
+     * @param unit the unit of ttl
+     * @param weigher the weight of a value, such as its approximate size in bytes
+     */
+    public EntityCache(long maxWeight, long ttl, TimeUnit unit, ToLongFunction<? super V> weigher) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the cached value for the key, loading and caching it if it is missing or expired.
+     * @param key the key
+     * @param loader loads the value on a miss
+     * @return the value
+     * @throws SQLException if the loader fails; nothing is cached
+     */
+    public V get(K key, Loader<? extends V> loader) throws SQLException {
+        long loadVersion;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    hits++;
+                    return entry.value;
+                }
+                remove(key);
+                expirations++;
+            }
+            misses++;
+            loadVersion = version;
+        }
+        V value = loader.load();
+        synchronized (this) {
+            if (value != null && loadVersion == version) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes one value.
+     * @param key the key of the value
+     */
+    public synchronized void invalidate(K key) {
+        version++;
+        remove(key);
+    }
+
+    /**
+     * Removes every value the predicate matches, for changes that affect several cached values.
+     * @param predicate tested against each cached key and value
+     */
+    public synchronized void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        version++;
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (predicate.test(e.getKey(), e.getValue().value)) {
+                weight -= e.getValue().weight;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes every value.
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return the current counters
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, expirations, entries.size(), weight);
+    }
+
+    private void put(K key, V value) {
+        long w = weigher.applyAsLong(value);
+        if (w > maxWeight) {
+            return; // Would evict everything else; serve it uncached instead
+        }
+        remove(key);
+        entries.put(key, new Entry<>(value, w, System.nanoTime() + ttlNanos));
+        weight += w;
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            weight -= it.next().weight;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(K key) {
+        Entry<V> old = entries.remove(key);
+        if (old != null) {
+            weight -= old.weight;
+        }
+    }
+}
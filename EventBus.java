@@ -0,0 +1,181 @@
+package application;
+
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * The EventBus class carries the Events published by the managers to the pages that show the
+ * changed data, so a visible page can apply the change instead of reloading its list.
+ *
+ * Publishing never blocks: the event goes on a lock-free queue, and the first event of a burst
+ * schedules one delivery on the JavaFX Application Thread. Every event published before that
+ * delivery runs is handed over in the same batch, so a burst of writes costs one runLater and one
+ * update per subscriber. Events published while nothing is subscribed are dropped.
+ */
+public class EventBus {
+
+    /**
+     * A registered handler. Cancel it when its page is no longer shown.
+     */
+    public interface Subscription {
+        void cancel();
+    }
+
+    private final class Subscriber<E> implements Subscription {
+        final Class<E> type;
+        final Consumer<? super List<E>> handler;
+
+        Subscriber(Class<E> type, Consumer<? super List<E>> handler) {
+            this.type = type;
+            this.handler = handler;
+        }
+
+        void deliver(List<Object> batch) {
+            List<E> matching = new ArrayList<>();
+            for (Object event : batch) {
+                if (type.isInstance(event)) {
+                    matching.add(type.cast(event));
+                }
+            }
+            if (!matching.isEmpty()) {
+                handler.accept(matching);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            subscribers.remove(this);
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Object> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final CopyOnWriteArrayList<Subscriber<?>> subscribers = new CopyOnWriteArrayList<>();
+    private final Executor deliveryExecutor;
+
+    /**
+     * Creates a bus that delivers on the JavaFX Application Thread.
+     */
+    public EventBus() {
+        this(Platform::runLater);
+    }
+
+    /**
+     * Creates a bus.
+     * @param deliveryExecutor where handlers run
+     */
+    public EventBus(Executor deliveryExecutor) {
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * Registers a handler for one event type. The handler runs on the delivery thread with every
+     * event of the type published since the previous delivery, in publish order.
+     * @param type the event class; subclasses match too
+     * @param handler receives the batch
+     * @return the subscription, to cancel when the page goes away
+     */
+    public <E> Subscription subscribe(Class<E> type, Consumer<? super List<E>> handler) {
+        Subscriber<E> subscriber = new Subscriber<>(type, handler);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Publishes an event from any thread without blocking.
+     * @param event the event, usually one of the Events classes
+     */
+    public void publish(Object event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        pending.offer(event);
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                deliveryExecutor.execute(this::drain);
+            } catch (RuntimeException e) {
+                // No delivery thread, for example when the JavaFX toolkit is not running.
+                scheduled.set(false);
+                pending.clear();
+            }
+        }
+    }
+
+    // Clears the flag before taking the batch, so an event published after the last poll
+    // schedules the next delivery rather than waiting for one.
+    private void drain() {
+        scheduled.set(false);
+        List<Object> batch = new ArrayList<>();
+        Object event;
+        while ((event = pending.poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (Subscriber<?> subscriber : subscribers) {
+            try {
+                subscriber.deliver(batch);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Cancels subscriptions once the stage shows another scene, which is how pages are left, or
+     * is closed. Call after setting the page's scene on the stage.
+     * @param stage the stage showing the page
+     * @param subscriptions the page's subscriptions
+     */
+    public static void cancelWhenSceneChanges(Stage stage, Subscription... subscriptions) {
+        new PageWatch(stage, subscriptions).register();
+    }
+
+    // Watches the stage for the page being left and then cancels its subscriptions once.
+    private static final class PageWatch {
+        private final Stage stage;
+        private final Scene shown;
+        private final Subscription[] subscriptions;
+        private final ChangeListener<Scene> sceneListener;
+        private final ChangeListener<Boolean> showingListener;
+
+        PageWatch(Stage stage, Subscription[] subscriptions) {
+            this.stage = stage;
+            this.shown = stage.getScene();
+            this.subscriptions = subscriptions;
+            this.sceneListener = (observable, oldScene, newScene) -> {
+                if (newScene != shown) {
+                    cancel();
+                }
+            };
+            this.showingListener = (observable, wasShowing, showing) -> {
+                if (!showing) {
+                    cancel();
+                }
+            };
+        }
+
+        void register() {
+            stage.sceneProperty().addListener(sceneListener);
+            stage.showingProperty().addListener(showingListener);
+        }
+
+        void cancel() {
+            for (Subscription subscription : subscriptions) {
+                subscription.cancel();
+            }
+            stage.sceneProperty().removeListener(sceneListener);
+            stage.showingProperty().removeListener(showingListener);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * EventBusTest
+ *
+ * This class contains automated JUnit tests to verify the event bus: a burst of events is
+ * delivered in one batch, handlers only see the event types they subscribed to, cancelled
+ * handlers get nothing more, and events published from several threads all arrive once.
+ */
+public class EventBusTest {
+
+    // Stands in for Platform.runLater: deliveries wait here until the test runs them.
+    private final ConcurrentLinkedQueue<Runnable> deliveries = new ConcurrentLinkedQueue<>();
+    private EventBus bus;
+
+    /**
+     * Setup method to create a bus whose deliveries are run by the test.
+     */
+    @Before
+    public void setup() {
+        deliveries.clear();
+        bus = new EventBus(deliveries::add);
+    }
+
+    /**
+     * Test 1: Verify that a burst of events schedules one delivery, which hands every event to
+     * the handler in one batch in publish order, and that the next event schedules a new one.
+     */
+    @Test
+    public void testBurstIsCoalesced() {
+        List<List<Integer>> batches = new ArrayList<>();
+        bus.subscribe(Integer.class, batches::add);
+        for (int i = 0; i < 100; i++) {
+            bus.publish(i);
+        }
+        assertEquals("A burst should schedule one delivery", 1, deliveries.size());
+        runDeliveries();
+        assertEquals(1, batches.size());
+        assertEquals(100, batches.get(0).size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), batches.get(0).get(i));
+        }
+
+        bus.publish(100);
+        assertEquals("An event after the delivery should schedule the next one", 1, deliveries.size());
+        runDeliveries();
+        assertEquals(2, batches.size());
+    }
+
+    /**
+     * Test 2: Verify that each handler gets only the events of its type, is not called for a
+     * batch without them, and that a failing handler does not keep the others from their events.
+     */
+    @Test
+    public void testHandlersSeeTheirTypesOnly() {
+        List<List<String>> strings = new ArrayList<>();
+        List<List<Integer>> integers = new ArrayList<>();
+        List<List<Number>> numbers = new ArrayList<>();
+        bus.subscribe(String.class, batch -> {
+            throw new IllegalStateException("A broken page");
+        });
+        bus.subscribe(String.class, strings::add);
+        bus.subscribe(Integer.class, integers::add);
+        bus.subscribe(Number.class, numbers::add);
+        bus.publish("a");
+        bus.publish(1);
+        bus.publish("b");
+        bus.publish(2.5);
+        runDeliveries();
+
+        assertEquals(1, strings.size());
+        assertEquals(2, strings.get(0).size());
+        assertEquals("b", strings.get(0).get(1));
+        assertEquals(1, integers.get(0).size());
+        assertEquals("Subclasses should match", 2, numbers.get(0).size());
+
+        bus.publish("c");
+        runDeliveries();
+        assertEquals("A batch without integers should not call their handler", 1, integers.size());
+        assertEquals(2, strings.size());
+    }
+
+    /**
+     * Test 3: Verify that a cancelled handler gets no further events, including ones published
+     * before it was cancelled but not yet delivered, and that with no handlers left nothing is
+     * scheduled.
+     */
+    @Test
+    public void testCancelledHandlerGetsNothing() {
+        List<List<String>> kept = new ArrayList<>();
+        List<List<String>> cancelled = new ArrayList<>();
+        bus.subscribe(String.class, kept::add);
+        EventBus.Subscription subscription = bus.subscribe(String.class, cancelled::add);
+        bus.publish("before");
+        runDeliveries();
+        assertEquals(1, cancelled.size());
+
+        bus.publish("pending");
+        subscription.cancel();
+        runDeliveries();
+        assertEquals("The cancelled handler should not get the pending event", 1, cancelled.size());
+        assertEquals(2, kept.size());
+
+        EventBus alone = new EventBus(deliveries::add);
+        alone.subscribe(String.class, cancelled::add).cancel();
+        alone.publish("nobody listens");
+        assertTrue("Nothing should be scheduled without handlers", deliveries.isEmpty());
+    }
+
+    /**
+     * Test 4: Verify that when there is no delivery thread the events are dropped and a later
+     * event schedules a delivery again.
+     */
+    @Test
+    public void testRejectedDeliveryIsRetried() {
+        boolean[] running = { false };
+        EventBus stopped = new EventBus(task -> {
+            if (!running[0]) {
+                throw new IllegalStateException("Toolkit not initialized");
+            }
+            deliveries.add(task);
+        });
+        List<List<String>> batches = new ArrayList<>();
+        stopped.subscribe(String.class, batches::add);
+        stopped.publish("lost");
+        running[0] = true;
+        stopped.publish("delivered");
+        runDeliveries();
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertEquals("delivered", batches.get(0).get(0));
+    }
+
+    /**
+     * Test 5: Verify that events published from several threads while deliveries run are all
+     * delivered exactly once.
+     */
+    @Test
+    public void testConcurrentPublishersLoseNothing() throws Exception {
+        int threads = 4;
+        int perThread = 5000;
+        List<Integer> received = new ArrayList<>();
+        bus.subscribe(Integer.class, received::addAll);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    bus.publish(base + i);
+                }
+                done.countDown();
+            }).start();
+        }
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            runDeliveries();
+        }
+        runDeliveries();
+
+        assertEquals(threads * perThread, received.size());
+        boolean[] seen = new boolean[threads * perThread];
+        for (int value : received) {
+            assertFalse("Delivered twice: " + value, seen[value]);
+            seen[value] = true;
+        }
+    }
+
+    private void runDeliveries() {
+        Runnable delivery;
+        while ((delivery = deliveries.poll()) != null) {
+            delivery.run();
+        }
+    }
+}
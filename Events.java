@@ -0,0 +1,227 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Events class holds the events the managers publish on the EventBus after a write has been
+ * stored. Each event carries what a visible page needs to apply the change without querying again.
+ */
+public final class Events {
+
+    private Events() {
+    }
+
+    /** A main question was saved. */
+    public static final class QuestionCreated {
+        private final Question question;
+
+        public QuestionCreated(Question question) {
+            this.question = question;
+        }
+
+        public Question getQuestion() { return question; }
+    }
+
+    /** The text of a main question or a subset question was edited. */
+    public static final class QuestionUpdated {
+        private final int questionId;
+        private final boolean subset;
+        private final String text;
+
+        public QuestionUpdated(int questionId, boolean subset, String text) {
+            this.questionId = questionId;
+            this.subset = subset;
+            this.text = text;
+        }
+
+        public int getQuestionId() { return questionId; }
+        /** @return true for a subset (clarification) question */
+        public boolean isSubset() { return subset; }
+        public String getText() { return text; }
+    }
+
+    /** A main question was deleted, together with its answers and its subset questions and their answers. */
+    public static final class QuestionDeleted {
+        private final int questionId;
+        private final List<Integer> answerIds;
+        private final List<Integer> subsetAnswerIds;
+
+        public QuestionDeleted(int questionId, List<Integer> answerIds, List<Integer> subsetAnswerIds) {
+            this.questionId = questionId;
+            this.answerIds = Collections.unmodifiableList(new ArrayList<>(answerIds));
+            this.subsetAnswerIds = Collections.unmodifiableList(new ArrayList<>(subsetAnswerIds));
+        }
+
+        public int getQuestionId() { return questionId; }
+        /** @return the IDs of the main answers deleted with the question */
+        public List<Integer> getAnswerIds() { return answerIds; }
+        /** @return the IDs of the clarification answers deleted with the question's subset questions */
+        public List<Integer> getSubsetAnswerIds() { return subsetAnswerIds; }
+    }
+
+    /** A subset (clarification) question was saved under a main question. */
+    public static final class SubsetQuestionCreated {
+        private final int questionId;
+        private final Question subsetQuestion;
+
+        public SubsetQuestionCreated(int questionId, Question subsetQuestion) {
+            this.questionId = questionId;
+            this.subsetQuestion = subsetQuestion;
+        }
+
+        /** @return the ID of the main question */
+        public int getQuestionId() { return questionId; }
+        public Question getSubsetQuestion() { return subsetQuestion; }
+    }
+
+    /** A main answer or a clarification answer was saved. */
+    public static final class AnswerCreated {
+        private final Answer answer;
+        private final boolean clarification;
+
+        public AnswerCreated(Answer answer, boolean clarification) {
+            this.answer = answer;
+            this.clarification = clarification;
+        }
+
+        public Answer getAnswer() { return answer; }
+        /** @return true for an answer to a clarification question, whose question ID is the subset question */
+        public boolean isClarification() { return clarification; }
+    }
+
+    /** The text of a main answer or a clarification answer was edited. */
+    public static final class AnswerUpdated {
+        private final int answerId;
+        private final boolean clarification;
+        private final String text;
+
+        public AnswerUpdated(int answerId, boolean clarification, String text) {
+            this.answerId = answerId;
+            this.clarification = clarification;
+            this.text = text;
+        }
+
+        public int getAnswerId() { return answerId; }
+        public boolean isClarification() { return clarification; }
+        public String getText() { return text; }
+    }
+
+    /** A main answer was deleted, together with its reviews. */
+    public static final class AnswerDeleted {
+        private final int answerId;
+
+        public AnswerDeleted(int answerId) {
+            this.answerId = answerId;
+        }
+
+        public int getAnswerId() { return answerId; }
+    }
+
+    /** A review of an answer was saved. */
+    public static final class ReviewSaved {
+        private final Review review;
+
+        public ReviewSaved(Review review) {
+            this.review = review;
+        }
+
+        public Review getReview() { return review; }
+    }
+
+    /** The text of a review of an answer was edited. */
+    public static final class ReviewUpdated {
+        private final int reviewId;
+        private final String text;
+
+        public ReviewUpdated(int reviewId, String text) {
+            this.reviewId = reviewId;
+            this.text = text;
+        }
+
+        public int getReviewId() { return reviewId; }
+        public String getText() { return text; }
+    }
+
+    /** A review of an answer was deleted. */
+    public static final class ReviewDeleted {
+        private final Review review;
+        private final boolean requeued;
+
+        public ReviewDeleted(Review review, boolean requeued) {
+            this.review = review;
+            this.requeued = requeued;
+        }
+
+        public Review getReview() { return review; }
+        /** @return true if it was the author's only review of the answer, which is back in their queue */
+        public boolean isRequeued() { return requeued; }
+    }
+
+    /** A review of a question was saved. */
+    public static final class QuestionReviewSaved {
+        private final QuestionReview review;
+
+        public QuestionReviewSaved(QuestionReview review) {
+            this.review = review;
+        }
+
+        public QuestionReview getReview() { return review; }
+    }
+
+    /** A message was sent; getMessage().getId() is the recipient's user ID. */
+    public static final class MessageSent {
+        private final Message message;
+
+        public MessageSent(Message message) {
+            this.message = message;
+        }
+
+        public Message getMessage() { return message; }
+    }
+
+    /** A message was posted to the staff chat log. */
+    public static final class StaffChatPosted {
+        private final long offset;
+
+        public StaffChatPosted(long offset) {
+            this.offset = offset;
+        }
+
+        public long getOffset() { return offset; }
+    }
+
+    /** A student asked for the reviewer role. */
+    public static final class RequestSubmitted {
+        private final String studentUserName;
+
+        public RequestSubmitted(String studentUserName) {
+            this.studentUserName = studentUserName;
+        }
+
+        public String getStudentUserName() { return studentUserName; }
+    }
+
+    /** A reviewer request was approved. */
+    public static final class RequestApproved {
+        private final String studentUserName;
+
+        public RequestApproved(String studentUserName) {
+            this.studentUserName = studentUserName;
+        }
+
+        public String getStudentUserName() { return studentUserName; }
+    }
+
+    /** A reviewer request was denied. */
+    public static final class RequestDenied {
+        private final String studentUserName;
+
+        public RequestDenied(String studentUserName) {
+            this.studentUserName = studentUserName;
+        }
+
+        public String getStudentUserName() { return studentUserName; }
+    }
+}
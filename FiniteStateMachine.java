@@ -0,0 +1,216 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The FiniteStateMachine class runs a finite state machine diagram compiled into a dense
+ * transition table: one row per state and one column per character class.
+ *
+ * A machine is defined with a Builder by naming character classes, listing the transitions
+ * between numbered states and optionally capping the input length. State 0 is the start state.
+ * Every transition consumes one character; the machine halts at the end of the input, on a
+ * character with no transition, or when a transition would consume more than the maximum
+ * length, in which case it stays in the state it was in.
+ *
+ * A compiled machine is immutable, so one instance may be run by any number of threads at
+ * once, and run() does not allocate: it packs where the machine halted into a long that
+ * state(), index() and overflowed() take apart.
+ */
+public final class FiniteStateMachine {
+    private static final int NO_TRANSITION = -1;
+    private static final long OVERFLOW = 1L << 62;
+
+    private final byte[] charClass;     // Character class of every ASCII character; 0 is "other"
+    private final int classCount;
+    private final int[] transitions;    // transitions[state * classCount + class] = next state
+    private final boolean[] finalStates;
+    private final int maxLength;
+
+    private FiniteStateMachine(byte[] charClass, int classCount, int[] transitions, boolean[] finalStates,
+            int maxLength) {
+        this.charClass = charClass;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.finalStates = finalStates;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Runs the machine over the input from the start state.
+     * @param input the characters to recognize
+     * @return the packed halt position; see state(), index() and overflowed()
+     */
+    public long run(CharSequence input) {
+        int state = 0;
+        int ndx = 0;
+        int length = input.length();
+        while (ndx < length) {
+            char currentChar = input.charAt(ndx);
+            int next = transitions[state * classCount + (currentChar < charClass.length ? charClass[currentChar] : 0)];
+            if (next == NO_TRANSITION) {
+                break;
+            }
+            if (ndx >= maxLength) {
+                return OVERFLOW | ((long) state << 32) | ndx;
+            }
+            state = next;
+            ndx++;
+        }
+        return ((long) state << 32) | ndx;
+    }
+
+    /**
+     * @param result a value returned by run()
+     * @return the state the machine halted in
+     */
+    public static int state(long result) {
+        return (int) (result >>> 32) & 0x3fffffff;
+    }
+
+    /**
+     * @param result a value returned by run()
+     * @return the index of the first character that was not consumed
+     */
+    public static int index(long result) {
+        return (int) result;
+    }
+
+    /**
+     * @param result a value returned by run()
+     * @return true if the machine halted because the input exceeded the maximum length
+     */
+    public static boolean overflowed(long result) {
+        return (result & OVERFLOW) != 0;
+    }
+
+    /**
+     * @param state a state number
+     * @return true if the state is a final (accepting) state
+     */
+    public boolean isFinal(int state) {
+        return finalStates[state];
+    }
+
+    /**
+     * @param input the characters to recognize
+     * @return true if the machine consumes the whole input and halts in a final state
+     */
+    public boolean accepts(CharSequence input) {
+        long result = run(input);
+        return !overflowed(result) && index(result) == input.length() && finalStates[state(result)];
+    }
+
+    /**
+     * Defines a machine and compiles it into its transition table.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> classes = new LinkedHashMap<>();
+        private final byte[] charClass = new byte[128];
+        private final List<int[]> transitions = new ArrayList<>();
+        private final List<Integer> finalStates = new ArrayList<>();
+        private int maxLength = Integer.MAX_VALUE;
+
+        /**
+         * Names a character class. The characters are listed literally, with a-z style ranges;
+         * a '-' that does not sit between two characters stands for itself.
+         * @param name the class name used by transition()
+         * @param characters the ASCII characters in the class, for example "A-Za-z" or "._-"
+         * @return this builder
+         */
+        public Builder characterClass(String name, String characters) {
+            if (classes.containsKey(name)) {
+                throw new IllegalArgumentException("Character class defined twice: " + name);
+            }
+            int id = classes.size() + 1;
+            classes.put(name, id);
+            for (int i = 0; i < characters.length(); i++) {
+                char first = characters.charAt(i);
+                char last = first;
+                if (i + 2 < characters.length() && characters.charAt(i + 1) == '-') {
+                    last = characters.charAt(i + 2);
+                    i += 2;
+                }
+                for (char c = first; c <= last; c++) {
+                    if (c >= charClass.length) {
+                        throw new IllegalArgumentException("Only ASCII characters can be classified: " + c);
+                    }
+                    if (charClass[c] != 0) {
+                        throw new IllegalArgumentException("Character '" + c + "' is in two classes");
+                    }
+                    charClass[c] = (byte) id;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds a transition taken on any character of the given classes.
+         * @param from the state the transition leaves
+         * @param to the state the transition enters
+         * @param classNames the character classes that take the transition
+         * @return this builder
+         */
+        public Builder transition(int from, int to, String... classNames) {
+            for (String name : classNames) {
+                Integer id = classes.get(name);
+                if (id == null) {
+                    throw new IllegalArgumentException("Unknown character class: " + name);
+                }
+                transitions.add(new int[] { from, id, to });
+            }
+            return this;
+        }
+
+        /**
+         * @param states the final (accepting) states
+         * @return this builder
+         */
+        public Builder finalStates(int... states) {
+            for (int state : states) {
+                finalStates.add(state);
+            }
+            return this;
+        }
+
+        /**
+         * @param maxLength the most characters the machine consumes before it halts
+         * @return this builder
+         */
+        public Builder maxLength(int maxLength) {
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        /**
+         * @return the compiled machine
+         */
+        public FiniteStateMachine build() {
+            int stateCount = 1;
+            for (int[] t : transitions) {
+                stateCount = Math.max(stateCount, Math.max(t[0], t[2]) + 1);
+            }
+            for (int state : finalStates) {
+                stateCount = Math.max(stateCount, state + 1);
+            }
+            int classCount = classes.size() + 1;
+            int[] table = new int[stateCount * classCount];
+            Arrays.fill(table, NO_TRANSITION);
+            for (int[] t : transitions) {
+                int cell = t[0] * classCount + t[1];
+                if (table[cell] != NO_TRANSITION && table[cell] != t[2]) {
+                    throw new IllegalStateException("State " + t[0] + " has two transitions on one character class");
+                }
+                table[cell] = t[2];
+            }
+            boolean[] accepting = new boolean[stateCount];
+            for (int state : finalStates) {
+                accepting[state] = true;
+            }
+            return new FiniteStateMachine(charClass.clone(), classCount, table, accepting, maxLength);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package application;
+
+import databasePart1.ContentHash;
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The GroupMessageManager class stores message groups and sends messages to them. A group message
+ * is delivered in one of two ways:
+ *
+ * INBOX copies the message into every member's inbox, where it is read, counted and replied to
+ * like any other message. The members and their conversations are resolved in one query and the
+ * copies are written with one JDBC batch, so the cost per member is a batched row, not a round trip.
+ *
+ * BOARD stores the message once. Each member has a read pointer per group, and reading the board
+ * joins the member's groups with their posts, so sending costs the same for any group size.
+ */
+public class GroupMessageManager {
+
+    /**
+     * How a group message reaches the members.
+     */
+    public enum Delivery {
+        INBOX,  // fan out on write: one copy per member
+        BOARD   // fan out on read: one post and a read pointer per member
+    }
+
+    // Bounds the id cursor of the first page.
+    private static final int NEWEST = Integer.MAX_VALUE;
+    private static final String USER_ID = "(SELECT id FROM cse360users WHERE userName = ?)";
+    // Joins each member of a group with their conversation with the sender. Binds sender, sender.
+    private static final String MEMBER_CONVERSATION = "conversations c ON c.userLow = LEAST(?, g.userId) AND c.userHigh = GREATEST(?, g.userId)";
+    // Another sender can create one of the conversations first; the statements are then run again.
+    private static final int CONVERSATION_ATTEMPTS = 3;
+
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the GroupMessageManager.
+     * @param databaseHelper the database helper instance
+     */
+    public GroupMessageManager(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Creates a group or replaces the members of an existing one. Members who stay keep their
+     * read pointer.
+     * @param name the group name
+     * @param owner the staff member saving the group, recorded when the group is created
+     * @param memberNames the usernames of the members
+     * @param unknownNames receives the usernames that do not exist and were left out
+     * @return the group ID, or -1 if saving failed
+     */
+    public int saveGroup(String name, String owner, Collection<String> memberNames, List<String> unknownNames) {
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(memberNames));
+        Map<String, User> known = databaseHelper.getUserDirectory().loadAll(names);
+        List<String> members = new ArrayList<>();
+        for (String memberName : names) {
+            if (known.containsKey(memberName)) {
+                members.add(memberName);
+            } else {
+                unknownNames.add(memberName);
+            }
+        }
+        String in = DatabaseHelper.placeholders(members.size());
+        try (Connection conn = databaseHelper.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int groupId = findOrCreateGroup(conn, name, owner);
+                if (members.isEmpty()) {
+                    update(conn, "DELETE FROM messageGroupMembers WHERE groupId = ?", groupId);
+                } else {
+                    List<Object> params = new ArrayList<>();
+                    params.add(groupId);
+                    params.addAll(members);
+                    update(conn, "DELETE FROM messageGroupMembers WHERE groupId = ? "
+                            + "AND userId NOT IN (SELECT id FROM cse360users WHERE userName IN (" + in + "))", params.toArray());
+                    params.add(groupId);
+                    update(conn, "INSERT INTO messageGroupMembers (groupId, userId) SELECT ?, u.id FROM cse360users u "
+                            + "WHERE u.userName IN (" + in + ") "
+                            + "AND NOT EXISTS (SELECT 1 FROM messageGroupMembers m WHERE m.groupId = ? AND m.userId = u.id)", params.toArray());
+                }
+                conn.commit();
+                return groupId;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    /**
+     * @return every group, by name
+     */
+    public List<MessageGroup> getGroups() {
+        List<MessageGroup> groups = new ArrayList<>();
+        String query = "SELECT g.id, g.name, g.owner, (SELECT COUNT(*) FROM messageGroupMembers m WHERE m.groupId = g.id) AS members "
+                + "FROM messageGroups g ORDER BY g.name";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                groups.add(new MessageGroup(rs.getInt("id"), rs.getString("name"), rs.getString("owner"), rs.getInt("members")));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return groups;
+    }
+
+    /**
+     * @param groupId the group ID
+     * @return the usernames of the group's members, sorted
+     */
+    public List<String> getMemberNames(int groupId) {
+        List<String> names = new ArrayList<>();
+        String query = "SELECT u.userName FROM messageGroupMembers m JOIN cse360users u ON u.id = m.userId "
+                + "WHERE m.groupId = ? ORDER BY u.userName";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, groupId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return names;
+    }
+
+    /**
+     * Sends a message to every member of a group except the sender.
+     * @param groupId the group ID
+     * @param author the username of the sender
+     * @param text the message, up to 200 characters
+     * @param delivery whether to copy the message into each inbox or post it once to the board
+     * @return the number of members it was sent to, or -1 if sending failed
+     */
+    public int sendToGroup(int groupId, String author, String text, Delivery delivery) {
+        try (Connection conn = databaseHelper.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int senderId = JdbcMessageRepository.findUserId(conn, author);
+                if (senderId < 0) {
+                    return -1;
+                }
+                LocalDateTime sentAt = LocalDateTime.now();
+                List<Message> sent = new ArrayList<>();
+                int recipients = delivery == Delivery.INBOX
+                        ? fanOutToInboxes(conn, groupId, senderId, author, text, sentAt, sent)
+                        : postToBoard(conn, groupId, senderId, author, text, sentAt);
+                conn.commit();
+                for (Message message : sent) {
+                    databaseHelper.getEventBus().publish(new Events.MessageSent(message));
+                }
+                return recipients;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves one page of the posts on the boards of the user's groups, newest first.
+     * @param userName the member
+     * @param beforeId the ID of the last post of the previous page, or 0 for the first page
+     * @param limit the maximum number of posts
+     * @return the posts
+     */
+    public List<GroupPost> getBoardPage(String userName, int beforeId, int limit) {
+        List<GroupPost> posts = new ArrayList<>();
+        String query = "SELECT p.id, p.groupId, g.name, p.fromAuthor, p.text, p.sentAt, p.id <= m.lastReadPostId AS isRead "
+                + "FROM messageGroupMembers m JOIN groupPosts p ON p.groupId = m.groupId JOIN messageGroups g ON g.id = m.groupId "
+                + "WHERE m.userId = " + USER_ID + " AND p.id < ? ORDER BY p.id DESC LIMIT ?";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            pstmt.setInt(2, beforeId > 0 ? beforeId : NEWEST);
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp sentAt = rs.getTimestamp("sentAt");
+                    posts.add(new GroupPost(rs.getInt("id"), rs.getInt("groupId"), rs.getString("name"), rs.getString("fromAuthor"),
+                            rs.getString("text"), sentAt == null ? null : sentAt.toLocalDateTime(), rs.getBoolean("isRead")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return posts;
+    }
+
+    /**
+     * Counts the posts past the user's read pointers. Only the unread posts are visited.
+     * @param userName the member
+     * @return the number of unread posts across the user's groups
+     */
+    public int getUnreadBoardCount(String userName) {
+        String query = "SELECT COUNT(*) FROM messageGroupMembers m JOIN groupPosts p ON p.groupId = m.groupId AND p.id > m.lastReadPostId "
+                + "WHERE m.userId = " + USER_ID;
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Moves the user's read pointers past the newest post of each of their groups.
+     * @param userName the member
+     * @return the number of groups updated
+     */
+    public int markBoardRead(String userName) {
+        try (Connection conn = databaseHelper.getConnection()) {
+            return update(conn, "UPDATE messageGroupMembers m SET lastReadPostId = "
+                    + "COALESCE((SELECT MAX(p.id) FROM groupPosts p WHERE p.groupId = m.groupId), 0) "
+                    + "WHERE m.userId = " + USER_ID, userName);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // Copies the message into the inbox of every member: one statement set to create missing
+    // conversations, one query to resolve the members, one batch of inserts, one batch of
+    // conversation updates and one counter update.
+    private int fanOutToInboxes(Connection conn, int groupId, int senderId, String author, String text,
+            LocalDateTime sentAt, List<Message> sent) throws SQLException {
+        createConversations(conn, groupId, senderId);
+
+        List<int[]> recipients = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT g.userId, c.id FROM messageGroupMembers g JOIN "
+                + MEMBER_CONVERSATION + " WHERE g.groupId = ? AND g.userId <> ?")) {
+            bind(pstmt, senderId, senderId, groupId, senderId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    recipients.add(new int[] { rs.getInt(1), rs.getInt(2) });
+                }
+            }
+        }
+        if (recipients.isEmpty()) {
+            return 0;
+        }
+
+        int[] messageIds = new int[recipients.size()];
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO messages (fromAuthor, toUser, text, conversationId, sentAt) VALUES (?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            Timestamp sentAtValue = Timestamp.valueOf(sentAt);
+            for (int[] recipient : recipients) {
+                bind(pstmt, author, recipient[0], text, recipient[1], sentAtValue);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                for (int i = 0; i < messageIds.length; i++) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Missing generated key for group message " + i);
+                    }
+                    messageIds[i] = generatedKeys.getInt(1);
+                }
+            }
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement("UPDATE conversationMembers SET lastMessageId = ?, "
+                + "unread = unread + CASE WHEN userId = ? THEN 1 ELSE 0 END WHERE conversationId = ?")) {
+            for (int i = 0; i < messageIds.length; i++) {
+                bind(pstmt, messageIds[i], recipients.get(i)[0], recipients.get(i)[1]);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        update(conn, "UPDATE cse360users SET unreadMessages = unreadMessages + 1 "
+                + "WHERE id IN (SELECT userId FROM messageGroupMembers WHERE groupId = ? AND userId <> ?)", groupId, senderId);
+
+        for (int i = 0; i < messageIds.length; i++) {
+            int[] recipient = recipients.get(i);
+            sent.add(new Message(messageIds[i], recipient[0], text, author, recipient[1], sentAt, false));
+        }
+        return recipients.size();
+    }
+
+    // Creates the conversations between the sender and the members that have none, with both
+    // member rows, in three set-based statements.
+    private static void createConversations(Connection conn, int groupId, int senderId) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                update(conn, "INSERT INTO conversations (userLow, userHigh) SELECT LEAST(?, g.userId), GREATEST(?, g.userId) "
+                        + "FROM messageGroupMembers g WHERE g.groupId = ? AND g.userId <> ? AND NOT EXISTS "
+                        + "(SELECT 1 FROM conversations c WHERE c.userLow = LEAST(?, g.userId) AND c.userHigh = GREATEST(?, g.userId))",
+                        senderId, senderId, groupId, senderId, senderId, senderId);
+                update(conn, "INSERT INTO conversationMembers (conversationId, userId, otherUserId) SELECT c.id, g.userId, ? "
+                        + "FROM messageGroupMembers g JOIN " + MEMBER_CONVERSATION + " WHERE g.groupId = ? AND g.userId <> ? "
+                        + "AND NOT EXISTS (SELECT 1 FROM conversationMembers cm WHERE cm.conversationId = c.id AND cm.userId = g.userId)",
+                        senderId, senderId, senderId, groupId, senderId);
+                update(conn, "INSERT INTO conversationMembers (conversationId, userId, otherUserId) SELECT c.id, ?, g.userId "
+                        + "FROM messageGroupMembers g JOIN " + MEMBER_CONVERSATION + " WHERE g.groupId = ? AND g.userId <> ? "
+                        + "AND NOT EXISTS (SELECT 1 FROM conversationMembers cm WHERE cm.conversationId = c.id AND cm.userId = ?)",
+                        senderId, senderId, senderId, groupId, senderId, senderId);
+                return;
+            } catch (SQLException e) {
+                if (!ContentHash.isDuplicate(e) || attempt == CONVERSATION_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Stores the message once and moves the sender's own read pointer past it.
+    private static int postToBoard(Connection conn, int groupId, int senderId, String author, String text,
+            LocalDateTime sentAt) throws SQLException {
+        int postId;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO groupPosts (groupId, fromAuthor, text, sentAt) VALUES (?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            bind(pstmt, groupId, author, text, Timestamp.valueOf(sentAt));
+            pstmt.executeUpdate();
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                generatedKeys.next();
+                postId = generatedKeys.getInt(1);
+            }
+        }
+        update(conn, "UPDATE messageGroupMembers SET lastReadPostId = ? WHERE groupId = ? AND userId = ?", postId, groupId, senderId);
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT COUNT(*) FROM messageGroupMembers WHERE groupId = ? AND userId <> ?")) {
+            bind(pstmt, groupId, senderId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    // Returns the ID of the group with the name, creating it if needed.
+    private static int findOrCreateGroup(Connection conn, String name, String owner) throws SQLException {
+        int id = findGroup(conn, name);
+        if (id > 0) {
+            return id;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO messageGroups (name, owner) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            bind(pstmt, name, owner);
+            pstmt.executeUpdate();
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                generatedKeys.next();
+                return generatedKeys.getInt(1);
+            }
+        } catch (SQLException e) {
+            if (!ContentHash.isDuplicate(e)) {
+                throw e;
+            }
+            // Another staff member created it first.
+            return findGroup(conn, name);
+        }
+    }
+
+    private static int findGroup(Connection conn, String name) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM messageGroups WHERE name = ?")) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    private static int update(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bind(pstmt, params);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            pstmt.setObject(i + 1, params[i]);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * GroupMessageManagerTest
+ *
+ * This class contains automated JUnit tests to verify that a group message is copied into the
+ * inbox of every member of the group but the sender and is posted once to the board, and that a
+ * group with nobody else in it reaches nobody.
+ */
+public class GroupMessageManagerTest {
+
+    private static DatabaseHelper dbHelper;
+
+    /**
+     * Setup method to establish the database connection to a fresh in-memory database.
+     */
+    @BeforeClass
+    public static void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+    }
+
+    /**
+     * Cleanup method to close the database connection after all tests.
+     */
+    @AfterClass
+    public static void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that a group message reaches every member but the sender, both copied into
+     * the inboxes and posted once to the board.
+     */
+    @Test
+    public void testGroupMessageReachesEveryMember() throws SQLException {
+        String suffix = String.valueOf(System.nanoTime() % 100000);
+        String sender = "grpSender" + suffix;
+        List<String> recipients = Arrays.asList("grpMemberA" + suffix, "grpMemberB" + suffix, "grpMemberC" + suffix);
+        dbHelper.register(new User(sender, "Passw0rd!", "staff"));
+        for (String recipient : recipients) {
+            dbHelper.register(new User(recipient, "Passw0rd!", "user"));
+        }
+        try {
+            GroupMessageManager groupManager = new GroupMessageManager(dbHelper);
+            MessageManager messageManager = new MessageManager(dbHelper);
+            List<String> members = new ArrayList<>(recipients);
+            members.add(sender);
+            members.add("grpNobody" + suffix);
+            List<String> unknown = new ArrayList<>();
+            int groupId = groupManager.saveGroup("Section " + suffix, sender, members, unknown);
+            assertTrue("Group should be saved", groupId > 0);
+            assertEquals("Unknown users should be reported", Arrays.asList("grpNobody" + suffix), unknown);
+            assertEquals("Group should hold 4 members", 4, groupManager.getMemberNames(groupId).size());
+
+            assertEquals("Inbox delivery should reach 3 members", 3,
+                    groupManager.sendToGroup(groupId, sender, "Quiz moved to Friday", GroupMessageManager.Delivery.INBOX));
+            for (String recipient : recipients) {
+                assertEquals(recipient + " should have 1 unread", 1, messageManager.getUnreadCount(recipient));
+                List<Conversation> conversations = messageManager.getConversations(recipient, 0, 10);
+                assertEquals("Message should be filed under the conversation with the sender", sender, conversations.get(0).getOtherUserName());
+            }
+            assertEquals("Sender should have none unread", 0, messageManager.getUnreadCount(sender));
+
+            assertEquals("Board delivery should reach 3 members", 3,
+                    groupManager.sendToGroup(groupId, sender, "Office hours at 3", GroupMessageManager.Delivery.BOARD));
+            assertEquals("Member should have 1 unread post", 1, groupManager.getUnreadBoardCount(recipients.get(0)));
+            assertEquals("Sender should have no unread post", 0, groupManager.getUnreadBoardCount(sender));
+            List<GroupPost> board = groupManager.getBoardPage(recipients.get(0), 0, 10);
+            assertEquals("Office hours at 3", board.get(0).getText());
+            assertFalse("Post should be unread", board.get(0).isRead());
+            groupManager.markBoardRead(recipients.get(0));
+            assertEquals("Member should have read the board", 0, groupManager.getUnreadBoardCount(recipients.get(0)));
+        } finally {
+            try (Connection conn = dbHelper.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM messageGroups WHERE name = 'Section " + suffix + "'");
+                stmt.execute("DELETE FROM cse360users WHERE userName LIKE 'grp%" + suffix + "'");
+            }
+        }
+    }
+
+    /**
+     * Test 2: Verify that a group with no members but the sender, or with no members at all after
+     * its members are replaced, reaches nobody by either delivery, creates no conversations and
+     * raises no counters, and that an unknown sender is refused.
+     */
+    @Test
+    public void testGroupMessageToZeroMembers() throws SQLException {
+        String suffix = String.valueOf(System.nanoTime() % 100000);
+        String sender = "grpEmptySender" + suffix;
+        String member = "grpEmptyMember" + suffix;
+        dbHelper.register(new User(sender, "Passw0rd!", "staff"));
+        dbHelper.register(new User(member, "Passw0rd!", "user"));
+        try {
+            GroupMessageManager groupManager = new GroupMessageManager(dbHelper);
+            MessageManager messageManager = new MessageManager(dbHelper);
+            List<String> unknown = new ArrayList<>();
+            int senderOnly = groupManager.saveGroup("Sender only " + suffix, sender, Arrays.asList(sender), unknown);
+            assertTrue("Group should be saved", senderOnly > 0);
+            assertTrue(unknown.isEmpty());
+            assertEquals("Inbox delivery should reach nobody", 0,
+                    groupManager.sendToGroup(senderOnly, sender, "Anyone there?", GroupMessageManager.Delivery.INBOX));
+            assertEquals("Board delivery should reach nobody", 0,
+                    groupManager.sendToGroup(senderOnly, sender, "Anyone there?", GroupMessageManager.Delivery.BOARD));
+            assertTrue("No conversation should be created", messageManager.getConversations(sender, 0, 10).isEmpty());
+            assertEquals(0, messageManager.getUnreadCount(sender));
+            assertEquals("The sender's own post should be read", 0, groupManager.getUnreadBoardCount(sender));
+
+            int emptied = groupManager.saveGroup("Emptied " + suffix, sender, Arrays.asList(member), unknown);
+            assertEquals(emptied, groupManager.saveGroup("Emptied " + suffix, sender, Arrays.asList("grpNobody" + suffix), unknown));
+            assertEquals(Arrays.asList("grpNobody" + suffix), unknown);
+            assertTrue("Replacing the members should empty the group", groupManager.getMemberNames(emptied).isEmpty());
+            assertEquals(0, groupManager.sendToGroup(emptied, sender, "Gone quiet", GroupMessageManager.Delivery.INBOX));
+            assertEquals(0, groupManager.sendToGroup(emptied, sender, "Gone quiet", GroupMessageManager.Delivery.BOARD));
+            assertEquals("The former member should get nothing", 0, messageManager.getUnreadCount(member));
+            assertEquals(0, groupManager.getUnreadBoardCount(member));
+            assertTrue(groupManager.getBoardPage(member, 0, 10).isEmpty());
+
+            assertEquals("An unknown sender should be refused", -1,
+                    groupManager.sendToGroup(emptied, "grpNobody" + suffix, "Hello", GroupMessageManager.Delivery.INBOX));
+        } finally {
+            try (Connection conn = dbHelper.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM messageGroups WHERE name IN ('Sender only " + suffix + "', 'Emptied " + suffix + "')");
+                stmt.execute("DELETE FROM cse360users WHERE userName LIKE 'grp%" + suffix + "'");
+            }
+        }
+    }
+}
@@ -5,24 +5,33 @@ import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import databasePart1.DatabaseHelper;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * GroupMessagingPage allows staff to create groups and send a message to multiple users.
- * (For this implementation, the functionality is simulated by printing to the console.)
+ * Groups are stored with their members. A message is either copied into every member's inbox
+ * or posted once to the group board, which members read from their inbox page.
  */
 public class GroupMessagingPage {
     private final DatabaseHelper databaseHelper;
     private final User user;
+    private final GroupMessageManager groupManager;
 
     public GroupMessagingPage(DatabaseHelper databaseHelper, User user, Stage primaryStage) {
         this.databaseHelper = databaseHelper;
         this.user = user;
+        this.groupManager = new GroupMessageManager(databaseHelper);
 
         VBox layout = new VBox(10);
         layout.setStyle("-fx-padding: 20; -fx-alignment: center;");
 
         Label title = new Label("Group Messaging");
 
+        ListView<MessageGroup> groupList = new ListView<>();
+        groupList.setPrefHeight(120);
+        groupList.setPlaceholder(new Label("No groups yet."));
+
         TextField groupNameField = new TextField();
         groupNameField.setPromptText("Enter group name");
 
@@ -32,9 +41,23 @@ public class GroupMessagingPage {
         TextArea messageArea = new TextArea();
         messageArea.setPromptText("Enter message to group");
 
+        CheckBox boardCheckBox = new CheckBox("Post once to the group board instead of each inbox");
+
         Button sendButton = new Button("Send Group Message");
         Label statusLabel = new Label();
 
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        refreshGroups(groupList);
+
+        // Selecting a saved group fills in its name and members.
+        groupList.getSelectionModel().selectedItemProperty().addListener((obs, oldGroup, selected) -> {
+            if (selected != null) {
+                groupNameField.setText(selected.getName());
+                async.deliverLatest("groupMembers", async.supply(() -> groupManager.getMemberNames(selected.getId())),
+                        names -> membersField.setText(String.join(", ", names)));
+            }
+        });
+
         sendButton.setOnAction(e -> {
             String groupName = groupNameField.getText().trim();
             String members = membersField.getText().trim();
@@ -42,20 +65,56 @@ public class GroupMessagingPage {
 
             if (groupName.isEmpty() || members.isEmpty() || message.isEmpty()) {
                 statusLabel.setText("All fields required.");
+            } else if (message.length() > 200) {
+                statusLabel.setText("Message must be up to 200 characters.");
             } else {
-                // Simulate group messaging by printing the message details.
-                System.out.println("Group: " + groupName + ", Members: " + members + ", Message: " + message);
-                statusLabel.setText("Group message sent.");
+                // Saving the group and sending run off the UI thread; a section can have hundreds of members.
+                List<String> memberNames = new ArrayList<>();
+                for (String name : members.split(",")) {
+                    if (!name.trim().isEmpty()) {
+                        memberNames.add(name.trim());
+                    }
+                }
+                GroupMessageManager.Delivery delivery = boardCheckBox.isSelected()
+                        ? GroupMessageManager.Delivery.BOARD : GroupMessageManager.Delivery.INBOX;
+                List<String> unknownNames = new ArrayList<>();
+                sendButton.setDisable(true);
+                async.deliver(async.supply(() -> {
+                    int groupId = groupManager.saveGroup(groupName, user.getUserName(), memberNames, unknownNames);
+                    return groupId < 0 ? -1 : groupManager.sendToGroup(groupId, user.getUserName(), message, delivery);
+                }), recipients -> {
+                    sendButton.setDisable(false);
+                    if (recipients < 0) {
+                        statusLabel.setText("The group message could not be sent.");
+                        return;
+                    }
+                    String status = "Group message sent to " + recipients + " members.";
+                    if (!unknownNames.isEmpty()) {
+                        status += " Unknown users left out: " + String.join(", ", unknownNames);
+                    }
+                    statusLabel.setText(status);
+                    messageArea.clear();
+                    refreshGroups(groupList);
+                }, error -> {
+                    sendButton.setDisable(false);
+                    statusLabel.setText("The group message could not be sent.");
+                });
             }
         });
 
         Button backButton = new Button("Back");
         backButton.setOnAction(e -> new StaffHomePage(databaseHelper, user).show(primaryStage));
 
-        layout.getChildren().addAll(title, groupNameField, membersField, messageArea, sendButton, statusLabel, backButton);
+        layout.getChildren().addAll(title, groupList, groupNameField, membersField, messageArea, boardCheckBox, sendButton, statusLabel, backButton);
 
-        primaryStage.setScene(new Scene(layout, 500, 400));
+        primaryStage.setScene(new Scene(layout, 500, 500));
         primaryStage.setTitle("Group Messaging");
         primaryStage.show();
     }
-}
\ No newline at end of file
+
+    private void refreshGroups(ListView<MessageGroup> groupList) {
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        async.deliverLatest("messageGroups", async.supply(groupManager::getGroups),
+                groups -> groupList.getItems().setAll(groups));
+    }
+}
@@ -0,0 +1,44 @@
+package application;
+
+import java.time.LocalDateTime;
+
+/**
+ * The GroupPost class is a message posted once to a group board, as one member sees it.
+ */
+public class GroupPost {
+    private final int id;
+    private final int groupId;
+    private final String groupName;
+    private final String author;
+    private final String text;
+    private final LocalDateTime sentAt;
+    private final boolean read;
+
+    /**
+     * Constructor to initialize the GroupPost.
+     * @param id the post ID
+     * @param groupId the ID of the group it was posted to
+     * @param groupName the name of the group
+     * @param author the username of the sender
+     * @param text the message
+     * @param sentAt when it was posted
+     * @param read whether the member's read pointer has passed it
+     */
+    public GroupPost(int id, int groupId, String groupName, String author, String text, LocalDateTime sentAt, boolean read) {
+        this.id = id;
+        this.groupId = groupId;
+        this.groupName = groupName;
+        this.author = author;
+        this.text = text;
+        this.sentAt = sentAt;
+        this.read = read;
+    }
+
+    public int getId() { return id; }
+    public int getGroupId() { return groupId; }
+    public String getGroupName() { return groupName; }
+    public String getAuthor() { return author; }
+    public String getText() { return text; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    public boolean isRead() { return read; }
+}
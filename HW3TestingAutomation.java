@@ -1,5 +1,6 @@
 package application;
 
+import databasePart1.DataSourceConfig;
 import databasePart1.DatabaseHelper;
 
 /**
@@ -26,7 +27,8 @@ public class HW3TestingAutomation {
 
     static int numPassed = 0;  // Counter for passed tests
     static int numFailed = 0;  // Counter for failed tests
-    private static final DatabaseHelper databaseHelper = new DatabaseHelper();
+    // An in-memory database, so the tests leave the application's database file alone.
+    private static final DatabaseHelper databaseHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
 
     /**
      * The main method connects to the database, runs the automated tests,
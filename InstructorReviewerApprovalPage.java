@@ -37,6 +37,7 @@ public class InstructorReviewerApprovalPage {
     
     /**
      * Displays the instructor approval UI, listing pending reviewer requests and student Q&A details.
+     * Requests submitted, approved or denied while the page is shown update the list in place.
      */
     public void show() {
         VBox layout = new VBox(10);
@@ -81,14 +82,16 @@ public class InstructorReviewerApprovalPage {
                 boolean approved = requestManager.approveRequest(requestId);
                 if (approved) {
                     // Update the student's role to "reviewer" in the users table.
-                    try (PreparedStatement pstmt = databaseHelper.getConnection().prepareStatement("UPDATE cse360users SET role = ? WHERE userName = ?")) {
+                    try (Connection conn = databaseHelper.getConnection();
+                         PreparedStatement pstmt = conn.prepareStatement("UPDATE cse360users SET role = ? WHERE userName = ?")) {
                         pstmt.setString(1, "reviewer");
                         pstmt.setString(2, selectedStudent);
                         pstmt.executeUpdate();
+                        databaseHelper.getUserDirectory().invalidate(selectedStudent);
+                        new ReviewQueue(databaseHelper).enqueueAllFor(selectedStudent);
                     } catch (SQLException ex) {
                         ex.printStackTrace();
                     }
-                    refreshPendingList(pendingList);
                     detailsArea.clear();
                 }
             }
@@ -102,7 +105,6 @@ public class InstructorReviewerApprovalPage {
                 int requestId = requestManager.getRequestId(selectedStudent);
                 boolean denied = requestManager.denyRequest(requestId);
                 if (denied) {
-                    refreshPendingList(pendingList);
                     detailsArea.clear();
                 }
             }
@@ -120,6 +122,26 @@ public class InstructorReviewerApprovalPage {
         Scene scene = new Scene(layout, 800, 600);
         primaryStage.setScene(scene);
         primaryStage.setTitle("Instructor - Reviewer Requests");
+        
+        EventBus eventBus = databaseHelper.getEventBus();
+        EventBus.cancelWhenSceneChanges(primaryStage,
+                eventBus.subscribe(Events.RequestSubmitted.class, events -> {
+                    for (Events.RequestSubmitted event : events) {
+                        if (!pendingList.getItems().contains(event.getStudentUserName())) {
+                            pendingList.getItems().add(event.getStudentUserName());
+                        }
+                    }
+                }),
+                eventBus.subscribe(Events.RequestApproved.class, events -> {
+                    for (Events.RequestApproved event : events) {
+                        pendingList.getItems().remove(event.getStudentUserName());
+                    }
+                }),
+                eventBus.subscribe(Events.RequestDenied.class, events -> {
+                    for (Events.RequestDenied event : events) {
+                        pendingList.getItems().remove(event.getStudentUserName());
+                    }
+                }));
     }
     
     /**
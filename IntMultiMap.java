@@ -0,0 +1,176 @@
+package databasePart1;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The IntMultiMap class maps int keys to sorted sets of int values without boxing, for secondary
+ * indexes such as question ID to answer IDs. It is an open-addressing hash table whose slots hold
+ * a key and an immutable sorted int[] of its values; adding or removing a value publishes a new
+ * array, so readers never lock and always see a whole set.
+ *
+ * One thread at a time may write (the caller serializes writes); any number may read while it does.
+ * A value array costs a copy of its length to change, so this suits sets that are read far more
+ * often than they grow.
+ */
+public class IntMultiMap {
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final int[] NONE = new int[0];
+
+    private static final class Table {
+        final AtomicIntegerArray keys;
+        final AtomicReferenceArray<int[]> values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new AtomicIntegerArray(capacity);
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                keys.set(i, EMPTY);
+            }
+        }
+    }
+
+    private volatile Table table = new Table(16);
+    // Slots with a key, including keys whose sets have become empty; only the writer uses it.
+    private int used;
+
+    /**
+     * @param key the key; any int but Integer.MIN_VALUE
+     * @return the key's values in ascending order, empty if it has none; the array must not be changed
+     */
+    public int[] get(int key) {
+        Table t = table;
+        int slot = find(t, key);
+        if (slot < 0) {
+            return NONE;
+        }
+        int[] values = t.values.get(slot);
+        return values == null ? NONE : values;
+    }
+
+    /**
+     * Adds a value to a key's set. Writers only.
+     * @return false if the key already had the value
+     */
+    public boolean add(int key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Integer.MIN_VALUE cannot be a key");
+        }
+        Table t = table;
+        int slot = find(t, key);
+        if (slot < 0) {
+            if ((used + 1) * 2 > t.keys.length()) {
+                t = resize(t);
+                slot = find(t, key);
+            }
+            slot = -slot - 1;
+            // The set goes in before the key, so a reader that finds the key finds its set.
+            t.values.set(slot, new int[] { value });
+            t.keys.set(slot, key);
+            used++;
+            return true;
+        }
+        int[] values = t.values.get(slot);
+        int at = Arrays.binarySearch(values, value);
+        if (at >= 0) {
+            return false;
+        }
+        int insert = -at - 1;
+        int[] grown = new int[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, insert);
+        grown[insert] = value;
+        System.arraycopy(values, insert, grown, insert + 1, values.length - insert);
+        t.values.set(slot, grown);
+        return true;
+    }
+
+    /**
+     * Removes a value from a key's set. Writers only.
+     * @return false if the key did not have the value
+     */
+    public boolean remove(int key, int value) {
+        Table t = table;
+        int slot = find(t, key);
+        if (slot < 0) {
+            return false;
+        }
+        int[] values = t.values.get(slot);
+        int at = Arrays.binarySearch(values, value);
+        if (at < 0) {
+            return false;
+        }
+        int[] shrunk = new int[values.length - 1];
+        System.arraycopy(values, 0, shrunk, 0, at);
+        System.arraycopy(values, at + 1, shrunk, at, values.length - at - 1);
+        // The key keeps its slot with an empty set until the next resize, so probes never break.
+        t.values.set(slot, shrunk);
+        return true;
+    }
+
+    /**
+     * Removes a key with all its values. Writers only.
+     * @return the values it had
+     */
+    public int[] removeAll(int key) {
+        Table t = table;
+        int slot = find(t, key);
+        if (slot < 0) {
+            return NONE;
+        }
+        int[] values = t.values.get(slot);
+        t.values.set(slot, NONE);
+        return values;
+    }
+
+    // The key's slot, or -(slot it would go in) - 1 if it is absent.
+    private static int find(Table t, int key) {
+        int slot = mix(key) & t.mask;
+        while (true) {
+            int k = t.keys.get(slot);
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY) {
+                return -slot - 1;
+            }
+            slot = (slot + 1) & t.mask;
+        }
+    }
+
+    // Copies the keys with values into a table sized for them and publishes it.
+    private Table resize(Table old) {
+        int live = 0;
+        for (int i = 0; i < old.keys.length(); i++) {
+            int[] values = old.values.get(i);
+            if (old.keys.get(i) != EMPTY && values != null && values.length > 0) {
+                live++;
+            }
+        }
+        int capacity = 16;
+        while (capacity < (live + 1) * 4) {
+            capacity <<= 1;
+        }
+        Table grown = new Table(capacity);
+        for (int i = 0; i < old.keys.length(); i++) {
+            int key = old.keys.get(i);
+            int[] values = old.values.get(i);
+            if (key != EMPTY && values != null && values.length > 0) {
+                int slot = -find(grown, key) - 1;
+                grown.values.set(slot, values);
+                grown.keys.set(slot, key);
+            }
+        }
+        used = live;
+        table = grown;
+        return grown;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
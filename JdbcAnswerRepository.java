@@ -0,0 +1,167 @@
+package application;
+
+import databasePart1.ContentHash;
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JdbcAnswerRepository class stores main answers in the answers table of the H2 database.
+ * Deleting an answer takes the reviews deleted with it off their authors' statistics.
+ */
+public class JdbcAnswerRepository implements AnswerRepository {
+    private static final String COLUMNS = "id, text, author, questionId, superliked";
+
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the JdbcAnswerRepository.
+     * @param databaseHelper the database helper whose pooled connections are used
+     */
+    public JdbcAnswerRepository(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    // The unique index on contentHash rejects an answer with the same text, author and question in the same statement.
+    @Override
+    public boolean insert(Answer answer) throws SQLException {
+        String insertQuery = "INSERT INTO answers (text, author, questionId, contentHash) VALUES (?, ?, ?, ?)";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement insertStmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+            // The row and its review queue entries are committed together, so no reviewer misses the answer.
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                insertStmt.setString(1, answer.getText());
+                insertStmt.setString(2, answer.getAuthor());
+                insertStmt.setInt(3, answer.getQuestionId());
+                insertStmt.setString(4, ContentHash.of(answer.getText(), answer.getAuthor(), answer.getQuestionId()));
+                insertStmt.executeUpdate();
+                try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        answer.setId(generatedKeys.getInt(1));
+                    }
+                }
+                ReviewQueue.enqueue(conn, ReviewQueue.ItemType.ANSWER, answer.getId());
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                if (ContentHash.isDuplicate(e)) {
+                    return false;
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    @Override
+    public Answer findById(int id) throws SQLException {
+        List<Answer> answers = query("SELECT " + COLUMNS + " FROM answers WHERE id = ?", id);
+        return answers.isEmpty() ? null : answers.get(0);
+    }
+
+    @Override
+    public List<Answer> findByQuestion(int questionId) throws SQLException {
+        return query("SELECT " + COLUMNS + " FROM answers WHERE questionId = ? ORDER BY id", questionId);
+    }
+
+    @Override
+    public List<Answer> findPage(int questionId, int afterId, int limit) throws SQLException {
+        return query("SELECT " + COLUMNS + " FROM answers WHERE questionId = ? AND id > ? ORDER BY id LIMIT ?",
+                questionId, afterId, limit);
+    }
+
+    @Override
+    public int countByQuestion(int questionId) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM answers WHERE questionId = ?")) {
+            pstmt.setInt(1, questionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    @Override
+    public List<Answer> findByAuthor(String author) throws SQLException {
+        return query("SELECT " + COLUMNS + " FROM answers WHERE author = ? ORDER BY id", author);
+    }
+
+    // The hash follows the text, so the old text can be posted again and the new one cannot be posted twice.
+    // The question is part of the hash; the UPDATE matches it too, in case the answer is deleted in between.
+    @Override
+    public boolean updateText(int id, String text, String author) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement selectStmt = conn.prepareStatement("SELECT questionId FROM answers WHERE id = ? AND author = ?");
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "UPDATE answers SET text = ?, contentHash = ? WHERE id = ? AND author = ? AND questionId = ?")) {
+            selectStmt.setInt(1, id);
+            selectStmt.setString(2, author);
+            int questionId;
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                questionId = rs.getInt(1);
+            }
+            pstmt.setString(1, text);
+            pstmt.setString(2, ContentHash.of(text, author, questionId));
+            pstmt.setInt(3, id);
+            pstmt.setString(4, author);
+            pstmt.setInt(5, questionId);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            if (ContentHash.isDuplicate(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // The reviews go with the answer by ON DELETE CASCADE.
+    @Override
+    public boolean delete(int id) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement deleteStmt = conn.prepareStatement("DELETE FROM answers WHERE id = ?")) {
+            // The reviews deleted with the answer come off their authors' statistics, and the answer leaves
+            // the review queues, in the same transaction.
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                ReviewerStatsManager.answerDeleting(conn, id);
+                ReviewQueue.remove(conn, ReviewQueue.ItemType.ANSWER, id);
+                deleteStmt.setInt(1, id);
+                boolean deleted = deleteStmt.executeUpdate() > 0;
+                conn.commit();
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private List<Answer> query(String query, Object... params) throws SQLException {
+        List<Answer> answers = new ArrayList<>();
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Answer answer = new Answer(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("questionId"));
+                    answer.setSuperlike(rs.getBoolean("superliked"));
+                    answers.add(answer);
+                }
+            }
+        }
+        return answers;
+    }
+}
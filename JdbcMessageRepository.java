@@ -0,0 +1,344 @@
+package application;
+
+import databasePart1.ContentHash;
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Stores messages in the H2 database. Messages are grouped into conversations, one per pair of users.
+// Unread counts are kept per user (cse360users.unreadMessages) and per conversation side
+// (conversationMembers.unread) and are updated in the same transaction as the message, so reading
+// them never counts rows. Lists are paged newest first by message id, so a page costs the same
+// however large the inbox is.
+public class JdbcMessageRepository implements MessageRepository {
+    // Bounds the id cursor of the first page.
+    private static final int NEWEST = Integer.MAX_VALUE;
+
+    private static final String MESSAGE_COLUMNS = "m.id, m.toUser, m.fromAuthor, m.text, m.conversationId, m.sentAt, m.isRead";
+    private static final String USER_ID = "(SELECT id FROM cse360users WHERE userName = ?)";
+
+    private final DatabaseHelper databaseHelper;
+
+    public JdbcMessageRepository(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    // Files the message under the conversation of the two users, creating it on their first
+    // message, and raises the recipient's unread counters.
+    @Override
+    public Message insert(Message message) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int senderId = findUserId(conn, message.getAuthor());
+                Integer conversationId = senderId < 0 ? null : findOrCreateConversation(conn, senderId, message.getId());
+                LocalDateTime sentAt = LocalDateTime.now();
+                String insertQuery = "INSERT INTO messages (fromAuthor, toUser, text, conversationId, sentAt) VALUES (?, ?, ?, ?, ?)";
+                try (PreparedStatement pstmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setString(1, message.getAuthor());
+                    pstmt.setInt(2, message.getId());
+                    pstmt.setString(3, message.getText());
+                    pstmt.setObject(4, conversationId, Types.INTEGER);
+                    pstmt.setTimestamp(5, Timestamp.valueOf(sentAt));
+                    pstmt.executeUpdate();
+                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            message.setMessageId(generatedKeys.getInt(1));
+                        }
+                    }
+                }
+                if (conversationId != null) {
+                    try (PreparedStatement pstmt = conn.prepareStatement("UPDATE conversationMembers SET lastMessageId = ?, "
+                            + "unread = unread + CASE WHEN userId = ? THEN 1 ELSE 0 END WHERE conversationId = ?")) {
+                        pstmt.setInt(1, message.getMessageId());
+                        pstmt.setInt(2, message.getId());
+                        pstmt.setInt(3, conversationId);
+                        pstmt.executeUpdate();
+                    }
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement("UPDATE cse360users SET unreadMessages = unreadMessages + 1 WHERE id = ?")) {
+                    pstmt.setInt(1, message.getId());
+                    pstmt.executeUpdate();
+                }
+                conn.commit();
+                return new Message(message.getMessageId(), message.getId(), message.getText(), message.getAuthor(),
+                        conversationId == null ? 0 : conversationId, sentAt, false);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    // A single row read.
+    @Override
+    public int unreadCount(String userName) throws SQLException {
+        String query = "SELECT unreadMessages FROM cse360users WHERE userName = ?";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    @Override
+    public List<Message> inboxPage(String userName, int beforeId, int limit) throws SQLException {
+        String query = "SELECT " + MESSAGE_COLUMNS + " FROM messages m WHERE m.toUser = " + USER_ID
+                + " AND m.id < ? ORDER BY m.id DESC LIMIT ?";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            pstmt.setInt(2, beforeId > 0 ? beforeId : NEWEST);
+            pstmt.setInt(3, limit);
+            return readMessages(pstmt);
+        }
+    }
+
+    @Override
+    public List<Conversation> conversations(String userName, int beforeLastMessageId, int limit) throws SQLException {
+        List<Conversation> conversations = new ArrayList<>();
+        String query = "SELECT cm.conversationId, o.userName, cm.unread, cm.lastMessageId, m.text, m.sentAt "
+                + "FROM conversationMembers cm JOIN cse360users o ON o.id = cm.otherUserId "
+                + "LEFT JOIN messages m ON m.id = cm.lastMessageId "
+                + "WHERE cm.userId = " + USER_ID + " AND cm.lastMessageId < ? ORDER BY cm.lastMessageId DESC LIMIT ?";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            pstmt.setInt(2, beforeLastMessageId > 0 ? beforeLastMessageId : NEWEST);
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp sentAt = rs.getTimestamp("sentAt");
+                    conversations.add(new Conversation(rs.getInt("conversationId"), rs.getString("userName"), rs.getInt("unread"),
+                            rs.getInt("lastMessageId"), rs.getString("text"), sentAt == null ? null : sentAt.toLocalDateTime()));
+                }
+            }
+        }
+        return conversations;
+    }
+
+    @Override
+    public List<Message> conversationPage(int conversationId, String userName, int beforeId, int limit) throws SQLException {
+        String query = "SELECT " + MESSAGE_COLUMNS + " FROM messages m WHERE m.conversationId = ? AND m.id < ? "
+                + "AND EXISTS (SELECT 1 FROM conversationMembers cm WHERE cm.conversationId = m.conversationId AND cm.userId = " + USER_ID + ") "
+                + "ORDER BY m.id DESC LIMIT ?";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, conversationId);
+            pstmt.setInt(2, beforeId > 0 ? beforeId : NEWEST);
+            pstmt.setString(3, userName);
+            pstmt.setInt(4, limit);
+            return readMessages(pstmt);
+        }
+    }
+
+    @Override
+    public boolean markRead(int messageId, String userName) throws SQLException {
+        String findQuery = "SELECT m.toUser, m.conversationId FROM messages m "
+                + "WHERE m.id = ? AND m.toUser = " + USER_ID + " AND NOT m.isRead";
+        try (Connection conn = databaseHelper.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int userId;
+                int conversationId;
+                try (PreparedStatement pstmt = conn.prepareStatement(findQuery)) {
+                    pstmt.setInt(1, messageId);
+                    pstmt.setString(2, userName);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        userId = rs.getInt("toUser");
+                        conversationId = rs.getInt("conversationId");
+                    }
+                }
+                // The isRead guard makes a concurrent mark of the same message count once.
+                try (PreparedStatement pstmt = conn.prepareStatement("UPDATE messages SET isRead = TRUE WHERE id = ? AND NOT isRead")) {
+                    pstmt.setInt(1, messageId);
+                    if (pstmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        return false;
+                    }
+                }
+                lowerUnread(conn, userId, conversationId, 1);
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    @Override
+    public int markConversationRead(int conversationId, String userName) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int userId = findUserId(conn, userName);
+                int marked;
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE messages SET isRead = TRUE WHERE conversationId = ? AND toUser = ? AND NOT isRead")) {
+                    pstmt.setInt(1, conversationId);
+                    pstmt.setInt(2, userId);
+                    marked = pstmt.executeUpdate();
+                }
+                if (marked > 0) {
+                    lowerUnread(conn, userId, conversationId, marked);
+                }
+                conn.commit();
+                return marked;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    // Deleting an unread message lowers the unread counters.
+    @Override
+    public boolean delete(int messageId, String userName) throws SQLException {
+        String findQuery = "SELECT m.toUser, m.conversationId, m.isRead FROM messages m WHERE m.id = ? AND m.toUser = " + USER_ID;
+        try (Connection conn = databaseHelper.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int userId;
+                int conversationId;
+                boolean read;
+                try (PreparedStatement pstmt = conn.prepareStatement(findQuery)) {
+                    pstmt.setInt(1, messageId);
+                    pstmt.setString(2, userName);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        userId = rs.getInt("toUser");
+                        conversationId = rs.getInt("conversationId");
+                        read = rs.getBoolean("isRead");
+                    }
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM messages WHERE id = ?")) {
+                    pstmt.setInt(1, messageId);
+                    if (pstmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        return false;
+                    }
+                }
+                if (!read) {
+                    lowerUnread(conn, userId, conversationId, 1);
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    // Returns the user's id, or -1 if there is no such user.
+    static int findUserId(Connection conn, String userName) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM cse360users WHERE userName = ?")) {
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    // Returns the conversation between two users, creating it and its member rows if needed.
+    private static int findOrCreateConversation(Connection conn, int userA, int userB) throws SQLException {
+        int low = Math.min(userA, userB);
+        int high = Math.max(userA, userB);
+        int id = findConversation(conn, low, high);
+        if (id > 0) {
+            return id;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO conversations (userLow, userHigh) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setInt(1, low);
+            pstmt.setInt(2, high);
+            pstmt.executeUpdate();
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                generatedKeys.next();
+                id = generatedKeys.getInt(1);
+            }
+        } catch (SQLException e) {
+            if (!ContentHash.isDuplicate(e)) {
+                throw e;
+            }
+            // Another sender created it first.
+            return findConversation(conn, low, high);
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO conversationMembers (conversationId, userId, otherUserId) VALUES (?, ?, ?)")) {
+            pstmt.setInt(1, id);
+            pstmt.setInt(2, low);
+            pstmt.setInt(3, high);
+            pstmt.executeUpdate();
+            if (low != high) {
+                pstmt.setInt(2, high);
+                pstmt.setInt(3, low);
+                pstmt.executeUpdate();
+            }
+        }
+        return id;
+    }
+
+    private static int findConversation(Connection conn, int low, int high) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM conversations WHERE userLow = ? AND userHigh = ?")) {
+            pstmt.setInt(1, low);
+            pstmt.setInt(2, high);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    // Lowers the user's unread counters after count of their messages were read or deleted.
+    private static void lowerUnread(Connection conn, int userId, int conversationId, int count) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE cse360users SET unreadMessages = GREATEST(unreadMessages - ?, 0) WHERE id = ?")) {
+            pstmt.setInt(1, count);
+            pstmt.setInt(2, userId);
+            pstmt.executeUpdate();
+        }
+        if (conversationId > 0) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE conversationMembers SET unread = GREATEST(unread - ?, 0) WHERE conversationId = ? AND userId = ?")) {
+                pstmt.setInt(1, count);
+                pstmt.setInt(2, conversationId);
+                pstmt.setInt(3, userId);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private static List<Message> readMessages(PreparedStatement pstmt) throws SQLException {
+        List<Message> messages = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                Timestamp sentAt = rs.getTimestamp("sentAt");
+                messages.add(new Message(rs.getInt("id"), rs.getInt("toUser"), rs.getString("text"), rs.getString("fromAuthor"),
+                        rs.getInt("conversationId"), sentAt == null ? null : sentAt.toLocalDateTime(), rs.getBoolean("isRead")));
+            }
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,147 @@
+package application;
+
+import databasePart1.ContentHash;
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JdbcQuestionRepository class stores questions in the questions table of the H2 database.
+ * Deleting a question takes the reviews deleted with it off their authors' statistics.
+ */
+public class JdbcQuestionRepository implements QuestionRepository {
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the JdbcQuestionRepository.
+     * @param databaseHelper the database helper whose pooled connections are used
+     */
+    public JdbcQuestionRepository(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    // The unique index on contentHash rejects a question with the same text and author in the same statement.
+    @Override
+    public boolean insert(Question question) throws SQLException {
+        String insertQuery = "INSERT INTO questions (text, author, contentHash) VALUES (?, ?, ?)";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement insertStmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+            // The row and its review queue entries are committed together, so no reviewer misses the question.
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                insertStmt.setString(1, question.getText());
+                insertStmt.setString(2, question.getAuthor());
+                insertStmt.setString(3, ContentHash.of(question.getText(), question.getAuthor()));
+                insertStmt.executeUpdate();
+                try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        question.setId(generatedKeys.getInt(1));
+                    }
+                }
+                ReviewQueue.enqueue(conn, ReviewQueue.ItemType.QUESTION, question.getId());
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                if (ContentHash.isDuplicate(e)) {
+                    return false;
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    @Override
+    public Question findById(int id) throws SQLException {
+        List<Question> questions = query("SELECT id, text, author FROM questions WHERE id = ?", id);
+        return questions.isEmpty() ? null : questions.get(0);
+    }
+
+    @Override
+    public List<Question> findAll() throws SQLException {
+        return query("SELECT id, text, author FROM questions ORDER BY id");
+    }
+
+    // Uses the primary key as the cursor, so the cost of a page does not grow with its position.
+    @Override
+    public List<Question> findPage(int afterId, int limit) throws SQLException {
+        return query("SELECT id, text, author FROM questions WHERE id > ? ORDER BY id LIMIT ?", afterId, limit);
+    }
+
+    @Override
+    public List<Question> findByAuthor(String author) throws SQLException {
+        return query("SELECT id, text, author FROM questions WHERE author = ? ORDER BY id", author);
+    }
+
+    @Override
+    public int count() throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM questions");
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // The hash follows the text, so the old text can be asked again and the new one cannot be asked twice.
+    @Override
+    public boolean updateText(int id, String text, String author) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("UPDATE questions SET text = ?, contentHash = ? WHERE id = ? AND author = ?")) {
+            pstmt.setString(1, text);
+            pstmt.setString(2, ContentHash.of(text, author));
+            pstmt.setInt(3, id);
+            pstmt.setString(4, author);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            if (ContentHash.isDuplicate(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // The answers and reviews go with the question by ON DELETE CASCADE.
+    @Override
+    public boolean delete(int id) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement deleteStmt = conn.prepareStatement("DELETE FROM questions WHERE id = ?")) {
+            // The reviews deleted with the question come off their authors' statistics, and the question
+            // and the answers deleted with it leave the review queues, in the same transaction.
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                ReviewerStatsManager.questionDeleting(conn, id);
+                ReviewQueue.removeQuestionThread(conn, id);
+                deleteStmt.setInt(1, id);
+                boolean deleted = deleteStmt.executeUpdate() > 0;
+                conn.commit();
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private List<Question> query(String query, Object... params) throws SQLException {
+        List<Question> questions = new ArrayList<>();
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    questions.add(new Question(rs.getInt("id"), rs.getString("text"), rs.getString("author")));
+                }
+            }
+        }
+        return questions;
+    }
+}
@@ -0,0 +1,56 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+
+/**
+ * The repositories over the H2 database, on the pooled connections of a DatabaseHelper. The
+ * helper owns the connections, so closing these repositories releases nothing.
+ */
+public class JdbcRepositories implements Repositories {
+    private final QuestionRepository questions;
+    private final AnswerRepository answers;
+    private final SubsetQuestionRepository subsetQuestions;
+    private final SubsetAnswerRepository subsetAnswers;
+    private final ReviewRepository reviews;
+    private final MessageRepository messages;
+    private final UserRepository users;
+
+    /**
+     * Constructor to initialize the JdbcRepositories.
+     * @param databaseHelper the connected database helper
+     */
+    public JdbcRepositories(DatabaseHelper databaseHelper) {
+        this.questions = new JdbcQuestionRepository(databaseHelper);
+        this.answers = new JdbcAnswerRepository(databaseHelper);
+        this.subsetQuestions = new JdbcSubsetQuestionRepository(databaseHelper);
+        this.subsetAnswers = new JdbcSubsetAnswerRepository(databaseHelper);
+        this.reviews = new JdbcReviewRepository(databaseHelper);
+        this.messages = new JdbcMessageRepository(databaseHelper);
+        this.users = new JdbcUserRepository(databaseHelper);
+    }
+
+    @Override
+    public QuestionRepository questions() { return questions; }
+
+    @Override
+    public AnswerRepository answers() { return answers; }
+
+    @Override
+    public SubsetQuestionRepository subsetQuestions() { return subsetQuestions; }
+
+    @Override
+    public SubsetAnswerRepository subsetAnswers() { return subsetAnswers; }
+
+    @Override
+    public ReviewRepository reviews() { return reviews; }
+
+    @Override
+    public MessageRepository messages() { return messages; }
+
+    @Override
+    public UserRepository users() { return users; }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,157 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JdbcReviewRepository class stores reviews in the reviews table of the H2 database. Each
+ * write also updates, in the same transaction, the answer scores of the students who trust the
+ * reviewer (AnswerRanking), the reviewer's statistics (ReviewerStatsManager) and their review
+ * queue (ReviewQueue).
+ */
+public class JdbcReviewRepository implements ReviewRepository {
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the JdbcReviewRepository.
+     * @param databaseHelper the database helper whose pooled connections are used
+     */
+    public JdbcReviewRepository(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    @Override
+    public void insert(Review review) throws SQLException {
+        String insertQuery = "INSERT INTO reviews (text, author, answerId) VALUES (?, ?, ?)";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, review.getText());
+            pstmt.setString(2, review.getAuthor());
+            pstmt.setInt(3, review.getQuestionId()); // Note: getQuestionId() returns answerId in Review.java
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                if (pstmt.executeUpdate() > 0) {
+                    AnswerRanking.reviewAdded(conn, review.getAuthor(), review.getQuestionId());
+                    ReviewerStatsManager.reviewSaved(conn, review.getAuthor());
+                    // Reviews of main and clarification answers share answerId, so both queue entries are cleared.
+                    ReviewQueue.markReviewed(conn, review.getAuthor(), ReviewQueue.ItemType.ANSWER, review.getQuestionId());
+                    ReviewQueue.markReviewed(conn, review.getAuthor(), ReviewQueue.ItemType.SUBSET_ANSWER, review.getQuestionId());
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    review.setId(generatedKeys.getInt(1));
+                }
+            }
+        }
+    }
+
+    @Override
+    public Review findById(int id) throws SQLException {
+        List<Review> reviews = query("SELECT id, text, author, answerId FROM reviews WHERE id = ?", id);
+        return reviews.isEmpty() ? null : reviews.get(0);
+    }
+
+    @Override
+    public List<Review> findByAnswer(int answerId) throws SQLException {
+        return query("SELECT id, text, author, answerId FROM reviews WHERE answerId = ? ORDER BY id", answerId);
+    }
+
+    @Override
+    public List<Review> findByAuthor(String author) throws SQLException {
+        return query("SELECT id, text, author, answerId FROM reviews WHERE author = ? ORDER BY id", author);
+    }
+
+    @Override
+    public boolean updateText(int id, String text, String author) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("UPDATE reviews SET text = ? WHERE id = ? AND author = ?")) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                pstmt.setString(1, text);
+                pstmt.setInt(2, id);
+                pstmt.setString(3, author);
+                boolean updated = pstmt.executeUpdate() > 0;
+                if (updated) {
+                    ReviewerStatsManager.reviewEdited(conn, author);
+                }
+                conn.commit();
+                return updated;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    @Override
+    public boolean delete(int id, String deletedBy) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement checkStmt = conn.prepareStatement("SELECT author, answerId FROM reviews WHERE id = ?");
+             PreparedStatement deleteStmt = conn.prepareStatement("DELETE FROM reviews WHERE id = ?");
+             PreparedStatement remainingStmt = conn.prepareStatement("SELECT 1 FROM reviews WHERE author = ? AND answerId = ? LIMIT 1")) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                boolean deleted = false;
+                checkStmt.setInt(1, id);
+                try (ResultSet rs = checkStmt.executeQuery()) {
+                    if (rs.next()) {
+                        String author = rs.getString("author");
+                        int answerId = rs.getInt("answerId");
+                        deleteStmt.setInt(1, id);
+                        deleted = deleteStmt.executeUpdate() > 0;
+                        if (deleted) {
+                            AnswerRanking.reviewRemoved(conn, author, answerId);
+                            ReviewerStatsManager.reviewDeleted(conn, author, author.equals(deletedBy));
+                            // The answer goes back in the author's queue if this was their only review of it.
+                            remainingStmt.setString(1, author);
+                            remainingStmt.setInt(2, answerId);
+                            try (ResultSet remaining = remainingStmt.executeQuery()) {
+                                if (!remaining.next()) {
+                                    ReviewQueue.requeue(conn, author, ReviewQueue.ItemType.ANSWER, answerId);
+                                    ReviewQueue.requeue(conn, author, ReviewQueue.ItemType.SUBSET_ANSWER, answerId);
+                                }
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private List<Review> query(String query, Object... params) throws SQLException {
+        List<Review> reviews = new ArrayList<>();
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    reviews.add(new Review(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("answerId")));
+                }
+            }
+        }
+        return reviews;
+    }
+}
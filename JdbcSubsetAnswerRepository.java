@@ -0,0 +1,104 @@
+package application;
+
+import databasePart1.ContentHash;
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JdbcSubsetAnswerRepository class stores the answers to subset questions in the
+ * subSetAnswers table of the H2 database.
+ */
+public class JdbcSubsetAnswerRepository implements SubsetAnswerRepository {
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the JdbcSubsetAnswerRepository.
+     * @param databaseHelper the database helper whose pooled connections are used
+     */
+    public JdbcSubsetAnswerRepository(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    // The unique index on contentHash rejects an answer with the same text, author and subset question in the same statement.
+    @Override
+    public boolean insert(Answer answer) throws SQLException {
+        String insertQuery = "INSERT INTO subSetAnswers (text, author, saID, contentHash) VALUES (?, ?, ?, ?)";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement insertStmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+            // The row and its review queue entries are committed together, so no reviewer misses the subset answer.
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                insertStmt.setString(1, answer.getText());
+                insertStmt.setString(2, answer.getAuthor());
+                insertStmt.setInt(3, answer.getQuestionId());
+                insertStmt.setString(4, ContentHash.of(answer.getText(), answer.getAuthor(), answer.getQuestionId()));
+                insertStmt.executeUpdate();
+                try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        answer.setId(generatedKeys.getInt(1));
+                    }
+                }
+                ReviewQueue.enqueue(conn, ReviewQueue.ItemType.SUBSET_ANSWER, answer.getId());
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                if (ContentHash.isDuplicate(e)) {
+                    return false;
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    @Override
+    public List<Answer> findBySubsetQuestion(int subsetQuestionId) throws SQLException {
+        List<Answer> answers = new ArrayList<>();
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT id, text, author, saID FROM subSetAnswers WHERE saID = ? ORDER BY id")) {
+            pstmt.setInt(1, subsetQuestionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    answers.add(new Answer(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("saID")));
+                }
+            }
+        }
+        return answers;
+    }
+
+    // The hash follows the text, so the old text can be posted again and the new one cannot be posted twice.
+    // The subset question is part of the hash; the UPDATE matches it too, in case the answer is deleted in between.
+    @Override
+    public boolean updateText(int id, String text, String author) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement selectStmt = conn.prepareStatement("SELECT saID FROM subSetAnswers WHERE id = ? AND author = ?");
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "UPDATE subSetAnswers SET text = ?, contentHash = ? WHERE id = ? AND author = ? AND saID = ?")) {
+            selectStmt.setInt(1, id);
+            selectStmt.setString(2, author);
+            int subsetQuestionId;
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                subsetQuestionId = rs.getInt(1);
+            }
+            pstmt.setString(1, text);
+            pstmt.setString(2, ContentHash.of(text, author, subsetQuestionId));
+            pstmt.setInt(3, id);
+            pstmt.setString(4, author);
+            pstmt.setInt(5, subsetQuestionId);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            if (ContentHash.isDuplicate(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JdbcSubsetQuestionRepository class stores subset questions in the subSetQuestions table of
+ * the H2 database.
+ */
+public class JdbcSubsetQuestionRepository implements SubsetQuestionRepository {
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the JdbcSubsetQuestionRepository.
+     * @param databaseHelper the database helper whose pooled connections are used
+     */
+    public JdbcSubsetQuestionRepository(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    @Override
+    public void insert(int questionId, Question subsetQuestion) throws SQLException {
+        String query = "INSERT INTO subSetQuestions (qID, text, author) VALUES (?, ?, ?)";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setInt(1, questionId);
+            pstmt.setString(2, subsetQuestion.getText());
+            pstmt.setString(3, subsetQuestion.getAuthor());
+            pstmt.executeUpdate();
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    subsetQuestion.setId(generatedKeys.getInt(1));
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Question> findByQuestion(int questionId) throws SQLException {
+        List<Question> subsetQuestions = new ArrayList<>();
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT id, text, author FROM subSetQuestions WHERE qID = ? ORDER BY id")) {
+            pstmt.setInt(1, questionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    subsetQuestions.add(new Question(rs.getInt("id"), rs.getString("text"), rs.getString("author")));
+                }
+            }
+        }
+        return subsetQuestions;
+    }
+
+    @Override
+    public boolean updateText(int id, String text, String author) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("UPDATE subSetQuestions SET text = ? WHERE id = ? AND author = ?")) {
+            pstmt.setString(1, text);
+            pstmt.setInt(2, id);
+            pstmt.setString(3, author);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+}
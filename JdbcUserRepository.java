@@ -0,0 +1,84 @@
+package application;
+
+import databasePart1.ContentHash;
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+
+/**
+ * The JdbcUserRepository class stores users in the cse360users table of the H2 database, with
+ * the same statements as the account methods of DatabaseHelper but on pooled connections.
+ */
+public class JdbcUserRepository implements UserRepository {
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the JdbcUserRepository.
+     * @param databaseHelper the database helper whose pooled connections are used
+     */
+    public JdbcUserRepository(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    // The unique userName column rejects a taken username.
+    @Override
+    public boolean register(User user) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("INSERT INTO cse360users (userName, password, role) VALUES (?, ?, ?)")) {
+            pstmt.setString(1, user.getUserName());
+            pstmt.setString(2, user.getPassword());
+            pstmt.setString(3, user.getRole());
+            pstmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (ContentHash.isDuplicate(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean exists(String userName) throws SQLException {
+        return findId(userName) >= 0;
+    }
+
+    @Override
+    public int findId(String userName) throws SQLException {
+        String id = queryOne("SELECT id FROM cse360users WHERE userName = ?", userName);
+        return id == null ? -1 : Integer.parseInt(id);
+    }
+
+    @Override
+    public String findRole(String userName) throws SQLException {
+        return queryOne("SELECT role FROM cse360users WHERE userName = ?", userName);
+    }
+
+    @Override
+    public boolean login(String userName, String password, String role) throws SQLException {
+        return queryOne("SELECT userName FROM cse360users WHERE userName = ? AND password = ? AND role = ?",
+                userName, password, role) != null;
+    }
+
+    @Override
+    public boolean updatePassword(String userName, String password) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("UPDATE cse360users SET password = ? WHERE userName = ?")) {
+            pstmt.setString(1, password);
+            pstmt.setString(2, userName);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    // The first column of the first row, or null if there is no row.
+    private String queryOne(String query, String... params) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setString(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+}
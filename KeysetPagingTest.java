@@ -0,0 +1,189 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * KeysetPagingTest
+ *
+ * This class contains automated JUnit tests to verify the keyset paging of questions and answers:
+ * walking the pages returns every row once in ID order, the page boundaries hold when the row
+ * count is a multiple of the page size, deleted rows and deleted cursors leave no gaps or
+ * repeats, and the counts follow saves and deletes.
+ */
+public class KeysetPagingTest {
+
+    private DatabaseHelper dbHelper;
+    private QuestionManager questionManager;
+    private AnswerManager answerManager;
+
+    /**
+     * Setup method to open an empty database.
+     */
+    @Before
+    public void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+        questionManager = new QuestionManager(dbHelper);
+        answerManager = new AnswerManager(dbHelper);
+    }
+
+    /**
+     * Cleanup method to close the database.
+     */
+    @After
+    public void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that an empty table has no first page and a count of zero.
+     */
+    @Test
+    public void testEmptyTable() {
+        assertTrue(questionManager.getQuestionsPage(0, 10).isEmpty());
+        assertEquals(0, questionManager.countQuestions());
+    }
+
+    /**
+     * Test 2: Verify that six questions in pages of three give two full pages and an empty third
+     * page, and in pages of four a full page and a short one, with every question once in order.
+     */
+    @Test
+    public void testPageBoundaries() {
+        List<Integer> ids = saveQuestions(6);
+        assertEquals(6, questionManager.countQuestions());
+
+        List<List<Question>> byThree = walkQuestions(3);
+        assertEquals(3, byThree.size());
+        assertEquals(3, byThree.get(0).size());
+        assertEquals(3, byThree.get(1).size());
+        assertTrue("A full last page should be followed by an empty one", byThree.get(2).isEmpty());
+        assertEquals(ids, idsOfPages(byThree));
+
+        List<List<Question>> byFour = walkQuestions(4);
+        assertEquals(2, byFour.size());
+        assertEquals(2, byFour.get(1).size());
+        assertEquals(ids, idsOfPages(byFour));
+
+        assertEquals(ids, idsOfPages(walkQuestions(1)));
+        int last = ids.get(ids.size() - 1);
+        assertTrue("A cursor at the last ID should have nothing after it", questionManager.getQuestionsPage(last, 3).isEmpty());
+        assertEquals(ids.subList(1, 4), idsOf(questionManager.getQuestionsPage(ids.get(0), 3)));
+    }
+
+    /**
+     * Test 3: Verify that a deleted question is skipped without a gap in the page, that a page
+     * can start after a deleted cursor, and that a question saved after the first page was read
+     * shows up on the last page and in the count.
+     */
+    @Test
+    public void testDeletesAndSavesBetweenPages() {
+        List<Integer> ids = saveQuestions(5);
+        List<Question> first = questionManager.getQuestionsPage(0, 2);
+        assertEquals(ids.subList(0, 2), idsOf(first));
+
+        assertTrue(questionManager.deleteQuestion(ids.get(1), "alice", false));
+        assertTrue(questionManager.deleteQuestion(ids.get(2), "alice", false));
+        assertEquals(3, questionManager.countQuestions());
+        int cursor = first.get(1).getId();
+        assertEquals("Paging should continue after a deleted cursor",
+                ids.subList(3, 5), idsOf(questionManager.getQuestionsPage(cursor, 2)));
+
+        Question added = new Question(0, "Saved between pages", "alice");
+        assertTrue(questionManager.saveQuestion(added));
+        assertEquals(4, questionManager.countQuestions());
+        List<Question> last = questionManager.getQuestionsPage(ids.get(4), 2);
+        assertEquals(1, last.size());
+        assertEquals(added.getId(), last.get(0).getId());
+        assertEquals("The cached first page should see the deletes",
+                List.of(ids.get(0), ids.get(3)), idsOf(questionManager.getQuestionsPage(0, 2)));
+    }
+
+    /**
+     * Test 4: Verify that the answers of a question page the same way, without the answers of
+     * another question, and that their count follows saves and deletes.
+     */
+    @Test
+    public void testAnswerPages() {
+        List<Integer> questions = saveQuestions(2);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Answer answer = new Answer(0, "Answer " + i, "bob", questions.get(0));
+            assertTrue(answerManager.saveAnswer(answer));
+            ids.add(answer.getId());
+            assertTrue(answerManager.saveAnswer(new Answer(0, "Other answer " + i, "bob", questions.get(1))));
+        }
+        assertEquals(4, answerManager.countAnswersForQuestion(questions.get(0)));
+
+        List<Answer> first = answerManager.getAnswersPage(questions.get(0), 0, 2);
+        List<Answer> second = answerManager.getAnswersPage(questions.get(0), first.get(1).getId(), 2);
+        List<Answer> third = answerManager.getAnswersPage(questions.get(0), second.get(1).getId(), 2);
+        assertEquals(ids.subList(0, 2), answerIds(first));
+        assertEquals(ids.subList(2, 4), answerIds(second));
+        assertTrue(third.isEmpty());
+
+        assertTrue(answerManager.deleteAnswer(ids.get(2), "bob", false));
+        assertEquals(3, answerManager.countAnswersForQuestion(questions.get(0)));
+        assertEquals(List.of(ids.get(3)), answerIds(answerManager.getAnswersPage(questions.get(0), ids.get(1), 2)));
+        assertEquals(0, answerManager.countAnswersForQuestion(12345));
+    }
+
+    private List<Integer> saveQuestions(int count) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Question question = new Question(0, "Question " + i, "alice");
+            assertTrue(questionManager.saveQuestion(question));
+            ids.add(question.getId());
+        }
+        return ids;
+    }
+
+    // Reads pages until an empty or short one.
+    private List<List<Question>> walkQuestions(int limit) {
+        List<List<Question>> pages = new ArrayList<>();
+        int afterId = 0;
+        while (true) {
+            List<Question> page = questionManager.getQuestionsPage(afterId, limit);
+            pages.add(page);
+            if (page.size() < limit) {
+                return pages;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private static List<Integer> idsOf(List<Question> page) {
+        List<Integer> ids = new ArrayList<>();
+        for (Question question : page) {
+            ids.add(question.getId());
+        }
+        return ids;
+    }
+
+    private static List<Integer> idsOfPages(List<List<Question>> pages) {
+        List<Integer> ids = new ArrayList<>();
+        for (List<Question> page : pages) {
+            ids.addAll(idsOf(page));
+        }
+        return ids;
+    }
+
+    private static List<Integer> answerIds(List<Answer> answers) {
+        List<Integer> ids = new ArrayList<>();
+        for (Answer answer : answers) {
+            ids.add(answer.getId());
+        }
+        return ids;
+    }
+}
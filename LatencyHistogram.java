@@ -0,0 +1,105 @@
+package databasePart1;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LatencyHistogram class counts latencies in nanoseconds in log-linear buckets: values below
+ * 16 have a bucket each, and every power of two above is split into 16 buckets, so a reported
+ * percentile is within about 6% of the true value. Recording is one atomic increment of a bucket
+ * and never blocks; percentiles are read from a snapshot of the buckets.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // Exact buckets below SUB_COUNT, then SUB_COUNT buckets per power of two up to 2^62.
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency.
+     * @param nanos the latency in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * @return the largest latency recorded, in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Reads the latencies at several quantiles from one snapshot of the buckets.
+     * @param quantiles the quantiles, each between 0 and 1
+     * @return the latency at each quantile in nanoseconds, the upper end of its bucket; 0 if nothing was recorded
+     */
+    public long[] getQuantiles(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] values = new long[quantiles.length];
+        if (total == 0) {
+            return values;
+        }
+        long highest = max.get();
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    values[q] = Math.min(upperBound(i), highest);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Clears the histogram. Latencies recorded while it runs may be kept or dropped.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        int sub = (int) (value >>> shift) - SUB_COUNT;
+        return SUB_COUNT + shift * SUB_COUNT + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_COUNT) / SUB_COUNT;
+        int sub = (index - SUB_COUNT) % SUB_COUNT;
+        return (long) (SUB_COUNT + sub) << shift;
+    }
+
+    static long upperBound(int index) {
+        return index + 1 < BUCKETS ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+}
@@ -18,7 +18,8 @@ public class LoginPasswordTestingAutomation {
     
     static int numPassed = 0; // Counter of passed tests
     static int numFailed = 0; // Counter of failed tests
-    private static final DatabaseHelper databaseHelper = new DatabaseHelper();
+    // An in-memory database, so the tests leave the application's database file alone.
+    private static final DatabaseHelper databaseHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
 
     public static void main(String[] args) {
         try {
@@ -98,7 +99,7 @@ public class LoginPasswordTestingAutomation {
         try {
             User user = new User(username, currentPass, "user");
             if (databaseHelper.doesUserExist(username) && databaseHelper.login(user)) {
-                String validation = PasswordEvaluator.evaluatePassword(newPass);
+                String validation = PasswordEvaluator.evaluate(newPass).getErrorMessage();
                 if (validation.isEmpty()) {
                     databaseHelper.updateUserPassword(username, newPass);
                     changeSuccess = true;
@@ -0,0 +1,1394 @@
+package application;
+
+import databasePart1.ContentHash;
+import databasePart1.IntMultiMap;
+import databasePart1.WriteAheadLog;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The MemoryRepositories class keeps questions, answers, subset questions and answers, reviews,
+ * messages and users in memory, for read-mostly deployments where the JDBC and H2 cost of every
+ * read is the bottleneck. Rows are
+ * immutable objects in concurrent maps, and the lookups by question, answer, author, recipient and
+ * conversation go through IntMultiMap indexes keyed by int IDs (authors are numbered on first use),
+ * so a read takes no lock and copies only the rows it returns.
+ *
+ * Writes are serialized. Each one is checked, appended to the write-ahead log, and only then
+ * applied, so a write that fails changes nothing and a restart replays exactly the writes that
+ * returned. checkpoint() rewrites the log as the current state to bound its length and the replay
+ * time. Without a log file the data lives until the JVM exits.
+ *
+ * It behaves like JdbcRepositories, including the unique, foreign key and length checks of the
+ * tables, but it holds only the data of these repositories: the answer scores, reviewer statistics
+ * and review queues that the H2 repositories update in the same transaction are not kept.
+ * DatabaseHelper uses it when DataSourceConfig selects Engine.MEMORY.
+ */
+public class MemoryRepositories implements Repositories {
+
+    // Record types of the write-ahead log.
+    private static final byte NEXT_IDS = 1;
+    private static final byte USER = 2;
+    private static final byte PASSWORD = 3;
+    private static final byte QUESTION = 4;
+    private static final byte QUESTION_TEXT = 5;
+    private static final byte QUESTION_DELETE = 6;
+    private static final byte ANSWER = 7;
+    private static final byte ANSWER_TEXT = 8;
+    private static final byte ANSWER_DELETE = 9;
+    private static final byte REVIEW = 10;
+    private static final byte REVIEW_TEXT = 11;
+    private static final byte REVIEW_DELETE = 12;
+    private static final byte CONVERSATION = 13;
+    private static final byte MESSAGE = 14;
+    private static final byte MESSAGE_READ = 15;
+    private static final byte CONVERSATION_READ = 16;
+    private static final byte MESSAGE_DELETE = 17;
+    private static final byte SUBSET_QUESTION = 18;
+    private static final byte SUBSET_QUESTION_TEXT = 19;
+    private static final byte SUBSET_ANSWER = 20;
+    private static final byte SUBSET_ANSWER_TEXT = 21;
+    private static final byte NEXT_SUBSET_IDS = 22;
+
+    // The column sizes of the H2 tables.
+    private static final int TEXT_LENGTH = 500;
+    private static final int MESSAGE_LENGTH = 200;
+    private static final int SUBSET_ANSWER_LENGTH = 255;
+    private static final int NAME_LENGTH = 255;
+    private static final int ROLE_LENGTH = 20;
+
+    private static final class QuestionRow {
+        final int id;
+        final String text;
+        final String author;
+        final String contentHash;
+
+        QuestionRow(int id, String text, String author, String contentHash) {
+            this.id = id;
+            this.text = text;
+            this.author = author;
+            this.contentHash = contentHash;
+        }
+    }
+
+    private static final class AnswerRow {
+        final int id;
+        final int questionId;
+        final String text;
+        final String author;
+        final String contentHash;
+
+        AnswerRow(int id, int questionId, String text, String author, String contentHash) {
+            this.id = id;
+            this.questionId = questionId;
+            this.text = text;
+            this.author = author;
+            this.contentHash = contentHash;
+        }
+    }
+
+    private static final class SubsetQuestionRow {
+        final int id;
+        final int questionId;
+        final String text;
+        final String author;
+
+        SubsetQuestionRow(int id, int questionId, String text, String author) {
+            this.id = id;
+            this.questionId = questionId;
+            this.text = text;
+            this.author = author;
+        }
+    }
+
+    private static final class SubsetAnswerRow {
+        final int id;
+        final int subsetQuestionId;
+        final String text;
+        final String author;
+        final String contentHash;
+
+        SubsetAnswerRow(int id, int subsetQuestionId, String text, String author, String contentHash) {
+            this.id = id;
+            this.subsetQuestionId = subsetQuestionId;
+            this.text = text;
+            this.author = author;
+            this.contentHash = contentHash;
+        }
+    }
+
+    private static final class ReviewRow {
+        final int id;
+        final int answerId;
+        final String text;
+        final String author;
+
+        ReviewRow(int id, int answerId, String text, String author) {
+            this.id = id;
+            this.answerId = answerId;
+            this.text = text;
+            this.author = author;
+        }
+    }
+
+    // The counters are changed by the writer only.
+    private static final class UserRow {
+        final int id;
+        final String userName;
+        final String role;
+        volatile String password;
+        volatile int unread;
+
+        UserRow(int id, String userName, String password, String role) {
+            this.id = id;
+            this.userName = userName;
+            this.password = password;
+            this.role = role;
+        }
+    }
+
+    private static final class MessageRow {
+        final int id;
+        final int toUserId;
+        final String fromAuthor;
+        final String text;
+        final int conversationId;
+        final LocalDateTime sentAt;
+        final boolean read;
+
+        MessageRow(int id, int toUserId, String fromAuthor, String text, int conversationId, LocalDateTime sentAt, boolean read) {
+            this.id = id;
+            this.toUserId = toUserId;
+            this.fromAuthor = fromAuthor;
+            this.text = text;
+            this.conversationId = conversationId;
+            this.sentAt = sentAt;
+            this.read = read;
+        }
+    }
+
+    // One user's side of a conversation, like a conversationMembers row.
+    private static final class Side {
+        final int conversationId;
+        final int userId;
+        final int otherUserId;
+        volatile int unread;
+        volatile int lastMessageId;
+
+        Side(int conversationId, int userId, int otherUserId) {
+            this.conversationId = conversationId;
+            this.userId = userId;
+            this.otherUserId = otherUserId;
+        }
+    }
+
+    private final ConcurrentSkipListMap<Integer, QuestionRow> questionRows = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, AnswerRow> answerRows = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, SubsetQuestionRow> subsetQuestionRows = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, SubsetAnswerRow> subsetAnswerRows = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, ReviewRow> reviewRows = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, UserRow> usersByName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, UserRow> usersById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, MessageRow> messageRows = new ConcurrentHashMap<>();
+    // Conversation IDs by the pair key of their users, and the sides by conversation and user.
+    private final ConcurrentHashMap<Long, Integer> conversationsByPair = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Side> sides = new ConcurrentHashMap<>();
+    // Authors are indexed by number; a name is numbered the first time it is written.
+    private final ConcurrentHashMap<String, Integer> authorNumbers = new ConcurrentHashMap<>();
+
+    private final IntMultiMap questionsByAuthor = new IntMultiMap();
+    private final IntMultiMap answersByQuestion = new IntMultiMap();
+    private final IntMultiMap answersByAuthor = new IntMultiMap();
+    private final IntMultiMap subsetQuestionsByQuestion = new IntMultiMap();
+    private final IntMultiMap subsetAnswersBySubsetQuestion = new IntMultiMap();
+    private final IntMultiMap reviewsByAnswer = new IntMultiMap();
+    private final IntMultiMap reviewsByAuthor = new IntMultiMap();
+    private final IntMultiMap inbox = new IntMultiMap();
+    private final IntMultiMap conversationMessages = new IntMultiMap();
+    private final IntMultiMap userConversations = new IntMultiMap();
+
+    // The rest is guarded by writeLock.
+    private final Object writeLock = new Object();
+    private final WriteAheadLog log;
+    private final Set<String> questionHashes = new HashSet<>();
+    private final Set<String> answerHashes = new HashSet<>();
+    private final Set<String> subsetAnswerHashes = new HashSet<>();
+    private volatile int questionCount;
+    private int nextQuestionId = 1;
+    private int nextAnswerId = 1;
+    private int nextSubsetQuestionId = 1;
+    private int nextSubsetAnswerId = 1;
+    private int nextReviewId = 1;
+    private int nextUserId = 1;
+    private int nextMessageId = 1;
+    private int nextConversationId = 1;
+
+    private final QuestionRepository questions = new Questions();
+    private final AnswerRepository answers = new Answers();
+    private final SubsetQuestionRepository subsetQuestions = new SubsetQuestions();
+    private final SubsetAnswerRepository subsetAnswers = new SubsetAnswers();
+    private final ReviewRepository reviews = new Reviews();
+    private final MessageRepository messages = new Messages();
+    private final UserRepository users = new Users();
+
+    /**
+     * Creates an empty engine that keeps nothing after the JVM exits.
+     */
+    public MemoryRepositories() {
+        this.log = null;
+    }
+
+    private MemoryRepositories(WriteAheadLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Opens an engine persisted to a write-ahead log, replaying the log into memory.
+     * @param file the log file; created if it does not exist
+     * @param sync whether every write is forced to disk before it returns
+     * @return the engine with the logged state
+     * @throws SQLException if the log cannot be opened or read
+     */
+    public static MemoryRepositories open(Path file, boolean sync) throws SQLException {
+        WriteAheadLog log = null;
+        try {
+            log = new WriteAheadLog(file, sync);
+            MemoryRepositories repositories = new MemoryRepositories(log);
+            synchronized (repositories.writeLock) {
+                log.replay(repositories::apply);
+            }
+            return repositories;
+        } catch (IOException | RuntimeException e) {
+            if (log != null) {
+                log.close();
+            }
+            throw new SQLException("Could not read the write-ahead log " + file, e);
+        }
+    }
+
+    @Override
+    public QuestionRepository questions() { return questions; }
+
+    @Override
+    public AnswerRepository answers() { return answers; }
+
+    @Override
+    public SubsetQuestionRepository subsetQuestions() { return subsetQuestions; }
+
+    @Override
+    public SubsetAnswerRepository subsetAnswers() { return subsetAnswers; }
+
+    @Override
+    public ReviewRepository reviews() { return reviews; }
+
+    @Override
+    public MessageRepository messages() { return messages; }
+
+    @Override
+    public UserRepository users() { return users; }
+
+    /**
+     * Rewrites the write-ahead log as the records of the current state. Writes wait while it runs.
+     * @throws SQLException if the new log cannot be written; the old one is kept then
+     */
+    public void checkpoint() throws SQLException {
+        if (log == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            try {
+                log.rewrite(this::writeSnapshot);
+            } catch (IOException e) {
+                throw new SQLException("Could not rewrite the write-ahead log", e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of records in the write-ahead log, 0 without one
+     */
+    public long getLogRecords() {
+        return log == null ? 0 : log.getRecords();
+    }
+
+    @Override
+    public void close() {
+        if (log != null) {
+            synchronized (writeLock) {
+                log.close();
+            }
+        }
+    }
+
+    private class Questions implements QuestionRepository {
+
+        @Override
+        public boolean insert(Question question) throws SQLException {
+            checkLength(question.getText(), TEXT_LENGTH, "text");
+            checkLength(question.getAuthor(), NAME_LENGTH, "author");
+            String contentHash = ContentHash.of(question.getText(), question.getAuthor());
+            synchronized (writeLock) {
+                if (questionHashes.contains(contentHash)) {
+                    return false;
+                }
+                int id = nextQuestionId;
+                append(new Record(QUESTION).putInt(id).putString(question.getText()).putString(question.getAuthor()).putString(contentHash));
+                applyQuestion(id, question.getText(), question.getAuthor(), contentHash);
+                question.setId(id);
+                return true;
+            }
+        }
+
+        @Override
+        public Question findById(int id) {
+            QuestionRow row = questionRows.get(id);
+            return row == null ? null : toQuestion(row);
+        }
+
+        @Override
+        public List<Question> findAll() {
+            List<Question> list = new ArrayList<>();
+            for (QuestionRow row : questionRows.values()) {
+                list.add(toQuestion(row));
+            }
+            return list;
+        }
+
+        @Override
+        public List<Question> findPage(int afterId, int limit) {
+            List<Question> list = new ArrayList<>();
+            for (QuestionRow row : questionRows.tailMap(afterId, false).values()) {
+                if (list.size() >= limit) {
+                    break;
+                }
+                list.add(toQuestion(row));
+            }
+            return list;
+        }
+
+        @Override
+        public List<Question> findByAuthor(String author) {
+            List<Question> list = new ArrayList<>();
+            for (int id : questionsByAuthor.get(authorNumber(author))) {
+                QuestionRow row = questionRows.get(id);
+                if (row != null) {
+                    list.add(toQuestion(row));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public int count() {
+            return questionCount;
+        }
+
+        @Override
+        public boolean updateText(int id, String text, String author) throws SQLException {
+            checkLength(text, TEXT_LENGTH, "text");
+            synchronized (writeLock) {
+                QuestionRow row = questionRows.get(id);
+                if (row == null || row.author == null || !row.author.equals(author)) {
+                    return false;
+                }
+                String contentHash = ContentHash.of(text, author);
+                if (!contentHash.equals(row.contentHash) && questionHashes.contains(contentHash)) {
+                    return false;
+                }
+                append(new Record(QUESTION_TEXT).putInt(id).putString(text));
+                applyQuestionText(id, text);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean delete(int id) throws SQLException {
+            synchronized (writeLock) {
+                if (!questionRows.containsKey(id)) {
+                    return false;
+                }
+                append(new Record(QUESTION_DELETE).putInt(id));
+                applyQuestionDelete(id);
+                return true;
+            }
+        }
+    }
+
+    private class Answers implements AnswerRepository {
+
+        @Override
+        public boolean insert(Answer answer) throws SQLException {
+            checkLength(answer.getText(), TEXT_LENGTH, "text");
+            checkLength(answer.getAuthor(), NAME_LENGTH, "author");
+            String contentHash = ContentHash.of(answer.getText(), answer.getAuthor(), answer.getQuestionId());
+            synchronized (writeLock) {
+                if (!questionRows.containsKey(answer.getQuestionId())) {
+                    throw missing("question", answer.getQuestionId());
+                }
+                if (answerHashes.contains(contentHash)) {
+                    return false;
+                }
+                int id = nextAnswerId;
+                append(new Record(ANSWER).putInt(id).putInt(answer.getQuestionId()).putString(answer.getText())
+                        .putString(answer.getAuthor()).putString(contentHash));
+                applyAnswer(id, answer.getQuestionId(), answer.getText(), answer.getAuthor(), contentHash);
+                answer.setId(id);
+                return true;
+            }
+        }
+
+        @Override
+        public Answer findById(int id) {
+            AnswerRow row = answerRows.get(id);
+            return row == null ? null : toAnswer(row);
+        }
+
+        @Override
+        public List<Answer> findByQuestion(int questionId) {
+            return answerList(answersByQuestion.get(questionId), 0, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public List<Answer> findPage(int questionId, int afterId, int limit) {
+            return answerList(answersByQuestion.get(questionId), afterId, limit);
+        }
+
+        @Override
+        public int countByQuestion(int questionId) {
+            return answersByQuestion.get(questionId).length;
+        }
+
+        @Override
+        public List<Answer> findByAuthor(String author) {
+            return answerList(answersByAuthor.get(authorNumber(author)), 0, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public boolean updateText(int id, String text, String author) throws SQLException {
+            checkLength(text, TEXT_LENGTH, "text");
+            synchronized (writeLock) {
+                AnswerRow row = answerRows.get(id);
+                if (row == null || row.author == null || !row.author.equals(author)) {
+                    return false;
+                }
+                String contentHash = ContentHash.of(text, author, row.questionId);
+                if (!contentHash.equals(row.contentHash) && answerHashes.contains(contentHash)) {
+                    return false;
+                }
+                append(new Record(ANSWER_TEXT).putInt(id).putString(text));
+                applyAnswerText(id, text);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean delete(int id) throws SQLException {
+            synchronized (writeLock) {
+                if (!answerRows.containsKey(id)) {
+                    return false;
+                }
+                append(new Record(ANSWER_DELETE).putInt(id));
+                applyAnswerDelete(id);
+                return true;
+            }
+        }
+
+        // The answers among ids, which are ascending, with IDs above afterId.
+        private List<Answer> answerList(int[] ids, int afterId, int limit) {
+            List<Answer> list = new ArrayList<>();
+            for (int i = firstAbove(ids, afterId); i < ids.length && list.size() < limit; i++) {
+                AnswerRow row = answerRows.get(ids[i]);
+                if (row != null) {
+                    list.add(toAnswer(row));
+                }
+            }
+            return list;
+        }
+    }
+
+    private class SubsetQuestions implements SubsetQuestionRepository {
+
+        @Override
+        public void insert(int questionId, Question subsetQuestion) throws SQLException {
+            checkLength(subsetQuestion.getText(), TEXT_LENGTH, "text");
+            checkLength(subsetQuestion.getAuthor(), NAME_LENGTH, "author");
+            synchronized (writeLock) {
+                if (!questionRows.containsKey(questionId)) {
+                    throw missing("question", questionId);
+                }
+                int id = nextSubsetQuestionId;
+                append(new Record(SUBSET_QUESTION).putInt(id).putInt(questionId).putString(subsetQuestion.getText())
+                        .putString(subsetQuestion.getAuthor()));
+                applySubsetQuestion(id, questionId, subsetQuestion.getText(), subsetQuestion.getAuthor());
+                subsetQuestion.setId(id);
+            }
+        }
+
+        @Override
+        public List<Question> findByQuestion(int questionId) {
+            List<Question> list = new ArrayList<>();
+            for (int id : subsetQuestionsByQuestion.get(questionId)) {
+                SubsetQuestionRow row = subsetQuestionRows.get(id);
+                if (row != null) {
+                    list.add(new Question(row.id, row.text, row.author));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public boolean updateText(int id, String text, String author) throws SQLException {
+            checkLength(text, TEXT_LENGTH, "text");
+            synchronized (writeLock) {
+                SubsetQuestionRow row = subsetQuestionRows.get(id);
+                if (row == null || row.author == null || !row.author.equals(author)) {
+                    return false;
+                }
+                append(new Record(SUBSET_QUESTION_TEXT).putInt(id).putString(text));
+                applySubsetQuestionText(id, text);
+                return true;
+            }
+        }
+    }
+
+    private class SubsetAnswers implements SubsetAnswerRepository {
+
+        @Override
+        public boolean insert(Answer answer) throws SQLException {
+            checkNotNull(answer.getText(), "text");
+            checkNotNull(answer.getAuthor(), "author");
+            checkLength(answer.getText(), SUBSET_ANSWER_LENGTH, "text");
+            checkLength(answer.getAuthor(), NAME_LENGTH, "author");
+            String contentHash = ContentHash.of(answer.getText(), answer.getAuthor(), answer.getQuestionId());
+            synchronized (writeLock) {
+                if (!subsetQuestionRows.containsKey(answer.getQuestionId())) {
+                    throw missing("subset question", answer.getQuestionId());
+                }
+                if (subsetAnswerHashes.contains(contentHash)) {
+                    return false;
+                }
+                int id = nextSubsetAnswerId;
+                append(new Record(SUBSET_ANSWER).putInt(id).putInt(answer.getQuestionId()).putString(answer.getText())
+                        .putString(answer.getAuthor()).putString(contentHash));
+                applySubsetAnswer(id, answer.getQuestionId(), answer.getText(), answer.getAuthor(), contentHash);
+                answer.setId(id);
+                return true;
+            }
+        }
+
+        @Override
+        public List<Answer> findBySubsetQuestion(int subsetQuestionId) {
+            List<Answer> list = new ArrayList<>();
+            for (int id : subsetAnswersBySubsetQuestion.get(subsetQuestionId)) {
+                SubsetAnswerRow row = subsetAnswerRows.get(id);
+                if (row != null) {
+                    list.add(new Answer(row.id, row.text, row.author, row.subsetQuestionId));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public boolean updateText(int id, String text, String author) throws SQLException {
+            checkNotNull(text, "text");
+            checkLength(text, SUBSET_ANSWER_LENGTH, "text");
+            synchronized (writeLock) {
+                SubsetAnswerRow row = subsetAnswerRows.get(id);
+                if (row == null || !row.author.equals(author)) {
+                    return false;
+                }
+                String contentHash = ContentHash.of(text, author, row.subsetQuestionId);
+                if (!contentHash.equals(row.contentHash) && subsetAnswerHashes.contains(contentHash)) {
+                    return false;
+                }
+                append(new Record(SUBSET_ANSWER_TEXT).putInt(id).putString(text));
+                applySubsetAnswerText(id, text);
+                return true;
+            }
+        }
+    }
+
+    private class Reviews implements ReviewRepository {
+
+        @Override
+        public void insert(Review review) throws SQLException {
+            checkLength(review.getText(), TEXT_LENGTH, "text");
+            checkLength(review.getAuthor(), NAME_LENGTH, "author");
+            synchronized (writeLock) {
+                if (!answerRows.containsKey(review.getQuestionId())) {
+                    throw missing("answer", review.getQuestionId());
+                }
+                int id = nextReviewId;
+                append(new Record(REVIEW).putInt(id).putInt(review.getQuestionId()).putString(review.getText())
+                        .putString(review.getAuthor()));
+                applyReview(id, review.getQuestionId(), review.getText(), review.getAuthor());
+                review.setId(id);
+            }
+        }
+
+        @Override
+        public Review findById(int id) {
+            ReviewRow row = reviewRows.get(id);
+            return row == null ? null : toReview(row);
+        }
+
+        @Override
+        public List<Review> findByAnswer(int answerId) {
+            return reviewList(reviewsByAnswer.get(answerId));
+        }
+
+        @Override
+        public List<Review> findByAuthor(String author) {
+            return reviewList(reviewsByAuthor.get(authorNumber(author)));
+        }
+
+        @Override
+        public boolean updateText(int id, String text, String author) throws SQLException {
+            checkLength(text, TEXT_LENGTH, "text");
+            synchronized (writeLock) {
+                ReviewRow row = reviewRows.get(id);
+                if (row == null || row.author == null || !row.author.equals(author)) {
+                    return false;
+                }
+                append(new Record(REVIEW_TEXT).putInt(id).putString(text));
+                applyReviewText(id, text);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean delete(int id, String deletedBy) throws SQLException {
+            synchronized (writeLock) {
+                if (!reviewRows.containsKey(id)) {
+                    return false;
+                }
+                append(new Record(REVIEW_DELETE).putInt(id));
+                applyReviewDelete(id);
+                return true;
+            }
+        }
+
+        private List<Review> reviewList(int[] ids) {
+            List<Review> list = new ArrayList<>();
+            for (int id : ids) {
+                ReviewRow row = reviewRows.get(id);
+                if (row != null) {
+                    list.add(toReview(row));
+                }
+            }
+            return list;
+        }
+    }
+
+    private class Messages implements MessageRepository {
+
+        @Override
+        public Message insert(Message message) throws SQLException {
+            checkLength(message.getText(), MESSAGE_LENGTH, "text");
+            checkLength(message.getAuthor(), NAME_LENGTH, "fromAuthor");
+            synchronized (writeLock) {
+                UserRow recipient = usersById.get(message.getId());
+                if (recipient == null) {
+                    throw missing("user", message.getId());
+                }
+                UserRow sender = message.getAuthor() == null ? null : usersByName.get(message.getAuthor());
+                int conversationId = 0;
+                if (sender != null) {
+                    Integer existing = conversationsByPair.get(pairKey(sender.id, recipient.id));
+                    conversationId = existing != null ? existing : nextConversationId;
+                }
+                int id = nextMessageId;
+                LocalDateTime sentAt = LocalDateTime.now();
+                append(new Record(MESSAGE).putInt(id).putInt(recipient.id).putInt(sender == null ? 0 : sender.id)
+                        .putString(message.getAuthor()).putString(message.getText()).putInt(conversationId)
+                        .putString(sentAt.toString()).putBoolean(false));
+                applyMessage(id, recipient.id, sender == null ? 0 : sender.id, message.getAuthor(), message.getText(),
+                        conversationId, sentAt, false);
+                message.setMessageId(id);
+                return new Message(id, recipient.id, message.getText(), message.getAuthor(), conversationId, sentAt, false);
+            }
+        }
+
+        @Override
+        public int unreadCount(String userName) {
+            UserRow user = userName == null ? null : usersByName.get(userName);
+            return user == null ? 0 : user.unread;
+        }
+
+        @Override
+        public List<Message> inboxPage(String userName, int beforeId, int limit) {
+            UserRow user = userName == null ? null : usersByName.get(userName);
+            if (user == null) {
+                return new ArrayList<>();
+            }
+            return newestFirst(inbox.get(user.id), beforeId, limit);
+        }
+
+        @Override
+        public List<Conversation> conversations(String userName, int beforeLastMessageId, int limit) {
+            List<Conversation> list = new ArrayList<>();
+            UserRow user = userName == null ? null : usersByName.get(userName);
+            if (user == null) {
+                return list;
+            }
+            int before = beforeLastMessageId > 0 ? beforeLastMessageId : Integer.MAX_VALUE;
+            List<Side> active = new ArrayList<>();
+            for (int conversationId : userConversations.get(user.id)) {
+                Side side = sides.get(sideKey(conversationId, user.id));
+                if (side != null && side.lastMessageId < before) {
+                    active.add(side);
+                }
+            }
+            // Read once, as the writer may move lastMessageId while the list is sorted.
+            int[] lastIds = new int[active.size()];
+            Integer[] order = new Integer[active.size()];
+            for (int i = 0; i < lastIds.length; i++) {
+                lastIds[i] = active.get(i).lastMessageId;
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt((Integer i) -> lastIds[i]).reversed());
+            for (int i = 0; i < order.length && list.size() < limit; i++) {
+                Side side = active.get(order[i]);
+                UserRow other = usersById.get(side.otherUserId);
+                MessageRow last = messageRows.get(lastIds[order[i]]);
+                list.add(new Conversation(side.conversationId, other == null ? null : other.userName, side.unread,
+                        lastIds[order[i]], last == null ? null : last.text, last == null ? null : last.sentAt));
+            }
+            return list;
+        }
+
+        @Override
+        public List<Message> conversationPage(int conversationId, String userName, int beforeId, int limit) {
+            UserRow user = userName == null ? null : usersByName.get(userName);
+            if (user == null || !sides.containsKey(sideKey(conversationId, user.id))) {
+                return new ArrayList<>();
+            }
+            return newestFirst(conversationMessages.get(conversationId), beforeId, limit);
+        }
+
+        @Override
+        public boolean markRead(int messageId, String userName) throws SQLException {
+            synchronized (writeLock) {
+                UserRow user = userName == null ? null : usersByName.get(userName);
+                MessageRow row = messageRows.get(messageId);
+                if (user == null || row == null || row.toUserId != user.id || row.read) {
+                    return false;
+                }
+                append(new Record(MESSAGE_READ).putInt(messageId));
+                applyMessageRead(messageId);
+                return true;
+            }
+        }
+
+        @Override
+        public int markConversationRead(int conversationId, String userName) throws SQLException {
+            synchronized (writeLock) {
+                UserRow user = userName == null ? null : usersByName.get(userName);
+                if (user == null || unreadIn(conversationId, user.id) == 0) {
+                    return 0;
+                }
+                append(new Record(CONVERSATION_READ).putInt(conversationId).putInt(user.id));
+                return applyConversationRead(conversationId, user.id);
+            }
+        }
+
+        @Override
+        public boolean delete(int messageId, String userName) throws SQLException {
+            synchronized (writeLock) {
+                UserRow user = userName == null ? null : usersByName.get(userName);
+                MessageRow row = messageRows.get(messageId);
+                if (user == null || row == null || row.toUserId != user.id) {
+                    return false;
+                }
+                append(new Record(MESSAGE_DELETE).putInt(messageId));
+                applyMessageDelete(messageId);
+                return true;
+            }
+        }
+
+        // The messages among ids, which are ascending, with IDs below beforeId, newest first.
+        private List<Message> newestFirst(int[] ids, int beforeId, int limit) {
+            List<Message> list = new ArrayList<>();
+            int before = beforeId > 0 ? beforeId : Integer.MAX_VALUE;
+            for (int i = firstAbove(ids, before - 1) - 1; i >= 0 && list.size() < limit; i--) {
+                MessageRow row = messageRows.get(ids[i]);
+                if (row != null) {
+                    list.add(new Message(row.id, row.toUserId, row.text, row.fromAuthor, row.conversationId, row.sentAt, row.read));
+                }
+            }
+            return list;
+        }
+    }
+
+    private class Users implements UserRepository {
+
+        @Override
+        public boolean register(User user) throws SQLException {
+            if (user.getUserName() == null) {
+                throw new SQLException("userName must not be null", "23502");
+            }
+            checkLength(user.getUserName(), NAME_LENGTH, "userName");
+            checkLength(user.getPassword(), NAME_LENGTH, "password");
+            checkLength(user.getRole(), ROLE_LENGTH, "role");
+            synchronized (writeLock) {
+                if (usersByName.containsKey(user.getUserName())) {
+                    return false;
+                }
+                int id = nextUserId;
+                append(new Record(USER).putInt(id).putString(user.getUserName()).putString(user.getPassword()).putString(user.getRole()));
+                applyUser(id, user.getUserName(), user.getPassword(), user.getRole());
+                return true;
+            }
+        }
+
+        @Override
+        public boolean exists(String userName) {
+            return userName != null && usersByName.containsKey(userName);
+        }
+
+        @Override
+        public int findId(String userName) {
+            UserRow user = userName == null ? null : usersByName.get(userName);
+            return user == null ? -1 : user.id;
+        }
+
+        @Override
+        public String findRole(String userName) {
+            UserRow user = userName == null ? null : usersByName.get(userName);
+            return user == null ? null : user.role;
+        }
+
+        @Override
+        public boolean login(String userName, String password, String role) {
+            UserRow user = userName == null ? null : usersByName.get(userName);
+            return user != null && password != null && password.equals(user.password) && role != null && role.equals(user.role);
+        }
+
+        @Override
+        public boolean updatePassword(String userName, String password) throws SQLException {
+            checkLength(password, NAME_LENGTH, "password");
+            synchronized (writeLock) {
+                UserRow user = userName == null ? null : usersByName.get(userName);
+                if (user == null) {
+                    return false;
+                }
+                append(new Record(PASSWORD).putInt(user.id).putString(password));
+                user.password = password;
+                return true;
+            }
+        }
+    }
+
+    // Changes to the state. They run under writeLock, after the change is logged or while the log
+    // is replayed, and never fail, so the log and memory agree.
+
+    private void applyQuestion(int id, String text, String author, String contentHash) {
+        questionRows.put(id, new QuestionRow(id, text, author, contentHash));
+        questionHashes.add(contentHash);
+        if (author != null) {
+            questionsByAuthor.add(numberAuthor(author), id);
+        }
+        questionCount++;
+        nextQuestionId = Math.max(nextQuestionId, id + 1);
+    }
+
+    private void applyQuestionText(int id, String text) {
+        QuestionRow row = questionRows.get(id);
+        // The content hash follows the text, like the contentHash column, so the old text is free again.
+        String contentHash = ContentHash.of(text, row.author);
+        questionHashes.remove(row.contentHash);
+        questionHashes.add(contentHash);
+        questionRows.put(id, new QuestionRow(id, text, row.author, contentHash));
+    }
+
+    private void applyQuestionDelete(int id) {
+        for (int answerId : answersByQuestion.removeAll(id)) {
+            applyAnswerDelete(answerId);
+        }
+        for (int subsetQuestionId : subsetQuestionsByQuestion.removeAll(id)) {
+            applySubsetQuestionDelete(subsetQuestionId);
+        }
+        QuestionRow row = questionRows.remove(id);
+        questionHashes.remove(row.contentHash);
+        if (row.author != null) {
+            questionsByAuthor.remove(numberAuthor(row.author), id);
+        }
+        questionCount--;
+    }
+
+    private void applyAnswer(int id, int questionId, String text, String author, String contentHash) {
+        answerRows.put(id, new AnswerRow(id, questionId, text, author, contentHash));
+        answerHashes.add(contentHash);
+        answersByQuestion.add(questionId, id);
+        if (author != null) {
+            answersByAuthor.add(numberAuthor(author), id);
+        }
+        nextAnswerId = Math.max(nextAnswerId, id + 1);
+    }
+
+    private void applyAnswerText(int id, String text) {
+        AnswerRow row = answerRows.get(id);
+        String contentHash = ContentHash.of(text, row.author, row.questionId);
+        answerHashes.remove(row.contentHash);
+        answerHashes.add(contentHash);
+        answerRows.put(id, new AnswerRow(id, row.questionId, text, row.author, contentHash));
+    }
+
+    private void applyAnswerDelete(int id) {
+        for (int reviewId : reviewsByAnswer.removeAll(id)) {
+            applyReviewDelete(reviewId);
+        }
+        AnswerRow row = answerRows.remove(id);
+        if (row == null) {
+            return;
+        }
+        answerHashes.remove(row.contentHash);
+        answersByQuestion.remove(row.questionId, id);
+        if (row.author != null) {
+            answersByAuthor.remove(numberAuthor(row.author), id);
+        }
+    }
+
+    private void applySubsetQuestion(int id, int questionId, String text, String author) {
+        subsetQuestionRows.put(id, new SubsetQuestionRow(id, questionId, text, author));
+        subsetQuestionsByQuestion.add(questionId, id);
+        nextSubsetQuestionId = Math.max(nextSubsetQuestionId, id + 1);
+    }
+
+    private void applySubsetQuestionText(int id, String text) {
+        SubsetQuestionRow row = subsetQuestionRows.get(id);
+        subsetQuestionRows.put(id, new SubsetQuestionRow(id, row.questionId, text, row.author));
+    }
+
+    // Only the cascade from a main question deletes subset questions, and it clears the index itself.
+    private void applySubsetQuestionDelete(int id) {
+        for (int answerId : subsetAnswersBySubsetQuestion.removeAll(id)) {
+            SubsetAnswerRow row = subsetAnswerRows.remove(answerId);
+            if (row != null) {
+                subsetAnswerHashes.remove(row.contentHash);
+            }
+        }
+        subsetQuestionRows.remove(id);
+    }
+
+    private void applySubsetAnswer(int id, int subsetQuestionId, String text, String author, String contentHash) {
+        subsetAnswerRows.put(id, new SubsetAnswerRow(id, subsetQuestionId, text, author, contentHash));
+        subsetAnswerHashes.add(contentHash);
+        subsetAnswersBySubsetQuestion.add(subsetQuestionId, id);
+        nextSubsetAnswerId = Math.max(nextSubsetAnswerId, id + 1);
+    }
+
+    private void applySubsetAnswerText(int id, String text) {
+        SubsetAnswerRow row = subsetAnswerRows.get(id);
+        String contentHash = ContentHash.of(text, row.author, row.subsetQuestionId);
+        subsetAnswerHashes.remove(row.contentHash);
+        subsetAnswerHashes.add(contentHash);
+        subsetAnswerRows.put(id, new SubsetAnswerRow(id, row.subsetQuestionId, text, row.author, contentHash));
+    }
+
+    private void applyReview(int id, int answerId, String text, String author) {
+        reviewRows.put(id, new ReviewRow(id, answerId, text, author));
+        reviewsByAnswer.add(answerId, id);
+        if (author != null) {
+            reviewsByAuthor.add(numberAuthor(author), id);
+        }
+        nextReviewId = Math.max(nextReviewId, id + 1);
+    }
+
+    private void applyReviewText(int id, String text) {
+        ReviewRow row = reviewRows.get(id);
+        reviewRows.put(id, new ReviewRow(id, row.answerId, text, row.author));
+    }
+
+    private void applyReviewDelete(int id) {
+        ReviewRow row = reviewRows.remove(id);
+        if (row == null) {
+            return;
+        }
+        reviewsByAnswer.remove(row.answerId, id);
+        if (row.author != null) {
+            reviewsByAuthor.remove(numberAuthor(row.author), id);
+        }
+    }
+
+    private void applyUser(int id, String userName, String password, String role) {
+        UserRow user = new UserRow(id, userName, password, role);
+        usersById.put(id, user);
+        usersByName.put(userName, user);
+        nextUserId = Math.max(nextUserId, id + 1);
+    }
+
+    private void applyConversation(int id, int userA, int userB, int lastMessageId) {
+        int low = Math.min(userA, userB);
+        int high = Math.max(userA, userB);
+        Side lowSide = new Side(id, low, high);
+        lowSide.lastMessageId = lastMessageId;
+        sides.put(sideKey(id, low), lowSide);
+        userConversations.add(low, id);
+        if (low != high) {
+            Side highSide = new Side(id, high, low);
+            highSide.lastMessageId = lastMessageId;
+            sides.put(sideKey(id, high), highSide);
+            userConversations.add(high, id);
+        }
+        conversationsByPair.put(pairKey(low, high), id);
+        nextConversationId = Math.max(nextConversationId, id + 1);
+    }
+
+    private void applyMessage(int id, int toUserId, int senderId, String fromAuthor, String text, int conversationId,
+            LocalDateTime sentAt, boolean read) {
+        if (conversationId > 0 && !sides.containsKey(sideKey(conversationId, toUserId))) {
+            applyConversation(conversationId, senderId, toUserId, 0);
+        }
+        messageRows.put(id, new MessageRow(id, toUserId, fromAuthor, text, conversationId, sentAt, read));
+        inbox.add(toUserId, id);
+        if (conversationId > 0) {
+            conversationMessages.add(conversationId, id);
+            for (Side side : conversationSides(conversationId, toUserId, senderId)) {
+                side.lastMessageId = Math.max(side.lastMessageId, id);
+                if (!read && side.userId == toUserId) {
+                    side.unread++;
+                }
+            }
+        }
+        if (!read) {
+            usersById.get(toUserId).unread++;
+        }
+        nextMessageId = Math.max(nextMessageId, id + 1);
+    }
+
+    private void applyMessageRead(int id) {
+        MessageRow row = messageRows.get(id);
+        messageRows.put(id, new MessageRow(row.id, row.toUserId, row.fromAuthor, row.text, row.conversationId, row.sentAt, true));
+        lowerUnread(row.toUserId, row.conversationId, 1);
+    }
+
+    private int applyConversationRead(int conversationId, int userId) {
+        int marked = 0;
+        for (int id : conversationMessages.get(conversationId)) {
+            MessageRow row = messageRows.get(id);
+            if (row != null && row.toUserId == userId && !row.read) {
+                messageRows.put(id, new MessageRow(row.id, row.toUserId, row.fromAuthor, row.text, row.conversationId, row.sentAt, true));
+                marked++;
+            }
+        }
+        if (marked > 0) {
+            lowerUnread(userId, conversationId, marked);
+        }
+        return marked;
+    }
+
+    // The conversation keeps its lastMessageId, so it keeps its place in the inbox.
+    private void applyMessageDelete(int id) {
+        MessageRow row = messageRows.remove(id);
+        inbox.remove(row.toUserId, id);
+        if (row.conversationId > 0) {
+            conversationMessages.remove(row.conversationId, id);
+        }
+        if (!row.read) {
+            lowerUnread(row.toUserId, row.conversationId, 1);
+        }
+    }
+
+    private void lowerUnread(int userId, int conversationId, int count) {
+        UserRow user = usersById.get(userId);
+        user.unread = Math.max(user.unread - count, 0);
+        if (conversationId > 0) {
+            Side side = sides.get(sideKey(conversationId, userId));
+            if (side != null) {
+                side.unread = Math.max(side.unread - count, 0);
+            }
+        }
+    }
+
+    private List<Side> conversationSides(int conversationId, int userA, int userB) {
+        List<Side> list = new ArrayList<>(2);
+        Side a = sides.get(sideKey(conversationId, userA));
+        if (a != null) {
+            list.add(a);
+        }
+        Side b = userA == userB ? null : sides.get(sideKey(conversationId, userB));
+        if (b != null) {
+            list.add(b);
+        }
+        return list;
+    }
+
+    private int unreadIn(int conversationId, int userId) {
+        int unread = 0;
+        for (int id : conversationMessages.get(conversationId)) {
+            MessageRow row = messageRows.get(id);
+            if (row != null && row.toUserId == userId && !row.read) {
+                unread++;
+            }
+        }
+        return unread;
+    }
+
+    // Reads one record of the log and applies it.
+    private void apply(ByteBuffer payload) throws IOException {
+        byte type = payload.get();
+        switch (type) {
+            case NEXT_IDS:
+                nextQuestionId = payload.getInt();
+                nextAnswerId = payload.getInt();
+                nextReviewId = payload.getInt();
+                nextUserId = payload.getInt();
+                nextMessageId = payload.getInt();
+                nextConversationId = payload.getInt();
+                break;
+            case USER:
+                applyUser(payload.getInt(), getString(payload), getString(payload), getString(payload));
+                break;
+            case PASSWORD:
+                usersById.get(payload.getInt()).password = getString(payload);
+                break;
+            case QUESTION:
+                applyQuestion(payload.getInt(), getString(payload), getString(payload), getString(payload));
+                break;
+            case QUESTION_TEXT:
+                applyQuestionText(payload.getInt(), getString(payload));
+                break;
+            case QUESTION_DELETE:
+                applyQuestionDelete(payload.getInt());
+                break;
+            case ANSWER:
+                applyAnswer(payload.getInt(), payload.getInt(), getString(payload), getString(payload), getString(payload));
+                break;
+            case ANSWER_TEXT:
+                applyAnswerText(payload.getInt(), getString(payload));
+                break;
+            case ANSWER_DELETE:
+                applyAnswerDelete(payload.getInt());
+                break;
+            case REVIEW:
+                applyReview(payload.getInt(), payload.getInt(), getString(payload), getString(payload));
+                break;
+            case REVIEW_TEXT:
+                applyReviewText(payload.getInt(), getString(payload));
+                break;
+            case REVIEW_DELETE:
+                applyReviewDelete(payload.getInt());
+                break;
+            case CONVERSATION:
+                applyConversation(payload.getInt(), payload.getInt(), payload.getInt(), payload.getInt());
+                break;
+            case MESSAGE:
+                applyMessage(payload.getInt(), payload.getInt(), payload.getInt(), getString(payload), getString(payload),
+                        payload.getInt(), LocalDateTime.parse(getString(payload)), payload.get() != 0);
+                break;
+            case MESSAGE_READ:
+                applyMessageRead(payload.getInt());
+                break;
+            case CONVERSATION_READ:
+                applyConversationRead(payload.getInt(), payload.getInt());
+                break;
+            case MESSAGE_DELETE:
+                applyMessageDelete(payload.getInt());
+                break;
+            case SUBSET_QUESTION:
+                applySubsetQuestion(payload.getInt(), payload.getInt(), getString(payload), getString(payload));
+                break;
+            case SUBSET_QUESTION_TEXT:
+                applySubsetQuestionText(payload.getInt(), getString(payload));
+                break;
+            case SUBSET_ANSWER:
+                applySubsetAnswer(payload.getInt(), payload.getInt(), getString(payload), getString(payload), getString(payload));
+                break;
+            case SUBSET_ANSWER_TEXT:
+                applySubsetAnswerText(payload.getInt(), getString(payload));
+                break;
+            case NEXT_SUBSET_IDS:
+                nextSubsetQuestionId = payload.getInt();
+                nextSubsetAnswerId = payload.getInt();
+                break;
+            default:
+                throw new IOException("Unknown write-ahead log record type " + type);
+        }
+    }
+
+    // Writes the current state as records that rebuild it. The ID counters go first, so IDs of
+    // deleted rows are not given out again.
+    private void writeSnapshot(WriteAheadLog target) throws IOException {
+        target.append(new Record(NEXT_IDS).putInt(nextQuestionId).putInt(nextAnswerId).putInt(nextReviewId)
+                .putInt(nextUserId).putInt(nextMessageId).putInt(nextConversationId).toBytes());
+        target.append(new Record(NEXT_SUBSET_IDS).putInt(nextSubsetQuestionId).putInt(nextSubsetAnswerId).toBytes());
+        for (UserRow user : sorted(usersById)) {
+            target.append(new Record(USER).putInt(user.id).putString(user.userName).putString(user.password).putString(user.role).toBytes());
+        }
+        for (Side side : sides.values()) {
+            if (side.userId <= side.otherUserId) {
+                target.append(new Record(CONVERSATION).putInt(side.conversationId).putInt(side.userId)
+                        .putInt(side.otherUserId).putInt(side.lastMessageId).toBytes());
+            }
+        }
+        for (QuestionRow row : questionRows.values()) {
+            target.append(new Record(QUESTION).putInt(row.id).putString(row.text).putString(row.author).putString(row.contentHash).toBytes());
+        }
+        for (AnswerRow row : sorted(answerRows)) {
+            target.append(new Record(ANSWER).putInt(row.id).putInt(row.questionId).putString(row.text)
+                    .putString(row.author).putString(row.contentHash).toBytes());
+        }
+        for (SubsetQuestionRow row : sorted(subsetQuestionRows)) {
+            target.append(new Record(SUBSET_QUESTION).putInt(row.id).putInt(row.questionId).putString(row.text)
+                    .putString(row.author).toBytes());
+        }
+        for (SubsetAnswerRow row : sorted(subsetAnswerRows)) {
+            target.append(new Record(SUBSET_ANSWER).putInt(row.id).putInt(row.subsetQuestionId).putString(row.text)
+                    .putString(row.author).putString(row.contentHash).toBytes());
+        }
+        for (ReviewRow row : sorted(reviewRows)) {
+            target.append(new Record(REVIEW).putInt(row.id).putInt(row.answerId).putString(row.text).putString(row.author).toBytes());
+        }
+        for (MessageRow row : sorted(messageRows)) {
+            UserRow sender = row.fromAuthor == null ? null : usersByName.get(row.fromAuthor);
+            target.append(new Record(MESSAGE).putInt(row.id).putInt(row.toUserId).putInt(sender == null ? 0 : sender.id)
+                    .putString(row.fromAuthor).putString(row.text).putInt(row.conversationId)
+                    .putString(row.sentAt.toString()).putBoolean(row.read).toBytes());
+        }
+    }
+
+    private void append(Record record) throws SQLException {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.append(record.toBytes());
+        } catch (IOException e) {
+            throw new SQLException("Could not write the write-ahead log", e);
+        }
+    }
+
+    // The author's number, or -1, which no author has, if the name was never written.
+    private int authorNumber(String author) {
+        Integer number = author == null ? null : authorNumbers.get(author);
+        return number == null ? -1 : number;
+    }
+
+    // Writers only.
+    private int numberAuthor(String author) {
+        Integer number = authorNumbers.get(author);
+        if (number == null) {
+            number = authorNumbers.size();
+            authorNumbers.put(author, number);
+        }
+        return number;
+    }
+
+    private static <T> List<T> sorted(ConcurrentHashMap<Integer, T> rows) {
+        List<Integer> ids = new ArrayList<>(rows.keySet());
+        ids.sort(null);
+        List<T> list = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            list.add(rows.get(id));
+        }
+        return list;
+    }
+
+    // The index of the first of the ascending ids that is above id.
+    private static int firstAbove(int[] ids, int id) {
+        int at = Arrays.binarySearch(ids, id);
+        return at >= 0 ? at + 1 : -at - 1;
+    }
+
+    private static long pairKey(int userA, int userB) {
+        return ((long) Math.min(userA, userB) << 32) | (Math.max(userA, userB) & 0xffffffffL);
+    }
+
+    private static long sideKey(int conversationId, int userId) {
+        return ((long) conversationId << 32) | (userId & 0xffffffffL);
+    }
+
+    private static Question toQuestion(QuestionRow row) {
+        return new Question(row.id, row.text, row.author);
+    }
+
+    private static Answer toAnswer(AnswerRow row) {
+        return new Answer(row.id, row.text, row.author, row.questionId);
+    }
+
+    private static Review toReview(ReviewRow row) {
+        return new Review(row.id, row.text, row.author, row.answerId);
+    }
+
+    // The same SQL states as H2 for a value too long for its column and a missing parent row.
+    private static void checkLength(String value, int length, String column) throws SQLException {
+        if (value != null && value.length() > length) {
+            throw new SQLException("Value too long for column " + column + " (" + value.length() + " > " + length + ")", "22001");
+        }
+    }
+
+    private static void checkNotNull(String value, String column) throws SQLException {
+        if (value == null) {
+            throw new SQLException(column + " must not be null", "23502");
+        }
+    }
+
+    private static SQLException missing(String table, int id) {
+        return new SQLException("Referential integrity violation: no " + table + " with id " + id, "23506");
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // One record of the log being built.
+    private static final class Record {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        Record(byte type) {
+            bytes.write(type);
+        }
+
+        Record putInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Record putBoolean(boolean value) {
+            bytes.write(value ? 1 : 0);
+            return this;
+        }
+
+        // The UTF-8 length, or -1 for null, then the bytes.
+        Record putString(String value) {
+            if (value == null) {
+                return putInt(-1);
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putInt(utf8.length);
+            bytes.write(utf8, 0, utf8.length);
+            return this;
+        }
+
+        byte[] toBytes() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package application;
 
+import java.time.LocalDateTime;
+
 public class Message{
 	private int toUserId;
 	private String text;
 	private String fromAuthor;
+	private int messageId;
+	private int conversationId;
+	private LocalDateTime sentAt;
+	private boolean read;
 	
 	public Message(int id, String text, String author) {
 		this.toUserId = id;
@@ -11,6 +17,15 @@ public class Message{
 		this.fromAuthor = author;
 	}
 	
+	// Creates a message read back from the database.
+	public Message(int messageId, int toUserId, String text, String author, int conversationId, LocalDateTime sentAt, boolean read) {
+		this(toUserId, text, author);
+		this.messageId = messageId;
+		this.conversationId = conversationId;
+		this.sentAt = sentAt;
+		this.read = read;
+	}
+	
 	public String getAuthor() {
 		return fromAuthor;
 	}
@@ -31,6 +46,26 @@ public class Message{
 	public void setId(int id) {
 		this.toUserId = id;
 	}
+	// The message's own row id, 0 until it has been sent.
+	public int getMessageId() {
+		return messageId;
+	}
+	public void setMessageId(int messageId) {
+		this.messageId = messageId;
+	}
+	// The conversation between the sender and the recipient, 0 if the sender is not a known user.
+	public int getConversationId() {
+		return conversationId;
+	}
+	public LocalDateTime getSentAt() {
+		return sentAt;
+	}
+	public boolean isRead() {
+		return read;
+	}
+	public void setRead(boolean read) {
+		this.read = read;
+	}
 	
 	
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package application;
+
+/**
+ * The MessageGroup class is a named list of users that staff can message together, such as a
+ * class section.
+ */
+public class MessageGroup {
+    private final int id;
+    private final String name;
+    private final String owner;
+    private final int memberCount;
+
+    /**
+     * Constructor to initialize the MessageGroup.
+     * @param id the group ID
+     * @param name the unique group name
+     * @param owner the staff member who created the group
+     * @param memberCount the number of members
+     */
+    public MessageGroup(int id, String name, String owner, int memberCount) {
+        this.id = id;
+        this.name = name;
+        this.owner = owner;
+        this.memberCount = memberCount;
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getOwner() { return owner; }
+    public int getMemberCount() { return memberCount; }
+
+    @Override
+    public String toString() {
+        return name + " (" + memberCount + " members)";
+    }
+}
@@ -1,74 +1,117 @@
 package application;
 
 import databasePart1.DatabaseHelper;
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+// Messages are grouped into conversations, one per pair of users, with unread counts kept per user
+// and per conversation side; the storage is in JdbcMessageRepository. Lists are paged newest first
+// by message id, so a page costs the same however large the inbox is.
 public class MessageManager {
+    // Bounds the id cursor of the first page.
+    private static final int NEWEST = Integer.MAX_VALUE;
+
     private final DatabaseHelper databaseHelper;
-    
+    private final MessageRepository messages;
+
     public MessageManager(DatabaseHelper databaseHelper) {
         this.databaseHelper = databaseHelper;
+        this.messages = databaseHelper.getRepositories().messages();
+    }
+
+    // Sends a new message. message.getId() is the recipient's user id and message.getAuthor() the
+    // sender's username. Files the message under the conversation of the two users, creating it on
+    // their first message, and raises the recipient's unread counters. Sets the message id on success.
+    public boolean sendMessage(Message message) {
+        try {
+            Message sent = messages.insert(message);
+            databaseHelper.getEventBus().publish(new Events.MessageSent(sent));
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    // Returns the number of unread messages in the user's inbox, a single row read.
+    public int getUnreadCount(String userName) {
+        try {
+            return messages.unreadCount(userName);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // Retrieves one page of the messages sent to the user, newest first.
+    // beforeId is the id of the last message of the previous page, or 0 for the first page.
+    public List<Message> getInboxPage(String userName, int beforeId, int limit) {
+        try {
+            return messages.inboxPage(userName, beforeId, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
     }
-    
-    // Sends a new message by inserting it into the messages table.
-    // Assumes the messages table has columns: id (AUTO_INCREMENT), fromAuthor (VARCHAR),
-    // toUser (INT), and text (VARCHAR).
-    public void sendMessage(Message message) {
-        String insertQuery = "INSERT INTO messages (fromAuthor, toUser, text) VALUES (?, ?, ?)";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, message.getAuthor()); // sender
-            pstmt.setInt(2, message.getId()); // recipient's user id (stored in Message as 'toUserId')
-            pstmt.setString(3, message.getText());
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        // Optionally, update the message object with the DB message id if needed.
-                    }
-                }
-            }
+
+    // Retrieves one page of the user's conversations, the most recently active first.
+    // beforeLastMessageId is getLastMessageId() of the last conversation of the previous page, or 0.
+    public List<Conversation> getConversations(String userName, int beforeLastMessageId, int limit) {
+        try {
+            return messages.conversations(userName, beforeLastMessageId, limit);
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return new ArrayList<>();
     }
-    
-    // Retrieves all messages for a given recipient username.
-    // The recipient's user id is determined using DatabaseHelper.getUserId().
+
+    // Retrieves one page of a conversation the user takes part in, newest first.
+    public List<Message> getConversationPage(int conversationId, String userName, int beforeId, int limit) {
+        try {
+            return messages.conversationPage(conversationId, userName, beforeId, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    // Retrieves every message sent to the user, newest first. Prefer getInboxPage for display.
     public List<Message> getMessagesForUser(String userName) {
-        List<Message> messages = new ArrayList<>();
-        int userId = databaseHelper.getUserId(userName);
-        String query = "SELECT id, fromAuthor, text FROM messages WHERE toUser = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, userId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Message msg = new Message(
-                        rs.getInt("id"), 
-                        rs.getString("text"), 
-                        rs.getString("fromAuthor")
-                    );
-                    messages.add(msg);
-                }
-            }
+        return getInboxPage(userName, 0, NEWEST);
+    }
+
+    // Runs getMessagesForUser off the JavaFX Application Thread.
+    public CompletableFuture<List<Message>> getMessagesForUserAsync(String userName) {
+        return databaseHelper.getAsyncDataAccess().supply(() -> getMessagesForUser(userName));
+    }
+
+    // Marks one message to the user as read. Returns false if it was already read or is not theirs.
+    public boolean markRead(int messageId, String userName) {
+        try {
+            return messages.markRead(messageId, userName);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return messages;
+        return false;
     }
-    
-    // Deletes a message by message id if the given user is the recipient.
+
+    // Marks every message the user has received in a conversation as read. Returns how many were unread.
+    public int markConversationRead(int conversationId, String userName) {
+        try {
+            return messages.markConversationRead(conversationId, userName);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // Deletes a message by message id if the given user is the recipient. The conversation keeps
+    // its place in the inbox; deleting an unread message lowers the unread counters.
     public boolean deleteMessage(int messageId, String userName) {
-        int userId = databaseHelper.getUserId(userName);
-        String query = "DELETE FROM messages WHERE id = ? AND toUser = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, messageId);
-            pstmt.setInt(2, userId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return messages.delete(messageId, userName);
         } catch (SQLException e) {
             e.printStackTrace();
         }
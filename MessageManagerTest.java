@@ -0,0 +1,151 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * MessageManagerTest
+ *
+ * This class contains automated JUnit tests to verify that sending, reading and deleting messages
+ * keep the unread counters, the inbox pages and the conversations in step with the messages.
+ */
+public class MessageManagerTest {
+
+    private static DatabaseHelper dbHelper;
+
+    /**
+     * Setup method to establish the database connection to a fresh in-memory database.
+     */
+    @BeforeClass
+    public static void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+    }
+
+    /**
+     * Cleanup method to close the database connection after all tests.
+     */
+    @AfterClass
+    public static void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that sending, reading and deleting messages keep the unread counters and the
+     * conversation in step with the messages.
+     */
+    @Test
+    public void testMessageCountersFollowWrites() throws SQLException {
+        String sender = "msgSender" + System.nanoTime() % 100000;
+        String recipient = "msgRecipient" + System.nanoTime() % 100000;
+        dbHelper.register(new User(sender, "Passw0rd!", "user"));
+        dbHelper.register(new User(recipient, "Passw0rd!", "user"));
+        try {
+            MessageManager messageManager = new MessageManager(dbHelper);
+            for (int i = 0; i < 3; i++) {
+                Message message = new Message(dbHelper.getUserId(recipient), "Hello " + i, sender);
+                assertTrue("Message should be sent", messageManager.sendMessage(message));
+            }
+            assertEquals("Recipient should have 3 unread", 3, messageManager.getUnreadCount(recipient));
+            assertEquals("Sender should have none unread", 0, messageManager.getUnreadCount(sender));
+
+            List<Message> page = messageManager.getInboxPage(recipient, 0, 2);
+            assertEquals("First page should hold 2 messages", 2, page.size());
+            assertEquals("Newest message should come first", "Hello 2", page.get(0).getText());
+            List<Message> rest = messageManager.getInboxPage(recipient, page.get(1).getMessageId(), 2);
+            assertEquals("Second page should hold the oldest message", "Hello 0", rest.get(0).getText());
+
+            assertTrue("Unread message should be marked read", messageManager.markRead(page.get(0).getMessageId(), recipient));
+            assertFalse("A message is marked read once", messageManager.markRead(page.get(0).getMessageId(), recipient));
+            assertTrue("Unread message should be deleted", messageManager.deleteMessage(rest.get(0).getMessageId(), recipient));
+            assertEquals("Recipient should have 1 unread", 1, messageManager.getUnreadCount(recipient));
+
+            List<Conversation> conversations = messageManager.getConversations(recipient, 0, 10);
+            assertEquals("Both users should share one conversation", 1, conversations.size());
+            assertEquals(sender, conversations.get(0).getOtherUserName());
+            assertEquals("Conversation should count 1 unread", 1, conversations.get(0).getUnread());
+            assertEquals("Reading the conversation should clear it", 1,
+                    messageManager.markConversationRead(conversations.get(0).getId(), recipient));
+            assertEquals("Recipient should have none unread", 0, messageManager.getUnreadCount(recipient));
+        } finally {
+            try (Connection conn = dbHelper.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM cse360users WHERE userName IN ('" + sender + "', '" + recipient + "')");
+            }
+        }
+    }
+
+    /**
+     * Test 2: Verify that once a conversation is read its counters stay at zero when it is read
+     * again, by either side, or when a read message is deleted, and that only new messages raise
+     * them again, leaving the user's other conversations alone.
+     */
+    @Test
+    public void testUnreadCountersAfterConversationIsRead() throws SQLException {
+        String suffix = String.valueOf(System.nanoTime() % 100000);
+        String recipient = "readRecipient" + suffix;
+        String senderA = "readSenderA" + suffix;
+        String senderB = "readSenderB" + suffix;
+        dbHelper.register(new User(recipient, "Passw0rd!", "user"));
+        dbHelper.register(new User(senderA, "Passw0rd!", "user"));
+        dbHelper.register(new User(senderB, "Passw0rd!", "user"));
+        try {
+            MessageManager messageManager = new MessageManager(dbHelper);
+            int recipientId = dbHelper.getUserId(recipient);
+            assertTrue(messageManager.sendMessage(new Message(recipientId, "From A 1", senderA)));
+            assertTrue(messageManager.sendMessage(new Message(recipientId, "From A 2", senderA)));
+            assertTrue(messageManager.sendMessage(new Message(recipientId, "From B 1", senderB)));
+            assertEquals(3, messageManager.getUnreadCount(recipient));
+
+            Conversation withA = conversationWith(messageManager, recipient, senderA);
+            assertEquals(2, withA.getUnread());
+            assertEquals("Reading the conversation should clear its 2 messages", 2,
+                    messageManager.markConversationRead(withA.getId(), recipient));
+            assertEquals("The other conversation should stay unread", 1, messageManager.getUnreadCount(recipient));
+            assertEquals(0, conversationWith(messageManager, recipient, senderA).getUnread());
+            assertEquals(1, conversationWith(messageManager, recipient, senderB).getUnread());
+
+            assertEquals("Reading it again should clear nothing", 0, messageManager.markConversationRead(withA.getId(), recipient));
+            assertEquals("The sender has received nothing to read", 0, messageManager.markConversationRead(withA.getId(), senderA));
+            List<Message> readMessages = messageManager.getConversationPage(withA.getId(), recipient, 0, 10);
+            assertFalse("A message read with its conversation is not read again",
+                    messageManager.markRead(readMessages.get(0).getMessageId(), recipient));
+            assertTrue(messageManager.deleteMessage(readMessages.get(0).getMessageId(), recipient));
+            assertEquals("Deleting a read message should not lower the counter", 1, messageManager.getUnreadCount(recipient));
+            assertEquals(0, conversationWith(messageManager, recipient, senderA).getUnread());
+
+            assertTrue(messageManager.sendMessage(new Message(dbHelper.getUserId(senderA), "Reply", recipient)));
+            assertEquals("A reply should not count for its sender", 0, conversationWith(messageManager, recipient, senderA).getUnread());
+            assertEquals(1, messageManager.getUnreadCount(senderA));
+            assertTrue(messageManager.sendMessage(new Message(recipientId, "From A 3", senderA)));
+            assertEquals(2, messageManager.getUnreadCount(recipient));
+            assertEquals(1, conversationWith(messageManager, recipient, senderA).getUnread());
+        } finally {
+            try (Connection conn = dbHelper.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM cse360users WHERE userName LIKE 'read%" + suffix + "'");
+            }
+        }
+    }
+
+    private static Conversation conversationWith(MessageManager messageManager, String userName, String otherUserName) {
+        for (Conversation conversation : messageManager.getConversations(userName, 0, 10)) {
+            if (conversation.getOtherUserName().equals(otherUserName)) {
+                return conversation;
+            }
+        }
+        fail("No conversation between " + userName + " and " + otherUserName);
+        return null;
+    }
+}
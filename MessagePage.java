@@ -6,16 +6,20 @@ import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 import databasePart1.DatabaseHelper;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 /**
  * The MessagePage class allows users to view their inbox and reply to messages.
  */
 public class MessagePage {
+    private static final DateTimeFormatter SENT_AT_FORMAT = DateTimeFormatter.ofPattern("MMM d, h:mm a");
+    
     private final DatabaseHelper databaseHelper;
     private final User user;
     private final Stage primaryStage;
     private final MessageManager messageManager;
+    private final GroupMessageManager groupManager;
     
     /**
      * Constructor to initialize the MessagePage.
@@ -28,19 +32,75 @@ public class MessagePage {
         this.user = user;
         this.primaryStage = primaryStage;
         this.messageManager = new MessageManager(databaseHelper);
+        this.groupManager = new GroupMessageManager(databaseHelper);
     }
     
     /**
-     * Displays the message page, showing the user's inbox and a reply interface.
+     * Displays the message page, showing the user's inbox newest first and a reply interface.
+     * Messages are loaded a page at a time, and selecting an unread message marks it read.
+     * Messages sent to the user while the page is shown are added at the top as they arrive.
+     * A second tab shows the posts on the boards of the user's groups.
      */
     public void show() {
         VBox layout = new VBox(10);
         layout.setStyle("-fx-padding: 20; -fx-alignment: center;");
         
         Label titleLabel = new Label("Inbox for " + user.getUserName());
-        ListView<HBox> messageList = new ListView<>();
+        refreshUnreadCount(titleLabel);
+        
+        PagedListView<Message> messageList = new PagedListView<>(
+                (last, limit) -> messageManager.getInboxPage(user.getUserName(), last == null ? 0 : last.getMessageId(), limit),
+                this::buildMessageRow);
+        messageList.setPlaceholder("No messages yet.");
+        messageList.setAsyncDataAccess(databaseHelper.getAsyncDataAccess());
+        messageList.loadNextPage();
+        
+        int userId = databaseHelper.getUserId(user.getUserName());
+        EventBus.Subscription sentSubscription = databaseHelper.getEventBus().subscribe(Events.MessageSent.class, (List<Events.MessageSent> sent) -> {
+            boolean received = false;
+            for (Events.MessageSent event : sent) {
+                if (event.getMessage().getId() == userId) {
+                    messageList.addFirst(event.getMessage());
+                    received = true;
+                }
+            }
+            if (received) {
+                refreshUnreadCount(titleLabel);
+            }
+        });
+        
+        messageList.getListView().getSelectionModel().selectedItemProperty().addListener((obs, oldMessage, selected) -> {
+            if (selected != null && !selected.isRead()) {
+                AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+                async.deliver(async.supply(() -> messageManager.markRead(selected.getMessageId(), user.getUserName())), marked -> {
+                    selected.setRead(true);
+                    messageList.getListView().refresh();
+                    refreshUnreadCount(titleLabel);
+                });
+            }
+        });
+        
+        // Group board posts, marked read when the tab is opened.
+        PagedListView<GroupPost> boardList = new PagedListView<>(
+                (last, limit) -> groupManager.getBoardPage(user.getUserName(), last == null ? 0 : last.getId(), limit),
+                this::buildPostRow);
+        boardList.setPlaceholder("No group posts yet.");
+        boardList.setAsyncDataAccess(databaseHelper.getAsyncDataAccess());
         
-        refreshMessageList(messageList);
+        TabPane tabPane = new TabPane();
+        Tab inboxTab = new Tab("Inbox", messageList.getListView());
+        Tab boardTab = new Tab("Group Board", boardList.getListView());
+        inboxTab.setClosable(false);
+        boardTab.setClosable(false);
+        tabPane.getTabs().addAll(inboxTab, boardTab);
+        refreshUnreadBoardCount(boardTab);
+        tabPane.getSelectionModel().selectedItemProperty().addListener((obs, oldTab, selectedTab) -> {
+            if (selectedTab == boardTab) {
+                boardList.reset();
+                AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+                async.deliver(async.supply(() -> groupManager.markBoardRead(user.getUserName())), marked -> boardTab.setText("Group Board"));
+            }
+        });
         
         // Reply area
         TextField replyField = new TextField();
@@ -51,19 +111,27 @@ public class MessagePage {
         sendButton.setOnAction(e -> {
             String replyText = replyField.getText().trim();
             if (!replyText.isEmpty() && replyText.length() <= 200) {
-                // For simplicity, assume reply is sent to the sender of the selected message.
-                HBox selectedRow = messageList.getSelectionModel().getSelectedItem();
-                if (selectedRow != null) {
-                    Label senderLabel = (Label) selectedRow.getChildren().get(0);
-                    String sender = senderLabel.getText();
+                // The reply goes to the sender of the selected message or group post. Replying
+                // leaves this inbox unchanged, so the list is not reloaded.
+                String sender = null;
+                if (tabPane.getSelectionModel().getSelectedItem() == boardTab) {
+                    GroupPost post = boardList.getListView().getSelectionModel().getSelectedItem();
+                    sender = post == null ? null : post.getAuthor();
+                } else {
+                    Message selected = messageList.getListView().getSelectionModel().getSelectedItem();
+                    sender = selected == null ? null : selected.getAuthor();
+                }
+                if (sender != null) {
                     // Create new message: from current user to sender.
                     int recipientId = databaseHelper.getUserId(sender);
                     Message replyMessage = new Message(0, replyText, user.getUserName());
                     replyMessage.setId(recipientId);
-                    messageManager.sendMessage(replyMessage);
-                    messageLabel.setText("Reply sent to " + sender + "!");
-                    replyField.clear();
-                    refreshMessageList(messageList);
+                    if (recipientId != -1 && messageManager.sendMessage(replyMessage)) {
+                        messageLabel.setText("Reply sent to " + sender + "!");
+                        replyField.clear();
+                    } else {
+                        messageLabel.setText("Could not send the reply to " + sender + ".");
+                    }
                 } else {
                     messageLabel.setText("Please select a message to reply to.");
                 }
@@ -86,26 +154,59 @@ public class MessagePage {
             }
         });
         
-        layout.getChildren().addAll(titleLabel, messageList, replyField, sendButton, messageLabel, backButton);
+        layout.getChildren().addAll(titleLabel, tabPane, replyField, sendButton, messageLabel, backButton);
         Scene scene = new Scene(layout, 800, 400);
         primaryStage.setScene(scene);
         primaryStage.setTitle("Messages");
+        EventBus.cancelWhenSceneChanges(primaryStage, sentSubscription);
+    }
+    
+    /**
+     * Shows the unread counter in the title. The counter is one stored value, not a count of rows.
+     * @param titleLabel the label to update
+     */
+    private void refreshUnreadCount(Label titleLabel) {
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        async.deliverLatest("inboxUnread", async.supply(() -> messageManager.getUnreadCount(user.getUserName())),
+                unread -> titleLabel.setText("Inbox for " + user.getUserName() + (unread > 0 ? " (" + unread + " unread)" : "")));
     }
     
     /**
-     * Refreshes the inbox message list.
-     * @param messageList the ListView to update with current messages
+     * Shows the number of unread group posts on the board tab.
+     * @param boardTab the tab to label
      */
-    private void refreshMessageList(ListView<HBox> messageList) {
-        messageList.getItems().clear();
-        List<Message> messages = messageManager.getMessagesForUser(user.getUserName());
-        for (Message msg : messages) {
-            HBox row = new HBox(10);
-            // Display sender and message text.
-            Label senderLabel = new Label(msg.getAuthor());
-            Label textLabel = new Label(msg.getText());
-            row.getChildren().addAll(senderLabel, textLabel);
-            messageList.getItems().add(row);
+    private void refreshUnreadBoardCount(Tab boardTab) {
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        async.deliverLatest("boardUnread", async.supply(() -> groupManager.getUnreadBoardCount(user.getUserName())),
+                unread -> boardTab.setText("Group Board" + (unread > 0 ? " (" + unread + ")" : "")));
+    }
+    
+    private HBox buildPostRow(GroupPost post) {
+        HBox row = new HBox(10);
+        // Display group, sender, time sent and text; unread posts are shown in bold.
+        Label groupLabel = new Label("[" + post.getGroupName() + "]");
+        Label senderLabel = new Label(post.getAuthor());
+        Label sentLabel = new Label(post.getSentAt() == null ? "" : post.getSentAt().format(SENT_AT_FORMAT));
+        Label textLabel = new Label(post.getText());
+        if (!post.isRead()) {
+            senderLabel.setStyle("-fx-font-weight: bold;");
+            textLabel.setStyle("-fx-font-weight: bold;");
+        }
+        row.getChildren().addAll(groupLabel, senderLabel, sentLabel, textLabel);
+        return row;
+    }
+    
+    private HBox buildMessageRow(Message msg) {
+        HBox row = new HBox(10);
+        // Display sender, time sent and message text; unread messages are shown in bold.
+        Label senderLabel = new Label(msg.getAuthor());
+        Label sentLabel = new Label(msg.getSentAt() == null ? "" : msg.getSentAt().format(SENT_AT_FORMAT));
+        Label textLabel = new Label(msg.getText());
+        if (!msg.isRead()) {
+            senderLabel.setStyle("-fx-font-weight: bold;");
+            textLabel.setStyle("-fx-font-weight: bold;");
         }
+        row.getChildren().addAll(senderLabel, sentLabel, textLabel);
+        return row;
     }
 }
@@ -0,0 +1,61 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage of private messages. Messages are filed into one conversation per pair of users, and
+ * unread counts are kept per recipient and per conversation side. Pages are newest first, with
+ * the ID of the last item of the previous page as the cursor, or 0 for the first page.
+ */
+public interface MessageRepository {
+
+    /**
+     * Stores a message and sets its message ID. message.getId() is the recipient's user ID and
+     * message.getAuthor() the sender's username; a sender who is not a user gets no conversation.
+     * @param message the message to store
+     * @return the stored message, with its conversation and send time
+     * @throws SQLException if the recipient does not exist or the message cannot be stored
+     */
+    Message insert(Message message) throws SQLException;
+
+    /**
+     * @param userName the recipient
+     * @return the number of unread messages sent to the user
+     */
+    int unreadCount(String userName) throws SQLException;
+
+    /**
+     * @return at most limit messages sent to the user with IDs below beforeId
+     */
+    List<Message> inboxPage(String userName, int beforeId, int limit) throws SQLException;
+
+    /**
+     * @return at most limit of the user's conversations whose last message ID is below beforeLastMessageId,
+     *         the most recently active first
+     */
+    List<Conversation> conversations(String userName, int beforeLastMessageId, int limit) throws SQLException;
+
+    /**
+     * @return at most limit messages of the conversation with IDs below beforeId; none if the user is not in it
+     */
+    List<Message> conversationPage(int conversationId, String userName, int beforeId, int limit) throws SQLException;
+
+    /**
+     * Marks one message to the user as read.
+     * @return false if it was already read or was not sent to the user
+     */
+    boolean markRead(int messageId, String userName) throws SQLException;
+
+    /**
+     * Marks every message the user has received in a conversation as read.
+     * @return the number of messages that were unread
+     */
+    int markConversationRead(int conversationId, String userName) throws SQLException;
+
+    /**
+     * Deletes a message sent to the user. The conversation keeps its place in the inbox.
+     * @return false if the message was not sent to the user
+     */
+    boolean delete(int messageId, String userName) throws SQLException;
+}
@@ -0,0 +1,207 @@
+package application;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The PagedListView class is a ListView that holds plain items instead of prebuilt rows and
+ * fetches them a page at a time. Rows are built only for the visible cells, and the next page is
+ * requested when the last loaded item scrolls into view, so memory and refresh time stay flat
+ * however many rows the underlying table has. With an AsyncDataAccess set, pages are fetched off
+ * the JavaFX Application Thread.
+ * @param <T> the item type
+ */
+public class PagedListView<T> {
+    /** Default number of items fetched per page. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * Supplies pages of items in a stable order.
+     * @param <T> the item type
+     */
+    public interface PageSource<T> {
+        /**
+         * @param last the last item already loaded, or null for the first page
+         * @param limit the maximum number of items to return
+         * @return the next items after last, fewer than limit when no more remain
+         */
+        List<T> fetch(T last, int limit);
+    }
+
+    private final ListView<T> listView = new ListView<>();
+    private final PageSource<T> source;
+    private final int pageSize;
+    private AsyncDataAccess async = null;
+    private boolean exhausted = false;
+    private boolean loadScheduled = false;
+    private boolean loading = false;
+    // Incremented by reset() so pages requested before it are dropped when they arrive.
+    private int generation = 0;
+
+    /**
+     * Creates a paged list with the default page size.
+     * @param source the page source
+     * @param rowFactory builds the row shown for an item
+     */
+    public PagedListView(PageSource<T> source, Function<T, Node> rowFactory) {
+        this(source, rowFactory, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a paged list.
+     * @param source the page source
+     * @param rowFactory builds the row shown for an item
+     * @param pageSize the number of items fetched per page
+     */
+    public PagedListView(PageSource<T> source, Function<T, Node> rowFactory, int pageSize) {
+        this.source = source;
+        this.pageSize = pageSize;
+        listView.setCellFactory(lv -> new ListCell<T>() {
+            @Override
+            protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setGraphic(null);
+                    return;
+                }
+                setGraphic(rowFactory.apply(item));
+                if (getIndex() >= listView.getItems().size() - 1) {
+                    scheduleNextPage();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the ListView to place in a layout
+     */
+    public ListView<T> getListView() {
+        return listView;
+    }
+
+    /**
+     * Fetches pages on the given executor instead of the calling thread.
+     * @param async the executor for page queries, or null to fetch synchronously
+     */
+    public void setAsyncDataAccess(AsyncDataAccess async) {
+        this.async = async;
+    }
+
+    /**
+     * Sets the text shown when there are no items.
+     * @param text the placeholder text
+     */
+    public void setPlaceholder(String text) {
+        listView.setPlaceholder(new Label(text));
+    }
+
+    /**
+     * Drops the loaded items and loads the first page again.
+     */
+    public void reset() {
+        listView.getItems().clear();
+        exhausted = false;
+        loading = false;
+        generation++;
+        loadNextPage();
+    }
+
+    /**
+     * Loads the next page, unless every item has already been loaded.
+     */
+    public void loadNextPage() {
+        if (exhausted || loading) {
+            return;
+        }
+        List<T> items = listView.getItems();
+        T last = items.isEmpty() ? null : items.get(items.size() - 1);
+        if (async == null) {
+            append(source.fetch(last, pageSize));
+            return;
+        }
+        loading = true;
+        int requested = generation;
+        async.deliver(async.supply(() -> source.fetch(last, pageSize)), page -> {
+            if (requested == generation) {
+                loading = false;
+                append(page);
+            }
+        }, error -> {
+            if (requested == generation) {
+                loading = false;
+            }
+            error.printStackTrace();
+        });
+    }
+
+    /**
+     * Shows a new item at the top, for lists ordered newest first. Pages after the loaded ones are
+     * not affected, since they are fetched after the last loaded item.
+     * @param item the new item
+     */
+    public void addFirst(T item) {
+        if (loading && listView.getItems().isEmpty()) {
+            // The first page may or may not include the item, so it is fetched again.
+            reset();
+            return;
+        }
+        listView.getItems().add(0, item);
+    }
+
+    /**
+     * Shows a new item at the bottom, for lists ordered oldest first. While more pages remain the
+     * item is left to the page that will contain it.
+     * @param item the new item
+     * @return true if the item was added
+     */
+    public boolean addLast(T item) {
+        if (!exhausted || loading) {
+            return false;
+        }
+        listView.getItems().add(item);
+        return true;
+    }
+
+    /**
+     * Removes the loaded items that match, for example ones deleted elsewhere.
+     * @param filter selects the items to remove
+     * @return true if any item was removed
+     */
+    public boolean removeIf(Predicate<? super T> filter) {
+        return listView.getItems().removeIf(filter);
+    }
+
+    /**
+     * Replaces the loaded items in place, for example ones edited elsewhere.
+     * @param replacement returns the item to show instead, or the same item to keep it
+     */
+    public void replaceAll(UnaryOperator<T> replacement) {
+        listView.getItems().replaceAll(replacement);
+    }
+
+    private void append(List<T> page) {
+        if (page.size() < pageSize) {
+            exhausted = true;
+        }
+        listView.getItems().addAll(page);
+    }
+
+    // Cells are updated during layout, where changing the items is not allowed.
+    private void scheduleNextPage() {
+        if (exhausted || loadScheduled) {
+            return;
+        }
+        loadScheduled = true;
+        Platform.runLater(() -> {
+            loadScheduled = false;
+            loadNextPage();
+        });
+    }
+}
@@ -1,27 +1,36 @@
 package application;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 
 public class PasswordEvaluator {
 	/**
 	 * <p> Title: Directed Graph-translated Password Assessor. </p>
-	 * 
-	 * <p> Description: A demonstration of the mechanical translation of Directed Graph 
-	 * diagram into an executable Java program using the Password Evaluator Directed Graph. 
-	 * The code detailed design is based on a while loop with a cascade of if statements</p>
-	 * 
+	 *
+	 * <p> Description: A demonstration of the mechanical translation of Directed Graph
+	 * diagram into an executable Java program using the Password Evaluator Directed Graph.
+	 * The code detailed design is a single pass over the input that classifies each character
+	 * with a lookup table and records the conditions it satisfies in a bit set.</p>
+	 *
 	 * <p> Copyright: Lynn Robert Carter © 2022 </p>
-	 * 
+	 *
 	 * @author Lynn Robert Carter
-	 * 
-	 * @version 0.00		2018-02-22	Initial baseline 
-	 * 
+	 *
+	 * @version 0.00		2018-02-22	Initial baseline
+	 * @version 1.00		2026-10-18	Reentrant evaluation returning an immutable Evaluation,
+	 * 									and a bulk evaluateAll
+	 *
 	 */
 
 	/**********************************************************************************************
-	 * 
-	 * Result attributes to be used for GUI applications where a detailed error message and a 
+	 *
+	 * Result attributes to be used for GUI applications where a detailed error message and a
 	 * pointer to the character of the error will enhance the user experience.
-	 * 
+	 *
+	 * These are only written by evaluatePassword, for the console test automation; they are
+	 * shared by every caller, so concurrent code should use evaluate and read the Evaluation.
+	 *
 	 */
 
 	public static String passwordErrorMessage = "";		// The error message text
@@ -33,131 +42,146 @@ public class PasswordEvaluator {
 	public static boolean foundSpecialChar = false;
 	public static boolean foundLongEnough = false;
 	public static boolean tooLong = false;
-	private static String inputLine = "";				// The input line
-	private static char currentChar;					// The current character in the line
-	private static int currentCharNdx;					// The index of the current character
-	private static boolean running;						// running
-    													
-	
+
+	// Condition bits, set as the characters that satisfy them are found
+	private static final int UPPER_CASE = 1;
+	private static final int LOWER_CASE = 2;
+	private static final int NUMERIC_DIGIT = 4;
+	private static final int SPECIAL_CHAR = 8;
+	private static final int LONG_ENOUGH = 16;
+	private static final int TOO_LONG = 32;
+	private static final int SATISFIED = UPPER_CASE | LOWER_CASE | NUMERIC_DIGIT | SPECIAL_CHAR | LONG_ENOUGH;
+
+	private static final int MIN_LENGTH = 8;
+	private static final int MAX_LENGTH = 32;
+
+	private static final String EMPTY_MESSAGE = "*** Error *** The password is empty!";
+	private static final String INVALID_CHAR_MESSAGE = "*** Error *** An invalid character has been found!";
+
+	// The condition bit of every ASCII character; 0 marks a character that is not allowed
+	private static final byte[] CHAR_CLASS = new byte[128];
+
+	// The error message for every combination of condition bits, built once
+	private static final String[] CONDITION_MESSAGES = new String[TOO_LONG * 2];
+
+	static {
+		for (char c = 'A'; c <= 'Z'; c++) CHAR_CLASS[c] = UPPER_CASE;
+		for (char c = 'a'; c <= 'z'; c++) CHAR_CLASS[c] = LOWER_CASE;
+		for (char c = '0'; c <= '9'; c++) CHAR_CLASS[c] = NUMERIC_DIGIT;
+		for (char c : "~`!@#$%^&*()_-+{}[]|:,.?/".toCharArray()) CHAR_CLASS[c] = SPECIAL_CHAR;
+
+		for (int found = 0; found < CONDITION_MESSAGES.length; found++) {
+			StringBuilder errMessage = new StringBuilder();
+			if ((found & UPPER_CASE) == 0)
+				errMessage.append("Upper case; ");
+			if ((found & LOWER_CASE) == 0)
+				errMessage.append("Lower case; ");
+			if ((found & NUMERIC_DIGIT) == 0)
+				errMessage.append("Numeric digits; ");
+			if ((found & SPECIAL_CHAR) == 0)
+				errMessage.append("Special character; ");
+			if ((found & LONG_ENOUGH) == 0)
+				errMessage.append("At least 8 characters; ");
+			if ((found & TOO_LONG) != 0)
+				errMessage.append("Password can not exceed 32 characters; ");
+			// An acceptable password gets the "" literal itself, which callers compare against
+			CONDITION_MESSAGES[found] = errMessage.length() == 0 ? ""
+					: errMessage.append("conditions were not satisfied").toString();
+		}
+	}
+
+	/**********
+	 * The immutable outcome of evaluating one password.
+	 */
+	public static final class Evaluation {
+		private final String errorMessage;
+		private final int indexOfError;
+		private final int found;
+
+		private Evaluation(String errorMessage, int indexOfError, int found) {
+			this.errorMessage = errorMessage;
+			this.indexOfError = indexOfError;
+			this.found = found;
+		}
+
+		/** @return true if the password satisfies every condition */
+		public boolean isValid() { return errorMessage.isEmpty(); }
+
+		/** @return "" for an acceptable password, otherwise a description of what is wrong */
+		public String getErrorMessage() { return errorMessage; }
+
+		/** @return the index of the offending character, or where evaluation stopped */
+		public int getIndexOfError() { return indexOfError; }
+
+		public boolean foundUpperCase() { return (found & UPPER_CASE) != 0; }
+		public boolean foundLowerCase() { return (found & LOWER_CASE) != 0; }
+		public boolean foundNumericDigit() { return (found & NUMERIC_DIGIT) != 0; }
+		public boolean foundSpecialChar() { return (found & SPECIAL_CHAR) != 0; }
+		public boolean foundLongEnough() { return (found & LONG_ENOUGH) != 0; }
+		public boolean tooLong() { return (found & TOO_LONG) != 0; }
+	}
+
+	/**********
+	 * Evaluates a password without touching any shared state, so any number of threads may
+	 * call it at once.
+	 *
+	 * @param input		The password to evaluate
+	 * @return			The Evaluation; its error message is empty if every thing is okay
+	 */
+	public static Evaluation evaluate(String input) {
+		int length = input.length();
+		if (length == 0) return new Evaluation(EMPTY_MESSAGE, 0, 0);
+
+		// Only the first 32 characters are examined; a longer password is rejected as too long
+		int limit = Math.min(length, MAX_LENGTH);
+		int found = 0;
+		for (int ndx = 0; ndx < limit; ndx++) {
+			char currentChar = input.charAt(ndx);
+			int charClass = currentChar < CHAR_CLASS.length ? CHAR_CLASS[currentChar] : 0;
+			if (charClass == 0) {
+				if (ndx >= MIN_LENGTH) found |= LONG_ENOUGH;
+				return new Evaluation(INVALID_CHAR_MESSAGE, ndx, found);
+			}
+			found |= charClass;
+		}
+		if (limit >= MIN_LENGTH) found |= LONG_ENOUGH;
+		if (limit == MAX_LENGTH) found |= TOO_LONG;
+
+		if ((found & (SATISFIED | TOO_LONG)) == SATISFIED) return new Evaluation("", 0, found);
+		return new Evaluation(CONDITION_MESSAGES[found], limit, found);
+	}
 
 	/**********
-	 * This private method display the input line and then on a line under it displays an up arrow
-	 * at the point where an error should one be detected.  This method is designed to be used to 
-	 * display the error message on the console terminal.
-	 * 
-	 * @param input				The input string
-	 * @param currentCharNdx	The location where an error was found
-	 * @return					Two lines, the entire input line followed by a line with an up arrow
+	 * Evaluates many passwords, spreading the work across the available cores.
+	 *
+	 * @param inputs	The passwords to evaluate
+	 * @return			One Evaluation per password, in the same order
 	 */
-	private static void displayInputState() {
-		// Display the entire input line
-		System.out.println(inputLine);
-		System.out.println(inputLine.substring(0,currentCharNdx) + "?");
-		System.out.println("The password size: " + inputLine.length() + "  |  The currentCharNdx: " + 
-				currentCharNdx + "  |  The currentChar: \"" + currentChar + "\"");
+	public static List<Evaluation> evaluateAll(List<String> inputs) {
+		return inputs.parallelStream().map(PasswordEvaluator::evaluate).collect(Collectors.toList());
 	}
 
 	/**********
-	 * This method is a mechanical transformation of a Directed Graph diagram into a Java
-	 * method.
-	 * 
+	 * Evaluates a password and publishes the outcome in the static result attributes above,
+	 * for the console test automation.
+	 *
 	 * @param input		The input string for directed graph processing
 	 * @return			An output string that is empty if every things is okay or it will be
-	 * 						a string with a help description of the error follow by two lines
-	 * 						that shows the input line follow by a line with an up arrow at the
-	 *						point where the error was found.
+	 * 						a string with a help description of the error
 	 */
-	public static String evaluatePassword(String input) {
-		// The following are the local variable used to perform the Directed Graph simulation
-		passwordErrorMessage = "";
-		passwordIndexofError = 0;			// Initialize the IndexofError
-		inputLine = input;					// Save the reference to the input line as a global
-		currentCharNdx = 0;					// The index of the current character
-		
-		if(input.length() <= 0) return "*** Error *** The password is empty!";
-		
-		// The input is not empty, so we can access the first character
-		currentChar = input.charAt(0);		// The current character from the above indexed position
-
-		// The Directed Graph simulation continues until the end of the input is reached or at some 
-		// state the current character does not match any valid transition to a next state
-
-		passwordInput = input;				// Save a copy of the input
-		foundUpperCase = false;				// Reset the Boolean flag
-		foundLowerCase = false;				// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundSpecialChar = false;			// Reset the Boolean flag
-		foundLongEnough = false;			// Reset the Boolean flag
-		tooLong = false;					// Reset the Boolean flag
-		running = true;						// Start the loop
-
-		// The Directed Graph simulation continues until the end of the input is reached or at some 
-		// state the current character does not match any valid transition
-		while (running) {
-			displayInputState();
-			// The cascading if statement sequentially tries the current character against all of the
-			// valid transitions
-			if (currentChar >= 'A' && currentChar <= 'Z') {
-				System.out.println("Upper case letter found");
-				foundUpperCase = true;
-			} else if (currentChar >= 'a' && currentChar <= 'z') {
-				System.out.println("Lower case letter found");
-				foundLowerCase = true;
-			} else if (currentChar >= '0' && currentChar <= '9') {
-				System.out.println("Digit found");
-				foundNumericDigit = true;
-			} else if ("~`!@#$%^&*()_-+{}[]|:,.?/".indexOf(currentChar) >= 0) {
-				System.out.println("Special character found");
-				foundSpecialChar = true;
-			} else {
-				passwordIndexofError = currentCharNdx;
-				return "*** Error *** An invalid character has been found!";
-			}
-			if (currentCharNdx >= 7) {
-				System.out.println("At least 8 characters found");
-				foundLongEnough = true;
-			}
-			
-			if (currentCharNdx >= 31) {
-				System.out.println("Password can not be more than 32 characters");
-				tooLong = true;
-				running = false;
-			}
-			
-			// Go to the next character if there is one
-			currentCharNdx++;
-			if (currentCharNdx >= inputLine.length())
-				running = false;
-			else
-				currentChar = input.charAt(currentCharNdx);
-			
-			System.out.println();
-		}
-		
-		String errMessage = "";
-		if (!foundUpperCase)
-			errMessage += "Upper case; ";
-		
-		if (!foundLowerCase)
-			errMessage += "Lower case; ";
-		
-		if (!foundNumericDigit)
-			errMessage += "Numeric digits; ";
-			
-		if (!foundSpecialChar)
-			errMessage += "Special character; ";
-			
-		if (!foundLongEnough)
-			errMessage += "At least 8 characters; ";
-		
-		if (tooLong)
-			errMessage += "Password can not exceed 32 characters; ";
-		
-		if (errMessage == "")
-			return "";
-		
-		passwordIndexofError = currentCharNdx;
-		return errMessage + "conditions were not satisfied";
+	public static synchronized String evaluatePassword(String input) {
+		Evaluation evaluation = evaluate(input);
+		passwordErrorMessage = evaluation.getErrorMessage();
+		passwordIndexofError = evaluation.getIndexOfError();
+		if (input.isEmpty()) return evaluation.getErrorMessage();
 
+		passwordInput = input;
+		foundUpperCase = evaluation.foundUpperCase();
+		foundLowerCase = evaluation.foundLowerCase();
+		foundNumericDigit = evaluation.foundNumericDigit();
+		foundSpecialChar = evaluation.foundSpecialChar();
+		foundLongEnough = evaluation.foundLongEnough();
+		tooLong = evaluation.tooLong();
+		return evaluation.getErrorMessage();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,242 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * PasswordEvaluatorTest
+ *
+ * This class contains automated JUnit tests to verify that the table-driven password evaluator
+ * gives the same messages, error indexes and condition flags as the original directed graph
+ * simulation, at the length limits and on a large set of random inputs, and that the bulk
+ * evaluation keeps the input order.
+ */
+public class PasswordEvaluatorTest {
+
+    private static final String SPECIALS = "~`!@#$%^&*()_-+{}[]|:,.?/";
+
+    // Characters for the random inputs: some of every class, and some that are not allowed.
+    private static final String ALLOWED = "AZaz09Mm5" + SPECIALS;
+    private static final String NOT_ALLOWED = " =\"\\'<>;\t\u00e9\u20ac";
+
+    /**
+     * Test 1: Verify the messages and error indexes of hand-picked inputs against the original
+     * implementation.
+     */
+    @Test
+    public void testKnownInputs() {
+        String[] inputs = {
+                "", "a", "Aa1!", "Aa1!Aa1", "Aa1!Aa1!", "aaaaaaaa", "AAAAAAA1!", "Aa1!Aa1! ",
+                "Aa1! Aa1!", " Aa1!Aa1!", "Aa1!Aa1!\u00e9", "Aa1!Aa1\u20ac", "1234567=",
+        };
+        for (String input : inputs) {
+            assertMatchesBaseline(input);
+        }
+        assertEquals("", PasswordEvaluator.evaluate("Aa1!Aa1!").getErrorMessage());
+        assertEquals("*** Error *** The password is empty!", PasswordEvaluator.evaluate("").getErrorMessage());
+        assertEquals(8, PasswordEvaluator.evaluate("Aa1!Aa1! ").getIndexOfError());
+    }
+
+    /**
+     * Test 2: Verify the length limits: 31 characters are accepted, exactly 32 characters are
+     * rejected as too long at index 32, longer passwords are judged on their first 32 characters
+     * only, and an invalid character inside the first 32 is still reported where it is.
+     */
+    @Test
+    public void testLengthLimits() {
+        String thirtyOne = "Aa1!" + repeat('a', 27);
+        String thirtyTwo = thirtyOne + "a";
+        assertEquals(31, thirtyOne.length());
+        assertTrue(PasswordEvaluator.evaluate(thirtyOne).isValid());
+
+        PasswordEvaluator.Evaluation evaluation = PasswordEvaluator.evaluate(thirtyTwo);
+        assertEquals("Password can not exceed 32 characters; conditions were not satisfied",
+                evaluation.getErrorMessage());
+        assertEquals(32, evaluation.getIndexOfError());
+        assertTrue(evaluation.tooLong());
+
+        String[] inputs = {
+                thirtyOne, thirtyTwo, thirtyTwo + "a", thirtyTwo + " ", thirtyTwo + "\u00e9",
+                repeat('a', 31) + " ", repeat('a', 32), repeat('a', 40), repeat('!', 33),
+                "Aa1!" + repeat('a', 26) + " a", "Aa1!" + repeat('a', 27) + " ",
+        };
+        for (String input : inputs) {
+            assertMatchesBaseline(input);
+        }
+    }
+
+    /**
+     * Test 3: Verify 200,000 seeded random inputs of up to 40 characters against the original
+     * implementation, and that evaluatePassword publishes the same outcome in the static result
+     * attributes.
+     */
+    @Test
+    public void testRandomInputsMatchBaseline() {
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            String input = randomInput(random);
+            assertMatchesBaseline(input);
+        }
+
+        Baseline baseline = new Baseline();
+        for (int i = 0; i < 1_000; i++) {
+            String input = randomInput(random);
+            if (input.isEmpty()) {
+                continue;
+            }
+            String expected = baseline.evaluatePassword(input);
+            assertEquals(input, expected, PasswordEvaluator.evaluatePassword(input));
+            assertEquals(input, baseline.indexOfError, PasswordEvaluator.passwordIndexofError);
+            assertEquals(input, PasswordEvaluator.passwordInput);
+            assertEquals(input, baseline.foundUpperCase, PasswordEvaluator.foundUpperCase);
+            assertEquals(input, baseline.foundLowerCase, PasswordEvaluator.foundLowerCase);
+            assertEquals(input, baseline.foundNumericDigit, PasswordEvaluator.foundNumericDigit);
+            assertEquals(input, baseline.foundSpecialChar, PasswordEvaluator.foundSpecialChar);
+            assertEquals(input, baseline.foundLongEnough, PasswordEvaluator.foundLongEnough);
+            assertEquals(input, baseline.tooLong, PasswordEvaluator.tooLong);
+        }
+    }
+
+    /**
+     * Test 4: Verify that evaluateAll returns one Evaluation per input, in the input order, equal
+     * to evaluating each input on its own.
+     */
+    @Test
+    public void testEvaluateAllKeepsOrder() {
+        Random random = new Random(12);
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            inputs.add(randomInput(random));
+        }
+        List<PasswordEvaluator.Evaluation> evaluations = PasswordEvaluator.evaluateAll(inputs);
+        assertEquals(inputs.size(), evaluations.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            PasswordEvaluator.Evaluation expected = PasswordEvaluator.evaluate(inputs.get(i));
+            PasswordEvaluator.Evaluation actual = evaluations.get(i);
+            assertEquals(inputs.get(i), expected.getErrorMessage(), actual.getErrorMessage());
+            assertEquals(inputs.get(i), expected.getIndexOfError(), actual.getIndexOfError());
+        }
+        assertTrue(PasswordEvaluator.evaluateAll(new ArrayList<>()).isEmpty());
+    }
+
+    // Compares evaluate() with the original implementation on one input.
+    private static void assertMatchesBaseline(String input) {
+        Baseline baseline = new Baseline();
+        String expected = baseline.evaluatePassword(input);
+        PasswordEvaluator.Evaluation evaluation = PasswordEvaluator.evaluate(input);
+        String label = "\"" + input + "\"";
+        assertEquals(label, expected, evaluation.getErrorMessage());
+        assertEquals(label, baseline.indexOfError, evaluation.getIndexOfError());
+        if (input.isEmpty()) {
+            return;
+        }
+        assertEquals(label, baseline.foundUpperCase, evaluation.foundUpperCase());
+        assertEquals(label, baseline.foundLowerCase, evaluation.foundLowerCase());
+        assertEquals(label, baseline.foundNumericDigit, evaluation.foundNumericDigit());
+        assertEquals(label, baseline.foundSpecialChar, evaluation.foundSpecialChar());
+        assertEquals(label, baseline.foundLongEnough, evaluation.foundLongEnough());
+        assertEquals(label, baseline.tooLong, evaluation.tooLong());
+    }
+
+    private static String randomInput(Random random) {
+        int length = random.nextInt(41);
+        StringBuilder input = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            // Mostly allowed characters, so that long and valid passwords are common.
+            input.append(random.nextInt(100) == 0
+                    ? NOT_ALLOWED.charAt(random.nextInt(NOT_ALLOWED.length()))
+                    : ALLOWED.charAt(random.nextInt(ALLOWED.length())));
+        }
+        return input.toString();
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder s = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            s.append(c);
+        }
+        return s.toString();
+    }
+
+    /**
+     * The original directed graph simulation, without its console trace, kept as the reference
+     * the evaluator must agree with.
+     */
+    private static final class Baseline {
+        int indexOfError = -1;
+        boolean foundUpperCase;
+        boolean foundLowerCase;
+        boolean foundNumericDigit;
+        boolean foundSpecialChar;
+        boolean foundLongEnough;
+        boolean tooLong;
+
+        String evaluatePassword(String input) {
+            indexOfError = 0;
+            int currentCharNdx = 0;
+
+            if (input.length() <= 0) return "*** Error *** The password is empty!";
+
+            char currentChar = input.charAt(0);
+            foundUpperCase = false;
+            foundLowerCase = false;
+            foundNumericDigit = false;
+            foundSpecialChar = false;
+            foundLongEnough = false;
+            tooLong = false;
+            boolean running = true;
+            while (running) {
+                if (currentChar >= 'A' && currentChar <= 'Z') {
+                    foundUpperCase = true;
+                } else if (currentChar >= 'a' && currentChar <= 'z') {
+                    foundLowerCase = true;
+                } else if (currentChar >= '0' && currentChar <= '9') {
+                    foundNumericDigit = true;
+                } else if (SPECIALS.indexOf(currentChar) >= 0) {
+                    foundSpecialChar = true;
+                } else {
+                    indexOfError = currentCharNdx;
+                    return "*** Error *** An invalid character has been found!";
+                }
+                if (currentCharNdx >= 7) {
+                    foundLongEnough = true;
+                }
+                if (currentCharNdx >= 31) {
+                    tooLong = true;
+                    running = false;
+                }
+
+                currentCharNdx++;
+                if (currentCharNdx >= input.length())
+                    running = false;
+                else
+                    currentChar = input.charAt(currentCharNdx);
+            }
+
+            String errMessage = "";
+            if (!foundUpperCase)
+                errMessage += "Upper case; ";
+            if (!foundLowerCase)
+                errMessage += "Lower case; ";
+            if (!foundNumericDigit)
+                errMessage += "Numeric digits; ";
+            if (!foundSpecialChar)
+                errMessage += "Special character; ";
+            if (!foundLongEnough)
+                errMessage += "At least 8 characters; ";
+            if (tooLong)
+                errMessage += "Password can not exceed 32 characters; ";
+
+            if (errMessage.isEmpty())
+                return "";
+
+            indexOfError = currentCharNdx;
+            return errMessage + "conditions were not satisfied";
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package databasePart1;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The QueryMetrics class records how often each query runs, how long it takes, how many rows it
+ * returns or changes and how often it fails. Queries are named by their SQL text with literals
+ * and IN lists collapsed, so one statement run with different values counts as one query.
+ *
+ * Statements are measured through proxies: wrap(Connection) measures every statement created on
+ * a connection, and ConnectionPool measures the statements of its leases. Recording adds to
+ * LongAdder counters and a LatencyHistogram per query, so it never takes a lock. While a
+ * SlowQueryLog is set, the parameters bound to each statement are kept too, and executions that
+ * reach its threshold are handed to it once their rows are read.
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+
+    // Raw SQL strings remembered to skip normalizing them again; text with inlined values is not bounded.
+    private static final int MAX_REMEMBERED_SQL = 1_000;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ConcurrentHashMap<String, Query> queries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Query> bySql = new ConcurrentHashMap<>();
+    private volatile SlowQueryLog slowQueryLog;
+    private ObjectName objectName;
+
+    /**
+     * Normalizes SQL text into a query name: whitespace collapsed, string and number literals
+     * replaced by ?, and lists of ? collapsed to one.
+     * @param sql the SQL text
+     * @return the query name
+     */
+    public static String nameOf(String sql) {
+        if (sql == null) {
+            return "(no SQL)";
+        }
+        String name = STRING_LITERAL.matcher(sql).replaceAll("?");
+        name = NUMBER.matcher(name).replaceAll("?");
+        name = PARAMETER_LIST.matcher(name).replaceAll("?, ...");
+        return WHITESPACE.matcher(name).replaceAll(" ").trim();
+    }
+
+    /**
+     * Returns a connection that measures every statement created on it.
+     * @param connection the connection to measure
+     * @return a wrapper around the connection
+     */
+    public Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement) {
+                        return measure((Statement) result, args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Returns a statement whose executions are recorded.
+     * @param statement the statement to measure
+     * @param sql the SQL text it was prepared with, or null for a plain Statement
+     * @return a wrapper implementing the same statement interface
+     */
+    public Statement measure(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+                new Class<?>[] { type }, new Measured(statement, sql));
+    }
+
+    /**
+     * Sets the log slow executions are written to.
+     * @param slowQueryLog the log, or null to stop logging
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * @return the log slow executions are written to, or null
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    // The query a SQL text belongs to, created on first use.
+    private Query queryFor(String sql) {
+        Query query = sql == null ? null : bySql.get(sql);
+        if (query == null) {
+            query = queries.computeIfAbsent(nameOf(sql), Query::new);
+            if (sql != null && bySql.size() < MAX_REMEMBERED_SQL) {
+                bySql.putIfAbsent(sql, query);
+            }
+        }
+        return query;
+    }
+
+    @Override
+    public List<QueryStats> getQueries() {
+        List<QueryStats> stats = new ArrayList<>();
+        for (Query query : queries.values()) {
+            stats.add(query.snapshot());
+        }
+        stats.sort(Comparator.comparingDouble(QueryStats::getTotalMillis).reversed());
+        return stats;
+    }
+
+    @Override
+    public long getTotalExecutions() {
+        long total = 0;
+        for (Query query : queries.values()) {
+            total += query.executions.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalErrors() {
+        long total = 0;
+        for (Query query : queries.values()) {
+            total += query.errors.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public void reset() {
+        bySql.clear();
+        queries.clear();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server.
+     * @param database the name that tells this database's metrics apart, such as its JDBC URL
+     */
+    public synchronized void registerMBean(String database) {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName("databasePart1:type=QueryMetrics,name=" + ObjectName.quote(database));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (InstanceAlreadyExistsException e) {
+            System.out.println("Query metrics for " + database + " are already registered with JMX");
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+        objectName = null;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Rows changed, from the result of executeUpdate, executeLargeUpdate or executeBatch.
+    private static long rowsChanged(Object result) {
+        if (result instanceof Number) {
+            return Math.max(0, ((Number) result).longValue());
+        }
+        long rows = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * The counters of one query.
+     */
+    static final class Query {
+        final String name;
+        final LongAdder executions = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        volatile String lastError;
+
+        Query(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, long rowCount, SQLException error) {
+            executions.increment();
+            totalNanos.add(nanos);
+            latency.record(nanos);
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+            if (error != null) {
+                errors.increment();
+                lastError = error.getSQLState() + ": " + error.getMessage();
+            }
+        }
+
+        QueryStats snapshot() {
+            long[] quantiles = latency.getQuantiles(0.5, 0.99, 0.999);
+            return new QueryStats(name, executions.sum(), errors.sum(), rows.sum(), totalNanos.sum(),
+                    quantiles[0], quantiles[1], quantiles[2], latency.getMax(), lastError);
+        }
+    }
+
+    /**
+     * Records the executions of one statement. Rows returned are counted as the caller reads them.
+     */
+    private final class Measured implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private String batchSql;
+        private Query lastQuery;
+        // Bound parameters by index, kept only while a slow query log is set.
+        private Map<Integer, Object> parameters;
+        private SlowExecution pending;
+
+        Measured(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "addBatch":
+                    if (args != null && args.length == 1 && batchSql == null) {
+                        batchSql = (String) args[0];
+                    }
+                    return QueryMetrics.invoke(statement, method, args);
+                case "getResultSet":
+                    Object resultSet = QueryMetrics.invoke(statement, method, args);
+                    return resultSet instanceof ResultSet && lastQuery != null ? counting((ResultSet) resultSet, lastQuery, pending) : resultSet;
+                case "clearParameters":
+                    parameters = null;
+                    return QueryMetrics.invoke(statement, method, args);
+                case "close":
+                    finishPending();
+                    return QueryMetrics.invoke(statement, method, args);
+                default:
+                    break;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                    && statement instanceof PreparedStatement && slowQueryLog != null) {
+                if (parameters == null) {
+                    parameters = new TreeMap<>();
+                }
+                parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            }
+            if (!name.startsWith("execute")) {
+                return QueryMetrics.invoke(statement, method, args);
+            }
+            finishPending();
+            String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+                    : name.equals("executeBatch") && batchSql != null ? batchSql : sql;
+            if (name.equals("executeBatch")) {
+                batchSql = null;
+            }
+            Query query = queryFor(text);
+            lastQuery = query;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryMetrics.invoke(statement, method, args);
+            } catch (SQLException e) {
+                query.record(System.nanoTime() - start, 0, e);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            SlowQueryLog log = slowQueryLog;
+            boolean slow = log != null && log.isSlow(elapsed);
+            if (result instanceof ResultSet) {
+                query.record(elapsed, 0, null);
+                if (slow) {
+                    pending = new SlowExecution(log, text, parameters, elapsed);
+                }
+                return counting((ResultSet) result, query, pending);
+            }
+            long rows = rowsChanged(result);
+            query.record(elapsed, rows, null);
+            if (slow) {
+                log.record(text, parameters, elapsed, rows);
+            }
+            return result;
+        }
+
+        // A result set closed with its statement, or never read to the end, is logged with the rows read so far.
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish();
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * A slow query whose rows are still being read; it goes to the log once they are.
+     */
+    private static final class SlowExecution {
+        private final SlowQueryLog log;
+        private final String sql;
+        private final Map<Integer, Object> parameters;
+        private final long nanos;
+        private long rows;
+        private boolean finished;
+
+        SlowExecution(SlowQueryLog log, String sql, Map<Integer, Object> parameters, long nanos) {
+            this.log = log;
+            this.sql = sql;
+            this.parameters = parameters == null ? null : new TreeMap<>(parameters);
+            this.nanos = nanos;
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                log.record(sql, parameters, nanos, rows);
+            }
+        }
+    }
+
+    // Counts the rows a caller reads from a result set against its query, and against a slow execution if there is one.
+    private static ResultSet counting(ResultSet resultSet, Query query, SlowExecution slow) {
+        return (ResultSet) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    Object result = invoke(resultSet, method, args);
+                    if (method.getName().equals("next")) {
+                        if (Boolean.TRUE.equals(result)) {
+                            query.rows.increment();
+                            if (slow != null) {
+                                slow.rows++;
+                            }
+                        } else if (slow != null) {
+                            slow.finish();
+                        }
+                    } else if (method.getName().equals("close") && slow != null) {
+                        slow.finish();
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * An immutable snapshot of one query's statistics. Latencies are in microseconds.
+     */
+    public static final class QueryStats {
+        private final String name;
+        private final long executions;
+        private final long errors;
+        private final long rows;
+        private final long totalNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+        private final String lastError;
+
+        QueryStats(String name, long executions, long errors, long rows, long totalNanos,
+                   long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos, String lastError) {
+            this.name = name;
+            this.executions = executions;
+            this.errors = errors;
+            this.rows = rows;
+            this.totalNanos = totalNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+            this.lastError = lastError;
+        }
+
+        public String getName() { return name; }
+        public long getExecutions() { return executions; }
+        public long getErrors() { return errors; }
+        public long getRows() { return rows; }
+        public double getRowsPerExecution() { return executions == 0 ? 0 : (double) rows / executions; }
+        public double getTotalMillis() { return totalNanos / 1_000_000.0; }
+        public double getMeanMicros() { return executions == 0 ? 0 : totalNanos / 1_000.0 / executions; }
+        public double getP50Micros() { return p50Nanos / 1_000.0; }
+        public double getP99Micros() { return p99Nanos / 1_000.0; }
+        public double getP999Micros() { return p999Nanos / 1_000.0; }
+        public double getMaxMicros() { return maxNanos / 1_000.0; }
+        public String getLastError() { return lastError; }
+    }
+}
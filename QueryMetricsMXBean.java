@@ -0,0 +1,31 @@
+package databasePart1;
+
+import java.util.List;
+
+/**
+ * The management interface of QueryMetrics, registered with the platform MBean server as
+ * databasePart1:type=QueryMetrics,name="JDBC URL" so the query statistics can be read with
+ * JConsole or any JMX client.
+ */
+public interface QueryMetricsMXBean {
+
+    /**
+     * @return the statistics of every query seen, the most total time first
+     */
+    List<QueryMetrics.QueryStats> getQueries();
+
+    /**
+     * @return the number of statements executed
+     */
+    long getTotalExecutions();
+
+    /**
+     * @return the number of executions that failed
+     */
+    long getTotalErrors();
+
+    /**
+     * Clears every query's statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,85 @@
+package application;
+
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import databasePart1.DatabaseHelper;
+import databasePart1.QueryMetrics;
+
+/**
+ * QueryMetricsPage shows the admin how every database query has performed since the application
+ * started or the metrics were last reset: executions, failures, rows and latency percentiles,
+ * the queries with the most total time first. The same figures are published over JMX.
+ */
+public class QueryMetricsPage {
+    private final DatabaseHelper databaseHelper;
+    private final User user;
+
+    /**
+     * Constructor to initialize the QueryMetricsPage.
+     * @param databaseHelper the database helper instance
+     * @param user the admin user
+     */
+    public QueryMetricsPage(DatabaseHelper databaseHelper, User user) {
+        this.databaseHelper = databaseHelper;
+        this.user = user;
+    }
+
+    /**
+     * Displays the query metrics in the provided primary stage.
+     * @param primaryStage the primary stage where the scene will be displayed
+     */
+    public void show(Stage primaryStage) {
+        VBox layout = new VBox(10);
+        layout.setStyle("-fx-padding: 20;");
+
+        Label titleLabel = new Label("Query Metrics");
+        titleLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+
+        Label summaryLabel = new Label();
+        Label poolLabel = new Label();
+        Label cacheLabel = new Label();
+        ListView<String> queryList = new ListView<>();
+        queryList.setPlaceholder(new Label("No queries recorded yet."));
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(e -> refresh(summaryLabel, poolLabel, cacheLabel, queryList));
+
+        Button resetButton = new Button("Reset");
+        resetButton.setOnAction(e -> {
+            databaseHelper.getQueryMetrics().reset();
+            refresh(summaryLabel, poolLabel, cacheLabel, queryList);
+        });
+
+        Button backButton = new Button("Back");
+        backButton.setOnAction(e -> new AdminHomePage(databaseHelper, user).show(primaryStage));
+
+        refresh(summaryLabel, poolLabel, cacheLabel, queryList);
+
+        HBox buttons = new HBox(10, refreshButton, resetButton, backButton);
+        layout.getChildren().addAll(titleLabel, summaryLabel, poolLabel, cacheLabel, queryList, buttons);
+        primaryStage.setScene(new Scene(layout, 900, 500));
+        primaryStage.setTitle("Query Metrics");
+    }
+
+    // The metrics are counters in memory, so reading them on the UI thread does not touch the database.
+    private void refresh(Label summaryLabel, Label poolLabel, Label cacheLabel, ListView<String> queryList) {
+        QueryMetrics metrics = databaseHelper.getQueryMetrics();
+        summaryLabel.setText(metrics.getTotalExecutions() + " statements executed, " + metrics.getTotalErrors() + " failed");
+        poolLabel.setText("Connection pool: " + databaseHelper.getPoolStats());
+        cacheLabel.setText("Content cache: " + databaseHelper.getContentCache().getStats());
+        queryList.getItems().clear();
+        for (QueryMetrics.QueryStats query : metrics.getQueries()) {
+            String line = query.getName() + "\n" + String.format(
+                    "    %d runs, %d failed, %.1f rows/run | p50 %.0f us, p99 %.0f us, p99.9 %.0f us, max %.0f us | total %.1f ms",
+                    query.getExecutions(), query.getErrors(), query.getRowsPerExecution(), query.getP50Micros(),
+                    query.getP99Micros(), query.getP999Micros(), query.getMaxMicros(), query.getTotalMillis());
+            if (query.getLastError() != null) {
+                line += "\n    last error: " + query.getLastError();
+            }
+            queryList.getItems().add(line);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * QueryMetricsTest
+ *
+ * This class contains automated JUnit tests to verify that queries run on pooled connections are
+ * recorded in the query metrics under their normalized SQL, failures included.
+ */
+public class QueryMetricsTest {
+
+    private static DatabaseHelper dbHelper;
+
+    /**
+     * Setup method to establish the database connection to a fresh in-memory database.
+     */
+    @BeforeClass
+    public static void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+    }
+
+    /**
+     * Cleanup method to close the database connection after all tests.
+     */
+    @AfterClass
+    public static void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that manager queries on pooled connections are recorded under their
+     * normalized SQL, with the rows they return.
+     */
+    @Test
+    public void testQueryMetricsRecordPooledQueries() {
+        String name = QueryMetrics.nameOf("SELECT userName, role, rating FROM cse360users WHERE userName IN (?, ?)");
+        dbHelper.getQueryMetrics().reset();
+        dbHelper.getUserDirectory().invalidateAll();
+        dbHelper.getUserDirectory().loadAll(Arrays.asList("metricsNobody1", "metricsNobody2"));
+        QueryMetrics.QueryStats stats = null;
+        for (QueryMetrics.QueryStats query : dbHelper.getQueryMetrics().getQueries()) {
+            if (query.getName().equals(name)) {
+                stats = query;
+            }
+        }
+        assertNotNull("The directory lookup should be recorded as " + name, stats);
+        assertEquals("One execution", 1, stats.getExecutions());
+        assertEquals("No rows for unknown users", 0, stats.getRows());
+        assertTrue("Latency should be recorded", stats.getMaxMicros() > 0);
+    }
+
+    /**
+     * Test 2: Verify that failed executions of prepared and plain statements are counted as both
+     * executions and errors of their query, with the last error kept, and that successful runs of
+     * the same query do not clear it.
+     */
+    @Test
+    public void testQueryMetricsCountFailures() throws SQLException {
+        dbHelper.getQueryMetrics().reset();
+        try (Connection conn = dbHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT 10 / ?")) {
+            for (int divisor : new int[] { 0, 5, 0 }) {
+                pstmt.setInt(1, divisor);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(2, rs.getInt(1));
+                } catch (SQLException e) {
+                    assertEquals("Only the zero divisor should fail", 0, divisor);
+                }
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("UPDATE metricsNoSuchTable SET total = 1");
+                fail("The missing table should fail the update");
+            } catch (SQLException e) {
+                // expected
+            }
+        }
+
+        QueryMetrics.QueryStats division = find(QueryMetrics.nameOf("SELECT 10 / ?"));
+        assertEquals(3, division.getExecutions());
+        assertEquals(2, division.getErrors());
+        assertEquals("Only the successful run returns a row", 1, division.getRows());
+        assertTrue(division.getLastError(), division.getLastError().startsWith("22012: "));
+
+        QueryMetrics.QueryStats update = find("UPDATE metricsNoSuchTable SET total = ?");
+        assertEquals(1, update.getExecutions());
+        assertEquals(1, update.getErrors());
+        assertEquals(3, dbHelper.getQueryMetrics().getTotalErrors());
+        assertEquals(4, dbHelper.getQueryMetrics().getTotalExecutions());
+
+        dbHelper.getQueryMetrics().reset();
+        assertEquals(0, dbHelper.getQueryMetrics().getTotalErrors());
+    }
+
+    private static QueryMetrics.QueryStats find(String name) {
+        for (QueryMetrics.QueryStats query : dbHelper.getQueryMetrics().getQueries()) {
+            if (query.getName().equals(name)) {
+                return query;
+            }
+        }
+        fail("No query recorded as " + name);
+        return null;
+    }
+}
@@ -1,6 +1,5 @@
 package application;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,12 +27,13 @@ public class Question {
     
     // Question constructor to reconstruct question object from answer id
     public Question(int answerId, DatabaseHelper databaseHelper) {
+        this.answers = new ArrayList<>();
     	try{
-            ResultSet rs = databaseHelper.getQuestionForAnswer(answerId);
-            while (rs.next()) {
-                this.id = rs.getInt("id");
-                this.text = rs.getString("text");
-                this.author = rs.getString("author");
+            Question question = databaseHelper.getQuestionForAnswer(answerId);
+            if (question != null) {
+                this.id = question.getId();
+                this.text = question.getText();
+                this.author = question.getAuthor();
             }
         } catch (SQLException ex) {
             System.out.println("invalid question id");
@@ -1,15 +1,21 @@
 package application;
 
 import databasePart1.DatabaseHelper;
+import databasePart1.SearchIndex;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * The QuestionManager class handles CRUD operations for Question objects.
+ * The QuestionManager class handles CRUD operations for Question objects. Main and subset
+ * questions are stored through the helper's repositories, which also keep the review queue;
+ * this class keeps the caches, the search index and the event bus in step with them.
  */
 public class QuestionManager {
     private final DatabaseHelper databaseHelper;
+    private final QuestionRepository questions;
+    private final SubsetQuestionRepository subsetQuestions;
 
     /**
      * Constructor to initialize the QuestionManager.
@@ -17,35 +23,29 @@ public class QuestionManager {
      */
     public QuestionManager(DatabaseHelper databaseHelper) {
         this.databaseHelper = databaseHelper;
+        this.questions = databaseHelper.getRepositories().questions();
+        this.subsetQuestions = databaseHelper.getRepositories().subsetQuestions();
     }
 
     /**
-     * Saves a new question to the database, preventing duplicates.
+     * Saves a new question to the database, preventing duplicates. The unique index on
+     * contentHash rejects a question with the same text and author in the same statement.
      * @param question the Question object to save
+     * @return true if the question was inserted, false if it is a duplicate or could not be saved
      */
-    public void saveQuestion(Question question) {
-        String checkQuery = "SELECT COUNT(*) FROM questions WHERE text = ? AND author = ?";
-        String insertQuery = "INSERT INTO questions (text, author) VALUES (?, ?)";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
-             PreparedStatement insertStmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-            checkStmt.setString(1, question.getText());
-            checkStmt.setString(2, question.getAuthor());
-            ResultSet rs = checkStmt.executeQuery();
-            if (rs.next() && rs.getInt(1) > 0) {
-                return; // Question already exists, do not insert duplicate
-            }
-            insertStmt.setString(1, question.getText());
-            insertStmt.setString(2, question.getAuthor());
-            insertStmt.executeUpdate();
-            try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    question.setId(generatedKeys.getInt(1));
-                }
+    public boolean saveQuestion(Question question) {
+        try {
+            if (!questions.insert(question)) {
+                return false;
             }
+            databaseHelper.getContentCache().questionsChanged();
+            databaseHelper.getSearchIndex().index(SearchIndex.DocType.QUESTION, question.getId(), 0, question.getText());
+            databaseHelper.getEventBus().publish(new Events.QuestionCreated(question));
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return false;
     }
 
     /**
@@ -53,18 +53,47 @@ public class QuestionManager {
      * @return a list of all Question objects
      */
     public List<Question> getAllQuestions() {
-        List<Question> questions = new ArrayList<>();
-        String query = "SELECT id, text, author FROM questions";
-        try (Connection conn = databaseHelper.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-                questions.add(new Question(rs.getInt("id"), rs.getString("text"), rs.getString("author")));
-            }
+        try {
+            return questions.findAll();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Retrieves one page of questions in ID order, starting after the given ID.
+     * Uses the primary key as the cursor, so the cost of a page does not grow with its position.
+     * Pages are served from the content cache until a question is added, edited or deleted.
+     * @param afterId the ID of the last question of the previous page, or 0 for the first page
+     * @param limit the maximum number of questions to return
+     * @return a list of at most limit Question objects
+     */
+    public List<Question> getQuestionsPage(int afterId, int limit) {
+        try {
+            return new ArrayList<>(databaseHelper.getContentCache().get(ContentCache.Region.QUESTION_PAGE,
+                    afterId + ":" + limit, () -> loadQuestionsPage(afterId, limit)));
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return questions;
+        return new ArrayList<>();
+    }
+
+    private List<Question> loadQuestionsPage(int afterId, int limit) throws SQLException {
+        return Collections.unmodifiableList(questions.findPage(afterId, limit));
+    }
+
+    /**
+     * Counts the questions without loading them.
+     * @return the number of questions, or 0 if the count fails
+     */
+    public int countQuestions() {
+        try {
+            return questions.count();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
     }
     
     /**
@@ -73,19 +102,17 @@ public class QuestionManager {
      * @return a list of subset Question objects linked to the main question
      */
     public List<Question> getSubSetQuestionsForMainQuestion(int qID) {
-        List<Question> subsetQuestions = new ArrayList<>();
-        String query = "SELECT id, text, author FROM subSetQuestions WHERE qID = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, qID);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                subsetQuestions.add(new Question(rs.getInt("id"), rs.getString("text"), rs.getString("author")));
-            }
+        try {
+            return new ArrayList<>(databaseHelper.getContentCache().get(ContentCache.Region.SUBSET_QUESTIONS,
+                    qID, () -> loadSubSetQuestions(qID)));
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return subsetQuestions;
+        return new ArrayList<>();
+    }
+
+    private List<Question> loadSubSetQuestions(int qID) throws SQLException {
+        return Collections.unmodifiableList(subsetQuestions.findByQuestion(qID));
     }
 
     /**
@@ -111,19 +138,14 @@ public class QuestionManager {
      * @param author the author of the subset question
      */
     public void createSubSetQuestion(int qID, String text, String author) {
-        String query = "INSERT INTO subSetQuestions (qID, text, author) VALUES (?, ?, ?)";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setInt(1, qID);
-            pstmt.setString(2, text);
-            pstmt.setString(3, author);
-            pstmt.executeUpdate();
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    int newSqID = generatedKeys.getInt(1);
-                    System.out.println("SubSetQuestion created successfully with ID: " + newSqID + ", linked to main question: " + qID);
-                }
-            }
+        try {
+            Question subsetQuestion = new Question(0, text, author);
+            subsetQuestions.insert(qID, subsetQuestion);
+            int newSqID = subsetQuestion.getId();
+            databaseHelper.getContentCache().subSetQuestionAdded(qID);
+            databaseHelper.getSearchIndex().index(SearchIndex.DocType.SUBSET_QUESTION, newSqID, qID, text);
+            databaseHelper.getEventBus().publish(new Events.SubsetQuestionCreated(qID, subsetQuestion));
+            System.out.println("SubSetQuestion created successfully with ID: " + newSqID + ", linked to main question: " + qID);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -137,19 +159,27 @@ public class QuestionManager {
      * @return true if deletion was successful, false otherwise
      */
     public boolean deleteQuestion(int questionId, String userName, boolean isAdmin) {
-        String checkQuery = "SELECT author FROM questions WHERE id = ?";
-        String deleteQuery = "DELETE FROM questions WHERE id = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
-             PreparedStatement deleteStmt = conn.prepareStatement(deleteQuery)) {
-            checkStmt.setInt(1, questionId);
-            ResultSet rs = checkStmt.executeQuery();
-            if (rs.next()) {
-                String author = rs.getString("author");
-                if (author.equals(userName) || isAdmin) {
-                    deleteStmt.setInt(1, questionId);
-                    return deleteStmt.executeUpdate() > 0;
+        try {
+            Question question = questions.findById(questionId);
+            if (question != null && (question.getAuthor().equals(userName) || isAdmin)) {
+                // The answers and subset answers go with the question, so the pages are told their IDs.
+                List<Integer> answerIds = new ArrayList<>();
+                for (Answer answer : databaseHelper.getRepositories().answers().findByQuestion(questionId)) {
+                    answerIds.add(answer.getId());
+                }
+                List<Integer> subsetAnswerIds = new ArrayList<>();
+                for (Question subsetQuestion : subsetQuestions.findByQuestion(questionId)) {
+                    for (Answer answer : databaseHelper.getRepositories().subsetAnswers().findBySubsetQuestion(subsetQuestion.getId())) {
+                        subsetAnswerIds.add(answer.getId());
+                    }
                 }
+                boolean deleted = questions.delete(questionId);
+                if (deleted) {
+                    databaseHelper.getContentCache().questionDeleted(questionId);
+                    databaseHelper.getSearchIndex().remove(SearchIndex.DocType.QUESTION, questionId);
+                    databaseHelper.getEventBus().publish(new Events.QuestionDeleted(questionId, answerIds, subsetAnswerIds));
+                }
+                return deleted;
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -165,13 +195,14 @@ public class QuestionManager {
      * @return true if the update was successful, false otherwise
      */
     public boolean editQuestion(int questionId, String newText, String userName) {
-        String query = "UPDATE questions SET text = ? WHERE id = ? AND author = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, newText);
-            pstmt.setInt(2, questionId);
-            pstmt.setString(3, userName);
-            return pstmt.executeUpdate() > 0;
+        try {
+            boolean updated = questions.updateText(questionId, newText, userName);
+            if (updated) {
+                databaseHelper.getContentCache().questionChanged(questionId);
+                databaseHelper.getSearchIndex().update(SearchIndex.DocType.QUESTION, questionId, newText);
+                databaseHelper.getEventBus().publish(new Events.QuestionUpdated(questionId, false, newText));
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -186,13 +217,14 @@ public class QuestionManager {
      * @return true if the update was successful, false otherwise
      */
     public boolean editsubSetQuestion(int questionId, String newText, String userName) {
-        String query = "UPDATE subSetQuestions SET text = ? WHERE id = ? AND author = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, newText);
-            pstmt.setInt(2, questionId);
-            pstmt.setString(3, userName);
-            return pstmt.executeUpdate() > 0;
+        try {
+            boolean updated = subsetQuestions.updateText(questionId, newText, userName);
+            if (updated) {
+                databaseHelper.getContentCache().subSetQuestionChanged(questionId);
+                databaseHelper.getSearchIndex().update(SearchIndex.DocType.SUBSET_QUESTION, questionId, newText);
+                databaseHelper.getEventBus().publish(new Events.QuestionUpdated(questionId, true, newText));
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -205,19 +237,11 @@ public class QuestionManager {
      * @return a list of Question objects written by the user
      */
     public List<Question> getQuestionsByUser(String userName) {
-        List<Question> questions = new ArrayList<>();
-        String query = "SELECT id, text, author FROM questions WHERE author = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    questions.add(new Question(rs.getInt("id"), rs.getString("text"), rs.getString("author")));
-                }
-            }
+        try {
+            return questions.findByAuthor(userName);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return questions;
+        return new ArrayList<>();
     }
 }
@@ -6,7 +6,6 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.stage.Modality;
-import java.util.List;
 import databasePart1.DatabaseHelper;
 
 /**
@@ -19,7 +18,7 @@ public class QuestionPage {
     private final DatabaseHelper databaseHelper;
     private final Stage primaryStage;
     private Question selectedMainQuestion;
-    private ListView<HBox> questionList;
+    private PagedListView<Question> questionList;
 
     public QuestionPage(QuestionManager questionManager, User user, DatabaseHelper databaseHelper, Stage primaryStage) {
         this.questionManager = questionManager;
@@ -44,19 +43,33 @@ public class QuestionPage {
         Button submitButton = new Button("Submit Question");
         Label messageLabel = new Label();
         
-        questionList = new ListView<>();
+        questionList = new PagedListView<>(
+                (last, limit) -> questionManager.getQuestionsPage(last == null ? 0 : last.getId(), limit),
+                this::buildQuestionRow);
+        questionList.setPlaceholder("No questions yet.");
+        questionList.setAsyncDataAccess(databaseHelper.getAsyncDataAccess());
         refreshQuestionList();
         
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
         submitButton.setOnAction(e -> {
             String text = questionField.getText().trim();
             if (!text.isEmpty() && text.length() <= 500) {
-                Question newQuestion = questionManager.createQuestion(questionManager.getAllQuestions().size() + 1, text, user.getUserName());
-                if (newQuestion != null) {
-                    questionManager.saveQuestion(newQuestion);
-                    refreshQuestionList();
-                    messageLabel.setText("Question added successfully!");
-                }
-                questionField.clear();
+                // The database assigns the ID when the question is saved, off the UI thread.
+                Question newQuestion = new Question(0, text, user.getUserName());
+                submitButton.setDisable(true);
+                async.deliver(async.supply(() -> questionManager.saveQuestion(newQuestion)), saved -> {
+                    submitButton.setDisable(false);
+                    if (saved) {
+                        refreshQuestionList();
+                        messageLabel.setText("Question added successfully!");
+                    } else {
+                        messageLabel.setText("You have already asked this question.");
+                    }
+                    questionField.clear();
+                }, error -> {
+                    submitButton.setDisable(false);
+                    messageLabel.setText("The question could not be saved.");
+                });
             } else {
                 messageLabel.setText("Invalid question. Ensure it's not empty and under 500 characters.");
             }
@@ -68,7 +81,7 @@ public class QuestionPage {
             userHomePage.show(primaryStage);
         });
         
-        layout.getChildren().addAll(titleLabel, questionField, submitButton, messageLabel, questionList, backButton);
+        layout.getChildren().addAll(titleLabel, questionField, submitButton, messageLabel, questionList.getListView(), backButton);
         Scene welcomeScene = new Scene(layout, 800, 400);
         primaryStage.setScene(welcomeScene);
         primaryStage.setTitle("Question Management");
@@ -76,43 +89,55 @@ public class QuestionPage {
 
     /**
      * Refreshes the list of questions displayed in the UI.
+     * Only the first page is loaded; later pages load as the list is scrolled.
      */
     private void refreshQuestionList() {
-        questionList.getItems().clear();
-        List<Question> questions = questionManager.getAllQuestions();
-        for (Question q : questions) {
-            HBox row = new HBox(10);
-            Label questionLabel = new Label(q.getText());
-            // Clicking the question label navigates to AnswerPage.
-            questionLabel.setOnMouseClicked(event -> {
-                AnswerPage answerPage = new AnswerPage(new AnswerManager(databaseHelper), user, databaseHelper, primaryStage, q);
-                answerPage.show();
-            });
-            
-            // "View Reviews" button opens a popup showing reviews for this question.
-            Button viewReviewsButton = new Button("View Reviews");
-            viewReviewsButton.setOnAction(event -> {
-            	StudentQuestionReviewPopup popup = new StudentQuestionReviewPopup(databaseHelper, q.getId(), user.getUserName(), primaryStage);
+        questionList.reset();
+    }
 
-                popup.show();
-            });
-            
-            Button editButton = new Button("Edit");
-            editButton.setDisable(!q.getAuthor().equals(user.getUserName()));
-            editButton.setOnAction(e -> showEditPopup(q));
-            
-            Button deleteButton = new Button("Delete");
-            boolean isAdmin = "admin".equals(user.getRole());
-            deleteButton.setDisable(!q.getAuthor().equals(user.getUserName()) && !isAdmin);
-            deleteButton.setOnAction(e -> {
-                if (questionManager.deleteQuestion(q.getId(), user.getUserName(), isAdmin)) {
+    /**
+     * Builds the row shown for a question.
+     * @param q the question to display
+     * @return the row
+     */
+    private HBox buildQuestionRow(Question q) {
+        HBox row = new HBox(10);
+        Label questionLabel = new Label(q.getText());
+        // Clicking the question label navigates to AnswerPage.
+        questionLabel.setOnMouseClicked(event -> {
+            AnswerPage answerPage = new AnswerPage(new AnswerManager(databaseHelper), user, databaseHelper, primaryStage, q);
+            answerPage.show();
+        });
+        
+        // "View Reviews" button opens a popup showing reviews for this question.
+        Button viewReviewsButton = new Button("View Reviews");
+        viewReviewsButton.setOnAction(event -> {
+        	StudentQuestionReviewPopup popup = new StudentQuestionReviewPopup(databaseHelper, q.getId(), user.getUserName(), primaryStage);
+
+            popup.show();
+        });
+        
+        Button editButton = new Button("Edit");
+        editButton.setDisable(!q.getAuthor().equals(user.getUserName()));
+        editButton.setOnAction(e -> showEditPopup(q));
+        
+        Button deleteButton = new Button("Delete");
+        boolean isAdmin = "admin".equals(user.getRole());
+        deleteButton.setDisable(!q.getAuthor().equals(user.getUserName()) && !isAdmin);
+        deleteButton.setOnAction(e -> {
+            deleteButton.setDisable(true);
+            AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+            async.deliver(async.supply(() -> questionManager.deleteQuestion(q.getId(), user.getUserName(), isAdmin)), deleted -> {
+                if (deleted) {
                     refreshQuestionList();
+                } else {
+                    deleteButton.setDisable(false);
                 }
             });
-            
-            row.getChildren().addAll(questionLabel, viewReviewsButton, editButton, deleteButton);
-            questionList.getItems().add(row);
-        }
+        });
+        
+        row.getChildren().addAll(questionLabel, viewReviewsButton, editButton, deleteButton);
+        return row;
     }
 
     /**
@@ -132,10 +157,15 @@ public class QuestionPage {
         saveButton.setOnAction(e -> {
             String newText = editField.getText().trim();
             if (!newText.isEmpty() && newText.length() <= 500) {
-                if (questionManager.editQuestion(question.getId(), newText, user.getUserName())) {
-                    refreshQuestionList();
-                    popupStage.close();
-                }
+                saveButton.setDisable(true);
+                AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+                async.deliver(async.supply(() -> questionManager.editQuestion(question.getId(), newText, user.getUserName())), edited -> {
+                    saveButton.setDisable(false);
+                    if (edited) {
+                        refreshQuestionList();
+                        popupStage.close();
+                    }
+                });
             }
         });
 
@@ -0,0 +1,59 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage of main questions. Lists are in ID order unless stated otherwise.
+ */
+public interface QuestionRepository {
+
+    /**
+     * Stores a new question and sets its ID. JdbcRepositories also queues it for every
+     * reviewer in the same transaction.
+     * @param question the question to store
+     * @return true if it was stored, false if the author already asked a question with the same text
+     */
+    boolean insert(Question question) throws SQLException;
+
+    /**
+     * @param id the question ID
+     * @return the question, or null if there is none
+     */
+    Question findById(int id) throws SQLException;
+
+    /**
+     * @return every question
+     */
+    List<Question> findAll() throws SQLException;
+
+    /**
+     * @param afterId the ID of the last question of the previous page, or 0 for the first page
+     * @param limit the maximum number of questions to return
+     * @return at most limit questions with IDs above afterId
+     */
+    List<Question> findPage(int afterId, int limit) throws SQLException;
+
+    /**
+     * @param author the author's username
+     * @return the author's questions
+     */
+    List<Question> findByAuthor(String author) throws SQLException;
+
+    /**
+     * @return the number of questions
+     */
+    int count() throws SQLException;
+
+    /**
+     * Replaces the text of a question if it was written by the given author.
+     * @return true if the question was changed, false if not or if the author already asked the new text
+     */
+    boolean updateText(int id, String text, String author) throws SQLException;
+
+    /**
+     * Deletes a question with its answers and their reviews.
+     * @return true if the question existed
+     */
+    boolean delete(int id) throws SQLException;
+}
@@ -3,6 +3,7 @@ package application;
 import databasePart1.DatabaseHelper;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -30,13 +31,30 @@ public class QuestionReviewManager {
             pstmt.setString(1, qr.getText());
             pstmt.setString(2, qr.getReviewer());
             pstmt.setInt(3, qr.getQuestionId());
-            int affectedRows = pstmt.executeUpdate();
+            int affectedRows;
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                affectedRows = pstmt.executeUpdate();
+                if (affectedRows > 0) {
+                    ReviewerStatsManager.questionReviewSaved(conn, qr.getReviewer());
+                    ReviewQueue.markReviewed(conn, qr.getReviewer(), ReviewQueue.ItemType.QUESTION, qr.getQuestionId());
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
             if (affectedRows > 0) {
                 try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         qr.setId(generatedKeys.getInt(1));
                     }
                 }
+                databaseHelper.getContentCache().questionReviewAdded(qr.getQuestionId());
+                databaseHelper.getEventBus().publish(new Events.QuestionReviewSaved(qr));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -44,11 +62,21 @@ public class QuestionReviewManager {
     }
     
     /**
-     * Retrieves all reviews for a specific question.
+     * Retrieves all reviews for a specific question, from the content cache when it holds them.
      * @param questionId the identifier of the question
      * @return a list of QuestionReview objects associated with the question
      */
     public List<QuestionReview> getReviewsForQuestion(int questionId) {
+        try {
+            return new ArrayList<>(databaseHelper.getContentCache().get(ContentCache.Region.QUESTION_REVIEWS,
+                    questionId, () -> loadReviewsForQuestion(questionId)));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    private List<QuestionReview> loadReviewsForQuestion(int questionId) throws SQLException {
         List<QuestionReview> reviews = new ArrayList<>();
         String query = "SELECT id, text, reviewer, questionId FROM questionReviews WHERE questionId = ?";
         try (Connection conn = databaseHelper.getConnection();
@@ -59,10 +87,8 @@ public class QuestionReviewManager {
                     reviews.add(new QuestionReview(rs.getInt("id"), rs.getString("text"), rs.getString("reviewer"), rs.getInt("questionId")));
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return reviews;
+        return Collections.unmodifiableList(reviews);
     }
     
     /**
@@ -0,0 +1,28 @@
+package application;
+
+/**
+ * One storage engine's repositories. JdbcRepositories keeps the data in the H2 database and is
+ * what the managers use; RepositoryContractTest holds the tests an engine must pass.
+ */
+public interface Repositories extends AutoCloseable {
+
+    QuestionRepository questions();
+
+    AnswerRepository answers();
+
+    SubsetQuestionRepository subsetQuestions();
+
+    SubsetAnswerRepository subsetAnswers();
+
+    ReviewRepository reviews();
+
+    MessageRepository messages();
+
+    UserRepository users();
+
+    /**
+     * Releases what the engine holds open. The repositories must not be used afterwards.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,543 @@
+package application;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * RepositoryContractTest
+ *
+ * This class contains automated JUnit tests that every storage engine must pass: they run once
+ * against the H2 repositories (JdbcRepositories) and once against the in-memory engine
+ * (MemoryRepositories), each selected through DataSourceConfig on empty storage. The last tests
+ * check that the in-memory engine recovers its state from the write-ahead log.
+ */
+@RunWith(Parameterized.class)
+public class RepositoryContractTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> engines() {
+        return Arrays.asList(new Object[][] { { DataSourceConfig.Engine.H2 }, { DataSourceConfig.Engine.MEMORY } });
+    }
+
+    private final DataSourceConfig.Engine engine;
+    private DataSourceConfig config;
+    private DatabaseHelper dbHelper;
+    private Repositories repositories;
+    private Path directory;
+
+    public RepositoryContractTest(DataSourceConfig.Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Setup method to open the engine on empty storage and register the users the tests write as.
+     * The memory engine gets a database file in a new directory, so its write-ahead log is kept.
+     */
+    @Before
+    public void setup() throws SQLException, IOException {
+        if (engine == DataSourceConfig.Engine.H2) {
+            config = DataSourceConfig.isolatedMemory();
+        } else {
+            directory = Files.createTempDirectory("repository-test");
+            config = DataSourceConfig.file(directory.resolve("data").toString(), 0).withEngine(engine);
+        }
+        open();
+        for (String name : new String[] { "alice", "bob", "carol" }) {
+            assertTrue("Registering " + name + " should succeed",
+                    repositories.users().register(new User(name, "Passw0rd!", "student")));
+        }
+    }
+
+    /**
+     * Cleanup method to close the engine and delete its files.
+     */
+    @After
+    public void cleanup() throws IOException {
+        dbHelper.closeConnection();
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test 1: Verify that questions are stored with new IDs, paged in ID order, found by author,
+     * counted, and rejected when the author repeats the text.
+     */
+    @Test
+    public void testQuestions() throws SQLException {
+        QuestionRepository questions = repositories.questions();
+        Question first = new Question(0, "How do I use JUnit?", "alice");
+        assertTrue(questions.insert(first));
+        assertTrue("The question should get an ID", first.getId() > 0);
+        assertFalse("The same text by the same author should be a duplicate",
+                questions.insert(new Question(0, "How do I use JUnit?", "alice")));
+        assertTrue("The same text by another author is not a duplicate",
+                questions.insert(new Question(0, "How do I use JUnit?", "bob")));
+        Question third = new Question(0, "What is a mock?", "alice");
+        questions.insert(third);
+
+        assertEquals(3, questions.count());
+        assertEquals("What is a mock?", questions.findById(third.getId()).getText());
+        assertNull(questions.findById(third.getId() + 100));
+        assertEquals(2, questions.findByAuthor("alice").size());
+        assertTrue(questions.findByAuthor("nobody").isEmpty());
+
+        List<Question> page = questions.findPage(0, 2);
+        assertEquals(2, page.size());
+        assertEquals(first.getId(), page.get(0).getId());
+        List<Question> next = questions.findPage(page.get(1).getId(), 2);
+        assertEquals("The second page should hold the rest", 1, next.size());
+        assertEquals(third.getId(), next.get(0).getId());
+        assertEquals(3, questions.findAll().size());
+    }
+
+    /**
+     * Test 2: Verify that only the author can change a question's text.
+     */
+    @Test
+    public void testQuestionUpdateByAuthorOnly() throws SQLException {
+        Question question = new Question(0, "Original text?", "alice");
+        repositories.questions().insert(question);
+        assertFalse("Another user should not edit the question",
+                repositories.questions().updateText(question.getId(), "Changed by bob", "bob"));
+        assertTrue(repositories.questions().updateText(question.getId(), "Edited text?", "alice"));
+        assertEquals("Edited text?", repositories.questions().findById(question.getId()).getText());
+    }
+
+    /**
+     * Test 3: Verify that answers need an existing question and are listed, paged and counted per question.
+     */
+    @Test
+    public void testAnswers() throws SQLException {
+        Question question = new Question(0, "Which build tool?", "alice");
+        repositories.questions().insert(question);
+        AnswerRepository answers = repositories.answers();
+        for (String author : new String[] { "bob", "carol", "alice" }) {
+            assertTrue(answers.insert(new Answer(0, "Maven", author, question.getId())));
+        }
+        assertFalse("The same answer by the same author should be a duplicate",
+                answers.insert(new Answer(0, "Maven", "bob", question.getId())));
+        try {
+            answers.insert(new Answer(0, "Gradle", "bob", question.getId() + 100));
+            fail("An answer to a missing question should be rejected");
+        } catch (SQLException e) {
+            // expected
+        }
+
+        assertEquals(3, answers.countByQuestion(question.getId()));
+        List<Answer> all = answers.findByQuestion(question.getId());
+        assertEquals("bob", all.get(0).getAuthor());
+        List<Answer> page = answers.findPage(question.getId(), all.get(0).getId(), 10);
+        assertEquals(2, page.size());
+        assertEquals(all.get(1).getId(), page.get(0).getId());
+        assertEquals(1, answers.findByAuthor("carol").size());
+        assertFalse(answers.updateText(all.get(0).getId(), "Ant", "carol"));
+        assertTrue(answers.updateText(all.get(0).getId(), "Ant", "bob"));
+        assertEquals("Ant", answers.findById(all.get(0).getId()).getText());
+    }
+
+    /**
+     * Test 4: Verify that reviews are stored per answer and author, edited by their author, and deleted.
+     */
+    @Test
+    public void testReviews() throws SQLException {
+        Question question = new Question(0, "Tabs or spaces?", "alice");
+        repositories.questions().insert(question);
+        Answer answer = new Answer(0, "Spaces", "bob", question.getId());
+        repositories.answers().insert(answer);
+        ReviewRepository reviews = repositories.reviews();
+        Review review = new Review(0, "Agreed", "carol", answer.getId());
+        reviews.insert(review);
+        assertTrue(review.getId() > 0);
+        try {
+            reviews.insert(new Review(0, "Orphan", "carol", answer.getId() + 100));
+            fail("A review of a missing answer should be rejected");
+        } catch (SQLException e) {
+            // expected
+        }
+
+        assertEquals(1, reviews.findByAnswer(answer.getId()).size());
+        assertEquals(1, reviews.findByAuthor("carol").size());
+        assertFalse(reviews.updateText(review.getId(), "Hijacked", "bob"));
+        assertTrue(reviews.updateText(review.getId(), "Strongly agreed", "carol"));
+        assertEquals("Strongly agreed", reviews.findById(review.getId()).getText());
+        assertTrue(reviews.delete(review.getId(), "carol"));
+        assertFalse("A deleted review should not be deleted again", reviews.delete(review.getId(), "carol"));
+        assertTrue(reviews.findByAnswer(answer.getId()).isEmpty());
+    }
+
+    /**
+     * Test 5: Verify that deleting a question deletes its answers and their reviews, and deleting
+     * an answer deletes its reviews.
+     */
+    @Test
+    public void testDeleteCascades() throws SQLException {
+        Question question = new Question(0, "Delete me?", "alice");
+        repositories.questions().insert(question);
+        Answer first = new Answer(0, "First", "bob", question.getId());
+        Answer second = new Answer(0, "Second", "carol", question.getId());
+        repositories.answers().insert(first);
+        repositories.answers().insert(second);
+        Review review = new Review(0, "Review of first", "carol", first.getId());
+        Review other = new Review(0, "Review of second", "alice", second.getId());
+        repositories.reviews().insert(review);
+        repositories.reviews().insert(other);
+
+        assertTrue(repositories.answers().delete(second.getId()));
+        assertNull(repositories.reviews().findById(other.getId()));
+        assertTrue(repositories.questions().delete(question.getId()));
+        assertFalse(repositories.questions().delete(question.getId()));
+        assertNull(repositories.answers().findById(first.getId()));
+        assertNull(repositories.reviews().findById(review.getId()));
+        assertEquals(0, repositories.questions().count());
+        assertTrue(repositories.reviews().findByAuthor("carol").isEmpty());
+        assertTrue("The deleted question's text can be asked again",
+                repositories.questions().insert(new Question(0, "Delete me?", "alice")));
+    }
+
+    /**
+     * Test 6: Verify registration, login, roles and password changes.
+     */
+    @Test
+    public void testUsers() throws SQLException {
+        UserRepository users = repositories.users();
+        assertFalse("A taken username should be rejected", users.register(new User("alice", "Other1!", "staff")));
+        assertTrue(users.exists("alice"));
+        assertFalse(users.exists("dave"));
+        assertEquals(-1, users.findId("dave"));
+        assertNotEquals(users.findId("alice"), users.findId("bob"));
+        assertEquals("student", users.findRole("alice"));
+        assertNull(users.findRole("dave"));
+        assertTrue(users.login("alice", "Passw0rd!", "student"));
+        assertFalse(users.login("alice", "Passw0rd!", "staff"));
+        assertFalse(users.login("alice", "wrong", "student"));
+        assertTrue(users.updatePassword("alice", "Changed1!"));
+        assertFalse(users.updatePassword("dave", "Changed1!"));
+        assertTrue(users.login("alice", "Changed1!", "student"));
+    }
+
+    /**
+     * Test 7: Verify that messages are filed into one conversation per pair of users, paged newest
+     * first, and that the unread counters follow reads and deletes.
+     */
+    @Test
+    public void testMessages() throws SQLException {
+        MessageRepository messages = repositories.messages();
+        int aliceId = repositories.users().findId("alice");
+        int bobId = repositories.users().findId("bob");
+        Message first = messages.insert(new Message(bobId, "Hi Bob", "alice"));
+        Message reply = messages.insert(new Message(aliceId, "Hi Alice", "bob"));
+        Message second = messages.insert(new Message(bobId, "Are you there?", "alice"));
+        assertTrue(first.getConversationId() > 0);
+        assertEquals("Both directions should share a conversation", first.getConversationId(), reply.getConversationId());
+        assertNotNull(first.getSentAt());
+        try {
+            messages.insert(new Message(bobId + aliceId + 100, "To nobody", "alice"));
+            fail("A message to a missing user should be rejected");
+        } catch (SQLException e) {
+            // expected
+        }
+
+        assertEquals(2, messages.unreadCount("bob"));
+        List<Message> inbox = messages.inboxPage("bob", 0, 1);
+        assertEquals("The inbox should be newest first", second.getMessageId(), inbox.get(0).getMessageId());
+        assertEquals(first.getMessageId(), messages.inboxPage("bob", inbox.get(0).getMessageId(), 10).get(0).getMessageId());
+
+        List<Conversation> conversations = messages.conversations("bob", 0, 10);
+        assertEquals(1, conversations.size());
+        assertEquals("alice", conversations.get(0).getOtherUserName());
+        assertEquals(2, conversations.get(0).getUnread());
+        assertEquals(second.getMessageId(), conversations.get(0).getLastMessageId());
+        assertEquals(3, messages.conversationPage(first.getConversationId(), "bob", 0, 10).size());
+        assertTrue("A user outside the conversation should see nothing",
+                messages.conversationPage(first.getConversationId(), "carol", 0, 10).isEmpty());
+
+        assertTrue(messages.markRead(first.getMessageId(), "bob"));
+        assertFalse("A message should be marked read once", messages.markRead(first.getMessageId(), "bob"));
+        assertFalse("Only the recipient can mark a message read", messages.markRead(reply.getMessageId(), "bob"));
+        assertEquals(1, messages.unreadCount("bob"));
+        assertEquals(1, messages.markConversationRead(first.getConversationId(), "bob"));
+        assertEquals(0, messages.unreadCount("bob"));
+
+        assertFalse("Only the recipient can delete a message", messages.delete(reply.getMessageId(), "bob"));
+        assertTrue(messages.delete(reply.getMessageId(), "alice"));
+        assertEquals(0, messages.unreadCount("alice"));
+        assertEquals(2, messages.conversationPage(first.getConversationId(), "alice", 0, 10).size());
+    }
+
+    /**
+     * Test 8: Verify that editing a post moves its duplicate check to the new text: the old text
+     * can be posted again, and an edit to the text of another post by the same author is rejected.
+     */
+    @Test
+    public void testEditMovesDuplicateCheck() throws SQLException {
+        Question question = new Question(0, "First wording?", "alice");
+        assertTrue(repositories.questions().insert(question));
+        assertTrue(repositories.questions().updateText(question.getId(), "Second wording?", "alice"));
+        assertTrue("The original text should be free again",
+                repositories.questions().insert(new Question(0, "First wording?", "alice")));
+        assertFalse("The edited text should be a duplicate",
+                repositories.questions().insert(new Question(0, "Second wording?", "alice")));
+        assertFalse("An edit to another question's text should be a duplicate",
+                repositories.questions().updateText(question.getId(), "First wording?", "alice"));
+        assertEquals("Second wording?", repositories.questions().findById(question.getId()).getText());
+
+        AnswerRepository answers = repositories.answers();
+        Answer answer = new Answer(0, "Maven", "bob", question.getId());
+        assertTrue(answers.insert(answer));
+        assertTrue(answers.updateText(answer.getId(), "Gradle", "bob"));
+        assertTrue("The original text should be free again", answers.insert(new Answer(0, "Maven", "bob", question.getId())));
+        assertFalse("The edited text should be a duplicate", answers.insert(new Answer(0, "Gradle", "bob", question.getId())));
+        assertFalse("An edit to another answer's text should be a duplicate", answers.updateText(answer.getId(), "Maven", "bob"));
+        assertTrue("An edit to the same text should succeed", answers.updateText(answer.getId(), "Gradle", "bob"));
+    }
+
+    /**
+     * Test 9: Verify that subset questions and their answers are stored under their parents,
+     * listed in ID order, edited by their author only, and deleted with the main question.
+     */
+    @Test
+    public void testSubsetQuestionsAndAnswers() throws SQLException {
+        Question question = new Question(0, "Which database?", "alice");
+        repositories.questions().insert(question);
+        SubsetQuestionRepository subsetQuestions = repositories.subsetQuestions();
+        Question first = new Question(0, "Embedded or server?", "bob");
+        Question second = new Question(0, "Which version?", "carol");
+        subsetQuestions.insert(question.getId(), first);
+        subsetQuestions.insert(question.getId(), second);
+        assertTrue(first.getId() > 0);
+        try {
+            subsetQuestions.insert(question.getId() + 100, new Question(0, "Orphan?", "bob"));
+            fail("A subset question of a missing question should be rejected");
+        } catch (SQLException e) {
+            // expected
+        }
+        List<Question> listed = subsetQuestions.findByQuestion(question.getId());
+        assertEquals(2, listed.size());
+        assertEquals(first.getId(), listed.get(0).getId());
+        assertFalse(subsetQuestions.updateText(first.getId(), "Changed by carol", "carol"));
+        assertTrue(subsetQuestions.updateText(first.getId(), "Embedded or TCP server?", "bob"));
+        assertEquals("Embedded or TCP server?", subsetQuestions.findByQuestion(question.getId()).get(0).getText());
+
+        SubsetAnswerRepository subsetAnswers = repositories.subsetAnswers();
+        Answer answer = new Answer(0, "Embedded", "alice", first.getId());
+        assertTrue(subsetAnswers.insert(answer));
+        assertFalse("The same answer by the same author should be a duplicate",
+                subsetAnswers.insert(new Answer(0, "Embedded", "alice", first.getId())));
+        assertTrue(subsetAnswers.insert(new Answer(0, "Embedded", "alice", second.getId())));
+        assertTrue(subsetAnswers.insert(new Answer(0, "Server", "alice", first.getId())));
+        List<Answer> answers = subsetAnswers.findBySubsetQuestion(first.getId());
+        assertEquals(2, answers.size());
+        assertEquals(answer.getId(), answers.get(0).getId());
+        assertFalse(subsetAnswers.updateText(answer.getId(), "Hijacked", "bob"));
+        assertFalse("An edit to another answer's text should be a duplicate",
+                subsetAnswers.updateText(answers.get(1).getId(), "Embedded", "alice"));
+        assertTrue(subsetAnswers.updateText(answer.getId(), "Embedded file", "alice"));
+        assertTrue("The original text should be free again", subsetAnswers.insert(new Answer(0, "Embedded", "alice", first.getId())));
+
+        assertTrue(repositories.questions().delete(question.getId()));
+        assertTrue(subsetQuestions.findByQuestion(question.getId()).isEmpty());
+        assertTrue(subsetAnswers.findBySubsetQuestion(first.getId()).isEmpty());
+    }
+
+    /**
+     * Test 10: Verify that a stored question, answer or subset answer is queued for every reviewer
+     * by the insert itself, and that a rejected duplicate queues nothing.
+     */
+    @Test
+    public void testInsertsQueueForReviewers() throws SQLException {
+        assumeTrue("Only the H2 repositories keep review queues", engine == DataSourceConfig.Engine.H2);
+        assertTrue(repositories.users().register(new User("rita", "Passw0rd!", "reviewer")));
+        ReviewQueue reviewQueue = new ReviewQueue(dbHelper);
+        Question question = new Question(0, "How are reviews queued?", "alice");
+        assertTrue(repositories.questions().insert(question));
+        assertFalse(repositories.questions().insert(new Question(0, "How are reviews queued?", "alice")));
+        Answer answer = new Answer(0, "By the insert", "bob", question.getId());
+        assertTrue(repositories.answers().insert(answer));
+        assertFalse(repositories.answers().insert(new Answer(0, "By the insert", "bob", question.getId())));
+        Question subsetQuestion = new Question(0, "In the same transaction?", "carol");
+        repositories.subsetQuestions().insert(question.getId(), subsetQuestion);
+        Answer subsetAnswer = new Answer(0, "Yes", "alice", subsetQuestion.getId());
+        assertTrue(repositories.subsetAnswers().insert(subsetAnswer));
+
+        List<ReviewQueue.PendingItem> questions = reviewQueue.getPendingPage("rita", ReviewQueue.ItemType.QUESTION, 0, 10);
+        assertEquals(1, questions.size());
+        assertEquals(question.getId(), questions.get(0).getId());
+        List<ReviewQueue.PendingItem> answers = reviewQueue.getPendingPage("rita", ReviewQueue.ItemType.ANSWER, 0, 10);
+        assertEquals(1, answers.size());
+        assertEquals(answer.getId(), answers.get(0).getId());
+        List<ReviewQueue.PendingItem> subsetAnswers = reviewQueue.getPendingPage("rita", ReviewQueue.ItemType.SUBSET_ANSWER, 0, 10);
+        assertEquals(1, subsetAnswers.size());
+        assertEquals(subsetAnswer.getId(), subsetAnswers.get(0).getId());
+        assertTrue("Students should have nothing queued",
+                reviewQueue.getPendingPage("alice", ReviewQueue.ItemType.QUESTION, 0, 10).isEmpty());
+    }
+
+    /**
+     * Test 11: Verify that reviewing, deleting a review and deleting a question update the review
+     * queue in the write itself: a review takes the answer out of its author's queue, deleting
+     * their only review puts it back, and deleting a question takes it, its answers and its subset
+     * answers out of every queue.
+     */
+    @Test
+    public void testWritesKeepReviewQueue() throws SQLException {
+        assumeTrue("Only the H2 repositories keep review queues", engine == DataSourceConfig.Engine.H2);
+        assertTrue(repositories.users().register(new User("rita", "Passw0rd!", "reviewer")));
+        ReviewQueue reviewQueue = new ReviewQueue(dbHelper);
+        Question question = new Question(0, "What does a delete take with it?", "alice");
+        repositories.questions().insert(question);
+        Answer answer = new Answer(0, "Its answers", "bob", question.getId());
+        repositories.answers().insert(answer);
+        Question subsetQuestion = new Question(0, "And the clarifications?", "carol");
+        repositories.subsetQuestions().insert(question.getId(), subsetQuestion);
+        Answer subsetAnswer = new Answer(0, "Those too", "alice", subsetQuestion.getId());
+        repositories.subsetAnswers().insert(subsetAnswer);
+
+        Review first = new Review(0, "Correct", "rita", answer.getId());
+        Review second = new Review(0, "Still correct", "rita", answer.getId());
+        repositories.reviews().insert(first);
+        repositories.reviews().insert(second);
+        assertTrue(reviewQueue.getPendingPage("rita", ReviewQueue.ItemType.ANSWER, 0, 10).isEmpty());
+        assertTrue(repositories.reviews().delete(first.getId(), "rita"));
+        assertTrue("Another review by the author should keep the answer out of the queue",
+                reviewQueue.getPendingPage("rita", ReviewQueue.ItemType.ANSWER, 0, 10).isEmpty());
+        assertTrue(repositories.reviews().delete(second.getId(), "rita"));
+        assertEquals(1, reviewQueue.getPendingPage("rita", ReviewQueue.ItemType.ANSWER, 0, 10).size());
+
+        new QuestionReviewManager(dbHelper).saveReview(new QuestionReview(0, "Clear", "rita", question.getId()));
+        assertTrue(reviewQueue.getPendingPage("rita", ReviewQueue.ItemType.QUESTION, 0, 10).isEmpty());
+
+        assertTrue(repositories.questions().delete(question.getId()));
+        try (Connection conn = dbHelper.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM reviewQueue")) {
+            assertTrue(rs.next());
+            assertEquals("The cascaded answers should leave the queue with the question", 0, rs.getInt(1));
+        }
+    }
+
+    /**
+     * Test 12: Verify that the configuration selects the engine, and that the memory engine keeps
+     * its write-ahead log next to the database file.
+     */
+    @Test
+    public void testConfigurationSelectsEngine() {
+        if (engine == DataSourceConfig.Engine.H2) {
+            assertTrue(repositories instanceof JdbcRepositories);
+            assertNull("An in-memory database has no log", config.getLogFile());
+        } else {
+            assertTrue(repositories instanceof MemoryRepositories);
+            assertEquals(directory.resolve("data.wal"), config.getLogFile());
+            assertTrue(Files.exists(config.getLogFile()));
+        }
+    }
+
+    /**
+     * Test 13: Verify that the in-memory engine replays its log after a restart, including subset
+     * posts and edits, and drops a record torn by a crash.
+     */
+    @Test
+    public void testMemoryEngineReplaysLog() throws SQLException, IOException {
+        assumeTrue(engine == DataSourceConfig.Engine.MEMORY);
+        Question question = new Question(0, "Will this survive?", "alice");
+        repositories.questions().insert(question);
+        repositories.answers().insert(new Answer(0, "Yes", "bob", question.getId()));
+        Question subsetQuestion = new Question(0, "Even the subset ones?", "carol");
+        repositories.subsetQuestions().insert(question.getId(), subsetQuestion);
+        Answer subsetAnswer = new Answer(0, "Those too", "alice", subsetQuestion.getId());
+        repositories.subsetAnswers().insert(subsetAnswer);
+        repositories.subsetAnswers().updateText(subsetAnswer.getId(), "Those too, edited", "alice");
+        int bobId = repositories.users().findId("bob");
+        repositories.messages().insert(new Message(bobId, "Still there?", "alice"));
+        repositories.users().updatePassword("alice", "Changed1!");
+        dbHelper.closeConnection();
+
+        try (RandomAccessFile file = new RandomAccessFile(config.getLogFile().toFile(), "rw")) {
+            file.seek(file.length());
+            file.write(new byte[] { 0, 0, 0, 40, 1, 2, 3 });
+        }
+        open();
+        assertEquals("Will this survive?", repositories.questions().findById(question.getId()).getText());
+        assertEquals(1, repositories.answers().countByQuestion(question.getId()));
+        assertEquals("Even the subset ones?", repositories.subsetQuestions().findByQuestion(question.getId()).get(0).getText());
+        assertEquals("Those too, edited", repositories.subsetAnswers().findBySubsetQuestion(subsetQuestion.getId()).get(0).getText());
+        assertFalse("The edited subset answer should still be a duplicate",
+                repositories.subsetAnswers().insert(new Answer(0, "Those too, edited", "alice", subsetQuestion.getId())));
+        assertEquals(1, repositories.messages().unreadCount("bob"));
+        assertTrue(repositories.users().login("alice", "Changed1!", "student"));
+        Question next = new Question(0, "After the restart?", "bob");
+        repositories.questions().insert(next);
+        assertTrue("IDs should continue after the replayed ones", next.getId() > question.getId());
+    }
+
+    /**
+     * Test 14: Verify that a checkpoint shortens the log and keeps the state, including the IDs
+     * already given out.
+     */
+    @Test
+    public void testMemoryEngineCheckpoint() throws SQLException {
+        assumeTrue(engine == DataSourceConfig.Engine.MEMORY);
+        MemoryRepositories memory = (MemoryRepositories) repositories;
+        Question kept = new Question(0, "Kept?", "alice");
+        Question deleted = new Question(0, "Deleted?", "alice");
+        memory.questions().insert(kept);
+        memory.questions().insert(deleted);
+        memory.questions().updateText(kept.getId(), "Kept and edited?", "alice");
+        Question keptSubset = new Question(0, "Kept subset?", "bob");
+        Question deletedSubset = new Question(0, "Deleted subset?", "bob");
+        memory.subsetQuestions().insert(kept.getId(), keptSubset);
+        memory.subsetQuestions().insert(deleted.getId(), deletedSubset);
+        memory.subsetAnswers().insert(new Answer(0, "Gone with it", "carol", deletedSubset.getId()));
+        memory.questions().delete(deleted.getId());
+        long records = memory.getLogRecords();
+        memory.checkpoint();
+        assertTrue("The checkpoint should shorten the log", memory.getLogRecords() < records);
+        dbHelper.closeConnection();
+
+        open();
+        assertEquals(1, repositories.questions().count());
+        assertEquals("Kept and edited?", repositories.questions().findById(kept.getId()).getText());
+        assertEquals(1, repositories.subsetQuestions().findByQuestion(kept.getId()).size());
+        assertTrue(repositories.subsetAnswers().findBySubsetQuestion(deletedSubset.getId()).isEmpty());
+        Question next = new Question(0, "New?", "bob");
+        repositories.questions().insert(next);
+        assertTrue("The deleted question's ID should not be reused", next.getId() > deleted.getId());
+        Question nextSubset = new Question(0, "New subset?", "bob");
+        repositories.subsetQuestions().insert(kept.getId(), nextSubset);
+        assertTrue("The deleted subset question's ID should not be reused", nextSubset.getId() > deletedSubset.getId());
+    }
+
+    private void open() throws SQLException {
+        dbHelper = new DatabaseHelper(config);
+        dbHelper.connectToDatabase();
+        repositories = dbHelper.getRepositories();
+    }
+}
@@ -2,115 +2,83 @@ package application;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import databasePart1.DatabaseHelper;
 
+// Reviews are stored through the helper's ReviewRepository, which also keeps the answer scores, the
+// reviewer statistics and the review queue current; this class keeps the caches and the event bus in step.
 public class ReviewManager {
     private final DatabaseHelper databaseHelper;
+    private final ReviewRepository reviews;
 
     // Constructor to initialize the ReviewManager.
     public ReviewManager(DatabaseHelper databaseHelper) {
         this.databaseHelper = databaseHelper;
+        this.reviews = databaseHelper.getRepositories().reviews();
     }
     
     // Saves a new review to the database.
     public void saveReview(Review review) {
-        String insertQuery = "INSERT INTO reviews (text, author, answerId) VALUES (?, ?, ?)";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, review.getText());
-            pstmt.setString(2, review.getAuthor());
-            pstmt.setInt(3, review.getQuestionId()); // Note: getQuestionId() returns answerId in Review.java
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        review.setId(generatedKeys.getInt(1));
-                    }
-                }
-            }
+        try {
+            // The review, the answer scores of the students who trust its author, the author's
+            // statistics and their review queue change together.
+            reviews.insert(review);
+            databaseHelper.getContentCache().reviewAdded(review.getQuestionId(), review.getAuthor());
+            databaseHelper.getEventBus().publish(new Events.ReviewSaved(review));
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
     
     /**
-     * Retrieves all reviews for a specific answer.
+     * Retrieves all reviews for a specific answer, from the content cache when it holds them.
      * @param answerId the identifier of the answer
      * @return a list of reviews associated with the answer
      */
     public List<Review> getReviewsForAnswer(int answerId) {
-        List<Review> reviews = new ArrayList<>();
-        String query = "SELECT id, text, author, answerId FROM reviews WHERE answerId = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, answerId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    reviews.add(new Review(
-                        rs.getInt("id"),
-                        rs.getString("text"),
-                        rs.getString("author"),
-                        rs.getInt("answerId")
-                    ));
-                }
-            }
+        try {
+            return new ArrayList<>(databaseHelper.getContentCache().get(ContentCache.Region.REVIEWS_FOR_ANSWER,
+                    answerId, () -> loadReviewsForAnswer(answerId)));
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return reviews;
+        return new ArrayList<>();
+    }
+
+    private List<Review> loadReviewsForAnswer(int answerId) throws SQLException {
+        return Collections.unmodifiableList(reviews.findByAnswer(answerId));
     }
     
-    // Retrieves all reviews written by a specific user.
+    // Retrieves all reviews written by a specific user, from the content cache when it holds them.
     public List<Review> getReviewsFromUser(String user) {
-        List<Review> reviews = new ArrayList<>();
-        String query = "SELECT id, text, author, answerId FROM reviews WHERE author = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, user);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    reviews.add(new Review(
-                        rs.getInt("id"), 
-                        rs.getString("text"), 
-                        rs.getString("author"), 
-                        rs.getInt("answerId")
-                    ));
-                }
-            }
+        try {
+            return new ArrayList<>(databaseHelper.getContentCache().get(ContentCache.Region.REVIEWS_BY_AUTHOR,
+                    user, () -> loadReviewsFromUser(user)));
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return reviews;
+        return new ArrayList<>();
+    }
+
+    private List<Review> loadReviewsFromUser(String user) throws SQLException {
+        return Collections.unmodifiableList(reviews.findByAuthor(user));
     }
     
-    // Retrieves the rating (weightage) for a given reviewer from the users table.
+    // Retrieves the rating of a given reviewer: the mean weightage given by the students who trust them.
     public double getRatingFromUser(String user) {
-        double rating = 0;
-        String query = "SELECT rating FROM cse360users WHERE userName = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, user);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    rating = rs.getDouble("rating");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return rating;
+        return new ReviewerStatsManager(databaseHelper).getStats(user).getTrustWeightedMean();
     }
     
     // Updates an existing review if the user is the author.
     public boolean updateReview(int reviewId, String newText, String userName) {
-        String query = "UPDATE reviews SET text = ? WHERE id = ? AND author = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, newText);
-            pstmt.setInt(2, reviewId);
-            pstmt.setString(3, userName);
-            return pstmt.executeUpdate() > 0;
+        try {
+            boolean updated = reviews.updateText(reviewId, newText, userName);
+            if (updated) {
+                databaseHelper.getContentCache().reviewChanged(reviewId);
+                databaseHelper.getEventBus().publish(new Events.ReviewUpdated(reviewId, newText));
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -119,20 +87,18 @@ public class ReviewManager {
     
     // Deletes a review if the user is the author or has admin privileges.
     public boolean deleteReview(int reviewId, String userName, boolean isAdmin) {
-        String checkQuery = "SELECT author FROM reviews WHERE id = ?";
-        String deleteQuery = "DELETE FROM reviews WHERE id = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
-             PreparedStatement deleteStmt = conn.prepareStatement(deleteQuery)) {
-            checkStmt.setInt(1, reviewId);
-            try (ResultSet rs = checkStmt.executeQuery()) {
-                if (rs.next()) {
-                    String author = rs.getString("author");
-                    if (author.equals(userName) || isAdmin) {
-                        deleteStmt.setInt(1, reviewId);
-                        return deleteStmt.executeUpdate() > 0;
-                    }
+        try {
+            Review review = reviews.findById(reviewId);
+            if (review != null && (review.getAuthor().equals(userName) || isAdmin)) {
+                boolean deleted = reviews.delete(reviewId, userName);
+                if (deleted) {
+                    databaseHelper.getContentCache().reviewChanged(reviewId);
+                    // The delete put the answer back in the reviewer's queue if this was their only review of it.
+                    String author = review.getAuthor();
+                    boolean requeued = reviews.findByAnswer(review.getQuestionId()).stream().noneMatch(r -> r.getAuthor().equals(author));
+                    databaseHelper.getEventBus().publish(new Events.ReviewDeleted(review, requeued));
                 }
+                return deleted;
             }
         } catch (SQLException e) {
             e.printStackTrace();
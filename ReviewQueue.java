@@ -0,0 +1,238 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ReviewQueue class maintains the reviewQueue table: one row per reviewer and item (question,
+ * main answer or clarification answer) that the reviewer has not reviewed yet.
+ *
+ * Rows are added for every reviewer when content is saved, removed when the reviewer saves a
+ * review, and backfilled when a student becomes a reviewer. Reading a page of the queue is then an
+ * index range scan on (reviewer, itemType, itemId) instead of an anti-join over all reviews.
+ * The static methods take the connection of the write they belong to.
+ */
+public class ReviewQueue {
+
+    /**
+     * The kinds of items a reviewer can review.
+     */
+    public enum ItemType {
+        QUESTION("questions"),
+        ANSWER("answers"),
+        SUBSET_ANSWER("subSetAnswers");
+
+        private final String table;
+
+        ItemType(String table) {
+            this.table = table;
+        }
+    }
+
+    /**
+     * A question or answer waiting for review.
+     */
+    public static final class PendingItem {
+        private final ItemType type;
+        private final int id;
+        private final String text;
+        private final String author;
+
+        PendingItem(ItemType type, int id, String text, String author) {
+            this.type = type;
+            this.id = id;
+            this.text = text;
+            this.author = author;
+        }
+
+        public ItemType getType() { return type; }
+        public int getId() { return id; }
+        public String getText() { return text; }
+        public String getAuthor() { return author; }
+    }
+
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the ReviewQueue.
+     * @param databaseHelper the database helper instance
+     */
+    public ReviewQueue(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Adds a newly saved item to the queue of every reviewer.
+     * @param conn the connection to use
+     * @param type the kind of item
+     * @param itemId the ID of the item
+     * @throws SQLException if the insert fails
+     */
+    public static void enqueue(Connection conn, ItemType type, int itemId) throws SQLException {
+        String query = "INSERT INTO reviewQueue (reviewer, itemType, itemId) "
+                + "SELECT userName, ?, ? FROM cse360users WHERE role = 'reviewer'";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, type.name());
+            pstmt.setInt(2, itemId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Fills the queue of a new reviewer with every item they have not reviewed.
+     * Items already queued for the reviewer are left alone, so this can be called again safely.
+     * @param reviewer the reviewer's username
+     */
+    public void enqueueAllFor(String reviewer) {
+        String[] queries = {
+            "INSERT INTO reviewQueue (reviewer, itemType, itemId) SELECT ?, 'QUESTION', q.id FROM questions q "
+                + "WHERE NOT EXISTS (SELECT 1 FROM questionReviews r WHERE r.reviewer = ? AND r.questionId = q.id) "
+                + "AND NOT EXISTS (SELECT 1 FROM reviewQueue p WHERE p.reviewer = ? AND p.itemType = 'QUESTION' AND p.itemId = q.id)",
+            "INSERT INTO reviewQueue (reviewer, itemType, itemId) SELECT ?, 'ANSWER', a.id FROM answers a "
+                + "WHERE NOT EXISTS (SELECT 1 FROM reviews r WHERE r.author = ? AND r.answerId = a.id) "
+                + "AND NOT EXISTS (SELECT 1 FROM reviewQueue p WHERE p.reviewer = ? AND p.itemType = 'ANSWER' AND p.itemId = a.id)",
+            "INSERT INTO reviewQueue (reviewer, itemType, itemId) SELECT ?, 'SUBSET_ANSWER', a.id FROM subSetAnswers a "
+                + "WHERE NOT EXISTS (SELECT 1 FROM reviews r WHERE r.author = ? AND r.answerId = a.id) "
+                + "AND NOT EXISTS (SELECT 1 FROM reviewQueue p WHERE p.reviewer = ? AND p.itemType = 'SUBSET_ANSWER' AND p.itemId = a.id)"
+        };
+        try (Connection conn = databaseHelper.getConnection()) {
+            for (String query : queries) {
+                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                    pstmt.setString(1, reviewer);
+                    pstmt.setString(2, reviewer);
+                    pstmt.setString(3, reviewer);
+                    pstmt.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes an item from a reviewer's queue once they have reviewed it.
+     * @param conn the connection to use
+     * @param reviewer the reviewer's username
+     * @param type the kind of item
+     * @param itemId the ID of the item
+     * @throws SQLException if the delete fails
+     */
+    public static void markReviewed(Connection conn, String reviewer, ItemType type, int itemId) throws SQLException {
+        String query = "DELETE FROM reviewQueue WHERE reviewer = ? AND itemType = ? AND itemId = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, reviewer);
+            pstmt.setString(2, type.name());
+            pstmt.setInt(3, itemId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Puts an item back in a reviewer's queue, for example after their review of it was deleted.
+     * @param conn the connection to use
+     * @param reviewer the reviewer's username
+     * @param type the kind of item
+     * @param itemId the ID of the item
+     * @throws SQLException if the insert fails
+     */
+    public static void requeue(Connection conn, String reviewer, ItemType type, int itemId) throws SQLException {
+        String query = "INSERT INTO reviewQueue (reviewer, itemType, itemId) SELECT userName, ?, ? FROM cse360users "
+                + "WHERE userName = ? AND role = 'reviewer' AND NOT EXISTS "
+                + "(SELECT 1 FROM reviewQueue WHERE reviewer = ? AND itemType = ? AND itemId = ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, type.name());
+            pstmt.setInt(2, itemId);
+            pstmt.setString(3, reviewer);
+            pstmt.setString(4, reviewer);
+            pstmt.setString(5, type.name());
+            pstmt.setInt(6, itemId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Removes a deleted item from every reviewer's queue.
+     * @param conn the connection to use
+     * @param type the kind of item
+     * @param itemId the ID of the item
+     * @throws SQLException if the delete fails
+     */
+    public static void remove(Connection conn, ItemType type, int itemId) throws SQLException {
+        String query = "DELETE FROM reviewQueue WHERE itemType = ? AND itemId = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, type.name());
+            pstmt.setInt(2, itemId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Removes a question that is being deleted from every reviewer's queue, together with its
+     * answers and the answers of its subset questions, which the delete cascades to. Call it in the
+     * delete's transaction, before the delete, while the answers can still be found.
+     * @param conn the connection to use
+     * @param questionId the ID of the question
+     * @throws SQLException if the delete fails
+     */
+    public static void removeQuestionThread(Connection conn, int questionId) throws SQLException {
+        String[] queries = {
+            "DELETE FROM reviewQueue WHERE itemType = 'QUESTION' AND itemId = ?",
+            "DELETE FROM reviewQueue WHERE itemType = 'ANSWER' AND itemId IN (SELECT id FROM answers WHERE questionId = ?)",
+            "DELETE FROM reviewQueue WHERE itemType = 'SUBSET_ANSWER' AND itemId IN "
+                + "(SELECT a.id FROM subSetAnswers a JOIN subSetQuestions q ON q.id = a.saID WHERE q.qID = ?)"
+        };
+        for (String query : queries) {
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, questionId);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Removes every queued answer that its reviewer has already reviewed, for example after reviews
+     * were loaded in bulk.
+     */
+    public void removeReviewed() {
+        String query = "DELETE FROM reviewQueue p WHERE p.itemType IN ('ANSWER', 'SUBSET_ANSWER') "
+                + "AND EXISTS (SELECT 1 FROM reviews r WHERE r.author = p.reviewer AND r.answerId = p.itemId)";
+        try (Connection conn = databaseHelper.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(query);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Retrieves one page of a reviewer's pending items of one kind, in ID order after the given ID.
+     * Rows whose item has since been deleted are skipped by the join.
+     * @param reviewer the reviewer's username
+     * @param type the kind of item
+     * @param afterId the ID of the last item of the previous page, or 0 for the first page
+     * @param limit the maximum number of items to return
+     * @return a list of at most limit pending items
+     */
+    public List<PendingItem> getPendingPage(String reviewer, ItemType type, int afterId, int limit) {
+        List<PendingItem> items = new ArrayList<>();
+        String query = "SELECT t.id, t.text, t.author FROM reviewQueue p JOIN " + type.table + " t ON t.id = p.itemId "
+                + "WHERE p.reviewer = ? AND p.itemType = ? AND p.itemId > ? ORDER BY p.itemId LIMIT ?";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, reviewer);
+            pstmt.setString(2, type.name());
+            pstmt.setInt(3, afterId);
+            pstmt.setInt(4, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    items.add(new PendingItem(type, rs.getInt("id"), rs.getString("text"), rs.getString("author")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return items;
+    }
+}
@@ -13,11 +13,14 @@ import java.util.List;
  * ReviewQueuePage displays pending review items for the logged-in reviewer.
  * It presents three tabs: one for Questions, one for Main Answers, and one for Clarification Answers.
  * In each tab, the reviewer can click "Review" to add their review.
+ * While the page is shown, items saved, deleted or reviewed anywhere in the application are added
+ * to or removed from the tabs in place.
  */
 public class ReviewQueuePage {
     private final DatabaseHelper databaseHelper;
     private final User reviewer;
     private final Stage primaryStage;
+    private final ReviewQueue reviewQueue;
     
     /**
      * Constructs a ReviewQueuePage.
@@ -29,6 +32,7 @@ public class ReviewQueuePage {
         this.databaseHelper = databaseHelper;
         this.reviewer = reviewer;
         this.primaryStage = primaryStage;
+        this.reviewQueue = new ReviewQueue(databaseHelper);
     }
     
     /**
@@ -43,30 +47,33 @@ public class ReviewQueuePage {
         mainAnswersTab.setClosable(false);
         subsetAnswersTab.setClosable(false);
         
-        ListView<HBox> questionListView = new ListView<>();
-        ListView<HBox> mainAnswerList = new ListView<>();
-        ListView<HBox> subsetAnswerList = new ListView<>();
-        
-        refreshQuestionList(questionListView);
-        refreshMainAnswerList(mainAnswerList);
-        refreshSubsetAnswerList(subsetAnswerList);
-        
-        if (questionListView.getItems().isEmpty()) {
-            Label emptyLabel = new Label("No questions available for review.");
-            questionListView.getItems().add(new HBox(emptyLabel));
-        }
-        if (mainAnswerList.getItems().isEmpty()) {
-            Label emptyLabel = new Label("No main answers available for review.");
-            mainAnswerList.getItems().add(new HBox(emptyLabel));
-        }
-        if (subsetAnswerList.getItems().isEmpty()) {
-            Label emptyLabel = new Label("No clarification answers available for review.");
-            subsetAnswerList.getItems().add(new HBox(emptyLabel));
-        }
-        
-        questionsTab.setContent(questionListView);
-        mainAnswersTab.setContent(mainAnswerList);
-        subsetAnswersTab.setContent(subsetAnswerList);
+        // Each tab pages through the reviewer's pending-work queue by ID instead of loading it all.
+        PagedListView<ReviewQueue.PendingItem> questionListView = new PagedListView<>(
+                (last, limit) -> loadPendingPage(ReviewQueue.ItemType.QUESTION, last, limit),
+                item -> buildRow(item, () -> showQuestionReviewPopup(item.getId())));
+        PagedListView<ReviewQueue.PendingItem> mainAnswerList = new PagedListView<>(
+                (last, limit) -> loadPendingPage(ReviewQueue.ItemType.ANSWER, last, limit),
+                item -> buildRow(item, () -> showReviewPopup(item.getId())));
+        PagedListView<ReviewQueue.PendingItem> subsetAnswerList = new PagedListView<>(
+                (last, limit) -> loadPendingPage(ReviewQueue.ItemType.SUBSET_ANSWER, last, limit),
+                item -> buildRow(item, () -> showReviewPopup(item.getId())));
+        
+        questionListView.setPlaceholder("No questions available for review.");
+        mainAnswerList.setPlaceholder("No main answers available for review.");
+        subsetAnswerList.setPlaceholder("No clarification answers available for review.");
+        
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        questionListView.setAsyncDataAccess(async);
+        mainAnswerList.setAsyncDataAccess(async);
+        subsetAnswerList.setAsyncDataAccess(async);
+        
+        questionListView.reset();
+        mainAnswerList.reset();
+        subsetAnswerList.reset();
+        
+        questionsTab.setContent(questionListView.getListView());
+        mainAnswersTab.setContent(mainAnswerList.getListView());
+        subsetAnswersTab.setContent(subsetAnswerList.getListView());
         tabPane.getTabs().addAll(questionsTab, mainAnswersTab, subsetAnswersTab);
         
         Button backButton = new Button("Back");
@@ -77,97 +84,102 @@ public class ReviewQueuePage {
         Scene scene = new Scene(layout, 800, 600);
         primaryStage.setScene(scene);
         primaryStage.setTitle("Review Queue");
+        
+        EventBus eventBus = databaseHelper.getEventBus();
+        EventBus.cancelWhenSceneChanges(primaryStage,
+                eventBus.subscribe(Events.QuestionCreated.class, events -> {
+                    for (Events.QuestionCreated event : events) {
+                        Question q = event.getQuestion();
+                        questionListView.addLast(new ReviewQueue.PendingItem(ReviewQueue.ItemType.QUESTION, q.getId(), q.getText(), q.getAuthor()));
+                    }
+                }),
+                eventBus.subscribe(Events.AnswerCreated.class, events -> {
+                    for (Events.AnswerCreated event : events) {
+                        Answer a = event.getAnswer();
+                        if (event.isClarification()) {
+                            subsetAnswerList.addLast(new ReviewQueue.PendingItem(ReviewQueue.ItemType.SUBSET_ANSWER, a.getId(), a.getText(), a.getAuthor()));
+                        } else {
+                            mainAnswerList.addLast(new ReviewQueue.PendingItem(ReviewQueue.ItemType.ANSWER, a.getId(), a.getText(), a.getAuthor()));
+                        }
+                    }
+                }),
+                eventBus.subscribe(Events.QuestionUpdated.class, events -> {
+                    for (Events.QuestionUpdated event : events) {
+                        if (!event.isSubset()) {
+                            questionListView.replaceAll(item -> item.getId() != event.getQuestionId() ? item
+                                    : new ReviewQueue.PendingItem(item.getType(), item.getId(), event.getText(), item.getAuthor()));
+                        }
+                    }
+                }),
+                // The question's answers and its subset questions' answers are deleted with it.
+                eventBus.subscribe(Events.QuestionDeleted.class, events -> {
+                    for (Events.QuestionDeleted event : events) {
+                        questionListView.removeIf(item -> item.getId() == event.getQuestionId());
+                        mainAnswerList.removeIf(item -> event.getAnswerIds().contains(item.getId()));
+                        subsetAnswerList.removeIf(item -> event.getSubsetAnswerIds().contains(item.getId()));
+                    }
+                }),
+                eventBus.subscribe(Events.AnswerDeleted.class, events -> {
+                    for (Events.AnswerDeleted event : events) {
+                        mainAnswerList.removeIf(item -> item.getId() == event.getAnswerId());
+                    }
+                }),
+                // A review by this reviewer takes the item out of their queue. Reviews carry only
+                // the answer ID, which is checked against both answer tabs like the queue does.
+                eventBus.subscribe(Events.ReviewSaved.class, events -> {
+                    for (Events.ReviewSaved event : events) {
+                        Review review = event.getReview();
+                        if (review.getAuthor().equals(reviewer.getUserName())) {
+                            mainAnswerList.removeIf(item -> item.getId() == review.getQuestionId());
+                            subsetAnswerList.removeIf(item -> item.getId() == review.getQuestionId());
+                        }
+                    }
+                }),
+                // Deleting this reviewer's only review of an answer puts it back in their queue, in ID
+                // order among the loaded items, so both answer tabs are loaded again.
+                eventBus.subscribe(Events.ReviewDeleted.class, events -> {
+                    for (Events.ReviewDeleted event : events) {
+                        if (event.isRequeued() && event.getReview().getAuthor().equals(reviewer.getUserName())) {
+                            mainAnswerList.reset();
+                            subsetAnswerList.reset();
+                            return;
+                        }
+                    }
+                }),
+                eventBus.subscribe(Events.QuestionReviewSaved.class, events -> {
+                    for (Events.QuestionReviewSaved event : events) {
+                        QuestionReview review = event.getReview();
+                        if (review.getReviewer().equals(reviewer.getUserName())) {
+                            questionListView.removeIf(item -> item.getId() == review.getQuestionId());
+                        }
+                    }
+                }));
     }
     
     /**
-     * Refreshes the list view with questions pending review.
-     * A question is pending if there is no review by this reviewer in the questionReviews table.
-     * @param listView the ListView to populate with questions
-     */
-    private void refreshQuestionList(ListView<HBox> listView) {
-        listView.getItems().clear();
-        String query = "SELECT id, text, author FROM questions " +
-                       "WHERE id NOT IN (SELECT questionId FROM questionReviews WHERE reviewer = ?)";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, reviewer.getUserName());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    int questionId = rs.getInt("id");
-                    String text = rs.getString("text");
-                    String author = rs.getString("author");
-                    
-                    HBox row = new HBox(10);
-                    Label questionLabel = new Label(text + " (by " + author + ")");
-                    Button reviewButton = new Button("Review");
-                    reviewButton.setOnAction(e -> showQuestionReviewPopup(questionId));
-                    row.getChildren().addAll(questionLabel, reviewButton);
-                    listView.getItems().add(row);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-    
-    /**
-     * Refreshes the list view with main answers pending review.
-     * @param listView the ListView to populate with main answers
+     * Loads one page of the reviewer's pending items of one kind, after the last loaded item.
+     * @param type the kind of item
+     * @param last the last item already loaded, or null for the first page
+     * @param limit the maximum number of items to return
+     * @return the next page of pending items
      */
-    private void refreshMainAnswerList(ListView<HBox> listView) {
-        listView.getItems().clear();
-        String query = "SELECT id, text, author, questionId FROM answers " +
-                       "WHERE id NOT IN (SELECT answerId FROM reviews WHERE author = ?)";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, reviewer.getUserName());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    int answerId = rs.getInt("id");
-                    String text = rs.getString("text");
-                    String author = rs.getString("author");
-                    
-                    HBox row = new HBox(10);
-                    Label answerLabel = new Label(text + " (by " + author + ")");
-                    Button reviewButton = new Button("Review");
-                    reviewButton.setOnAction(e -> showReviewPopup(answerId));
-                    row.getChildren().addAll(answerLabel, reviewButton);
-                    listView.getItems().add(row);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    private List<ReviewQueue.PendingItem> loadPendingPage(ReviewQueue.ItemType type, ReviewQueue.PendingItem last, int limit) {
+        return reviewQueue.getPendingPage(reviewer.getUserName(), type, last == null ? 0 : last.getId(), limit);
     }
     
     /**
-     * Refreshes the list view with clarification (subset) answers pending review.
-     * @param listView the ListView to populate with clarification answers
+     * Builds the row shown for a pending item.
+     * @param item the pending item
+     * @param onReview the action of the row's "Review" button
+     * @return the row
      */
-    private void refreshSubsetAnswerList(ListView<HBox> listView) {
-        listView.getItems().clear();
-        String query = "SELECT id, text, author, saID FROM subSetAnswers " +
-                       "WHERE id NOT IN (SELECT answerId FROM reviews WHERE author = ?)";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, reviewer.getUserName());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    int answerId = rs.getInt("id");
-                    String text = rs.getString("text");
-                    String author = rs.getString("author");
-                    
-                    HBox row = new HBox(10);
-                    Label answerLabel = new Label(text + " (by " + author + ")");
-                    Button reviewButton = new Button("Review");
-                    reviewButton.setOnAction(e -> showReviewPopup(answerId));
-                    row.getChildren().addAll(answerLabel, reviewButton);
-                    listView.getItems().add(row);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    private HBox buildRow(ReviewQueue.PendingItem item, Runnable onReview) {
+        HBox row = new HBox(10);
+        Label itemLabel = new Label(item.getText() + " (by " + item.getAuthor() + ")");
+        Button reviewButton = new Button("Review");
+        reviewButton.setOnAction(e -> onReview.run());
+        row.getChildren().addAll(itemLabel, reviewButton);
+        return row;
     }
     
     /**
@@ -192,10 +204,16 @@ public class ReviewQueuePage {
             if (!reviewText.isEmpty() && reviewText.length() <= 500) {
                 Review newReview = new Review(0, reviewText, reviewer.getUserName(), answerId);
                 ReviewManager rm = new ReviewManager(databaseHelper);
-                rm.saveReview(newReview);
-                statusLabel.setText("Review saved!");
-                popupStage.close();
-                show();
+                // Saved off the UI thread; the ReviewSaved event takes the answer out of the tabs.
+                saveButton.setDisable(true);
+                AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+                async.deliver(async.supply(() -> {
+                    rm.saveReview(newReview);
+                    return newReview;
+                }), saved -> popupStage.close(), error -> {
+                    saveButton.setDisable(false);
+                    statusLabel.setText("The review could not be saved.");
+                });
             } else {
                 statusLabel.setText("Invalid review text.");
             }
@@ -229,10 +247,16 @@ public class ReviewQueuePage {
             if (!reviewText.isEmpty() && reviewText.length() <= 500) {
                 QuestionReview qr = new QuestionReview(0, reviewText, reviewer.getUserName(), questionId);
                 QuestionReviewManager qrm = new QuestionReviewManager(databaseHelper);
-                qrm.saveReview(qr);
-                statusLabel.setText("Review saved!");
-                popupStage.close();
-                show();
+                // Saved off the UI thread; the QuestionReviewSaved event takes the question out of the tab.
+                saveButton.setDisable(true);
+                AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+                async.deliver(async.supply(() -> {
+                    qrm.saveReview(qr);
+                    return qr;
+                }), saved -> popupStage.close(), error -> {
+                    saveButton.setDisable(false);
+                    statusLabel.setText("The review could not be saved.");
+                });
             } else {
                 statusLabel.setText("Invalid review text.");
             }
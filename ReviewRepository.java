@@ -0,0 +1,50 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage of the reviews of answers. Review.getQuestionId() is the ID of the reviewed answer.
+ * Lists are in ID order.
+ */
+public interface ReviewRepository {
+
+    /**
+     * Stores a new review and sets its ID.
+     * @param review the review to store
+     * @throws SQLException if the answer does not exist or the review cannot be stored
+     */
+    void insert(Review review) throws SQLException;
+
+    /**
+     * @param id the review ID
+     * @return the review, or null if there is none
+     */
+    Review findById(int id) throws SQLException;
+
+    /**
+     * @param answerId the answer ID
+     * @return the reviews of the answer
+     */
+    List<Review> findByAnswer(int answerId) throws SQLException;
+
+    /**
+     * @param author the reviewer's username
+     * @return the reviewer's reviews
+     */
+    List<Review> findByAuthor(String author) throws SQLException;
+
+    /**
+     * Replaces the text of a review if it was written by the given author.
+     * @return true if the review was changed
+     */
+    boolean updateText(int id, String text, String author) throws SQLException;
+
+    /**
+     * Deletes a review.
+     * @param id the review ID
+     * @param deletedBy the user deleting it; it counts as the reviewer's activity when it is the reviewer
+     * @return true if the review existed
+     */
+    boolean delete(int id, String deletedBy) throws SQLException;
+}
@@ -40,7 +40,11 @@ public class ReviewerPage {
         
         Label titleLabel = new Label("View reviews by"+ user.getUserName());
         titleLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
-        Label rating = new Label("Rating: "+ reviewManager.getRatingFromUser(reviewer));
+        // The reviewer's counters are kept up to date with every review, so this reads one row.
+        ReviewerStats stats = new ReviewerStatsManager(databaseHelper).getStats(reviewer);
+        Label rating = new Label(String.format("Rating: %.2f (trusted by %d, %d answer reviews, %d question reviews)",
+                stats.getTrustWeightedMean(), stats.getTrustedByCount(), stats.getReviewCount(), stats.getQuestionReviewCount())
+                + (stats.getLastActivity() != null ? ", last active " + stats.getLastActivity().toLocalDate() : ""));
         
         reviewList = new ListView<>();
         refreshReviewList();
@@ -1,5 +1,6 @@
 package application;
 
+import databasePart1.ContentHash;
 import databasePart1.DatabaseHelper;
 import java.sql.*;
 import java.util.ArrayList;
@@ -22,34 +23,27 @@ public class ReviewerRequestManager {
     
     /**
      * Submits a new reviewer request for the given student, only if one does not already exist.
+     * The unique index on studentUserName rejects a second request in the same statement.
      * @param studentUserName the username of the student requesting reviewer role
+     * @return true if the request was inserted, false if one already exists or it could not be saved
      */
-    public void submitRequest(String studentUserName) {
-        // Check if a reviewer request already exists for this student
-        String checkQuery = "SELECT COUNT(*) FROM reviewerRequests WHERE studentUserName = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkQuery)) {
-            checkStmt.setString(1, studentUserName);
-            ResultSet rs = checkStmt.executeQuery();
-            if (rs.next() && rs.getInt(1) > 0) {
-                // Request already exists; do not insert another one
-                System.out.println("Reviewer request already exists for " + studentUserName);
-                return;
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return;
-        }
-        
-        // No existing request found; proceed to insert a new request
+    public boolean submitRequest(String studentUserName) {
         String insertQuery = "INSERT INTO reviewerRequests (studentUserName) VALUES (?)";
         try (Connection conn = databaseHelper.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
             pstmt.setString(1, studentUserName);
             pstmt.executeUpdate();
+            databaseHelper.getEventBus().publish(new Events.RequestSubmitted(studentUserName));
+            return true;
         } catch (SQLException e) {
-            e.printStackTrace();
+            if (ContentHash.isDuplicate(e)) {
+                // Request already exists; do not insert another one
+                System.out.println("Reviewer request already exists for " + studentUserName);
+            } else {
+                e.printStackTrace();
+            }
         }
+        return false;
     }
     
     /**
@@ -80,15 +74,12 @@ public class ReviewerRequestManager {
      * @return true if the update was successful, false otherwise
      */
     public boolean approveRequest(int requestId) {
-        String updateQuery = "UPDATE reviewerRequests SET status = 'approved' WHERE id = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
-            pstmt.setInt(1, requestId);
-            return pstmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
+        String student = setStatus(requestId, "approved");
+        if (student == null) {
+            return false;
         }
-        return false;
+        databaseHelper.getEventBus().publish(new Events.RequestApproved(student));
+        return true;
     }
     
     /**
@@ -97,15 +88,36 @@ public class ReviewerRequestManager {
      * @return true if the update was successful, false otherwise
      */
     public boolean denyRequest(int requestId) {
-        String updateQuery = "UPDATE reviewerRequests SET status = 'denied' WHERE id = ?";
-        try (Connection conn = databaseHelper.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
-            pstmt.setInt(1, requestId);
-            return pstmt.executeUpdate() > 0;
+        String student = setStatus(requestId, "denied");
+        if (student == null) {
+            return false;
+        }
+        databaseHelper.getEventBus().publish(new Events.RequestDenied(student));
+        return true;
+    }
+
+    // Sets a request's status and returns the student it belongs to, or null if there is no such request.
+    private String setStatus(int requestId, String status) {
+        String updateQuery = "UPDATE reviewerRequests SET status = ? WHERE id = ?";
+        String selectQuery = "SELECT studentUserName FROM reviewerRequests WHERE id = ?";
+        try (Connection conn = databaseHelper.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
+                pstmt.setString(1, status);
+                pstmt.setInt(2, requestId);
+                if (pstmt.executeUpdate() == 0) {
+                    return null;
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(selectQuery)) {
+                pstmt.setInt(1, requestId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString("studentUserName") : null;
+                }
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return false;
+        return null;
     }
     
     /**
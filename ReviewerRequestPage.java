@@ -29,8 +29,11 @@ public class ReviewerRequestPage {
         Button backButton = new Button("Back");
         
         submitButton.setOnAction(e -> {
-            requestManager.submitRequest(user.getUserName());
-            statusLabel.setText("Request submitted. Awaiting approval.");
+            if (requestManager.submitRequest(user.getUserName())) {
+                statusLabel.setText("Request submitted. Awaiting approval.");
+            } else {
+                statusLabel.setText("Current Request Status: " + requestManager.getRequestStatus(user.getUserName()));
+            }
         });
         
         backButton.setOnAction(e -> {
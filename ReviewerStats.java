@@ -0,0 +1,49 @@
+package application;
+
+import java.time.LocalDateTime;
+
+/**
+ * The ReviewerStats class is a reviewer's reputation as kept in the reviewerStats table: how many
+ * reviews they have written and how much the students who trust them weigh their reviews.
+ */
+public class ReviewerStats {
+    private final String reviewer;
+    private final int reviewCount;
+    private final int questionReviewCount;
+    private final int trustedByCount;
+    private final double weightTotal;
+    private final LocalDateTime lastActivity;
+
+    /**
+     * Constructor to initialize the ReviewerStats.
+     * @param reviewer the reviewer's username
+     * @param reviewCount the number of answer reviews written
+     * @param questionReviewCount the number of question reviews written
+     * @param trustedByCount the number of trusted reviewer entries naming the reviewer
+     * @param weightTotal the sum of the weightage of those entries
+     * @param lastActivity when the reviewer last wrote or edited a review, or null if unknown
+     */
+    public ReviewerStats(String reviewer, int reviewCount, int questionReviewCount, int trustedByCount,
+            double weightTotal, LocalDateTime lastActivity) {
+        this.reviewer = reviewer;
+        this.reviewCount = reviewCount;
+        this.questionReviewCount = questionReviewCount;
+        this.trustedByCount = trustedByCount;
+        this.weightTotal = weightTotal;
+        this.lastActivity = lastActivity;
+    }
+
+    public String getReviewer() { return reviewer; }
+    public int getReviewCount() { return reviewCount; }
+    public int getQuestionReviewCount() { return questionReviewCount; }
+    public int getTrustedByCount() { return trustedByCount; }
+    public double getWeightTotal() { return weightTotal; }
+    public LocalDateTime getLastActivity() { return lastActivity; }
+
+    /**
+     * @return the mean weightage given by the students who trust the reviewer, or 0 if none do
+     */
+    public double getTrustWeightedMean() {
+        return trustedByCount == 0 ? 0 : weightTotal / trustedByCount;
+    }
+}
@@ -0,0 +1,175 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.time.LocalDateTime;
+
+/**
+ * The ReviewerStatsManager class maintains the reviewerStats table: one row per reviewer with
+ * their review counts, the number and total weightage of the trusted reviewer entries naming
+ * them, and when they were last active.
+ *
+ * The counters are adjusted in the transaction of each write that changes them (a review saved,
+ * edited or deleted, a question review saved, a reviewed answer or question deleted, a trusted
+ * reviewer added, reweighted or removed),
+ * so reading a reviewer's reputation is one primary-key lookup instead of counting their reviews.
+ * The static methods take the connection of the write they belong to.
+ */
+public class ReviewerStatsManager {
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the ReviewerStatsManager.
+     * @param databaseHelper the database helper instance
+     */
+    public ReviewerStatsManager(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Counts a new answer review.
+     * @param conn the connection to use
+     * @param reviewer the author of the review
+     * @throws SQLException if the update fails
+     */
+    public static void reviewSaved(Connection conn, String reviewer) throws SQLException {
+        adjust(conn, reviewer, 1, 0, 0, 0, LocalDateTime.now());
+    }
+
+    /**
+     * Records an edit of an answer review as activity.
+     * @param conn the connection to use
+     * @param reviewer the author of the review
+     * @throws SQLException if the update fails
+     */
+    public static void reviewEdited(Connection conn, String reviewer) throws SQLException {
+        adjust(conn, reviewer, 0, 0, 0, 0, LocalDateTime.now());
+    }
+
+    /**
+     * Uncounts a deleted answer review.
+     * @param conn the connection to use
+     * @param reviewer the author of the review
+     * @param byReviewer whether the reviewer deleted it, which counts as activity
+     * @throws SQLException if the update fails
+     */
+    public static void reviewDeleted(Connection conn, String reviewer, boolean byReviewer) throws SQLException {
+        adjust(conn, reviewer, -1, 0, 0, 0, byReviewer ? LocalDateTime.now() : null);
+    }
+
+    /**
+     * Counts a new question review.
+     * @param conn the connection to use
+     * @param reviewer the author of the review
+     * @throws SQLException if the update fails
+     */
+    public static void questionReviewSaved(Connection conn, String reviewer) throws SQLException {
+        adjust(conn, reviewer, 0, 1, 0, 0, LocalDateTime.now());
+    }
+
+    /**
+     * Applies a change to the trusted reviewer entries naming the reviewer.
+     * @param conn the connection to use
+     * @param reviewer the trusted reviewer
+     * @param entries the number of entries added, or removed if negative
+     * @param weightage the change in their total weightage
+     * @throws SQLException if the update fails
+     */
+    public static void trustChanged(Connection conn, String reviewer, int entries, double weightage) throws SQLException {
+        if (entries != 0 || weightage != 0) {
+            adjust(conn, reviewer, 0, 0, entries, weightage, null);
+        }
+    }
+
+    /**
+     * Uncounts the reviews of an answer that is about to be deleted, which the foreign key
+     * deletes with it. Call it before the delete, in the same transaction.
+     * @param conn the connection to use
+     * @param answerId the ID of the answer
+     * @throws SQLException if the update fails
+     */
+    public static void answerDeleting(Connection conn, int answerId) throws SQLException {
+        String update = "UPDATE reviewerStats s SET reviewCount = s.reviewCount - "
+                + "(SELECT COUNT(*) FROM reviews r WHERE r.author = s.reviewer AND r.answerId = ?) "
+                + "WHERE s.reviewer IN (SELECT author FROM reviews WHERE answerId = ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(update)) {
+            pstmt.setInt(1, answerId);
+            pstmt.setInt(2, answerId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Uncounts the question reviews of a question that is about to be deleted and the reviews of
+     * its answers, which the foreign keys delete with it. Call it before the delete, in the same
+     * transaction.
+     * @param conn the connection to use
+     * @param questionId the ID of the question
+     * @throws SQLException if the update fails
+     */
+    public static void questionDeleting(Connection conn, int questionId) throws SQLException {
+        String answerReviews = "UPDATE reviewerStats s SET reviewCount = s.reviewCount - "
+                + "(SELECT COUNT(*) FROM reviews r JOIN answers a ON a.id = r.answerId WHERE r.author = s.reviewer AND a.questionId = ?) "
+                + "WHERE s.reviewer IN (SELECT r.author FROM reviews r JOIN answers a ON a.id = r.answerId WHERE a.questionId = ?)";
+        String questionReviews = "UPDATE reviewerStats s SET questionReviewCount = s.questionReviewCount - "
+                + "(SELECT COUNT(*) FROM questionReviews q WHERE q.reviewer = s.reviewer AND q.questionId = ?) "
+                + "WHERE s.reviewer IN (SELECT reviewer FROM questionReviews WHERE questionId = ?)";
+        for (String update : new String[] { answerReviews, questionReviews }) {
+            try (PreparedStatement pstmt = conn.prepareStatement(update)) {
+                pstmt.setInt(1, questionId);
+                pstmt.setInt(2, questionId);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    // Adds to the reviewer's counters, creating the row on first use. Reviews by names that are not
+    // registered users have no row; the foreign key would reject it.
+    private static void adjust(Connection conn, String reviewer, int reviews, int questionReviews, int trustedBy,
+            double weightage, LocalDateTime activity) throws SQLException {
+        String merge = "MERGE INTO reviewerStats s USING (SELECT userName FROM cse360users WHERE userName = ?) u "
+                + "ON (s.reviewer = u.userName) "
+                + "WHEN MATCHED THEN UPDATE SET reviewCount = s.reviewCount + ?, "
+                + "questionReviewCount = s.questionReviewCount + ?, trustedByCount = s.trustedByCount + ?, "
+                + "weightTotal = s.weightTotal + ?, lastActivity = COALESCE(CAST(? AS TIMESTAMP), s.lastActivity) "
+                + "WHEN NOT MATCHED THEN INSERT (reviewer, reviewCount, questionReviewCount, trustedByCount, weightTotal, lastActivity) "
+                + "VALUES (u.userName, ?, ?, ?, ?, CAST(? AS TIMESTAMP))";
+        Timestamp at = activity == null ? null : Timestamp.valueOf(activity);
+        try (PreparedStatement pstmt = conn.prepareStatement(merge)) {
+            pstmt.setString(1, reviewer);
+            for (int offset : new int[] { 1, 6 }) {
+                pstmt.setInt(offset + 1, reviews);
+                pstmt.setInt(offset + 2, questionReviews);
+                pstmt.setInt(offset + 3, trustedBy);
+                pstmt.setDouble(offset + 4, weightage);
+                pstmt.setTimestamp(offset + 5, at);
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Retrieves a reviewer's statistics.
+     * @param reviewer the reviewer's username
+     * @return the statistics; all zero if the reviewer has no reviews and is trusted by no one
+     */
+    public ReviewerStats getStats(String reviewer) {
+        String query = "SELECT reviewCount, questionReviewCount, trustedByCount, weightTotal, lastActivity "
+                + "FROM reviewerStats WHERE reviewer = ?";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, reviewer);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Timestamp lastActivity = rs.getTimestamp("lastActivity");
+                    return new ReviewerStats(reviewer, rs.getInt("reviewCount"), rs.getInt("questionReviewCount"),
+                            rs.getInt("trustedByCount"), rs.getDouble("weightTotal"),
+                            lastActivity == null ? null : lastActivity.toLocalDateTime());
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ReviewerStats(reviewer, 0, 0, 0, 0, null);
+    }
+}
@@ -0,0 +1,168 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * ReviewerStatsManagerTest
+ *
+ * This class contains automated JUnit tests to verify that a reviewer's statistics row follows
+ * the reviews they write and the trust students place in them, and goes down again as reviews,
+ * answers and questions are deleted.
+ */
+public class ReviewerStatsManagerTest {
+
+    private static DatabaseHelper dbHelper;
+
+    /**
+     * Setup method to establish the database connection to a fresh in-memory database.
+     */
+    @BeforeClass
+    public static void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+    }
+
+    /**
+     * Cleanup method to close the database connection after all tests.
+     */
+    @AfterClass
+    public static void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that the reviewer statistics row follows review and trust writes.
+     */
+    @Test
+    public void testReviewerStatsFollowWrites() throws SQLException {
+        String suffix = String.valueOf(System.nanoTime() % 100000);
+        String reviewer = "statsReviewer" + suffix;
+        String studentA = "statsStudentA" + suffix;
+        String studentB = "statsStudentB" + suffix;
+        dbHelper.register(new User(reviewer, "Passw0rd!", "reviewer"));
+        dbHelper.register(new User(studentA, "Passw0rd!", "user"));
+        dbHelper.register(new User(studentB, "Passw0rd!", "user"));
+        QuestionManager questionManager = new QuestionManager(dbHelper);
+        Question question = new Question(0, "Stats check " + suffix, studentA);
+        assertTrue("Question should be saved", questionManager.saveQuestion(question));
+        try {
+            Answer answer = new Answer(0, "Stats answer " + suffix, studentA, question.getId());
+            assertTrue(new AnswerManager(dbHelper).saveAnswer(answer));
+            ReviewManager reviewManager = new ReviewManager(dbHelper);
+            TrustedReviewerManager trustedManager = new TrustedReviewerManager(dbHelper);
+            ReviewerStatsManager statsManager = new ReviewerStatsManager(dbHelper);
+
+            Review review = new Review(0, "Well explained", reviewer, answer.getId());
+            reviewManager.saveReview(review);
+            reviewManager.saveReview(new Review(0, "Could cite the notes", reviewer, answer.getId()));
+            new QuestionReviewManager(dbHelper).saveReview(new QuestionReview(0, "Clear question", reviewer, question.getId()));
+            trustedManager.addTrustedReviewer(studentA, reviewer, 2.0);
+            trustedManager.addTrustedReviewer(studentB, reviewer, 4.0);
+            ReviewerStats stats = statsManager.getStats(reviewer);
+            assertEquals("Two answer reviews", 2, stats.getReviewCount());
+            assertEquals("One question review", 1, stats.getQuestionReviewCount());
+            assertEquals("Trusted by two students", 2, stats.getTrustedByCount());
+            assertEquals(3.0, stats.getTrustWeightedMean(), 1e-9);
+            assertNotNull("Writing a review is activity", stats.getLastActivity());
+
+            assertTrue(trustedManager.updateWeightage(studentB, reviewer, 6.0));
+            assertEquals(4.0, reviewManager.getRatingFromUser(reviewer), 1e-9);
+            assertTrue(trustedManager.removeTrustedReviewer(studentA, reviewer));
+            assertTrue(reviewManager.deleteReview(review.getId(), reviewer, false));
+            stats = statsManager.getStats(reviewer);
+            assertEquals("One answer review left", 1, stats.getReviewCount());
+            assertEquals("Trusted by one student", 1, stats.getTrustedByCount());
+            assertEquals(6.0, stats.getTrustWeightedMean(), 1e-9);
+        } finally {
+            questionManager.deleteQuestion(question.getId(), studentA, true);
+            try (Connection conn = dbHelper.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM cse360users WHERE userName LIKE 'stats%" + suffix + "'");
+            }
+        }
+    }
+
+    /**
+     * Test 2: Verify that the counters go down with every kind of delete: a review deleted by an
+     * admin, which is not the reviewer's activity, the reviews of a deleted answer, and the
+     * reviews and question reviews of a deleted question, leaving other reviewers' rows alone.
+     */
+    @Test
+    public void testReviewerStatsAfterDeletes() throws Exception {
+        String suffix = String.valueOf(System.nanoTime() % 100000);
+        String reviewer = "delReviewer" + suffix;
+        String bystander = "delBystander" + suffix;
+        String student = "delStudent" + suffix;
+        dbHelper.register(new User(reviewer, "Passw0rd!", "reviewer"));
+        dbHelper.register(new User(bystander, "Passw0rd!", "reviewer"));
+        dbHelper.register(new User(student, "Passw0rd!", "user"));
+        QuestionManager questionManager = new QuestionManager(dbHelper);
+        Question deleted = new Question(0, "Deleted stats check " + suffix, student);
+        Question kept = new Question(0, "Kept stats check " + suffix, student);
+        assertTrue(questionManager.saveQuestion(deleted));
+        assertTrue(questionManager.saveQuestion(kept));
+        try {
+            AnswerManager answerManager = new AnswerManager(dbHelper);
+            ReviewManager reviewManager = new ReviewManager(dbHelper);
+            ReviewerStatsManager statsManager = new ReviewerStatsManager(dbHelper);
+            Answer first = new Answer(0, "First stats answer " + suffix, student, deleted.getId());
+            Answer second = new Answer(0, "Second stats answer " + suffix, student, deleted.getId());
+            Answer other = new Answer(0, "Other stats answer " + suffix, student, kept.getId());
+            assertTrue(answerManager.saveAnswer(first));
+            assertTrue(answerManager.saveAnswer(second));
+            assertTrue(answerManager.saveAnswer(other));
+
+            Review byAdmin = new Review(0, "Off topic", reviewer, first.getId());
+            reviewManager.saveReview(byAdmin);
+            reviewManager.saveReview(new Review(0, "Correct", reviewer, first.getId()));
+            reviewManager.saveReview(new Review(0, "Too short", reviewer, second.getId()));
+            Review last = new Review(0, "Well sourced", reviewer, other.getId());
+            reviewManager.saveReview(last);
+            reviewManager.saveReview(new Review(0, "Agreed", bystander, other.getId()));
+            new QuestionReviewManager(dbHelper).saveReview(new QuestionReview(0, "Needs detail", reviewer, deleted.getId()));
+            ReviewerStats stats = statsManager.getStats(reviewer);
+            assertEquals(4, stats.getReviewCount());
+            assertEquals(1, stats.getQuestionReviewCount());
+
+            Thread.sleep(20);
+            assertTrue(reviewManager.deleteReview(byAdmin.getId(), "delAdmin" + suffix, true));
+            ReviewerStats afterAdmin = statsManager.getStats(reviewer);
+            assertEquals(3, afterAdmin.getReviewCount());
+            assertEquals("An admin's delete is not the reviewer's activity", stats.getLastActivity(), afterAdmin.getLastActivity());
+
+            assertTrue(answerManager.deleteAnswer(second.getId(), student, false));
+            assertEquals("The deleted answer's review should be uncounted", 2, statsManager.getStats(reviewer).getReviewCount());
+
+            assertTrue(questionManager.deleteQuestion(deleted.getId(), student, false));
+            stats = statsManager.getStats(reviewer);
+            assertEquals("Only the review of the kept question should be left", 1, stats.getReviewCount());
+            assertEquals(0, stats.getQuestionReviewCount());
+            assertEquals("The other reviewer should be untouched", 1, statsManager.getStats(bystander).getReviewCount());
+
+            Thread.sleep(20);
+            assertTrue(reviewManager.deleteReview(last.getId(), reviewer, false));
+            ReviewerStats empty = statsManager.getStats(reviewer);
+            assertEquals(0, empty.getReviewCount());
+            assertTrue("Deleting their own review is activity", empty.getLastActivity().isAfter(stats.getLastActivity()));
+            assertEquals(0.0, empty.getTrustWeightedMean(), 0.0);
+        } finally {
+            questionManager.deleteQuestion(deleted.getId(), student, true);
+            questionManager.deleteQuestion(kept.getId(), student, true);
+            try (Connection conn = dbHelper.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM cse360users WHERE userName LIKE 'del%" + suffix + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The SchemaMigrator class applies ordered, versioned schema changes on top of the tables created
+ * by DatabaseHelper. Applied versions are recorded in the schema_version table, so each migration
+ * runs once per database; each step is also written to be safe to run again, so a migration
+ * interrupted halfway can simply be retried.
+ */
+public class SchemaMigrator {
+
+    /** Rows updated per batch by data migrations. */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * One step of a migration: a DDL statement, or Java code for changes SQL cannot express.
+     */
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * One schema change: a version number, a description and the steps that make it.
+     */
+    public static final class Migration {
+        private final int version;
+        private final String description;
+        private final List<Step> steps;
+
+        Migration(int version, String description, List<Step> steps) {
+            this.version = version;
+            this.description = description;
+            this.steps = steps;
+        }
+
+        public int getVersion() { return version; }
+        public String getDescription() { return description; }
+        public List<Step> getSteps() { return steps; }
+    }
+
+    private final List<Migration> migrations = new ArrayList<>();
+
+    /**
+     * Returns the migrations of this application, in order.
+     * @return a migrator holding every known migration
+     */
+    public static SchemaMigrator forApplication() {
+        return new SchemaMigrator()
+            .add(1, "Index foreign-key and filter columns",
+                "CREATE INDEX IF NOT EXISTS idx_questions_author ON questions (author)",
+                "CREATE INDEX IF NOT EXISTS idx_subset_questions_qid ON subSetQuestions (qID, id)",
+                "CREATE INDEX IF NOT EXISTS idx_answers_question ON answers (questionId, id)",
+                "CREATE INDEX IF NOT EXISTS idx_answers_author ON answers (author)",
+                "CREATE INDEX IF NOT EXISTS idx_subset_answers_said ON subSetAnswers (saID, id)",
+                "CREATE INDEX IF NOT EXISTS idx_reviews_answer ON reviews (answerId, id)",
+                "CREATE INDEX IF NOT EXISTS idx_reviews_author_answer ON reviews (author, answerId)",
+                "CREATE INDEX IF NOT EXISTS idx_messages_to_user ON messages (toUser, id)",
+                "CREATE INDEX IF NOT EXISTS idx_question_reviews_question ON questionReviews (questionId, id)",
+                "CREATE INDEX IF NOT EXISTS idx_question_reviews_reviewer ON questionReviews (reviewer, questionId)",
+                "CREATE INDEX IF NOT EXISTS idx_trusted_reviewers_pair ON trustedReviewers (studentUserName, reviewerUserName)",
+                "CREATE INDEX IF NOT EXISTS idx_reviewer_requests_student ON reviewerRequests (studentUserName, status)")
+            .add(2, "Per-reviewer pending-work queue",
+                "CREATE TABLE IF NOT EXISTS reviewQueue ("
+                    + "reviewer VARCHAR(255) NOT NULL, "
+                    + "itemType VARCHAR(20) NOT NULL, "
+                    + "itemId INT NOT NULL, "
+                    + "PRIMARY KEY (reviewer, itemType, itemId), "
+                    + "FOREIGN KEY (reviewer) REFERENCES cse360users(userName) ON DELETE CASCADE)",
+                "CREATE INDEX IF NOT EXISTS idx_review_queue_item ON reviewQueue (itemType, itemId)",
+                // Backfill the queues of existing reviewers from the reviews they have not written.
+                "INSERT INTO reviewQueue (reviewer, itemType, itemId) SELECT u.userName, 'QUESTION', q.id "
+                    + "FROM cse360users u CROSS JOIN questions q WHERE u.role = 'reviewer' "
+                    + "AND NOT EXISTS (SELECT 1 FROM questionReviews r WHERE r.reviewer = u.userName AND r.questionId = q.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM reviewQueue p WHERE p.reviewer = u.userName AND p.itemType = 'QUESTION' AND p.itemId = q.id)",
+                "INSERT INTO reviewQueue (reviewer, itemType, itemId) SELECT u.userName, 'ANSWER', a.id "
+                    + "FROM cse360users u CROSS JOIN answers a WHERE u.role = 'reviewer' "
+                    + "AND NOT EXISTS (SELECT 1 FROM reviews r WHERE r.author = u.userName AND r.answerId = a.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM reviewQueue p WHERE p.reviewer = u.userName AND p.itemType = 'ANSWER' AND p.itemId = a.id)",
+                "INSERT INTO reviewQueue (reviewer, itemType, itemId) SELECT u.userName, 'SUBSET_ANSWER', a.id "
+                    + "FROM cse360users u CROSS JOIN subSetAnswers a WHERE u.role = 'reviewer' "
+                    + "AND NOT EXISTS (SELECT 1 FROM reviews r WHERE r.author = u.userName AND r.answerId = a.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM reviewQueue p WHERE p.reviewer = u.userName AND p.itemType = 'SUBSET_ANSWER' AND p.itemId = a.id)")
+            .add(3, "Unique content hashes for posts and one request per student",
+                sql("ALTER TABLE questions ADD COLUMN IF NOT EXISTS contentHash VARCHAR(64)"),
+                sql("ALTER TABLE answers ADD COLUMN IF NOT EXISTS contentHash VARCHAR(64)"),
+                sql("ALTER TABLE subSetAnswers ADD COLUMN IF NOT EXISTS contentHash VARCHAR(64)"),
+                // Unique indexes allow any number of NULLs, so they can be created before the backfill.
+                sql("CREATE UNIQUE INDEX IF NOT EXISTS idx_questions_content_hash ON questions (contentHash)"),
+                sql("CREATE UNIQUE INDEX IF NOT EXISTS idx_answers_content_hash ON answers (contentHash)"),
+                sql("CREATE UNIQUE INDEX IF NOT EXISTS idx_subset_answers_content_hash ON subSetAnswers (contentHash)"),
+                conn -> backfillContentHashes(conn, "questions", null),
+                conn -> backfillContentHashes(conn, "answers", "questionId"),
+                conn -> backfillContentHashes(conn, "subSetAnswers", "saID"),
+                // Keep the oldest of any duplicate requests left by the old check-then-insert.
+                sql("DELETE FROM reviewerRequests r WHERE EXISTS (SELECT 1 FROM reviewerRequests o "
+                    + "WHERE o.studentUserName = r.studentUserName AND o.id < r.id)"),
+                sql("CREATE UNIQUE INDEX IF NOT EXISTS idx_reviewer_requests_unique_student ON reviewerRequests (studentUserName)"))
+            .add(4, "Message conversations, timestamps and unread counters",
+                sql("ALTER TABLE messages ADD COLUMN IF NOT EXISTS sentAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP"),
+                sql("ALTER TABLE messages ADD COLUMN IF NOT EXISTS isRead BOOLEAN DEFAULT FALSE NOT NULL"),
+                sql("ALTER TABLE messages ADD COLUMN IF NOT EXISTS conversationId INT"),
+                sql("ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS unreadMessages INT DEFAULT 0 NOT NULL"),
+                // One row per pair of users, stored with the lower user id first.
+                sql("CREATE TABLE IF NOT EXISTS conversations ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "userLow INT NOT NULL, "
+                    + "userHigh INT NOT NULL, "
+                    + "UNIQUE (userLow, userHigh), "
+                    + "FOREIGN KEY (userLow) REFERENCES cse360users(id) ON DELETE CASCADE, "
+                    + "FOREIGN KEY (userHigh) REFERENCES cse360users(id) ON DELETE CASCADE)"),
+                // Each side's view of a conversation: its unread count and newest message, the sort key of the inbox.
+                sql("CREATE TABLE IF NOT EXISTS conversationMembers ("
+                    + "conversationId INT NOT NULL, "
+                    + "userId INT NOT NULL, "
+                    + "otherUserId INT NOT NULL, "
+                    + "unread INT DEFAULT 0 NOT NULL, "
+                    + "lastMessageId INT DEFAULT 0 NOT NULL, "
+                    + "PRIMARY KEY (conversationId, userId), "
+                    + "FOREIGN KEY (conversationId) REFERENCES conversations(id) ON DELETE CASCADE, "
+                    + "FOREIGN KEY (userId) REFERENCES cse360users(id) ON DELETE CASCADE)"),
+                sql("CREATE INDEX IF NOT EXISTS idx_messages_inbox ON messages (toUser, id DESC)"),
+                sql("CREATE INDEX IF NOT EXISTS idx_messages_conversation ON messages (conversationId, id DESC)"),
+                sql("CREATE INDEX IF NOT EXISTS idx_conversation_members_recent ON conversationMembers (userId, lastMessageId DESC)"),
+                SchemaMigrator::rebuildConversations)
+            .add(5, "Message groups with members and group posts",
+                "CREATE TABLE IF NOT EXISTS messageGroups ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "name VARCHAR(255) NOT NULL UNIQUE, "
+                    + "owner VARCHAR(255))",
+                // lastReadPostId is the member's read pointer into groupPosts.
+                "CREATE TABLE IF NOT EXISTS messageGroupMembers ("
+                    + "groupId INT NOT NULL, "
+                    + "userId INT NOT NULL, "
+                    + "lastReadPostId INT DEFAULT 0 NOT NULL, "
+                    + "PRIMARY KEY (groupId, userId), "
+                    + "FOREIGN KEY (groupId) REFERENCES messageGroups(id) ON DELETE CASCADE, "
+                    + "FOREIGN KEY (userId) REFERENCES cse360users(id) ON DELETE CASCADE)",
+                // A message posted once to a whole group, read through the members' read pointers.
+                "CREATE TABLE IF NOT EXISTS groupPosts ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "groupId INT NOT NULL, "
+                    + "fromAuthor VARCHAR(255), "
+                    + "text VARCHAR(200), "
+                    + "sentAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                    + "FOREIGN KEY (groupId) REFERENCES messageGroups(id) ON DELETE CASCADE)",
+                "CREATE INDEX IF NOT EXISTS idx_message_group_members_user ON messageGroupMembers (userId, groupId)",
+                "CREATE INDEX IF NOT EXISTS idx_group_posts_group ON groupPosts (groupId, id DESC)")
+            .add(6, "Per-student answer scores from trusted reviewer weightage",
+                // Only non-zero scores are stored; a missing row scores 0.
+                sql("CREATE TABLE IF NOT EXISTS answerScores ("
+                    + "studentUserName VARCHAR(255) NOT NULL, "
+                    + "answerId INT NOT NULL, "
+                    + "score DOUBLE NOT NULL, "
+                    + "PRIMARY KEY (studentUserName, answerId), "
+                    + "FOREIGN KEY (studentUserName) REFERENCES cse360users(userName) ON DELETE CASCADE, "
+                    + "FOREIGN KEY (answerId) REFERENCES answers(id) ON DELETE CASCADE)"),
+                sql("CREATE INDEX IF NOT EXISTS idx_answer_scores_answer ON answerScores (answerId)"),
+                sql("CREATE INDEX IF NOT EXISTS idx_trusted_reviewers_reviewer ON trustedReviewers (reviewerUserName, studentUserName)"),
+                SchemaMigrator::rebuildAnswerScores)
+            .add(7, "Reviewer statistics kept with each review and trust change",
+                sql("CREATE TABLE IF NOT EXISTS reviewerStats ("
+                    + "reviewer VARCHAR(255) PRIMARY KEY, "
+                    + "reviewCount INT DEFAULT 0 NOT NULL, "
+                    + "questionReviewCount INT DEFAULT 0 NOT NULL, "
+                    + "trustedByCount INT DEFAULT 0 NOT NULL, "
+                    + "weightTotal DOUBLE DEFAULT 0 NOT NULL, "
+                    + "lastActivity TIMESTAMP, "
+                    + "FOREIGN KEY (reviewer) REFERENCES cse360users(userName) ON DELETE CASCADE)"),
+                SchemaMigrator::rebuildReviewerStats);
+    }
+
+    /**
+     * Wraps a DDL statement as a migration step.
+     * @param statement the statement, safe to run more than once
+     * @return the step
+     */
+    public static Step sql(String statement) {
+        return conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(statement);
+            }
+        };
+    }
+
+    // Hashes the rows that have no contentHash yet. When existing rows are duplicates of each
+    // other only the oldest gets the hash; the rest keep NULL, which the unique index allows.
+    private static void backfillContentHashes(Connection conn, String table, String parentColumn) throws SQLException {
+        String select = "SELECT id, text, author" + (parentColumn == null ? "" : ", " + parentColumn)
+                + " FROM " + table + " WHERE contentHash IS NULL ORDER BY id";
+        String update = "UPDATE " + table + " SET contentHash = ? WHERE id = ? "
+                + "AND NOT EXISTS (SELECT 1 FROM " + table + " d WHERE d.contentHash = ?)";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(select);
+             PreparedStatement pstmt = conn.prepareStatement(update)) {
+            int pending = 0;
+            while (rs.next()) {
+                String hash = parentColumn == null
+                        ? ContentHash.of(rs.getString("text"), rs.getString("author"))
+                        : ContentHash.of(rs.getString("text"), rs.getString("author"), rs.getInt(parentColumn));
+                pstmt.setString(1, hash);
+                pstmt.setInt(2, rs.getInt("id"));
+                pstmt.setString(3, hash);
+                pstmt.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    pstmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                pstmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Files messages that have no conversation yet under the conversation of their two users, then
+     * recomputes every conversation's newest message and the unread counters from the messages
+     * table. Used by the migration and after loading messages with plain SQL.
+     * @param conn the connection to use
+     * @throws SQLException if a statement fails
+     */
+    public static void rebuildConversations(Connection conn) throws SQLException {
+        String low = "LEAST(s.id, m.toUser)";
+        String high = "GREATEST(s.id, m.toUser)";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO conversations (userLow, userHigh) SELECT DISTINCT " + low + ", " + high + " "
+                    + "FROM messages m JOIN cse360users s ON s.userName = m.fromAuthor WHERE m.conversationId IS NULL "
+                    + "AND NOT EXISTS (SELECT 1 FROM conversations c WHERE c.userLow = " + low + " AND c.userHigh = " + high + ")");
+            stmt.executeUpdate("UPDATE messages m SET conversationId = (SELECT c.id FROM conversations c "
+                    + "JOIN cse360users s ON c.userLow = " + low + " AND c.userHigh = " + high + " "
+                    + "WHERE s.userName = m.fromAuthor) WHERE m.conversationId IS NULL");
+            stmt.executeUpdate("INSERT INTO conversationMembers (conversationId, userId, otherUserId) "
+                    + "SELECT c.id, c.userLow, c.userHigh FROM conversations c WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM conversationMembers cm WHERE cm.conversationId = c.id AND cm.userId = c.userLow)");
+            stmt.executeUpdate("INSERT INTO conversationMembers (conversationId, userId, otherUserId) "
+                    + "SELECT c.id, c.userHigh, c.userLow FROM conversations c WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM conversationMembers cm WHERE cm.conversationId = c.id AND cm.userId = c.userHigh)");
+            stmt.executeUpdate("UPDATE conversationMembers cm SET "
+                    + "lastMessageId = COALESCE((SELECT MAX(m.id) FROM messages m WHERE m.conversationId = cm.conversationId), 0), "
+                    + "unread = (SELECT COUNT(*) FROM messages m WHERE m.conversationId = cm.conversationId "
+                    + "AND m.toUser = cm.userId AND NOT m.isRead)");
+            stmt.executeUpdate("UPDATE cse360users u SET unreadMessages = "
+                    + "(SELECT COUNT(*) FROM messages m WHERE m.toUser = u.id AND NOT m.isRead)");
+        }
+    }
+
+    /**
+     * Recomputes every student's answer scores from the reviews and the trusted reviewer
+     * weightage. Used by the migration and after loading reviews with plain SQL.
+     * @param conn the connection to use
+     * @throws SQLException if a statement fails
+     */
+    public static void rebuildAnswerScores(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM answerScores");
+            stmt.executeUpdate("INSERT INTO answerScores (studentUserName, answerId, score) "
+                    + "SELECT t.studentUserName, r.answerId, SUM(t.weightage) FROM reviews r "
+                    + "JOIN trustedReviewers t ON t.reviewerUserName = r.author "
+                    + "GROUP BY t.studentUserName, r.answerId HAVING SUM(t.weightage) <> 0");
+        }
+    }
+
+    /**
+     * Recomputes every reviewer's statistics from the reviews, question reviews and trusted
+     * reviewer entries. Existing reviews carry no timestamp, so rebuilt rows have no last
+     * activity until the reviewer next writes or edits a review.
+     * @param conn the connection to use
+     * @throws SQLException if a statement fails
+     */
+    public static void rebuildReviewerStats(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM reviewerStats");
+            stmt.executeUpdate("INSERT INTO reviewerStats (reviewer, reviewCount, questionReviewCount, trustedByCount, weightTotal) "
+                    + "SELECT u.userName, "
+                    + "(SELECT COUNT(*) FROM reviews r WHERE r.author = u.userName), "
+                    + "(SELECT COUNT(*) FROM questionReviews q WHERE q.reviewer = u.userName), "
+                    + "(SELECT COUNT(*) FROM trustedReviewers t WHERE t.reviewerUserName = u.userName), "
+                    + "(SELECT COALESCE(SUM(t.weightage), 0) FROM trustedReviewers t WHERE t.reviewerUserName = u.userName) "
+                    + "FROM cse360users u WHERE EXISTS (SELECT 1 FROM reviews r WHERE r.author = u.userName) "
+                    + "OR EXISTS (SELECT 1 FROM questionReviews q WHERE q.reviewer = u.userName) "
+                    + "OR EXISTS (SELECT 1 FROM trustedReviewers t WHERE t.reviewerUserName = u.userName)");
+        }
+    }
+
+    /**
+     * Adds a migration. Versions must be added in increasing order.
+     * @param version the version the schema is at once the migration has run
+     * @param description a short description recorded in schema_version
+     * @param statements the DDL statements, each safe to run more than once
+     * @return this migrator
+     */
+    public SchemaMigrator add(int version, String description, String... statements) {
+        Step[] steps = new Step[statements.length];
+        for (int i = 0; i < statements.length; i++) {
+            steps[i] = sql(statements[i]);
+        }
+        return add(version, description, steps);
+    }
+
+    /**
+     * Adds a migration made of DDL and Java steps. Versions must be added in increasing order.
+     * @param version the version the schema is at once the migration has run
+     * @param description a short description recorded in schema_version
+     * @param steps the steps, run in order, each safe to run more than once
+     * @return this migrator
+     */
+    public SchemaMigrator add(int version, String description, Step... steps) {
+        if (!migrations.isEmpty() && migrations.get(migrations.size() - 1).getVersion() >= version) {
+            throw new IllegalArgumentException("Migration " + version + " is out of order");
+        }
+        List<Step> list = new ArrayList<>();
+        Collections.addAll(list, steps);
+        migrations.add(new Migration(version, description, Collections.unmodifiableList(list)));
+        return this;
+    }
+
+    /**
+     * @return the migrations, in order
+     */
+    public List<Migration> getMigrations() {
+        return Collections.unmodifiableList(migrations);
+    }
+
+    /**
+     * @return the version the schema is at once every migration has run
+     */
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+
+    /**
+     * Applies every migration newer than the recorded schema version. The schema_version row is
+     * written only after all of a migration's statements succeed. H2 commits DDL as it runs, so a
+     * failed migration is retried from its first statement on the next start.
+     * @param conn the connection to migrate
+     * @return the number of migrations applied
+     * @throws SQLException if a migration fails; earlier migrations stay applied
+     */
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INT PRIMARY KEY, "
+                    + "description VARCHAR(255), "
+                    + "installedOn TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+        int current = getCurrentVersion(conn);
+        int applied = 0;
+        boolean autoCommit = conn.getAutoCommit();
+        try {
+            conn.setAutoCommit(false);
+            for (Migration migration : migrations) {
+                if (migration.getVersion() <= current) {
+                    continue;
+                }
+                try (PreparedStatement record = conn.prepareStatement(
+                             "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                    for (Step step : migration.getSteps()) {
+                        step.apply(conn);
+                    }
+                    record.setInt(1, migration.getVersion());
+                    record.setString(2, migration.getDescription());
+                    record.executeUpdate();
+                    conn.commit();
+                    applied++;
+                    System.out.println("Applied schema migration " + migration.getVersion() + ": " + migration.getDescription());
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return applied;
+    }
+
+    /**
+     * Reads the recorded schema version.
+     * @param conn the connection to read from
+     * @return the highest applied version, or 0 if none
+     * @throws SQLException if schema_version cannot be read
+     */
+    public static int getCurrentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Returns the plan the database chooses for a query.
+     * @param conn the connection to use
+     * @param sql the query, with ? placeholders
+     * @param params values bound to the placeholders
+     * @return the plan text from EXPLAIN
+     * @throws SQLException if the query cannot be explained
+     */
+    public static String explain(Connection conn, String sql, Object... params) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Checks whether a plan reads every table through an index rather than a full scan.
+     * @param plan a plan returned by explain
+     * @return true if no table is scanned
+     */
+    public static boolean usesIndexes(String plan) {
+        return !plan.toLowerCase().contains("tablescan");
+    }
+}
@@ -0,0 +1,118 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+import databasePart1.SchemaMigrator;
+
+/**
+ * SchemaMigratorTest
+ *
+ * This class contains automated JUnit tests to verify that the schema migrations are recorded,
+ * can be rerun safely, give the hot queries an index to use instead of a full table scan,
+ * and reject duplicate posts through the content hash index.
+ */
+public class SchemaMigratorTest {
+
+    private static DatabaseHelper dbHelper;
+
+    /**
+     * Setup method to establish the database connection, which runs the migrations on a fresh
+     * in-memory database.
+     */
+    @BeforeClass
+    public static void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+    }
+
+    /**
+     * Cleanup method to close the database connection after all tests.
+     */
+    @AfterClass
+    public static void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that connecting brings the schema to the latest version.
+     */
+    @Test
+    public void testSchemaIsAtLatestVersion() throws SQLException {
+        try (Connection conn = dbHelper.getConnection()) {
+            assertEquals("Schema should be at the latest version",
+                    SchemaMigrator.forApplication().getLatestVersion(), SchemaMigrator.getCurrentVersion(conn));
+        }
+    }
+
+    /**
+     * Test 2: Verify that running the migrations again applies nothing.
+     */
+    @Test
+    public void testMigrateIsRerunnable() throws SQLException {
+        try (Connection conn = dbHelper.getConnection()) {
+            assertEquals("No migration should be applied twice", 0, SchemaMigrator.forApplication().migrate(conn));
+        }
+    }
+
+    /**
+     * Test 3: Verify that the hot filter queries are served by an index.
+     */
+    @Test
+    public void testHotQueriesUseIndexes() throws SQLException {
+        String[][] queries = {
+            { "SELECT id, text, author, questionId FROM answers WHERE questionId = ?", "1" },
+            { "SELECT id, text, author, questionId FROM answers WHERE author = ?", "someone" },
+            { "SELECT id, text, author, answerId FROM reviews WHERE answerId = ?", "1" },
+            { "SELECT id, text, author, answerId FROM reviews WHERE author = ?", "someone" },
+            { "SELECT id, fromAuthor, text FROM messages WHERE toUser = ?", "1" },
+            { "SELECT m.id, m.text FROM messages m WHERE m.toUser = ? AND m.id < ? ORDER BY m.id DESC LIMIT 50", "1", "100" },
+            { "SELECT m.id, m.text FROM messages m WHERE m.conversationId = ? AND m.id < ? ORDER BY m.id DESC LIMIT 50", "1", "100" },
+            { "SELECT cm.conversationId, cm.unread FROM conversationMembers cm "
+                + "WHERE cm.userId = ? AND cm.lastMessageId < ? ORDER BY cm.lastMessageId DESC LIMIT 50", "1", "100" },
+            { "SELECT m.groupId FROM messageGroupMembers m WHERE m.userId = ?", "1" },
+            { "SELECT p.id, p.text FROM groupPosts p WHERE p.groupId = ? AND p.id > ?", "1", "0" },
+            { "SELECT id, text, reviewer, questionId FROM questionReviews WHERE reviewer = ?", "someone" },
+            { "SELECT id, text, reviewer, questionId FROM questionReviews WHERE questionId = ?", "1" },
+            { "SELECT * FROM subSetAnswers WHERE saID = ?", "1" },
+            { "SELECT id, text, author FROM subSetQuestions WHERE qID = ?", "1" },
+            { "SELECT weightage FROM trustedReviewers WHERE studentUserName = ? AND reviewerUserName = ?", "a", "b" },
+            { "SELECT studentUserName, weightage FROM trustedReviewers WHERE reviewerUserName = ?", "b" },
+            { "SELECT s.answerId, s.score FROM answers a "
+                + "JOIN answerScores s ON s.studentUserName = ? AND s.answerId = a.id WHERE a.questionId = ?", "a", "1" },
+            { "SELECT id FROM questions WHERE contentHash = ?", "0" },
+            { "SELECT id FROM answers WHERE contentHash = ?", "0" },
+            { "SELECT t.id, t.text, t.author FROM reviewQueue p JOIN answers t ON t.id = p.itemId "
+                + "WHERE p.reviewer = ? AND p.itemType = ? AND p.itemId > ? ORDER BY p.itemId LIMIT 50", "someone", "ANSWER", "0" }
+        };
+        try (Connection conn = dbHelper.getConnection()) {
+            for (String[] query : queries) {
+                Object[] params = new Object[query.length - 1];
+                System.arraycopy(query, 1, params, 0, params.length);
+                String plan = SchemaMigrator.explain(conn, query[0], params);
+                assertTrue("Query should use an index: " + query[0] + "\n" + plan, SchemaMigrator.usesIndexes(plan));
+            }
+        }
+    }
+
+    /**
+     * Test 4: Verify that the content hash index rejects a duplicate question in the insert itself.
+     */
+    @Test
+    public void testDuplicateQuestionIsRejected() {
+        QuestionManager questionManager = new QuestionManager(dbHelper);
+        String text = "Duplicate check " + System.nanoTime();
+        Question first = new Question(0, text, "migratorTest");
+        assertTrue("First save should insert", questionManager.saveQuestion(first));
+        assertFalse("Second save should be a duplicate", questionManager.saveQuestion(new Question(0, text, "migratorTest")));
+        questionManager.deleteQuestion(first.getId(), "migratorTest", true);
+    }
+}
@@ -0,0 +1,403 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The SearchIndex class is an in-process inverted index over questions, clarification
+ * questions, answers and clarification answers. It replaces the LOWER(text) LIKE '%kw%'
+ * scans with postings lookups ranked by BM25.
+ *
+ * Queries are whitespace separated terms. All terms must match unless the query contains
+ * the upper-case word OR, in which case any term may match; upper-case AND is the default and
+ * is ignored. Any other spelling of "or" and "and" is an ordinary term, indexed and searched
+ * like every other word. Every term also matches indexed words it
+ * is a prefix of, so partially typed words still find results.
+ *
+ * The index is loaded from the database on first use and then kept current by the
+ * managers through index() and remove().
+ */
+public class SearchIndex {
+
+    /** The kinds of rows the index covers. */
+    public enum DocType { QUESTION, SUBSET_QUESTION, ANSWER, SUBSET_ANSWER }
+
+    // Query operators, recognized only in upper case.
+    private static final String OR = "OR";
+    private static final String AND = "AND";
+
+    // BM25 tuning constants
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Upper bound on the number of indexed words a single prefix term expands to.
+    private static final int MAX_PREFIX_EXPANSION = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final Map<Long, Set<Long>> children = new HashMap<>();
+    private long totalLength = 0;
+    private volatile boolean loaded = false;
+
+    /**
+     * A ranked search result.
+     */
+    public static final class Hit {
+        private final DocType type;
+        private final int id;
+        private final int parentId;
+        private final double score;
+
+        Hit(DocType type, int id, int parentId, double score) {
+            this.type = type;
+            this.id = id;
+            this.parentId = parentId;
+            this.score = score;
+        }
+
+        public DocType getType() { return type; }
+        public int getId() { return id; }
+        /** The question, clarification question, or 0 for main questions. */
+        public int getParentId() { return parentId; }
+        public double getScore() { return score; }
+    }
+
+    private static final class Doc {
+        final DocType type;
+        final int id;
+        final int parentId;
+        final Map<String, Integer> termFrequencies;
+        final int length;
+
+        Doc(DocType type, int id, int parentId, Map<String, Integer> termFrequencies, int length) {
+            this.type = type;
+            this.id = id;
+            this.parentId = parentId;
+            this.termFrequencies = termFrequencies;
+            this.length = length;
+        }
+    }
+
+    /**
+     * @return true once the index has been loaded from the database
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Loads the index from the database if that has not happened yet.
+     * @param conn the connection to read from
+     * @throws SQLException if the tables cannot be read
+     */
+    public void ensureLoaded(Connection conn) throws SQLException {
+        if (!loaded) {
+            rebuild(conn);
+        }
+    }
+
+    /**
+     * Discards the index and reads every indexed table again.
+     * @param conn the connection to read from
+     * @throws SQLException if the tables cannot be read
+     */
+    public void rebuild(Connection conn) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docs.clear();
+            children.clear();
+            totalLength = 0;
+            try (Statement stmt = conn.createStatement()) {
+                load(stmt, "SELECT id, 0, text FROM questions", DocType.QUESTION, null);
+                load(stmt, "SELECT id, qID, text FROM subSetQuestions", DocType.SUBSET_QUESTION, DocType.QUESTION);
+                load(stmt, "SELECT id, questionId, text FROM answers", DocType.ANSWER, DocType.QUESTION);
+                load(stmt, "SELECT id, saID, text FROM subSetAnswers", DocType.SUBSET_ANSWER, DocType.SUBSET_QUESTION);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the index stale so the next search reloads it, for example after a bulk load. A
+     * rebuild in progress may have missed the change, so this waits for it to finish first.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load(Statement stmt, String query, DocType type, DocType parentType) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                addLocked(type, rs.getInt(1), rs.getInt(2), parentType, rs.getString(3));
+            }
+        }
+    }
+
+    /**
+     * Adds or replaces a row in the index. Ignored until the index has been loaded, since
+     * the load reads the row from the database anyway. The check is made under the write lock,
+     * so a change made while a rebuild is reading the tables waits for it and is then applied;
+     * applying a change the rebuild already read is harmless.
+     * @param type the kind of row
+     * @param id the row id
+     * @param parentId the question (for answers and clarification questions) or clarification
+     *                 question (for clarification answers) the row belongs to; 0 for questions
+     * @param text the row text
+     */
+    public void index(DocType type, int id, int parentId, String text) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            removeLocked(key(type, id), false);
+            addLocked(type, id, parentId, parentTypeOf(type), text);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the text of a row that is already indexed, keeping its parent. Ignored until
+     * the index has been loaded, like index().
+     * @param type the kind of row
+     * @param id the row id
+     * @param text the new text
+     */
+    public void update(DocType type, int id, String text) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            Doc existing = docs.get(key(type, id));
+            int parentId = existing == null ? 0 : existing.parentId;
+            removeLocked(key(type, id), false);
+            addLocked(type, id, parentId, parentTypeOf(type), text);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a row and, mirroring the ON DELETE CASCADE foreign keys, everything below it.
+     * Ignored until the index has been loaded, like index().
+     * @param type the kind of row
+     * @param id the row id
+     */
+    public void remove(DocType type, int id) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            removeLocked(key(type, id), true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a query against the index.
+     * @param query the search terms
+     * @param types the kinds of rows to return
+     * @param limit the maximum number of hits
+     * @return hits ordered by descending BM25 score
+     */
+    public List<Hit> search(String query, Set<DocType> types, int limit) {
+        List<String> terms = tokenize(query == null ? "" : query, true);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // Terms are lower case, so the upper-case operators cannot be confused with them.
+        boolean matchAny = terms.removeIf(OR::equals);
+        terms.removeIf(AND::equals);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = Math.max(1, docs.size());
+            double averageLength = docs.isEmpty() ? 1 : (double) totalLength / docs.size();
+            Map<Long, Double> scores = new HashMap<>();
+            Map<Long, Integer> matchedTerms = new HashMap<>();
+
+            for (String term : terms) {
+                Set<Long> matchedByThisTerm = new HashSet<>();
+                int expansions = 0;
+                for (Map.Entry<String, Map<Long, Integer>> posting : postings.tailMap(term, true).entrySet()) {
+                    if (!posting.getKey().startsWith(term) || expansions++ >= MAX_PREFIX_EXPANSION) {
+                        break;
+                    }
+                    Map<Long, Integer> list = posting.getValue();
+                    double idf = Math.log(1 + (docCount - list.size() + 0.5) / (list.size() + 0.5));
+                    for (Map.Entry<Long, Integer> entry : list.entrySet()) {
+                        Doc doc = docs.get(entry.getKey());
+                        if (!types.contains(doc.type)) {
+                            continue;
+                        }
+                        int tf = entry.getValue();
+                        double norm = tf + K1 * (1 - B + B * doc.length / averageLength);
+                        scores.merge(entry.getKey(), idf * tf * (K1 + 1) / norm, Double::sum);
+                        matchedByThisTerm.add(entry.getKey());
+                    }
+                }
+                for (Long docKey : matchedByThisTerm) {
+                    matchedTerms.merge(docKey, 1, Integer::sum);
+                }
+            }
+
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                if (!matchAny && matchedTerms.get(entry.getKey()) < terms.size()) {
+                    continue;
+                }
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<Long, Double> entry = top.poll();
+                Doc doc = docs.get(entry.getKey());
+                hits.add(new Hit(doc.type, doc.id, doc.parentId, entry.getValue()));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Convenience overload returning only the ids of one kind of row, best match first.
+     * @param query the search terms
+     * @param type the kind of row
+     * @param limit the maximum number of ids
+     * @return the matching row ids
+     */
+    public List<Integer> searchIds(String query, DocType type, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        for (Hit hit : search(query, EnumSet.of(type), limit)) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+
+    // Must hold the write lock.
+    private void addLocked(DocType type, int id, int parentId, DocType parentType, String text) {
+        List<String> tokens = tokenize(text == null ? "" : text, false);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        long docKey = key(type, id);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(docKey, entry.getValue());
+        }
+        docs.put(docKey, new Doc(type, id, parentId, frequencies, tokens.size()));
+        totalLength += tokens.size();
+        if (parentType != null) {
+            children.computeIfAbsent(key(parentType, parentId), k -> new HashSet<>()).add(docKey);
+        }
+    }
+
+    // Must hold the write lock.
+    private void removeLocked(long docKey, boolean cascade) {
+        Doc doc = docs.remove(docKey);
+        if (doc != null) {
+            for (String term : doc.termFrequencies.keySet()) {
+                Map<Long, Integer> list = postings.get(term);
+                if (list != null) {
+                    list.remove(docKey);
+                    if (list.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            totalLength -= doc.length;
+            DocType parentType = parentTypeOf(doc.type);
+            if (parentType != null) {
+                Set<Long> siblings = children.get(key(parentType, doc.parentId));
+                if (siblings != null) {
+                    siblings.remove(docKey);
+                }
+            }
+        }
+        if (cascade) {
+            Set<Long> dependents = children.remove(docKey);
+            if (dependents != null) {
+                for (Long child : new ArrayList<>(dependents)) {
+                    removeLocked(child, true);
+                }
+            }
+        }
+    }
+
+    private static DocType parentTypeOf(DocType type) {
+        switch (type) {
+            case SUBSET_QUESTION:
+            case ANSWER:
+                return DocType.QUESTION;
+            case SUBSET_ANSWER:
+                return DocType.SUBSET_QUESTION;
+            default:
+                return null;
+        }
+    }
+
+    private static long key(DocType type, int id) {
+        return ((long) type.ordinal() << 32) | (id & 0xffffffffL);
+    }
+
+    /**
+     * Splits text into lower-case runs of letters and digits.
+     * @param text the text to split
+     * @param keepOperators whether upper-case AND/OR should be kept, in upper case, as operators
+     * @return the tokens in order
+     */
+    static List<String> tokenize(String text, boolean keepOperators) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = text.substring(start, i);
+                if (keepOperators && (word.equals(OR) || word.equals(AND))) {
+                    tokens.add(word);
+                } else {
+                    tokens.add(word.toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
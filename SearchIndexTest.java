@@ -0,0 +1,221 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import application.Question;
+
+/**
+ * SearchIndexTest
+ *
+ * This class contains automated JUnit tests to verify the in-process search index: BM25
+ * ranking, AND and OR queries, prefix expansion, removal of a row with the rows below it, and
+ * that a change made while the index is being rebuilt is not lost.
+ */
+public class SearchIndexTest {
+
+    private DatabaseHelper dbHelper;
+    private SearchIndex index;
+
+    /**
+     * Setup method to open an empty database and load an empty index from it.
+     */
+    @Before
+    public void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+        index = new SearchIndex();
+        try (Connection conn = dbHelper.getConnection()) {
+            index.rebuild(conn);
+        }
+    }
+
+    /**
+     * Cleanup method to close the database.
+     */
+    @After
+    public void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that BM25 ranks a row higher when the term occurs more often in it, when the
+     * row is shorter, and when the term is rarer across the index.
+     */
+    @Test
+    public void testBm25Ranking() {
+        index.index(SearchIndex.DocType.QUESTION, 1, 0, "maven maven maven build");
+        index.index(SearchIndex.DocType.QUESTION, 2, 0, "maven build");
+        index.index(SearchIndex.DocType.QUESTION, 3, 0, "maven build with many more words in the question text");
+        assertEquals(ids(1, 2, 3), index.searchIds("maven", SearchIndex.DocType.QUESTION, 10));
+
+        index.index(SearchIndex.DocType.QUESTION, 4, 0, "gradle build");
+        List<SearchIndex.Hit> hits = index.search("gradle OR build", EnumSet.of(SearchIndex.DocType.QUESTION), 10);
+        assertEquals("The row with the rare term should rank first", 4, hits.get(0).getId());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue("Hits should be in descending score order", hits.get(i - 1).getScore() >= hits.get(i).getScore());
+        }
+    }
+
+    /**
+     * Test 2: Verify that every term must match by default, that OR matches any term, and that
+     * only upper-case AND and OR are operators: every other spelling of "and" and "or" is an
+     * ordinary word, indexed and searched the same way.
+     */
+    @Test
+    public void testAndOr() {
+        index.index(SearchIndex.DocType.QUESTION, 1, 0, "java maven");
+        index.index(SearchIndex.DocType.QUESTION, 2, 0, "java gradle");
+        index.index(SearchIndex.DocType.QUESTION, 3, 0, "python pip");
+        index.index(SearchIndex.DocType.QUESTION, 4, 0, "Java And Maven");
+        index.index(SearchIndex.DocType.QUESTION, 5, 0, "maven or gradle");
+
+        assertEquals(ids(1, 4), sorted(index.searchIds("java maven", SearchIndex.DocType.QUESTION, 10)));
+        assertEquals(ids(1, 4), sorted(index.searchIds("java AND maven", SearchIndex.DocType.QUESTION, 10)));
+        for (String and : new String[] { "and", "And", "aNd" }) {
+            assertEquals(and, ids(4), index.searchIds("java " + and + " maven", SearchIndex.DocType.QUESTION, 10));
+        }
+        for (String or : new String[] { "or", "Or", "oR" }) {
+            assertEquals(or, ids(5), index.searchIds("maven " + or + " gradle", SearchIndex.DocType.QUESTION, 10));
+        }
+        assertEquals(ids(4, 5), sorted(index.searchIds("and OR or", SearchIndex.DocType.QUESTION, 10)));
+        assertEquals(5, index.searchIds("maven OR gradle OR pip", SearchIndex.DocType.QUESTION, 10).size());
+        assertTrue(index.searchIds("java pip", SearchIndex.DocType.QUESTION, 10).isEmpty());
+        assertTrue("Operators alone should match nothing", index.searchIds("OR", SearchIndex.DocType.QUESTION, 10).isEmpty());
+    }
+
+    /**
+     * Test 3: Verify that a term matches the words it is a prefix of, up to the expansion limit,
+     * and that only the requested kinds of rows are returned.
+     */
+    @Test
+    public void testPrefixExpansion() {
+        index.index(SearchIndex.DocType.QUESTION, 1, 0, "configuring maven");
+        index.index(SearchIndex.DocType.ANSWER, 2, 1, "the configuration file");
+        index.index(SearchIndex.DocType.QUESTION, 3, 0, "unrelated");
+
+        assertEquals(ids(1), index.searchIds("config", SearchIndex.DocType.QUESTION, 10));
+        assertEquals(ids(2), index.searchIds("config", SearchIndex.DocType.ANSWER, 10));
+        assertEquals(2, index.search("conf mav OR conf", EnumSet.allOf(SearchIndex.DocType.class), 10).size());
+        assertTrue(index.searchIds("configurations", SearchIndex.DocType.ANSWER, 10).isEmpty());
+
+        for (int i = 0; i < 100; i++) {
+            index.index(SearchIndex.DocType.QUESTION, 100 + i, 0, String.format("word%03d", i));
+        }
+        assertEquals("A prefix should expand to at most 64 words", 64,
+                index.searchIds("word", SearchIndex.DocType.QUESTION, 1000).size());
+    }
+
+    /**
+     * Test 4: Verify that removing a question removes its answers and clarifications with it,
+     * and that update keeps a row under its parent.
+     */
+    @Test
+    public void testRemoveCascadesAndUpdate() {
+        index.index(SearchIndex.DocType.QUESTION, 1, 0, "deployment question");
+        index.index(SearchIndex.DocType.ANSWER, 1, 1, "deployment answer");
+        index.index(SearchIndex.DocType.SUBSET_QUESTION, 1, 1, "deployment clarification");
+        index.index(SearchIndex.DocType.SUBSET_ANSWER, 1, 1, "deployment clarified");
+        index.update(SearchIndex.DocType.ANSWER, 1, "rollout answer");
+        assertTrue(index.searchIds("deployment", SearchIndex.DocType.ANSWER, 10).isEmpty());
+        assertEquals(1, index.search("rollout", EnumSet.of(SearchIndex.DocType.ANSWER), 10).get(0).getParentId());
+
+        index.remove(SearchIndex.DocType.QUESTION, 1);
+        assertTrue(index.search("deployment OR rollout", EnumSet.allOf(SearchIndex.DocType.class), 10).isEmpty());
+    }
+
+    /**
+     * Test 5: Verify that a question indexed while a rebuild is reading the tables, after the
+     * rebuild has read the questions, is found once the rebuild finishes.
+     */
+    @Test
+    public void testIndexDuringRebuildIsKept() throws Exception {
+        CountDownLatch queried = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        SearchIndex rebuilt = new SearchIndex();
+        List<Throwable> failures = new ArrayList<>();
+
+        Thread rebuild = new Thread(() -> {
+            try (Connection conn = dbHelper.getConnection()) {
+                rebuilt.rebuild(pausingAfterFirstQuery(conn, queried, proceed));
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        rebuild.start();
+        assertTrue(queried.await(10, TimeUnit.SECONDS));
+
+        // The questions have been read; this one is committed after that and indexed by its writer.
+        Question question = new Question(0, "Committed during the rebuild", "alice");
+        assertTrue(dbHelper.getRepositories().questions().insert(question));
+        Thread writer = new Thread(() ->
+                rebuilt.index(SearchIndex.DocType.QUESTION, question.getId(), 0, question.getText()));
+        writer.start();
+        writer.join(200);
+        proceed.countDown();
+        rebuild.join(10_000);
+        writer.join(10_000);
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(ids(question.getId()), rebuilt.searchIds("committed", SearchIndex.DocType.QUESTION, 10));
+    }
+
+    // A connection whose statements run the first query and then wait before returning its rows.
+    private static Connection pausingAfterFirstQuery(Connection conn, CountDownLatch queried, CountDownLatch proceed) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    Object result = invoke(conn, method, args);
+                    if (!method.getName().equals("createStatement")) {
+                        return result;
+                    }
+                    Statement statement = (Statement) result;
+                    return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { Statement.class },
+                            (statementProxy, statementMethod, statementArgs) -> {
+                                Object rows = invoke(statement, statementMethod, statementArgs);
+                                if (rows instanceof ResultSet && queried.getCount() > 0) {
+                                    queried.countDown();
+                                    proceed.await(10, TimeUnit.SECONDS);
+                                }
+                                return rows;
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static List<Integer> ids(int... ids) {
+        List<Integer> list = new ArrayList<>();
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static List<Integer> sorted(List<Integer> ids) {
+        List<Integer> list = new ArrayList<>(ids);
+        Collections.sort(list);
+        return list;
+    }
+}
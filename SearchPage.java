@@ -6,7 +6,6 @@ import javafx.scene.*;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
-import java.sql.*;
 import databasePart1.DatabaseHelper;
 
 /**
@@ -41,14 +40,6 @@ public class SearchPage{
     public void show() {
         primaryStage.setTitle("Search Questions and Answers");
 
-        // Initialize the database connection
-        databaseHelper = new DatabaseHelper();
-        try {
-            databaseHelper.connectToDatabase();
-        } catch (SQLException ex) {
-            showAlert("Error connecting to database: " + ex.getMessage());
-        }
-
         // Create a TabPane with two tabs: Questions and Answers
         TabPane tabPane = new TabPane();
 
@@ -174,82 +165,49 @@ public class SearchPage{
     }
 
     /**
-     * Searches questions using the entered keyword and displays results.
+     * Searches questions using the entered keyword and displays the top results, best match first.
      */
     private void searchQuestions() {
         String keyword = questionSearchField.getText().trim();
-        ObservableList<Question> items = FXCollections.observableArrayList();
-        try (ResultSet rs = databaseHelper.searchQuestions(keyword)){
-            //ResultSet rs = databaseHelper.searchQuestions(keyword);
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String text = rs.getString("text");
-                String author = rs.getString("author");
-                items.add(new Question(id, text, author));
-            }
-            questionListView.setItems(items);
-        } catch (SQLException ex) {
-            showAlert("Error searching questions: " + ex.getMessage());
-        }
+        // A newer search replaces one still running, so only the latest results are shown.
+        databaseHelper.getAsyncDataAccess().deliverLatest("search.questions", databaseHelper.searchQuestionsAsync(keyword),
+                questions -> questionListView.setItems(FXCollections.observableArrayList(questions)),
+                ex -> showAlert("Error searching questions: " + ex.getMessage()));
     }
 
     /**
      * Loads answers for the selected question and displays them.
      */
     private void loadAnswersForQuestion(int questionId) {
-        ObservableList<Answer> items = FXCollections.observableArrayList();
-        try {
-            ResultSet rs = databaseHelper.getAnswersForQuestion(questionId);
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String text = rs.getString("text");
-                String author = rs.getString("author");
-                items.add(new Answer(id, text, author, questionId));
-            }
-            questionAnswerListView.setItems(items);
-        } catch (SQLException ex) {
-            showAlert("Error loading answers: " + ex.getMessage());
-        }
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        async.deliverLatest("search.questionAnswers", async.supply(() -> databaseHelper.getAnswersForQuestion(questionId)),
+            answers -> questionAnswerListView.setItems(FXCollections.observableArrayList(answers)),
+            ex -> showAlert("Error loading answers: " + ex.getMessage()));
     }
 
     /**
-     * Searches answers using the entered keyword and displays results.
+     * Searches answers using the entered keyword and displays the top results, best match first.
      */
     private void searchAnswers() {
         String keyword = answerSearchField.getText().trim();
-        ObservableList<Answer> items = FXCollections.observableArrayList();
-        try{
-            ResultSet rs = databaseHelper.searchAnswers(keyword);
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String text = rs.getString("text");
-                String author = rs.getString("author");
-                int questionId = rs.getInt("questionId");
-                items.add(new Answer(id, text, author, questionId));
-            }
-            answerListView.setItems(items);
-        } catch (SQLException ex) {
-            showAlert("Error searching answers: " + ex.getMessage());
-        }
+        databaseHelper.getAsyncDataAccess().deliverLatest("search.answers", databaseHelper.searchAnswersAsync(keyword),
+                answers -> answerListView.setItems(FXCollections.observableArrayList(answers)),
+                ex -> showAlert("Error searching answers: " + ex.getMessage()));
     }
 
     /**
      * Loads and displays the question for the selected answer.
      */
     private void loadQuestionForAnswer(int answerId) {
-        try{
-            ResultSet rs = databaseHelper.getQuestionForAnswer(answerId);
-            if (rs.next()) {
-                int id = rs.getInt("id");
-                String text = rs.getString("text");
-                String author = rs.getString("author");
-                relatedQuestionLabel.setText("Question ID: " + id + "\nText: " + text + "\nAuthor: " + author);
-            } else {
-                relatedQuestionLabel.setText("No question found for this answer.");
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        async.deliverLatest("search.relatedQuestion", async.supply(() -> {
+            Question q = databaseHelper.getQuestionForAnswer(answerId);
+            if (q != null) {
+                return "Question ID: " + q.getId() + "\nText: " + q.getText() + "\nAuthor: " + q.getAuthor();
             }
-        } catch (SQLException ex) {
-            showAlert("Error loading related question: " + ex.getMessage());
-        }
+            return "No question found for this answer.";
+        }), relatedQuestionLabel::setText,
+            ex -> showAlert("Error loading related question: " + ex.getMessage()));
     }
 
     /**
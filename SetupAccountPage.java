@@ -58,7 +58,7 @@ public class SetupAccountPage {
             		
             		// Validate username and password using UserNameRecognizer and PasswordEvaluator
                     String userNameError = UserNameRecognizer.checkForValidUserName(userName);
-                    String passwordError = PasswordEvaluator.evaluatePassword(password);
+                    String passwordError = PasswordEvaluator.evaluate(password).getErrorMessage();
 
                     if (!userNameError.isEmpty()) {
                         // Display username validation error
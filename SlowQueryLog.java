@@ -0,0 +1,390 @@
+package databasePart1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The SlowQueryLog class writes every statement that runs longer than a threshold to a rolling
+ * file, with its bound parameters, duration, row count and the plan H2 chooses for it. Values
+ * bound to or compared with a password column are written as ***.
+ *
+ * The log is opt-in: QueryMetrics hands it the statements it measures once it is set with
+ * QueryMetrics.setSlowQueryLog. Capturing the plan runs the query again, so entries are written
+ * by one background thread from a short queue, and a rate limit admits a burst of 5 entries and
+ * then at most maxPerMinute; slow queries beyond that are only counted.
+ */
+public class SlowQueryLog implements AutoCloseable {
+
+    /**
+     * Where the log leases the connection it runs EXPLAIN on.
+     */
+    public interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    /** Name of the current log file; rolled files get .1, .2, ... before the extension. */
+    public static final String FILE_NAME = "slow-queries.log";
+
+    private static final int BURST = 5;
+    private static final int QUEUE_SIZE = 16;
+    private static final int MAX_VALUE_LENGTH = 100;
+    private static final Pattern INSERT_VALUES = Pattern.compile(
+            "^\\s*(?:INSERT|MERGE)\\s+INTO\\s+[\\w.]+\\s*\\(([^)]*)\\)\\s*(?:KEY\\s*\\([^)]*\\)\\s*)?VALUES\\s*\\(([^)]*)\\)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMPARED_COLUMN = Pattern.compile(
+            "([\\w.]+)\\s*(?:=|<>|!=|<=|>=|<|>|\\bLIKE)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PASSWORD_LITERAL = Pattern.compile(
+            "(\\w*password\\w*\"?\\s*(?:=|<>|!=)\\s*)'(?:[^']|'')*'", Pattern.CASE_INSENSITIVE);
+
+    private final Path directory;
+    private final long thresholdNanos;
+    private final long intervalNanos;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final ConnectionSource connections;
+    private final ThreadPoolExecutor writer;
+    // Rate limit (generic cell rate algorithm): the time at which the bucket is empty again.
+    private final AtomicLong theoreticalArrival;
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong skippedSinceLastEntry = new AtomicLong();
+    // Guarded by this log's lock; entries that arrive after close are dropped rather than reopening the file.
+    private BufferedWriter out;
+    private long fileBytes;
+    private boolean closed;
+
+    /**
+     * Creates a log that writes at most 10 entries a minute to files of up to 1 MB, keeping 5.
+     * @param directory the directory of the log files, created if missing
+     * @param thresholdMillis statements taking at least this long are logged
+     * @param connections where to lease a connection for EXPLAIN
+     */
+    public SlowQueryLog(Path directory, long thresholdMillis, ConnectionSource connections) {
+        this(directory, thresholdMillis, 10, 1_048_576, 5, connections);
+    }
+
+    /**
+     * Creates a log.
+     * @param directory the directory of the log files, created if missing
+     * @param thresholdMillis statements taking at least this long are logged
+     * @param maxPerMinute the most entries written per minute after the first burst
+     * @param maxFileBytes the size at which the current file is rolled
+     * @param maxFiles the number of files kept, the current one included
+     * @param connections where to lease a connection for EXPLAIN
+     */
+    public SlowQueryLog(Path directory, long thresholdMillis, int maxPerMinute, long maxFileBytes, int maxFiles,
+                        ConnectionSource connections) {
+        if (maxPerMinute < 1 || maxFiles < 1) {
+            throw new IllegalArgumentException("maxPerMinute and maxFiles must be at least 1");
+        }
+        this.directory = directory;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / maxPerMinute;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.connections = connections;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), r -> {
+            Thread t = new Thread(r, "slow-query-log");
+            t.setDaemon(true);
+            return t;
+        }, (task, executor) -> skip());
+    }
+
+    /**
+     * @return the threshold in nanoseconds
+     */
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    /**
+     * @param nanos how long a statement took
+     * @return true if that is at least the threshold, so the statement should be logged
+     */
+    public boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    /**
+     * @return the number of entries written
+     */
+    public long getLogged() {
+        return logged.get();
+    }
+
+    /**
+     * @return the number of slow queries not written because of the rate limit or a full queue
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Queues a slow statement to be written, unless the rate limit is reached. Never blocks.
+     * @param sql the SQL text
+     * @param parameters the bound parameters by index, or null
+     * @param nanos how long the statement took
+     * @param rows the rows read or changed, or -1 if unknown
+     */
+    public void record(String sql, Map<Integer, Object> parameters, long nanos, long rows) {
+        if (sql == null || sql.trim().regionMatches(true, 0, "EXPLAIN", 0, 7)) {
+            return; // The log's own EXPLAIN statements are not logged again.
+        }
+        if (!tryAcquire()) {
+            skip();
+            return;
+        }
+        LocalDateTime at = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        long skippedBefore = skippedSinceLastEntry.getAndSet(0);
+        Map<Integer, Object> bound = parameters == null ? Collections.emptyMap() : new TreeMap<>(parameters);
+        writer.execute(() -> write(at, skippedBefore, sql, bound, nanos, rows));
+    }
+
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long start = arrival - now > 0 ? arrival : now;
+            if (start - now > intervalNanos * (BURST - 1)) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    private void skip() {
+        skipped.incrementAndGet();
+        skippedSinceLastEntry.incrementAndGet();
+    }
+
+    /**
+     * Stops the writer after the queued entries and closes the file. An entry still capturing its
+     * plan after 5 seconds is dropped.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closed = true;
+            try {
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Runs on the writer thread.
+    private void write(LocalDateTime at, long skippedBefore, String sql, Map<Integer, Object> parameters, long nanos, long rows) {
+        StringBuilder entry = new StringBuilder();
+        entry.append(at).append(String.format(Locale.ROOT, "  %.1f ms", nanos / 1_000_000.0));
+        entry.append(rows < 0 ? "" : ", " + rows + " rows");
+        if (skippedBefore > 0) {
+            entry.append("  (").append(skippedBefore).append(" slow queries not logged since the previous entry)");
+        }
+        entry.append(System.lineSeparator()).append("SQL: ").append(redactSql(sql).trim().replaceAll("\\s+", " "));
+        if (!parameters.isEmpty()) {
+            entry.append(System.lineSeparator()).append("Parameters: ").append(formatParameters(sql, parameters));
+        }
+        entry.append(System.lineSeparator()).append("Plan:");
+        for (String line : plan(sql, parameters).split("\\R")) {
+            entry.append(System.lineSeparator()).append("    ").append(line);
+        }
+        entry.append(System.lineSeparator()).append(System.lineSeparator());
+        try {
+            if (append(entry.toString())) {
+                logged.incrementAndGet();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // EXPLAIN ANALYZE runs the statement, so only queries are analyzed; changes get the plan alone.
+    private String plan(String sql, Map<Integer, Object> parameters) {
+        String verb = sql.trim().split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        String explain;
+        if (verb.equals("SELECT") || verb.equals("WITH")) {
+            explain = "EXPLAIN ANALYZE ";
+        } else if (verb.equals("INSERT") || verb.equals("UPDATE") || verb.equals("DELETE") || verb.equals("MERGE")) {
+            explain = "EXPLAIN ";
+        } else {
+            return "(no plan for " + verb + " statements)";
+        }
+        StringBuilder plan = new StringBuilder();
+        try (Connection conn = connections.get();
+             PreparedStatement pstmt = conn.prepareStatement(explain + sql)) {
+            for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+                pstmt.setObject(parameter.getKey(), parameter.getValue());
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+        } catch (SQLException e) {
+            return "(EXPLAIN failed: " + e.getMessage() + ")";
+        }
+        return redactSql(plan.toString().trim());
+    }
+
+    // Returns false if the log was closed while the entry was being prepared.
+    private synchronized boolean append(String entry) throws IOException {
+        if (closed) {
+            return false;
+        }
+        byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+        if (out != null && fileBytes + bytes.length > maxFileBytes) {
+            out.close();
+            out = null;
+            roll();
+        }
+        if (out == null) {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(FILE_NAME);
+            fileBytes = Files.exists(file) ? Files.size(file) : 0;
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        out.write(entry);
+        out.flush();
+        fileBytes += bytes.length;
+        return true;
+    }
+
+    // slow-queries.log becomes slow-queries.1.log, .1 becomes .2, and the oldest is deleted.
+    private void roll() throws IOException {
+        Files.deleteIfExists(rolledFile(maxFiles - 1));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            Path from = rolledFile(i);
+            if (Files.exists(from)) {
+                Files.move(from, rolledFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Path current = directory.resolve(FILE_NAME);
+        if (maxFiles > 1 && Files.exists(current)) {
+            Files.move(current, rolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(current);
+        }
+    }
+
+    private Path rolledFile(int index) {
+        return directory.resolve(FILE_NAME.replace(".log", "." + index + ".log"));
+    }
+
+    /**
+     * Replaces string literals compared with a password column by '***'.
+     * @param sql the SQL text
+     * @return the redacted text
+     */
+    public static String redactSql(String sql) {
+        return PASSWORD_LITERAL.matcher(sql).replaceAll("$1'***'");
+    }
+
+    /**
+     * Formats bound parameters, writing *** for values bound to a password column. When the
+     * column of a parameter cannot be told and the statement mentions a password, it is redacted too.
+     * @param sql the SQL text the parameters are bound to
+     * @param parameters the parameters by index
+     * @return the parameters as 1='value', 2=***, ...
+     */
+    public static String formatParameters(String sql, Map<Integer, Object> parameters) {
+        List<String> columns = parameterColumns(sql);
+        boolean mentionsPassword = sql.toLowerCase(Locale.ROOT).contains("password");
+        StringBuilder formatted = new StringBuilder();
+        for (Map.Entry<Integer, Object> parameter : new TreeMap<>(parameters).entrySet()) {
+            int index = parameter.getKey();
+            String column = index - 1 < columns.size() ? columns.get(index - 1) : null;
+            boolean secret = column == null ? mentionsPassword : column.toLowerCase(Locale.ROOT).contains("password");
+            if (formatted.length() > 0) {
+                formatted.append(", ");
+            }
+            formatted.append(index).append('=').append(secret ? "***" : formatValue(parameter.getValue()));
+        }
+        return formatted.toString();
+    }
+
+    private static String formatValue(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        String text = value.toString();
+        if (text.length() > MAX_VALUE_LENGTH) {
+            text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+        }
+        return value instanceof CharSequence ? "'" + text + "'" : text;
+    }
+
+    // The column each ? is bound to, or null where it cannot be told: from the column list of
+    // INSERT ... VALUES, and otherwise from a comparison such as "password = ?".
+    static List<String> parameterColumns(String sql) {
+        List<String> columns = new ArrayList<>();
+        int scanFrom = 0;
+        Matcher insert = INSERT_VALUES.matcher(sql);
+        if (insert.find()) {
+            String[] names = insert.group(1).split(",");
+            String[] values = insert.group(2).split(",");
+            for (int i = 0; i < values.length; i++) {
+                String value = values[i].trim();
+                if (value.equals("?")) {
+                    columns.add(i < names.length ? names[i].trim() : null);
+                } else {
+                    for (char c : value.toCharArray()) {
+                        if (c == '?') {
+                            columns.add(null);
+                        }
+                    }
+                }
+            }
+            scanFrom = insert.end();
+        }
+        boolean inLiteral = false;
+        for (int i = scanFrom; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            } else if (c == '?' && !inLiteral) {
+                Matcher compared = COMPARED_COLUMN.matcher(sql.substring(scanFrom, i));
+                columns.add(compared.find() ? compared.group(1) : null);
+            }
+        }
+        return columns;
+    }
+}
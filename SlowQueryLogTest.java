@@ -0,0 +1,102 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import application.User;
+
+/**
+ * SlowQueryLogTest
+ *
+ * This class contains automated JUnit tests to verify that slow queries are written to the slow
+ * query log with their plans, that bound passwords are redacted, and that the threshold itself
+ * counts as slow.
+ */
+public class SlowQueryLogTest {
+
+    private static DatabaseHelper dbHelper;
+
+    /**
+     * Setup method to establish the database connection to a fresh in-memory database.
+     */
+    @BeforeClass
+    public static void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+    }
+
+    /**
+     * Cleanup method to close the database connection after all tests.
+     */
+    @AfterClass
+    public static void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that with a threshold of 0 a login is written to the slow query log with its
+     * plan, and that the password it was bound with is redacted.
+     */
+    @Test
+    public void testSlowQueryLogRedactsPasswords() throws Exception {
+        Path directory = Files.createTempDirectory("slow-queries");
+        dbHelper.enableSlowQueryLog(directory, 0);
+        try {
+            dbHelper.login(new User("slowLogNobody", "slowLogSecret", "student"));
+        } finally {
+            dbHelper.disableSlowQueryLog();
+        }
+        String log = new String(Files.readAllBytes(directory.resolve(SlowQueryLog.FILE_NAME)), StandardCharsets.UTF_8);
+        assertTrue("The login should be logged", log.contains("SQL: SELECT * FROM cse360users WHERE userName = ? AND password = ?"));
+        assertTrue("The user name should be logged", log.contains("1='slowLogNobody'"));
+        assertTrue("The password should be redacted", log.contains("2=***"));
+        assertFalse("The password should not appear anywhere", log.contains("slowLogSecret"));
+        assertFalse("The plan should be captured", log.contains("EXPLAIN failed"));
+    }
+
+    /**
+     * Test 2: Verify that a statement taking exactly the threshold counts as slow and one a
+     * nanosecond faster does not, and that measured statements are logged only from the
+     * threshold up.
+     */
+    @Test
+    public void testThresholdIsInclusive() throws Exception {
+        Path directory = Files.createTempDirectory("slow-threshold");
+        SlowQueryLog threshold = new SlowQueryLog(directory, 40, () -> null);
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(40);
+            assertEquals(nanos, threshold.getThresholdNanos());
+            assertTrue("Exactly the threshold is slow", threshold.isSlow(nanos));
+            assertFalse("Just under the threshold is not", threshold.isSlow(nanos - 1));
+        } finally {
+            threshold.close();
+        }
+
+        try (Connection conn = dbHelper.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE ALIAS IF NOT EXISTS SLOW_LOG_SLEEP FOR 'java.lang.Thread.sleep(long)'");
+        }
+        dbHelper.enableSlowQueryLog(directory, 40);
+        try (Connection conn = dbHelper.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CALL SLOW_LOG_SLEEP(80)");
+            stmt.executeQuery("SELECT 'slowLogFast'").close();
+        } finally {
+            dbHelper.disableSlowQueryLog();
+        }
+        String log = new String(Files.readAllBytes(directory.resolve(SlowQueryLog.FILE_NAME)), StandardCharsets.UTF_8);
+        assertTrue("The statement over the threshold should be logged", log.contains("SQL: CALL SLOW_LOG_SLEEP(80)"));
+        assertFalse("The statement under the threshold should not be logged", log.contains("slowLogFast"));
+    }
+}
@@ -1,18 +1,40 @@
 package application;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import databasePart1.ChatLog;
+import databasePart1.DataSourceConfig;
 import databasePart1.DatabaseHelper;
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 /**
- * StaffChatPage provides a simple group chat interface for staff.
- * Messages typed in the input field are appended to a shared chat area.
+ * StaffChatPage provides a group chat interface for staff.
+ * Messages are stored in the staff chat log, so every staff member sees them and they are kept
+ * across restarts. The page opens on the newest lines, loads earlier ones on request, and shows
+ * messages posted by other staff while it is open. In server mode other instances of the
+ * application post to the same log without an event here, so the page also checks it every few seconds.
  */
 public class StaffChatPage {
+    // Number of lines loaded on open and per "Load Earlier".
+    private static final int LINES_PER_LOAD = 200;
+    private static final Duration OTHER_INSTANCES_POLL = Duration.seconds(3);
+    private static final DateTimeFormatter SENT_AT_FORMAT = DateTimeFormatter.ofPattern("MMM d, h:mm a");
+
     private final DatabaseHelper databaseHelper;
     private final User user;
+    private ChatLog chatLog;
+    private TextArea chatArea;
+    // The offset of the oldest line shown, and the offset after the newest.
+    private long firstShown;
+    private long nextToShow;
 
     public StaffChatPage(DatabaseHelper databaseHelper, User user, Stage primaryStage) {
         this.databaseHelper = databaseHelper;
@@ -22,27 +44,101 @@ public class StaffChatPage {
         layout.setStyle("-fx-padding: 20; -fx-alignment: center;");
 
         Label title = new Label("Staff Chat Room");
-        TextArea chatArea = new TextArea();
+        chatArea = new TextArea();
         chatArea.setEditable(false);
         chatArea.setPrefHeight(300);
 
+        Button loadEarlierButton = new Button("Load Earlier");
+        loadEarlierButton.setOnAction(e -> loadEarlier(loadEarlierButton));
+
         TextField messageField = new TextField();
         messageField.setPromptText("Enter message...");
         Button sendButton = new Button("Send");
+        Label statusLabel = new Label();
+
+        try {
+            chatLog = databaseHelper.getChatLog();
+            List<ChatLog.Entry> lines = chatLog.tail(LINES_PER_LOAD);
+            nextToShow = chatLog.getNextOffset();
+            firstShown = lines.isEmpty() ? nextToShow : lines.get(0).getOffset();
+            chatArea.setText(format(lines));
+            chatArea.positionCaret(chatArea.getText().length());
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            statusLabel.setText("The chat history could not be opened.");
+            sendButton.setDisable(true);
+        }
+        loadEarlierButton.setDisable(chatLog == null || firstShown == 0);
 
         sendButton.setOnAction(e -> {
-            String msg = user.getUserName() + ": " + messageField.getText().trim() + "\n";
-            chatArea.appendText(msg);
-            messageField.clear();
+            String text = messageField.getText().trim();
+            if (text.isEmpty()) {
+                return;
+            }
+            try {
+                long offset = chatLog.append(user.getUserName(), text);
+                databaseHelper.getEventBus().publish(new Events.StaffChatPosted(offset));
+                messageField.clear();
+                statusLabel.setText("");
+            } catch (IOException | IllegalArgumentException ex) {
+                ex.printStackTrace();
+                statusLabel.setText("The message could not be sent.");
+            }
         });
 
         Button backButton = new Button("Back");
         backButton.setOnAction(e -> new StaffHomePage(databaseHelper, user).show(primaryStage));
 
-        layout.getChildren().addAll(title, chatArea, messageField, sendButton, backButton);
+        layout.getChildren().addAll(title, loadEarlierButton, chatArea, messageField, sendButton, statusLabel, backButton);
 
         primaryStage.setScene(new Scene(layout, 500, 400));
         primaryStage.setTitle("Staff Chat");
+        if (chatLog != null) {
+            // New messages, this user's included, are read from the log starting after the last
+            // line shown, so lines are never missed or doubled however the events are batched.
+            EventBus.Subscription posts =
+                    databaseHelper.getEventBus().subscribe(Events.StaffChatPosted.class, posted -> showNewLines());
+            if (databaseHelper.getDataSource().getMode() == DataSourceConfig.Mode.SERVER) {
+                Timeline poll = new Timeline(new KeyFrame(OTHER_INSTANCES_POLL, e -> showNewLines()));
+                poll.setCycleCount(Animation.INDEFINITE);
+                poll.play();
+                EventBus.cancelWhenSceneChanges(primaryStage, posts, poll::stop);
+            } else {
+                EventBus.cancelWhenSceneChanges(primaryStage, posts);
+            }
+        }
         primaryStage.show();
     }
-}
\ No newline at end of file
+
+    private void showNewLines() {
+        try {
+            // Picks up the messages of other instances sharing the log.
+            chatLog.refresh();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        List<ChatLog.Entry> lines = chatLog.read(nextToShow, Integer.MAX_VALUE);
+        if (!lines.isEmpty()) {
+            nextToShow = lines.get(lines.size() - 1).getOffset() + 1;
+            chatArea.appendText(format(lines));
+        }
+    }
+
+    private void loadEarlier(Button loadEarlierButton) {
+        List<ChatLog.Entry> lines = chatLog.readBefore(firstShown, LINES_PER_LOAD);
+        if (!lines.isEmpty()) {
+            firstShown = lines.get(0).getOffset();
+            chatArea.insertText(0, format(lines));
+        }
+        loadEarlierButton.setDisable(firstShown == 0);
+    }
+
+    private static String format(List<ChatLog.Entry> lines) {
+        StringBuilder text = new StringBuilder();
+        for (ChatLog.Entry line : lines) {
+            text.append('[').append(line.getSentAt().format(SENT_AT_FORMAT)).append("] ")
+                .append(line.getAuthor()).append(": ").append(line.getText()).append('\n');
+        }
+        return text.toString();
+    }
+}
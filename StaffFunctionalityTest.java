@@ -8,6 +8,7 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import databasePart1.DataSourceConfig;
 import databasePart1.DatabaseHelper;
 import application.User;
 
@@ -26,10 +27,11 @@ public class StaffFunctionalityTest {
 
     /**
      * Setup method to establish database connection and register a test staff user.
+     * The tests run against their own in-memory database, never the application's file.
      */
     @BeforeClass
     public static void setup() throws SQLException {
-        dbHelper = new DatabaseHelper();
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
         dbHelper.connectToDatabase();
 
         // Register test staff user if not already present
@@ -43,9 +45,10 @@ public class StaffFunctionalityTest {
      */
     @AfterClass
     public static void cleanup() throws SQLException {
-        dbHelper.getConnection()
-                .prepareStatement("DELETE FROM cse360users WHERE userName = '" + STAFF_USERNAME + "'")
+        try (java.sql.Connection conn = dbHelper.getConnection()) {
+            conn.prepareStatement("DELETE FROM cse360users WHERE userName = '" + STAFF_USERNAME + "'")
                 .executeUpdate();
+        }
         dbHelper.closeConnection();
     }
 
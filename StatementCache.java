@@ -0,0 +1,208 @@
+package databasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The StatementCache class keeps the prepared statements of one physical connection,
+ * keyed by SQL text, so repeated manager queries skip parsing and planning.
+ * Statements handed out are wrappers whose close() puts the statement back in the cache.
+ * A physical connection is only ever used by one lease at a time, so the cache is not
+ * synchronized.
+ */
+public class StatementCache {
+
+    private final Connection physical;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    /**
+     * Creates a cache for a physical connection.
+     * @param physical the connection the statements belong to
+     * @param capacity the maximum number of cached statements
+     * @param hits shared counter of cache hits
+     * @param misses shared counter of cache misses
+     * @param evictions shared counter of statements evicted by the LRU policy
+     */
+    public StatementCache(Connection physical, int capacity, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a prepared statement for the SQL text, reusing a cached one when it is free.
+     * @param owner the leased connection that getConnection() on the statement should return
+     * @param sql the SQL text
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS
+     * @return a statement whose close() returns it to the cache
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse && !entry.statement.isClosed()) {
+            hits.incrementAndGet();
+        } else if (entry != null && entry.inUse) {
+            // The same SQL is already checked out on this connection (nested use);
+            // give the caller a private statement rather than sharing the cached one.
+            misses.incrementAndGet();
+            return physical.prepareStatement(sql, autoGeneratedKeys);
+        } else {
+            misses.incrementAndGet();
+            entry = new Entry(physical.prepareStatement(sql, autoGeneratedKeys));
+            entries.put(key, entry);
+            evictOverflow();
+        }
+        entry.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new Handle(owner, entry));
+    }
+
+    /**
+     * Closes every cached statement. Called when the physical connection is destroyed.
+     */
+    public void closeAll() {
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry.statement);
+        }
+        entries.clear();
+    }
+
+    /**
+     * @return the number of statements currently cached
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            evictions.incrementAndGet();
+            if (eldest.inUse) {
+                eldest.evicted = true; // closed when its borrower returns it
+            } else {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final class Key {
+        private final String sql;
+        private final int autoGeneratedKeys;
+
+        Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return sql.hashCode() * 31 + autoGeneratedKeys;
+        }
+    }
+
+    private static final class Entry {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * One checkout of a cached statement. Each checkout gets its own handle so a caller
+     * holding on to a closed statement cannot disturb the next borrower.
+     */
+    private static final class Handle implements InvocationHandler {
+        private final Connection owner;
+        private final Entry entry;
+        private boolean closed = false;
+
+        Handle(Connection owner, Entry entry) {
+            this.owner = owner;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.statement + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void giveBack() {
+            entry.inUse = false;
+            if (entry.evicted) {
+                closeQuietly(entry.statement);
+                return;
+            }
+            try {
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+            } catch (SQLException e) {
+                closeQuietly(entry.statement);
+            }
+        }
+    }
+}
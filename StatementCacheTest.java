@@ -0,0 +1,173 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * StatementCacheTest
+ *
+ * This class contains automated JUnit tests to verify the prepared statement cache of a pooled
+ * connection: reuse of returned statements, least recently used eviction, and a private
+ * statement for the same SQL checked out twice on one connection.
+ */
+public class StatementCacheTest {
+
+    private static final String SELECT_A = "SELECT ? + 1";
+    private static final String SELECT_B = "SELECT ? + 2";
+    private static final String SELECT_C = "SELECT ? + 3";
+
+    private Connection physical;
+    private AtomicLong hits;
+    private AtomicLong misses;
+    private AtomicLong evictions;
+
+    /**
+     * Setup method to open a private in-memory connection and reset the counters.
+     */
+    @Before
+    public void setup() throws SQLException {
+        physical = DriverManager.getConnection("jdbc:h2:mem:", "sa", "");
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        evictions = new AtomicLong();
+    }
+
+    /**
+     * Cleanup method to close the connection.
+     */
+    @After
+    public void cleanup() throws SQLException {
+        physical.close();
+    }
+
+    /**
+     * Test 1: Verify that a returned statement is handed out again for the same SQL, with its
+     * parameters cleared, and that a closed handle cannot be used.
+     */
+    @Test
+    public void testReuseAfterClose() throws SQLException {
+        StatementCache cache = newCache(4);
+        PreparedStatement first = cache.prepare(physical, SELECT_A, Statement.NO_GENERATED_KEYS);
+        assertEquals(11, run(first, 10));
+        first.close();
+        assertTrue(first.isClosed());
+        try {
+            first.executeQuery();
+            fail("A closed handle should not run");
+        } catch (SQLException e) {
+            // expected
+        }
+
+        PreparedStatement second = cache.prepare(physical, SELECT_A, Statement.NO_GENERATED_KEYS);
+        assertSame("The handle should report the leased connection", physical, second.getConnection());
+        try {
+            second.executeQuery();
+            fail("The parameters of the previous borrower should have been cleared");
+        } catch (SQLException e) {
+            // expected
+        }
+        assertEquals(21, run(second, 20));
+        second.close();
+        assertEquals(1, misses.get());
+        assertEquals(1, hits.get());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Test 2: Verify that a full cache evicts the least recently used statement, not the oldest
+     * one prepared.
+     */
+    @Test
+    public void testLeastRecentlyUsedEviction() throws SQLException {
+        StatementCache cache = newCache(2);
+        prepareAndClose(cache, SELECT_A);
+        prepareAndClose(cache, SELECT_B);
+        prepareAndClose(cache, SELECT_A);
+        prepareAndClose(cache, SELECT_C);
+        assertEquals(2, cache.size());
+        assertEquals(1, evictions.get());
+
+        hits.set(0);
+        misses.set(0);
+        prepareAndClose(cache, SELECT_A);
+        prepareAndClose(cache, SELECT_C);
+        assertEquals("The recently used statements should still be cached", 2, hits.get());
+        prepareAndClose(cache, SELECT_B);
+        assertEquals("The least recently used statement should have been evicted", 1, misses.get());
+    }
+
+    /**
+     * Test 3: Verify that the same SQL checked out twice on one connection gets a private
+     * statement the second time, that both run independently, and that the cached statement is
+     * free again once the outer checkout returns it.
+     */
+    @Test
+    public void testNestedCheckoutFallsBack() throws SQLException {
+        StatementCache cache = newCache(4);
+        PreparedStatement outer = cache.prepare(physical, SELECT_A, Statement.NO_GENERATED_KEYS);
+        outer.setInt(1, 100);
+        PreparedStatement inner = cache.prepare(physical, SELECT_A, Statement.NO_GENERATED_KEYS);
+        assertNotSame(outer, inner);
+        assertEquals(6, run(inner, 5));
+        inner.close();
+        assertTrue("The private statement should be closed, not cached", inner.isClosed());
+        assertEquals(1, cache.size());
+
+        try (ResultSet rs = outer.executeQuery()) {
+            assertTrue(rs.next());
+            assertEquals("The outer parameters should be untouched", 101, rs.getInt(1));
+        }
+        outer.close();
+        assertEquals(2, misses.get());
+
+        prepareAndClose(cache, SELECT_A);
+        assertEquals("The cached statement should be free again", 1, hits.get());
+    }
+
+    /**
+     * Test 4: Verify that a statement evicted while checked out keeps working until it is
+     * returned, and that closeAll closes the statements still cached.
+     */
+    @Test
+    public void testEvictionWhileCheckedOut() throws SQLException {
+        StatementCache cache = newCache(1);
+        PreparedStatement held = cache.prepare(physical, SELECT_A, Statement.NO_GENERATED_KEYS);
+        prepareAndClose(cache, SELECT_B);
+        assertEquals(1, evictions.get());
+        assertEquals(1, cache.size());
+        assertEquals(8, run(held, 7));
+        held.close();
+
+        PreparedStatement cached = cache.prepare(physical, SELECT_B, Statement.NO_GENERATED_KEYS);
+        cache.closeAll();
+        assertEquals(0, cache.size());
+        assertTrue(cached.isClosed());
+    }
+
+    private StatementCache newCache(int capacity) {
+        return new StatementCache(physical, capacity, hits, misses, evictions);
+    }
+
+    private void prepareAndClose(StatementCache cache, String sql) throws SQLException {
+        cache.prepare(physical, sql, Statement.NO_GENERATED_KEYS).close();
+    }
+
+    private static int run(PreparedStatement statement, int value) throws SQLException {
+        statement.setInt(1, value);
+        try (ResultSet rs = statement.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.util.List;
 public class StudentReviewPopup {
     private final DatabaseHelper databaseHelper;
     private final int answerId;
+    private final List<Review> preloadedReviews;
     
     /**
      * Constructs a StudentReviewPopup.
@@ -21,8 +22,19 @@ public class StudentReviewPopup {
      * @param answerId the ID of the answer for which reviews are displayed
      */
     public StudentReviewPopup(DatabaseHelper databaseHelper, int answerId) {
+        this(databaseHelper, answerId, null);
+    }
+    
+    /**
+     * Constructs a StudentReviewPopup for reviews that were already loaded with the thread.
+     * @param databaseHelper the database helper instance
+     * @param answerId the ID of the answer for which reviews are displayed
+     * @param reviews the reviews of the answer, or null to load them when shown
+     */
+    public StudentReviewPopup(DatabaseHelper databaseHelper, int answerId, List<Review> reviews) {
         this.databaseHelper = databaseHelper;
         this.answerId = answerId;
+        this.preloadedReviews = reviews;
     }
     
     /**
@@ -39,8 +51,11 @@ public class StudentReviewPopup {
         Label titleLabel = new Label("Reviews:");
         ListView<String> reviewList = new ListView<>();
         
-        ReviewManager rm = new ReviewManager(databaseHelper);
-        List<Review> reviews = rm.getReviewsForAnswer(answerId);
+        List<Review> reviews = preloadedReviews;
+        if (reviews == null) {
+            ReviewManager rm = new ReviewManager(databaseHelper);
+            reviews = rm.getReviewsForAnswer(answerId);
+        }
         if (reviews.isEmpty()) {
             reviewList.getItems().add("No reviews available.");
         } else {
@@ -0,0 +1,33 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage of the answers to subset questions. Answer.getQuestionId() is the ID of the subset
+ * question. Lists are in ID order.
+ */
+public interface SubsetAnswerRepository {
+
+    /**
+     * Stores a new subset answer and sets its ID. JdbcRepositories also queues it for every
+     * reviewer in the same transaction.
+     * @param answer the subset answer to store
+     * @return true if it was stored, false if the author already gave the subset question an answer with the same text
+     * @throws SQLException if the subset question does not exist or the answer cannot be stored
+     */
+    boolean insert(Answer answer) throws SQLException;
+
+    /**
+     * @param subsetQuestionId the subset question ID
+     * @return the answers to the subset question
+     */
+    List<Answer> findBySubsetQuestion(int subsetQuestionId) throws SQLException;
+
+    /**
+     * Replaces the text of a subset answer if it was written by the given author.
+     * @return true if the answer was changed, false if not or if the author already posted the new
+     *         text to the same subset question
+     */
+    boolean updateText(int id, String text, String author) throws SQLException;
+}
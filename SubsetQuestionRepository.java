@@ -0,0 +1,30 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage of subset questions, the clarifications asked under a main question. Lists are in ID order.
+ */
+public interface SubsetQuestionRepository {
+
+    /**
+     * Stores a new subset question and sets its ID.
+     * @param questionId the ID of the main question it belongs to
+     * @param subsetQuestion the subset question to store
+     * @throws SQLException if the main question does not exist or the subset question cannot be stored
+     */
+    void insert(int questionId, Question subsetQuestion) throws SQLException;
+
+    /**
+     * @param questionId the main question ID
+     * @return the subset questions of the main question
+     */
+    List<Question> findByQuestion(int questionId) throws SQLException;
+
+    /**
+     * Replaces the text of a subset question if it was written by the given author.
+     * @return true if the subset question was changed
+     */
+    boolean updateText(int id, String text, String author) throws SQLException;
+}
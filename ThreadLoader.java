@@ -0,0 +1,200 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The ThreadLoader class loads a whole question thread (the question, its answers, the reviews
+ * of those answers, its clarification questions with their answers, and the question reviews)
+ * with a fixed number of queries on one connection, however many answers the thread has.
+ * Loaded threads are kept in the content cache until something in them changes; each caller gets
+ * its own copy, since the posts in a thread are mutable.
+ */
+public class ThreadLoader {
+    private final DatabaseHelper databaseHelper;
+
+    /**
+     * Constructor to initialize the ThreadLoader.
+     * @param databaseHelper the database helper instance
+     */
+    public ThreadLoader(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Loads the thread of a main question using six queries.
+     * @param questionId the ID of the main question
+     * @return a copy of the assembled thread the caller may change, or null if the question does not exist
+     */
+    public QuestionThread load(int questionId) {
+        try {
+            QuestionThread thread = databaseHelper.getContentCache().get(ContentCache.Region.THREAD, questionId, () -> loadThread(questionId));
+            return thread == null ? null : thread.copy();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private QuestionThread loadThread(int questionId) throws SQLException {
+        try (Connection conn = databaseHelper.getConnection()) {
+            Question question = null;
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT id, text, author FROM questions WHERE id = ?")) {
+                pstmt.setInt(1, questionId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        question = new Question(rs.getInt("id"), rs.getString("text"), rs.getString("author"));
+                    }
+                }
+            }
+            if (question == null) {
+                return null;
+            }
+
+            String answersQuery = "SELECT id, text, author, questionId, superliked FROM answers WHERE questionId = ? ORDER BY id";
+            try (PreparedStatement pstmt = conn.prepareStatement(answersQuery)) {
+                pstmt.setInt(1, questionId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Answer answer = new Answer(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("questionId"));
+                        answer.setSuperlike(rs.getBoolean("superliked"));
+                        question.addAnswer(answer);
+                    }
+                }
+            }
+
+            Map<Integer, List<Review>> reviewsByAnswer = new HashMap<>();
+            String reviewsQuery = "SELECT r.id, r.text, r.author, r.answerId FROM reviews r "
+                    + "JOIN answers a ON r.answerId = a.id WHERE a.questionId = ? ORDER BY r.id";
+            try (PreparedStatement pstmt = conn.prepareStatement(reviewsQuery)) {
+                pstmt.setInt(1, questionId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Review review = new Review(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("answerId"));
+                        reviewsByAnswer.computeIfAbsent(review.getQuestionId(), k -> new ArrayList<>()).add(review);
+                    }
+                }
+            }
+
+            // Keyed by clarification ID in display order; each clarification carries its answers.
+            Map<Integer, Question> clarifications = new LinkedHashMap<>();
+            String clarificationsQuery = "SELECT id, text, author FROM subSetQuestions WHERE qID = ? ORDER BY id";
+            try (PreparedStatement pstmt = conn.prepareStatement(clarificationsQuery)) {
+                pstmt.setInt(1, questionId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Question clarification = new Question(rs.getInt("id"), rs.getString("text"), rs.getString("author"));
+                        clarifications.put(clarification.getId(), clarification);
+                    }
+                }
+            }
+
+            String clarificationAnswersQuery = "SELECT sa.id, sa.text, sa.author, sa.saID FROM subSetAnswers sa "
+                    + "JOIN subSetQuestions sq ON sa.saID = sq.id WHERE sq.qID = ? ORDER BY sa.id";
+            try (PreparedStatement pstmt = conn.prepareStatement(clarificationAnswersQuery)) {
+                pstmt.setInt(1, questionId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Question clarification = clarifications.get(rs.getInt("saID"));
+                        if (clarification != null) {
+                            clarification.addAnswer(new Answer(rs.getInt("id"), rs.getString("text"), rs.getString("author"), rs.getInt("saID")));
+                        }
+                    }
+                }
+            }
+
+            List<QuestionReview> questionReviews = new ArrayList<>();
+            String questionReviewsQuery = "SELECT id, text, reviewer, questionId FROM questionReviews WHERE questionId = ? ORDER BY id";
+            try (PreparedStatement pstmt = conn.prepareStatement(questionReviewsQuery)) {
+                pstmt.setInt(1, questionId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        questionReviews.add(new QuestionReview(rs.getInt("id"), rs.getString("text"), rs.getString("reviewer"), rs.getInt("questionId")));
+                    }
+                }
+            }
+
+            return new QuestionThread(question, reviewsByAnswer, new ArrayList<>(clarifications.values()), questionReviews);
+        }
+    }
+
+    /**
+     * Runs load off the JavaFX Application Thread.
+     * @param questionId the ID of the main question
+     * @return a future completed with the thread, or with null if the question does not exist
+     */
+    public CompletableFuture<QuestionThread> loadAsync(int questionId) {
+        return databaseHelper.getAsyncDataAccess().supply(() -> load(questionId));
+    }
+
+    /**
+     * A loaded question thread. The answers are attached to the question through
+     * Question.getAnswers(), and the answers of each clarification through its own getAnswers().
+     */
+    public static class QuestionThread {
+        private final Question question;
+        private final Map<Integer, List<Review>> reviewsByAnswer;
+        private final List<Question> clarifications;
+        private final List<QuestionReview> questionReviews;
+
+        QuestionThread(Question question, Map<Integer, List<Review>> reviewsByAnswer,
+                       List<Question> clarifications, List<QuestionReview> questionReviews) {
+            this.question = question;
+            this.reviewsByAnswer = reviewsByAnswer;
+            this.clarifications = clarifications;
+            this.questionReviews = questionReviews;
+        }
+
+        // Copies every post, so changes by one caller reach neither the cached thread nor other callers.
+        QuestionThread copy() {
+            Map<Integer, List<Review>> reviews = new HashMap<>();
+            for (Map.Entry<Integer, List<Review>> entry : reviewsByAnswer.entrySet()) {
+                List<Review> copies = new ArrayList<>();
+                for (Review r : entry.getValue()) {
+                    copies.add(new Review(r.getId(), r.getText(), r.getAuthor(), r.getQuestionId()));
+                }
+                reviews.put(entry.getKey(), copies);
+            }
+            List<Question> clarificationCopies = new ArrayList<>();
+            for (Question clarification : clarifications) {
+                clarificationCopies.add(copyOf(clarification));
+            }
+            List<QuestionReview> questionReviewCopies = new ArrayList<>();
+            for (QuestionReview r : questionReviews) {
+                questionReviewCopies.add(new QuestionReview(r.getId(), r.getText(), r.getReviewer(), r.getQuestionId()));
+            }
+            return new QuestionThread(copyOf(question), reviews, clarificationCopies, questionReviewCopies);
+        }
+
+        private static Question copyOf(Question question) {
+            Question copy = new Question(question.getId(), question.getText(), question.getAuthor());
+            for (Answer a : question.getAnswers()) {
+                Answer answer = new Answer(a.getId(), a.getText(), a.getAuthor(), a.getQuestionId());
+                answer.setSuperlike(a.isSuperlike());
+                copy.addAnswer(answer);
+            }
+            return copy;
+        }
+
+        public Question getQuestion() { return question; }
+        public List<Answer> getAnswers() { return question.getAnswers(); }
+        public List<Question> getClarifications() { return Collections.unmodifiableList(clarifications); }
+        public List<QuestionReview> getQuestionReviews() { return Collections.unmodifiableList(questionReviews); }
+
+        /**
+         * @param answerId the ID of an answer in this thread
+         * @return the reviews of that answer, possibly empty
+         */
+        public List<Review> getReviewsForAnswer(int answerId) {
+            List<Review> reviews = reviewsByAnswer.get(answerId);
+            return reviews == null ? Collections.emptyList() : Collections.unmodifiableList(reviews);
+        }
+    }
+}
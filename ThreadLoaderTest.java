@@ -0,0 +1,135 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * ThreadLoaderTest
+ *
+ * This class contains automated JUnit tests to verify that the thread loader assembles a whole
+ * question thread with the same number of queries however many answers, reviews and
+ * clarifications it has, and with none once the thread is cached.
+ */
+public class ThreadLoaderTest {
+
+    private DatabaseHelper dbHelper;
+    private ThreadLoader threadLoader;
+
+    /**
+     * Setup method to open an empty database.
+     */
+    @Before
+    public void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+        threadLoader = new ThreadLoader(dbHelper);
+    }
+
+    /**
+     * Cleanup method to close the database.
+     */
+    @After
+    public void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that a thread with one answer and a thread with twenty-five answers, each
+     * with reviews and clarifications, are both loaded with six queries.
+     */
+    @Test
+    public void testQueryCountDoesNotGrowWithThread() {
+        int small = createThread("Small thread", 1);
+        int large = createThread("Large thread", 25);
+
+        assertEquals(6, queriesToLoad(small));
+        assertEquals(6, queriesToLoad(large));
+    }
+
+    /**
+     * Test 2: Verify that the six queries put every answer, review, clarification, clarification
+     * answer and question review where it belongs.
+     */
+    @Test
+    public void testThreadIsAssembled() {
+        int other = createThread("Other thread", 2);
+        int questionId = createThread("Assembled thread", 3);
+
+        ThreadLoader.QuestionThread thread = threadLoader.load(questionId);
+        assertEquals("Assembled thread", thread.getQuestion().getText());
+        assertEquals(3, thread.getAnswers().size());
+        for (Answer answer : thread.getAnswers()) {
+            assertEquals(questionId, answer.getQuestionId());
+            List<Review> reviews = thread.getReviewsForAnswer(answer.getId());
+            assertEquals(2, reviews.size());
+            assertEquals(answer.getId(), reviews.get(0).getQuestionId());
+        }
+        assertEquals(2, thread.getClarifications().size());
+        for (Question clarification : thread.getClarifications()) {
+            assertEquals(3, clarification.getAnswers().size());
+            assertEquals(clarification.getId(), clarification.getAnswers().get(0).getQuestionId());
+        }
+        assertEquals(1, thread.getQuestionReviews().size());
+        assertEquals("The other thread should keep its own answers", 2, threadLoader.load(other).getAnswers().size());
+    }
+
+    /**
+     * Test 3: Verify that a missing question costs one query and loads as null, and that a
+     * cached thread is served without any query.
+     */
+    @Test
+    public void testMissingAndCachedThreads() {
+        assertEquals(1, queriesToLoad(12345));
+        assertNull(threadLoader.load(12345));
+
+        int questionId = createThread("Cached thread", 4);
+        threadLoader.load(questionId);
+        dbHelper.getQueryMetrics().reset();
+        assertEquals(4, threadLoader.load(questionId).getAnswers().size());
+        assertEquals("A cached thread should need no query", 0, dbHelper.getQueryMetrics().getTotalExecutions());
+    }
+
+    // Loads a thread past the cache and returns the number of queries that took.
+    private long queriesToLoad(int questionId) {
+        dbHelper.getContentCache().invalidateAll();
+        dbHelper.getQueryMetrics().reset();
+        threadLoader.load(questionId);
+        return dbHelper.getQueryMetrics().getTotalExecutions();
+    }
+
+    // Creates a question with the given number of answers, two reviews per answer, two
+    // clarifications with that many answers each, and one question review.
+    private int createThread(String text, int answers) {
+        QuestionManager questionManager = new QuestionManager(dbHelper);
+        AnswerManager answerManager = new AnswerManager(dbHelper);
+        ReviewManager reviewManager = new ReviewManager(dbHelper);
+        Question question = new Question(0, text, "alice");
+        assertTrue(questionManager.saveQuestion(question));
+        for (int i = 0; i < answers; i++) {
+            Answer answer = new Answer(0, text + " answer " + i, "bob", question.getId());
+            assertTrue(answerManager.saveAnswer(answer));
+            reviewManager.saveReview(new Review(0, "First review " + i, "carol", answer.getId()));
+            reviewManager.saveReview(new Review(0, "Second review " + i, "dave", answer.getId()));
+        }
+        for (int c = 0; c < 2; c++) {
+            questionManager.createSubSetQuestion(question.getId(), text + " clarification " + c, "bob");
+        }
+        for (Question clarification : questionManager.getSubSetQuestionsForMainQuestion(question.getId())) {
+            for (int i = 0; i < answers; i++) {
+                assertTrue(answerManager.saveSubSetAnswer(
+                        new Answer(0, clarification.getText() + " answer " + i, "alice", clarification.getId())));
+            }
+        }
+        new QuestionReviewManager(dbHelper).saveReview(new QuestionReview(0, "Clear question", "carol", question.getId()));
+        return question.getId();
+    }
+}
@@ -12,48 +12,115 @@ public class TrustedReviewerManager {
         this.databaseHelper = databaseHelper;
     }
     
-    // Adds a trusted reviewer for a student with a given weightage.
+    // Adds a trusted reviewer for a student with a given weightage, and adds the weightage to the
+    // student's scores of the answers the reviewer has reviewed and to the reviewer's statistics.
     public void addTrustedReviewer(String studentUserName, String reviewerUserName, double weightage) {
         String insertQuery = "INSERT INTO trustedReviewers (studentUserName, reviewerUserName, weightage) VALUES (?, ?, ?)";
         try (Connection conn = databaseHelper.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
-            pstmt.setString(1, studentUserName);
-            pstmt.setString(2, reviewerUserName);
-            pstmt.setDouble(3, weightage);
-            pstmt.executeUpdate();
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                pstmt.setString(1, studentUserName);
+                pstmt.setString(2, reviewerUserName);
+                pstmt.setDouble(3, weightage);
+                pstmt.executeUpdate();
+                AnswerRanking.weightChanged(conn, studentUserName, reviewerUserName, weightage);
+                ReviewerStatsManager.trustChanged(conn, reviewerUserName, 1, weightage);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
     
-    // Removes a trusted reviewer from a student's list.
+    // Removes a trusted reviewer from a student's list, and the reviewer's weightage from the student's answer scores.
     public boolean removeTrustedReviewer(String studentUserName, String reviewerUserName) {
         String deleteQuery = "DELETE FROM trustedReviewers WHERE studentUserName = ? AND reviewerUserName = ?";
         try (Connection conn = databaseHelper.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(deleteQuery)) {
-            pstmt.setString(1, studentUserName);
-            pstmt.setString(2, reviewerUserName);
-            return pstmt.executeUpdate() > 0;
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<Double> oldWeights = lockWeightages(conn, studentUserName, reviewerUserName);
+                pstmt.setString(1, studentUserName);
+                pstmt.setString(2, reviewerUserName);
+                boolean removed = pstmt.executeUpdate() > 0;
+                AnswerRanking.weightChanged(conn, studentUserName, reviewerUserName, -sum(oldWeights));
+                ReviewerStatsManager.trustChanged(conn, reviewerUserName, -oldWeights.size(), -sum(oldWeights));
+                conn.commit();
+                return removed;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return false;
     }
     
-    // Updates the weightage for a trusted reviewer.
+    // Updates the weightage for a trusted reviewer, and shifts the student's answer scores by the difference.
     public boolean updateWeightage(String studentUserName, String reviewerUserName, double newWeightage) {
         String updateQuery = "UPDATE trustedReviewers SET weightage = ? WHERE studentUserName = ? AND reviewerUserName = ?";
         try (Connection conn = databaseHelper.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
-            pstmt.setDouble(1, newWeightage);
-            pstmt.setString(2, studentUserName);
-            pstmt.setString(3, reviewerUserName);
-            return pstmt.executeUpdate() > 0;
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<Double> oldWeights = lockWeightages(conn, studentUserName, reviewerUserName);
+                pstmt.setDouble(1, newWeightage);
+                pstmt.setString(2, studentUserName);
+                pstmt.setString(3, reviewerUserName);
+                boolean updated = pstmt.executeUpdate() > 0;
+                double delta = newWeightage * oldWeights.size() - sum(oldWeights);
+                AnswerRanking.weightChanged(conn, studentUserName, reviewerUserName, delta);
+                ReviewerStatsManager.trustChanged(conn, reviewerUserName, 0, delta);
+                conn.commit();
+                return updated;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return false;
     }
+
+    // Reads the weightage rows of a student and reviewer, locking them until the transaction ends so
+    // that the score adjustment is computed from the values being replaced.
+    private static List<Double> lockWeightages(Connection conn, String studentUserName, String reviewerUserName) throws SQLException {
+        List<Double> weights = new ArrayList<>();
+        String query = "SELECT weightage FROM trustedReviewers WHERE studentUserName = ? AND reviewerUserName = ? FOR UPDATE";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, studentUserName);
+            pstmt.setString(2, reviewerUserName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    weights.add(rs.getDouble("weightage"));
+                }
+            }
+        }
+        return weights;
+    }
+
+    private static double sum(List<Double> weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        return total;
+    }
     
     // Retrieves the list of trusted reviewers for a given student, ordered by weightage descending.
     public List<String> getTrustedReviewers(String studentUserName) {
@@ -0,0 +1,120 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The UserDirectory class loads user profiles (name, role and rating) in batches and keeps
+ * them in a cache, so pages that show one row per author do not issue one query per row.
+ * Cached profiles never carry the password.
+ */
+public class UserDirectory {
+    // Upper bound on the number of names bound into a single IN (...) query.
+    private static final int MAX_BATCH = 500;
+
+    private final DatabaseHelper databaseHelper;
+    private final Map<String, User> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor to initialize the UserDirectory.
+     * @param databaseHelper the database helper instance
+     */
+    public UserDirectory(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Returns the profiles of the given users, loading every name that is not cached yet
+     * with a single WHERE userName IN (...) query.
+     * @param userNames the usernames to look up
+     * @return a map from username to profile; unknown usernames are absent
+     */
+    public Map<String, User> loadAll(Collection<String> userNames) {
+        Map<String, User> result = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String userName : userNames) {
+            if (userName == null) {
+                continue;
+            }
+            User cached = profiles.get(userName);
+            if (cached != null) {
+                result.put(userName, cached);
+            } else {
+                missing.add(userName);
+            }
+        }
+        List<String> batch = new ArrayList<>(missing);
+        for (int from = 0; from < batch.size(); from += MAX_BATCH) {
+            List<String> chunk = batch.subList(from, Math.min(batch.size(), from + MAX_BATCH));
+            for (User profile : query(chunk)) {
+                profiles.put(profile.getUserName(), profile);
+                result.put(profile.getUserName(), profile);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the profile of a single user.
+     * @param userName the username to look up
+     * @return the profile, or null if the user does not exist
+     */
+    public User get(String userName) {
+        return loadAll(List.of(userName)).get(userName);
+    }
+
+    /**
+     * Returns the role of a user from the cache, loading it if needed.
+     * @param userName the username to look up
+     * @return the role, or null if the user does not exist
+     */
+    public String getRole(String userName) {
+        User profile = get(userName);
+        return profile == null ? null : profile.getRole();
+    }
+
+    /**
+     * Drops a cached profile. Call this after changing a user's role or rating.
+     * @param userName the user whose profile changed
+     */
+    public void invalidate(String userName) {
+        profiles.remove(userName);
+    }
+
+    /**
+     * Drops every cached profile.
+     */
+    public void invalidateAll() {
+        profiles.clear();
+    }
+
+    private List<User> query(List<String> userNames) {
+        List<User> users = new ArrayList<>();
+        String query = "SELECT userName, role, rating FROM cse360users WHERE userName IN ("
+                + DatabaseHelper.placeholders(userNames.size()) + ")";
+        try (Connection conn = databaseHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < userNames.size(); i++) {
+                pstmt.setString(i + 1, userNames.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    User profile = new User(rs.getString("userName"), null, rs.getString("role"));
+                    profile.setRating(rs.getDouble("rating"));
+                    users.add(profile);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return users;
+    }
+}
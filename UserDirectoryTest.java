@@ -0,0 +1,127 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+
+/**
+ * UserDirectoryTest
+ *
+ * This class contains automated JUnit tests to verify the user directory: the profiles a page
+ * needs are loaded with one query per batch of names, cached profiles need no query and carry no
+ * password, unknown names are not cached, and invalidating a profile loads it again.
+ */
+public class UserDirectoryTest {
+
+    private DatabaseHelper dbHelper;
+    private UserDirectory directory;
+
+    /**
+     * Setup method to open an empty database with three users.
+     */
+    @Before
+    public void setup() throws SQLException {
+        dbHelper = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+        dbHelper.connectToDatabase();
+        dbHelper.register(new User("alice", "Secret1!", "student"));
+        dbHelper.register(new User("bob", "Secret1!", "reviewer"));
+        dbHelper.register(new User("carol", "Secret1!", "staff"));
+        directory = new UserDirectory(dbHelper);
+    }
+
+    /**
+     * Cleanup method to close the database.
+     */
+    @After
+    public void cleanup() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test 1: Verify that several names, repeated names and nulls are loaded with one query, and
+     * that unknown names are left out of the result.
+     */
+    @Test
+    public void testOneQueryPerLookup() {
+        dbHelper.getQueryMetrics().reset();
+        Map<String, User> profiles = directory.loadAll(Arrays.asList("alice", "bob", null, "alice", "nobody", "carol"));
+        assertEquals(1, dbHelper.getQueryMetrics().getTotalExecutions());
+        assertEquals(3, profiles.size());
+        assertEquals("reviewer", profiles.get("bob").getRole());
+        assertNull("Cached profiles should not carry the password", profiles.get("alice").getPassword());
+        assertFalse(profiles.containsKey("nobody"));
+    }
+
+    /**
+     * Test 2: Verify that cached profiles need no query, that only the names not cached yet are
+     * queried, and that an unknown name is queried again since it may be registered later.
+     */
+    @Test
+    public void testCachedProfilesNeedNoQuery() throws SQLException {
+        directory.loadAll(Arrays.asList("alice", "bob"));
+        dbHelper.getQueryMetrics().reset();
+        assertEquals(2, directory.loadAll(Arrays.asList("bob", "alice")).size());
+        assertEquals("student", directory.getRole("alice"));
+        assertEquals(0, dbHelper.getQueryMetrics().getTotalExecutions());
+
+        assertEquals(3, directory.loadAll(Arrays.asList("alice", "bob", "carol")).size());
+        assertEquals(1, dbHelper.getQueryMetrics().getTotalExecutions());
+
+        assertNull(directory.get("dave"));
+        dbHelper.register(new User("dave", "Secret1!", "student"));
+        assertEquals("An unknown name should not be cached", "student", directory.getRole("dave"));
+    }
+
+    /**
+     * Test 3: Verify that more names than fit in one query are split into batches of 500.
+     */
+    @Test
+    public void testLargeLookupIsBatched() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            names.add("user" + i);
+        }
+        names.add("alice");
+        dbHelper.getQueryMetrics().reset();
+        Map<String, User> profiles = directory.loadAll(names);
+        assertEquals(3, dbHelper.getQueryMetrics().getTotalExecutions());
+        assertEquals(1, profiles.size());
+        assertTrue(directory.loadAll(new ArrayList<>()).isEmpty());
+    }
+
+    /**
+     * Test 4: Verify that a cached profile keeps its old role until it is invalidated, and that
+     * invalidating every profile loads them all again.
+     */
+    @Test
+    public void testInvalidate() throws SQLException {
+        assertEquals("student", directory.getRole("alice"));
+        try (Connection conn = dbHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("UPDATE cse360users SET role = 'reviewer' WHERE userName = ?")) {
+            pstmt.setString(1, "alice");
+            pstmt.executeUpdate();
+        }
+        assertEquals("The cached role is kept until invalidated", "student", directory.getRole("alice"));
+        directory.invalidate("alice");
+        assertEquals("reviewer", directory.getRole("alice"));
+
+        directory.loadAll(Arrays.asList("bob", "carol"));
+        directory.invalidateAll();
+        dbHelper.getQueryMetrics().reset();
+        directory.loadAll(Arrays.asList("alice", "bob", "carol"));
+        assertEquals(1, dbHelper.getQueryMetrics().getTotalExecutions());
+    }
+}
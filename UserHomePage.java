@@ -54,6 +54,13 @@ public class UserHomePage {
             MessagePage messagePage = new MessagePage(databaseHelper, user, primaryStage);
             messagePage.show();
         });
+        // Show the unread counter on the button once it is read.
+        AsyncDataAccess async = databaseHelper.getAsyncDataAccess();
+        async.deliver(async.supply(() -> new MessageManager(databaseHelper).getUnreadCount(user.getUserName())), unread -> {
+            if (unread > 0) {
+                viewMessagesButton.setText("View Inbox (" + unread + ")");
+            }
+        });
         
         // New button: Request Reviewer Role.
         Button reviewerRequestButton = new Button("Request Reviewer Role");
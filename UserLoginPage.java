@@ -51,7 +51,7 @@ public class UserLoginPage {
             }
 
             // Validate password format using PasswordEvaluator
-            String passwordValidation = PasswordEvaluator.evaluatePassword(password);
+            String passwordValidation = PasswordEvaluator.evaluate(password).getErrorMessage();
             if (!passwordValidation.isEmpty()) {
                 errorLabel.setText("Invalid password: " + passwordValidation);
                 return;
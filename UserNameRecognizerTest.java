@@ -0,0 +1,267 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * UserNameRecognizerTest
+ *
+ * This class contains automated JUnit tests to verify that the UserName recognizer, run on the
+ * compiled FiniteStateMachine, gives the same messages and error indexes as the original state
+ * machine simulation, at the length limit and on a large set of random inputs, and that the
+ * FiniteStateMachine.Builder rejects definitions it cannot compile.
+ */
+public class UserNameRecognizerTest {
+
+    private static final String ALLOWED = "AZazMm09._-";
+    private static final String NOT_ALLOWED = " !@=é€";
+
+    /**
+     * Test 1: Verify the messages and error indexes of hand-picked inputs against the original
+     * implementation, including a trailing separator and separators in a row.
+     */
+    @Test
+    public void testKnownInputs() {
+        String[] inputs = {
+                "", "a", "abc", "abcd", "1abc", "_abc", "ab.cd", "ab._cd", "abcd.", "abcd-",
+                "abcd_", "ab..", "a.b", "ab cd", "abcd!", "abécd", "Ab-1_c.D",
+        };
+        for (String input : inputs) {
+            assertMatchesBaseline(input);
+        }
+        assertEquals("", UserNameRecognizer.checkForValidUserName("Ab-1_c.D"));
+        assertEquals(-1, UserNameRecognizer.userNameRecognizerIndexofError);
+        assertEquals("\n*** ERROR *** A UserName character after a period, dash, or underscore must be A-Z, a-z, 0-9.\n",
+                UserNameRecognizer.checkForValidUserName("abcd."));
+        assertEquals(5, UserNameRecognizer.userNameRecognizerIndexofError);
+    }
+
+    /**
+     * Test 2: Verify the length limit: exactly 16 characters are accepted, a 17th letter, digit or
+     * separator is rejected at index 16, and a separator as the 16th character fails on the 17th.
+     */
+    @Test
+    public void testLengthLimit() {
+        String sixteen = "abcdefghij.klmno";
+        assertEquals(16, sixteen.length());
+        assertEquals("", UserNameRecognizer.checkForValidUserName(sixteen));
+
+        assertEquals("\n*** ERROR *** A UserName must have no more than 16 character.\n",
+                UserNameRecognizer.checkForValidUserName(sixteen + "p"));
+        assertEquals(16, UserNameRecognizer.userNameRecognizerIndexofError);
+
+        String[] inputs = {
+                sixteen, sixteen + "p", sixteen + "1", sixteen + ".", sixteen + " ", sixteen + "pq",
+                "abcdefghijklmno.", "abcdefghijklmno.p", "abcdefghijklmno. ", "abcdefghijklmnop",
+                "abcdefghijklmnopqrstuvwxyz",
+        };
+        for (String input : inputs) {
+            assertMatchesBaseline(input);
+        }
+    }
+
+    /**
+     * Test 3: Verify 300,000 seeded random inputs of up to 24 characters against the original
+     * implementation.
+     */
+    @Test
+    public void testRandomInputsMatchBaseline() {
+        Random random = new Random(12);
+        for (int i = 0; i < 300_000; i++) {
+            int length = random.nextInt(25);
+            StringBuilder input = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                input.append(random.nextInt(30) == 0
+                        ? NOT_ALLOWED.charAt(random.nextInt(NOT_ALLOWED.length()))
+                        : ALLOWED.charAt(random.nextInt(ALLOWED.length())));
+            }
+            assertMatchesBaseline(input.toString());
+        }
+    }
+
+    /**
+     * Test 4: Verify that the builder compiles ranges and a literal '-', that run() reports where
+     * the machine halted, and that accepts() needs the whole input consumed in a final state
+     * within the maximum length.
+     */
+    @Test
+    public void testFiniteStateMachine() {
+        FiniteStateMachine machine = new FiniteStateMachine.Builder()
+                .characterClass("digit", "0-9")
+                .characterClass("sign", "+-")
+                .transition(0, 1, "sign")
+                .transition(0, 2, "digit")
+                .transition(1, 2, "digit")
+                .transition(2, 2, "digit")
+                .transition(2, 2, "digit")
+                .finalStates(2)
+                .maxLength(4)
+                .build();
+        assertTrue(machine.accepts("-123"));
+        assertTrue(machine.accepts("+0"));
+        assertFalse(machine.accepts("-"));
+        assertFalse(machine.accepts("12-"));
+        assertFalse(machine.accepts("12345"));
+        assertFalse(machine.isFinal(1));
+
+        long halted = machine.run("12a4");
+        assertEquals(2, FiniteStateMachine.state(halted));
+        assertEquals(2, FiniteStateMachine.index(halted));
+        assertFalse(FiniteStateMachine.overflowed(halted));
+
+        long overflowed = machine.run("-1234");
+        assertEquals(2, FiniteStateMachine.state(overflowed));
+        assertEquals(4, FiniteStateMachine.index(overflowed));
+        assertTrue(FiniteStateMachine.overflowed(overflowed));
+
+        long empty = machine.run("");
+        assertEquals(0, FiniteStateMachine.state(empty));
+        assertEquals(0, FiniteStateMachine.index(empty));
+    }
+
+    /**
+     * Test 5: Verify that the builder rejects a class defined twice, a character in two classes,
+     * a character outside ASCII, a transition on an unknown class, and two transitions from one
+     * state on one class.
+     */
+    @Test
+    public void testBuilderRejectsBadDefinitions() {
+        assertBuildFails(IllegalArgumentException.class, "Character class defined twice: letter",
+                () -> new FiniteStateMachine.Builder().characterClass("letter", "a-z").characterClass("letter", "A-Z"));
+        assertBuildFails(IllegalArgumentException.class, "Character 'm' is in two classes",
+                () -> new FiniteStateMachine.Builder().characterClass("letter", "a-z").characterClass("m", "m"));
+        assertBuildFails(IllegalArgumentException.class, "Only ASCII characters can be classified: é",
+                () -> new FiniteStateMachine.Builder().characterClass("accented", "é"));
+        assertBuildFails(IllegalArgumentException.class, "Unknown character class: digit",
+                () -> new FiniteStateMachine.Builder().characterClass("letter", "a-z").transition(0, 1, "digit"));
+        assertBuildFails(IllegalStateException.class, "State 0 has two transitions on one character class",
+                () -> new FiniteStateMachine.Builder()
+                        .characterClass("letter", "a-z")
+                        .transition(0, 1, "letter")
+                        .transition(0, 2, "letter")
+                        .build());
+    }
+
+    // Compares checkForValidUserName with the original implementation on one input.
+    private static void assertMatchesBaseline(String input) {
+        Baseline baseline = new Baseline();
+        String expected = baseline.checkForValidUserName(input);
+        String label = "\"" + input + "\"";
+        assertEquals(label, expected, UserNameRecognizer.checkForValidUserName(input));
+        assertEquals(label, baseline.indexOfError, UserNameRecognizer.userNameRecognizerIndexofError);
+    }
+
+    private static void assertBuildFails(Class<? extends RuntimeException> type, String message, Runnable build) {
+        try {
+            build.run();
+            fail("Expected " + type.getSimpleName() + ": " + message);
+        } catch (RuntimeException e) {
+            assertEquals(type, e.getClass());
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    /**
+     * The original state machine simulation, without its console trace, kept as the reference
+     * the recognizer must agree with.
+     */
+    private static final class Baseline {
+        int indexOfError = -1;
+
+        String checkForValidUserName(String input) {
+            if (input.length() <= 0) {
+                indexOfError = 0;
+                return "\n*** ERROR *** The input is empty";
+            }
+
+            int state = 0;
+            int nextState = -1;
+            int currentCharNdx = 0;
+            char currentChar = input.charAt(0);
+            boolean running = true;
+            int userNameSize = 0;
+
+            while (running) {
+                switch (state) {
+                case 0:
+                    if ((currentChar >= 'A' && currentChar <= 'Z') ||
+                            (currentChar >= 'a' && currentChar <= 'z')) {
+                        nextState = 1;
+                        userNameSize++;
+                    }
+                    else
+                        running = false;
+                    break;
+
+                case 1:
+                    if ((currentChar >= 'A' && currentChar <= 'Z') ||
+                            (currentChar >= 'a' && currentChar <= 'z') ||
+                            (currentChar >= '0' && currentChar <= '9')) {
+                        nextState = 1;
+                        userNameSize++;
+                    }
+                    else if ((currentChar == '.') || (currentChar == '_') || (currentChar == '-')) {
+                        nextState = 2;
+                        userNameSize++;
+                    }
+                    else
+                        running = false;
+                    if (userNameSize > 16)
+                        running = false;
+                    break;
+
+                case 2:
+                    if ((currentChar >= 'A' && currentChar <= 'Z') ||
+                            (currentChar >= 'a' && currentChar <= 'z') ||
+                            (currentChar >= '0' && currentChar <= '9')) {
+                        nextState = 1;
+                        userNameSize++;
+                    }
+                    else
+                        running = false;
+                    if (userNameSize > 16)
+                        running = false;
+                    break;
+                }
+
+                if (running) {
+                    currentCharNdx++;
+                    if (currentCharNdx < input.length())
+                        currentChar = input.charAt(currentCharNdx);
+                    else {
+                        currentChar = ' ';
+                        running = false;
+                    }
+                    state = nextState;
+                    nextState = -1;
+                }
+            }
+
+            indexOfError = currentCharNdx;
+            String message = "\n*** ERROR *** ";
+            switch (state) {
+            case 0:
+                return message + "A UserName must start with A-Z or a-z.\n";
+
+            case 1:
+                if (userNameSize < 4)
+                    return message + "A UserName must have at least 4 characters.\n";
+                else if (userNameSize > 16)
+                    return message + "A UserName must have no more than 16 character.\n";
+                else if (currentCharNdx < input.length())
+                    return message + "A UserName character may only contain the characters A-Z, a-z, 0-9.\n";
+                indexOfError = -1;
+                return "";
+
+            case 2:
+                return message + "A UserName character after a period, dash, or underscore must be A-Z, a-z, 0-9.\n";
+
+            default:
+                return "";
+            }
+        }
+    }
+}
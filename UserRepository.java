@@ -0,0 +1,44 @@
+package application;
+
+import java.sql.SQLException;
+
+/**
+ * Storage of user accounts.
+ */
+public interface UserRepository {
+
+    /**
+     * Stores a new user.
+     * @param user the user with username, password and role
+     * @return true if the user was stored, false if the username is taken
+     */
+    boolean register(User user) throws SQLException;
+
+    /**
+     * @param userName the username
+     * @return true if a user has the username
+     */
+    boolean exists(String userName) throws SQLException;
+
+    /**
+     * @param userName the username
+     * @return the user's ID, or -1 if there is no such user
+     */
+    int findId(String userName) throws SQLException;
+
+    /**
+     * @param userName the username
+     * @return the user's role, or null if there is no such user
+     */
+    String findRole(String userName) throws SQLException;
+
+    /**
+     * @return true if a user has the username, password and role
+     */
+    boolean login(String userName, String password, String role) throws SQLException;
+
+    /**
+     * @return true if the user exists and the password was changed
+     */
+    boolean updatePassword(String userName, String password) throws SQLException;
+}
@@ -0,0 +1,184 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The WriteAheadLog class is a file of records appended before the change they describe is made
+ * in memory, so the state can be rebuilt after a restart by replaying them in order.
+ *
+ * A record is its payload length, a CRC32 of the payload, and the payload, as in ChatLog. On
+ * replay the first record that is cut short or fails its CRC is taken as the end of the log and
+ * the file is truncated there, so a crash in the middle of an append loses only that record.
+ * With sync on, every append is forced to disk before it returns; without it the operating system
+ * writes it out later and a machine crash can lose the newest records.
+ *
+ * Appends are serialized; the caller applies its change after append returns.
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    /**
+     * Receives the payloads of the records on replay.
+     */
+    public interface Replayer {
+        void apply(ByteBuffer payload) throws IOException;
+    }
+
+    /**
+     * Supplies the records of a rewritten log.
+     */
+    public interface Snapshot {
+        void writeTo(WriteAheadLog log) throws IOException;
+    }
+
+    // Payload length and CRC32.
+    private static final int HEADER_BYTES = 8;
+
+    private final Path file;
+    private final boolean sync;
+    private FileChannel channel;
+    private long records;
+
+    /**
+     * Opens the log, creating the file if it does not exist. Call replay before appending.
+     * @param file the log file
+     * @param sync whether to force every append to disk
+     * @throws IOException if the file cannot be opened
+     */
+    public WriteAheadLog(Path file, boolean sync) throws IOException {
+        this.file = file;
+        this.sync = sync;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Hands every complete record to the replayer in order and truncates a torn tail.
+     * @param replayer applies one record
+     * @return the number of records replayed
+     * @throws IOException if the file cannot be read or the replayer fails
+     */
+    public synchronized long replay(Replayer replayer) throws IOException {
+        long position = 0;
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        records = 0;
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + HEADER_BYTES);
+            payload.flip();
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            replayer.apply(payload);
+            position += HEADER_BYTES + length;
+            records++;
+        }
+        if (position < size) {
+            System.out.println("Write-ahead log " + file + ": dropped " + (size - position) + " bytes of an incomplete record");
+            channel.truncate(position);
+        }
+        channel.position(position);
+        return records;
+    }
+
+    /**
+     * Appends one record at the end of the log.
+     * @param payload the record's payload
+     * @throws IOException if the record cannot be written; the change must not be applied then
+     */
+    public synchronized void append(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        records++;
+    }
+
+    /**
+     * Replaces the log with the records of a snapshot, written to a new file that is moved over
+     * the old one once it is on disk. The caller must hold off other appends while it runs.
+     * @param snapshot writes the records of the current state with append
+     * @throws IOException if the new log cannot be written; the old one is kept then
+     */
+    public synchronized void rewrite(Snapshot snapshot) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        WriteAheadLog rewritten = new WriteAheadLog(temporary, false);
+        try {
+            rewritten.channel.truncate(0);
+            snapshot.writeTo(rewritten);
+            rewritten.channel.force(true);
+        } finally {
+            rewritten.close();
+        }
+        channel.close();
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        records = rewritten.records;
+    }
+
+    /**
+     * @return the number of records in the log
+     */
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return the size of the log file in bytes
+     * @throws IOException if the size cannot be read
+     */
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Forces the log to disk and closes it.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            if (channel.isOpen()) {
+                channel.force(true);
+                channel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + file);
+            }
+        }
+    }
+}
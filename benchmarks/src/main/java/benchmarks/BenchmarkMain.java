@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and, when a baseline is given, writes a regression report against it.
+ *
+ * java -jar benchmarks/target/benchmarks.jar [benchmark regex...]
+ *   -Drows=1000          run only the given dataset sizes (comma separated)
+ *   -Dresult=file.csv    where to write the results (default jmh-result.csv)
+ *   -Dbaseline=file.csv  compare against earlier results and write regression-report.md
+ *   -Dthreshold=10       slowdown in percent that counts as a regression
+ *
+ * The exit status is 1 when any benchmark regressed against the baseline.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path result = Paths.get(System.getProperty("result", "jmh-result.csv"));
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .resultFormat(ResultFormatType.CSV)
+                .result(result.toString());
+        if (args.length == 0) {
+            options.include("benchmarks\\..*");
+        }
+        for (String pattern : args) {
+            options.include(pattern);
+        }
+        String rows = System.getProperty("rows");
+        if (rows != null) {
+            options.param("rows", rows.split(","));
+        }
+        new Runner(options.build()).run();
+
+        String baseline = System.getProperty("baseline");
+        if (baseline == null) {
+            return;
+        }
+        if (!Files.exists(Paths.get(baseline))) {
+            System.err.println("Baseline " + baseline + " not found; skipping the regression report.");
+            return;
+        }
+        double threshold = Double.parseDouble(System.getProperty("threshold",
+                String.valueOf(RegressionReport.DEFAULT_THRESHOLD_PERCENT)));
+        int regressions = RegressionReport.write(Paths.get(baseline), result,
+                Paths.get("regression-report.md"), threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+}
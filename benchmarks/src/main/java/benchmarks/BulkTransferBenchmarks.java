@@ -0,0 +1,92 @@
+package benchmarks;
+
+import application.BulkTransfer;
+import databasePart1.DatabaseHelper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of loading and dumping the answers table with BulkTransfer. Each import starts from
+ * a database holding the seeded questions but no answers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BulkTransferBenchmarks {
+
+    @Param({ "100000", "1000000" })
+    public int rows;
+
+    @Param({ "jsonl", "csv" })
+    public String format;
+
+    private DatabaseHelper db;
+    private BulkTransfer transfer;
+    private Path answersFile;
+    private Path exportFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        db = SeededDatabase.open(rows);
+        transfer = new BulkTransfer(db);
+        answersFile = Files.createTempFile("answers", "." + format);
+        exportFile = Files.createTempFile("export", "." + format);
+        transfer.exportFile(BulkTransfer.Entity.ANSWERS, answersFile);
+    }
+
+    /**
+     * Empties the answers table before every import iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyAnswers {
+        @Setup(Level.Iteration)
+        public void clear(BulkTransferBenchmarks benchmark) throws SQLException {
+            try (Connection conn = benchmark.db.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM answers");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.deleteAllTables();
+        db.closeConnection();
+        Files.deleteIfExists(answersFile);
+        Files.deleteIfExists(exportFile);
+    }
+
+    @Benchmark
+    public BulkTransfer.Report importAnswers(EmptyAnswers empty) throws SQLException, IOException {
+        return transfer.importFile(BulkTransfer.Entity.ANSWERS, answersFile);
+    }
+
+    @Benchmark
+    public BulkTransfer.Report exportAnswers() throws SQLException, IOException {
+        return transfer.exportFile(BulkTransfer.Entity.ANSWERS, exportFile);
+    }
+}
@@ -0,0 +1,141 @@
+package benchmarks;
+
+import application.Question;
+import application.QuestionManager;
+import application.User;
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the datasource modes: the startup cost of connecting to a new database and to one
+ * that already has the schema, and the per-query cost of a login and a pooled query. Files are
+ * created in a temporary directory, and server mode starts its own TCP server on a free port.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class DataSourceBenchmarks {
+
+    private static final int QUESTIONS = 100;
+
+    @Param({ "file", "memory", "server" })
+    public String mode;
+
+    private Path directory;
+    private int port;
+    private int databases = 0;
+    private DataSourceConfig config;
+    private DatabaseHelper db;
+    private QuestionManager questionManager;
+    private User loginUser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        // DatabaseHelper and the managers log to standard output; keep that out of the measurements.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        directory = Files.createTempDirectory("datasource-bench");
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        config = newConfig();
+        db = new DatabaseHelper(config);
+        db.connectToDatabase();
+        loginUser = new User("user1", SeededDatabase.PASSWORD, "user");
+        db.register(loginUser);
+        questionManager = new QuestionManager(db);
+        for (int i = 1; i <= QUESTIONS; i++) {
+            questionManager.saveQuestion(new Question(0, "Datasource question " + i, "user1"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.closeConnection();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // A configuration of the benchmarked mode for a database no earlier call used.
+    private DataSourceConfig newConfig() {
+        String path = directory.resolve("db" + (++databases)).toString();
+        switch (mode) {
+            case "memory":
+                return DataSourceConfig.isolatedMemory();
+            case "server":
+                return DataSourceConfig.server(path, port, 0, true);
+            default:
+                return DataSourceConfig.file(path, 0);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public DatabaseHelper startNewDatabase() throws SQLException {
+        DatabaseHelper fresh = new DatabaseHelper(newConfig());
+        fresh.connectToDatabase();
+        fresh.closeConnection();
+        return fresh;
+    }
+
+    // What another instance pays to start on a database that already has the schema.
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public DatabaseHelper startExistingDatabase() throws SQLException {
+        DatabaseHelper another = new DatabaseHelper(config);
+        another.connectToDatabase();
+        another.closeConnection();
+        return another;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public boolean login() throws SQLException {
+        return db.login(loginUser);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<Question> getQuestionsByUser() {
+        return questionManager.getQuestionsByUser("user1");
+    }
+}
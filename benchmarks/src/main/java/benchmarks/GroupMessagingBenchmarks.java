@@ -0,0 +1,109 @@
+package benchmarks;
+
+import application.GroupMessageManager;
+import application.GroupPost;
+import application.Message;
+import application.MessageManager;
+import databasePart1.DatabaseHelper;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of sending one message to a group: a sendMessage call per member, the batched copy
+ * into every inbox (fan-out on write), and a single board post (fan-out on read), together with
+ * what a member pays to read the board.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GroupMessagingBenchmarks {
+
+    // Enough seeded users for the largest group.
+    private static final int ROWS = 10_000;
+    private static final String SENDER = "user1";
+
+    @Param({ "30", "300" })
+    public int groupSize;
+
+    private DatabaseHelper db;
+    private MessageManager messageManager;
+    private GroupMessageManager groupManager;
+    private int groupId;
+    private List<Integer> memberIds;
+    private int sent = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        // The managers log every call to standard output; keep that out of the measurements.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        db = SeededDatabase.open(ROWS);
+        messageManager = new MessageManager(db);
+        groupManager = new GroupMessageManager(db);
+        List<String> members = new ArrayList<>();
+        memberIds = new ArrayList<>();
+        for (int i = 2; i < groupSize + 2; i++) {
+            members.add("user" + i);
+            memberIds.add(db.getUserId("user" + i));
+        }
+        members.add(SENDER);
+        groupId = groupManager.saveGroup("section", SENDER, members, new ArrayList<>());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.deleteAllTables();
+        db.closeConnection();
+    }
+
+    @Benchmark
+    public int sendMessagePerMember() {
+        String text = "Section announcement " + (++sent);
+        int delivered = 0;
+        for (int memberId : memberIds) {
+            if (messageManager.sendMessage(new Message(memberId, text, SENDER))) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    @Benchmark
+    public int fanOutOnWrite() {
+        return groupManager.sendToGroup(groupId, SENDER, "Section announcement " + (++sent), GroupMessageManager.Delivery.INBOX);
+    }
+
+    @Benchmark
+    public int fanOutOnRead() {
+        return groupManager.sendToGroup(groupId, SENDER, "Section announcement " + (++sent), GroupMessageManager.Delivery.BOARD);
+    }
+
+    @Benchmark
+    public List<GroupPost> readBoardPage() {
+        return groupManager.getBoardPage("user2", 0, 50);
+    }
+
+    @Benchmark
+    public int unreadBoardCount() {
+        return groupManager.getUnreadBoardCount("user2");
+    }
+}
@@ -0,0 +1,123 @@
+package benchmarks;
+
+import application.Answer;
+import application.AnswerManager;
+import application.Message;
+import application.MessageManager;
+import application.Question;
+import application.QuestionManager;
+import application.User;
+import databasePart1.DatabaseHelper;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the database hot paths of the managers and DatabaseHelper, each run against
+ * seeded databases of 1k, 100k and 1M rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ManagerBenchmarks {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private DatabaseHelper db;
+    private QuestionManager questionManager;
+    private AnswerManager answerManager;
+    private MessageManager messageManager;
+    private User loginUser;
+    private int users;
+    private int answeredQuestions;
+    private int cursor = 0;
+    private int savedQuestions = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        // The managers log every call to standard output; keep that out of the measurements.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        db = SeededDatabase.open(rows);
+        questionManager = new QuestionManager(db);
+        answerManager = new AnswerManager(db);
+        messageManager = new MessageManager(db);
+        users = SeededDatabase.userCount(rows);
+        answeredQuestions = SeededDatabase.answeredQuestionCount(rows);
+        loginUser = new User("user1", SeededDatabase.PASSWORD, "user");
+        // Build the search index outside the measurement.
+        db.searchQuestions("configure");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.deleteAllTables();
+        db.closeConnection();
+    }
+
+    // Walks the key space in a fixed, scattered order so successive calls touch different rows.
+    private int next(int bound) {
+        cursor = (int) ((cursor * 1103515245L + 12345L) & 0x7fffffff);
+        return cursor % bound + 1;
+    }
+
+    @Benchmark
+    public Question saveQuestion() {
+        Question question = new Question(0, "Benchmark question number " + (++savedQuestions), "user1");
+        questionManager.saveQuestion(question);
+        return question;
+    }
+
+    @Benchmark
+    public List<Question> getAllQuestions() {
+        return questionManager.getAllQuestions();
+    }
+
+    @Benchmark
+    public List<Answer> getAnswersForQuestion() {
+        return answerManager.getAnswersForQuestion(next(answeredQuestions));
+    }
+
+    @Benchmark
+    public List<Question> searchQuestions() throws SQLException {
+        return db.searchQuestions("configure topic" + next(1000));
+    }
+
+    @Benchmark
+    public boolean login() throws SQLException {
+        return db.login(loginUser);
+    }
+
+    @Benchmark
+    public List<Message> getMessagesForUser() {
+        return messageManager.getMessagesForUser("user" + next(users));
+    }
+
+    @Benchmark
+    public List<Message> getInboxPage() {
+        return messageManager.getInboxPage("user" + next(users), 0, 50);
+    }
+
+    @Benchmark
+    public int getUnreadCount() {
+        return messageManager.getUnreadCount("user" + next(users));
+    }
+}
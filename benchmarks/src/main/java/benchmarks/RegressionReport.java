@@ -0,0 +1,204 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH CSV result files and writes a Markdown table of the change of every benchmark.
+ * A benchmark regresses when it is slower than the baseline by more than the threshold.
+ *
+ * Usage: RegressionReport baseline.csv current.csv [report.md] [thresholdPercent]
+ * The exit status is 1 when any benchmark regressed.
+ */
+public final class RegressionReport {
+    /** Default slowdown, in percent, that counts as a regression. */
+    public static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    /**
+     * One row of a JMH CSV result: a benchmark with its parameters and score.
+     */
+    static final class Result {
+        final String key;
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String key, String mode, double score, double error, String unit) {
+            this.key = key;
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        // Throughput-style modes report operations per time, where larger is better.
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    private final List<String> lines = new ArrayList<>();
+    private int regressions = 0;
+
+    private RegressionReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: RegressionReport baseline.csv current.csv [report.md] [thresholdPercent]");
+            System.exit(2);
+        }
+        Path report = args.length > 2 ? Paths.get(args[2]) : Paths.get("regression-report.md");
+        double threshold = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_THRESHOLD_PERCENT;
+        int regressions = write(Paths.get(args[0]), Paths.get(args[1]), report, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Compares the results and writes the report, echoing it to standard error.
+     * @param baseline the JMH CSV results to compare against
+     * @param current the new JMH CSV results
+     * @param report where to write the Markdown report
+     * @param thresholdPercent the slowdown that counts as a regression
+     * @return the number of regressed benchmarks
+     * @throws IOException if a file cannot be read or written
+     */
+    public static int write(Path baseline, Path current, Path report, double thresholdPercent) throws IOException {
+        RegressionReport r = new RegressionReport();
+        r.compare(read(baseline), read(current), thresholdPercent);
+        Files.write(report, r.lines, StandardCharsets.UTF_8);
+        for (String line : r.lines) {
+            System.err.println(line);
+        }
+        return r.regressions;
+    }
+
+    private void compare(Map<String, Result> baseline, Map<String, Result> current, double thresholdPercent) {
+        lines.add("| Benchmark | Baseline | Current | Unit | Change | Status |");
+        lines.add("|---|---:|---:|---|---:|---|");
+        for (Result now : current.values()) {
+            Result before = baseline.get(now.key);
+            if (before == null) {
+                lines.add(row(now.key, "-", format(now.score, now.error), now.unit, "-", "new"));
+                continue;
+            }
+            // Positive change always means slower, whichever way the mode counts.
+            double change = (now.score - before.score) / before.score * 100.0;
+            if (now.higherIsBetter()) {
+                change = -change;
+            }
+            String status;
+            if (change > thresholdPercent) {
+                status = "REGRESSION";
+                regressions++;
+            } else if (change < -thresholdPercent) {
+                status = "improved";
+            } else {
+                status = "ok";
+            }
+            lines.add(row(now.key, format(before.score, before.error), format(now.score, now.error), now.unit,
+                    String.format(Locale.ROOT, "%+.1f%%", change), status));
+        }
+        for (Result before : baseline.values()) {
+            if (!current.containsKey(before.key)) {
+                lines.add(row(before.key, format(before.score, before.error), "-", before.unit, "-", "missing"));
+            }
+        }
+        lines.add("");
+        lines.add(regressions + " regression(s) slower than " + thresholdPercent + "% against the baseline.");
+    }
+
+    private static String row(String... cells) {
+        return "| " + String.join(" | ", cells) + " |";
+    }
+
+    private static String format(double score, double error) {
+        if (Double.isNaN(error)) {
+            return String.format(Locale.ROOT, "%.3f", score);
+        }
+        return String.format(Locale.ROOT, "%.3f +/- %.3f", score, error);
+    }
+
+    /**
+     * Reads a JMH CSV result file (-rf csv). Parameter columns are folded into the key, so the
+     * same benchmark at different dataset sizes is compared separately.
+     * @param file the file to read
+     * @return the results keyed by benchmark and parameters, in file order
+     * @throws IOException if the file cannot be read
+     */
+    static Map<String, Result> read(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        List<String> rows = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (rows.isEmpty()) {
+            return results;
+        }
+        List<String> header = parseCsvLine(rows.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int error = header.indexOf("Score Error (99.9%)");
+        int unit = header.indexOf("Unit");
+        for (int i = 1; i < rows.size(); i++) {
+            if (rows.get(i).trim().isEmpty()) {
+                continue;
+            }
+            List<String> cells = parseCsvLine(rows.get(i));
+            StringBuilder key = new StringBuilder(cells.get(benchmark));
+            for (int c = 0; c < header.size(); c++) {
+                if (header.get(c).startsWith("Param: ") && c < cells.size() && !cells.get(c).isEmpty()) {
+                    key.append(" [").append(header.get(c).substring(7)).append('=').append(cells.get(c)).append(']');
+                }
+            }
+            double err = error >= 0 && !cells.get(error).isEmpty() ? parseNumber(cells.get(error)) : Double.NaN;
+            results.put(key.toString(), new Result(key.toString(), cells.get(mode),
+                    parseNumber(cells.get(score)), err, cells.get(unit)));
+        }
+        return results;
+    }
+
+    // JMH writes numbers in the default locale, which may use a decimal comma.
+    private static double parseNumber(String value) {
+        String v = value.trim();
+        if (v.indexOf('.') < 0) {
+            v = v.replace(',', '.');
+        }
+        return v.equals("NaN") ? Double.NaN : Double.parseDouble(v);
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(ch);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
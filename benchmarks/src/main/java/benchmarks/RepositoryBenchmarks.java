@@ -0,0 +1,133 @@
+package benchmarks;
+
+import application.Answer;
+import application.MemoryRepositories;
+import application.Message;
+import application.Question;
+import application.Repositories;
+import application.User;
+import databasePart1.DataSourceConfig;
+import databasePart1.DatabaseHelper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the reads of the storage engines on the same data: the H2 repositories of an
+ * in-memory database and the in-memory engine with a write-ahead log in a temporary directory.
+ * The reads run on four threads, as in a read-mostly deployment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RepositoryBenchmarks {
+
+    private static final int USERS = 100;
+    private static final int QUESTIONS = 10_000;
+    private static final int ANSWERS_PER_QUESTION = 3;
+    private static final int MESSAGES = 10_000;
+
+    @Param({ "jdbc", "memory" })
+    public String engine;
+
+    private DatabaseHelper db;
+    private Path directory;
+    private Repositories repositories;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        // DatabaseHelper and the managers log to standard output; keep that out of the measurements.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        if (engine.equals("jdbc")) {
+            db = new DatabaseHelper(DataSourceConfig.isolatedMemory());
+            db.connectToDatabase();
+            repositories = db.getRepositories();
+        } else {
+            directory = Files.createTempDirectory("repository-bench");
+            repositories = MemoryRepositories.open(directory.resolve("data.wal"), false);
+        }
+        for (int i = 1; i <= USERS; i++) {
+            repositories.users().register(new User("user" + i, SeededDatabase.PASSWORD, "student"));
+        }
+        for (int i = 1; i <= QUESTIONS; i++) {
+            Question question = new Question(0, "Repository question " + i, author(i));
+            repositories.questions().insert(question);
+            for (int j = 1; j <= ANSWERS_PER_QUESTION; j++) {
+                repositories.answers().insert(new Answer(0, "Answer " + j, author(i + j), question.getId()));
+            }
+        }
+        for (int i = 1; i <= MESSAGES; i++) {
+            repositories.messages().insert(new Message(repositories.users().findId(author(i)), "Message " + i, author(i + 1)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repositories.close();
+        if (db != null) {
+            db.closeConnection();
+        }
+        if (directory != null) {
+            Files.deleteIfExists(directory.resolve("data.wal"));
+            Files.delete(directory);
+        }
+    }
+
+    private static String author(int i) {
+        return "user" + (i % USERS + 1);
+    }
+
+    @Benchmark
+    public Question findQuestionById() throws SQLException {
+        return repositories.questions().findById(ThreadLocalRandom.current().nextInt(QUESTIONS) + 1);
+    }
+
+    @Benchmark
+    public List<Answer> findAnswersByQuestion() throws SQLException {
+        return repositories.answers().findByQuestion(ThreadLocalRandom.current().nextInt(QUESTIONS) + 1);
+    }
+
+    @Benchmark
+    public List<Question> findQuestionPage() throws SQLException {
+        return repositories.questions().findPage(ThreadLocalRandom.current().nextInt(QUESTIONS - 20), 20);
+    }
+
+    @Benchmark
+    public int countQuestions() throws SQLException {
+        return repositories.questions().count();
+    }
+
+    @Benchmark
+    public boolean login() throws SQLException {
+        return repositories.users().login(author(ThreadLocalRandom.current().nextInt(USERS)), SeededDatabase.PASSWORD, "student");
+    }
+
+    @Benchmark
+    public List<Message> inboxPage() throws SQLException {
+        return repositories.messages().inboxPage(author(ThreadLocalRandom.current().nextInt(USERS)), 0, 20);
+    }
+}
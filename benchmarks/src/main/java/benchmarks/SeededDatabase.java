@@ -0,0 +1,83 @@
+package benchmarks;
+
+import databasePart1.DatabaseHelper;
+import databasePart1.SchemaMigrator;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Creates in-memory H2 databases seeded with a given number of questions, answers and messages.
+ * Rows are generated inside the database with SYSTEM_RANGE, so seeding a million rows takes
+ * seconds rather than a million round trips.
+ */
+public final class SeededDatabase {
+    /** Password of every seeded user. */
+    public static final String PASSWORD = "Passw0rd!";
+    /** Upper bound on seeded users; larger datasets spread their rows over these users. */
+    public static final int MAX_USERS = 10_000;
+    /** One question in this many gets answers, so answered questions have about this many each. */
+    public static final int ANSWERS_PER_QUESTION = 10;
+
+    private SeededDatabase() {
+    }
+
+    /**
+     * Opens a new in-memory database with the application schema and seeds it.
+     * @param rows the number of questions, answers and messages to create
+     * @return a connected helper; call deleteAllTables() and closeConnection() when done
+     * @throws SQLException if the database cannot be created or seeded
+     */
+    public static DatabaseHelper open(int rows) throws SQLException {
+        String url = "jdbc:h2:mem:bench_" + rows + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        DatabaseHelper db = new DatabaseHelper(url, "sa", "");
+        db.connectToDatabase();
+        seed(db, rows);
+        return db;
+    }
+
+    /**
+     * @param rows the dataset size
+     * @return the number of users seeded for it
+     */
+    public static int userCount(int rows) {
+        return Math.min(rows, MAX_USERS);
+    }
+
+    /**
+     * @param rows the dataset size
+     * @return the number of questions that have answers
+     */
+    public static int answeredQuestionCount(int rows) {
+        return Math.max(1, rows / ANSWERS_PER_QUESTION);
+    }
+
+    private static void seed(DatabaseHelper db, int rows) throws SQLException {
+        int users = userCount(rows);
+        int answered = answeredQuestionCount(rows);
+        try (Connection conn = db.getConnection()) {
+            execute(conn, "INSERT INTO cse360users (userName, password, role) "
+                    + "SELECT 'user' || X, ?, 'user' FROM SYSTEM_RANGE(1, ?)", PASSWORD, users);
+            execute(conn, "INSERT INTO questions (text, author) "
+                    + "SELECT 'How do I configure topic' || MOD(X, 1000) || ' in module ' || X, 'user' || (MOD(X, ?) + 1) "
+                    + "FROM SYSTEM_RANGE(1, ?)", users, rows);
+            execute(conn, "INSERT INTO answers (text, author, questionId) "
+                    + "SELECT 'Set option' || MOD(X, 500) || ' before step ' || X, 'user' || (MOD(X, ?) + 1), MOD(X - 1, ?) + 1 "
+                    + "FROM SYSTEM_RANGE(1, ?)", users, answered, rows);
+            execute(conn, "INSERT INTO messages (fromAuthor, toUser, text) "
+                    + "SELECT 'user' || (MOD(X + 1, ?) + 1), MOD(X, ?) + 1, 'Message ' || X "
+                    + "FROM SYSTEM_RANGE(1, ?)", users, users, rows);
+            // File the messages into conversations and fill the unread counters, as sending them would.
+            SchemaMigrator.rebuildConversations(conn);
+        }
+    }
+
+    private static void execute(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import application.PasswordEvaluator;
+import application.UserNameRecognizer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the password and username validators on valid and invalid input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmarks {
+
+    @Param({ "valid", "invalid" })
+    public String input;
+
+    private String password;
+    private String userName;
+
+    @Setup
+    public void setUp() {
+        boolean valid = "valid".equals(input);
+        password = valid ? "Abcdef1!xyz" : "abcdefgh";
+        userName = valid ? "alice.smith_01" : "1alice";
+    }
+
+    @Benchmark
+    public PasswordEvaluator.Evaluation evaluatePassword() {
+        return PasswordEvaluator.evaluate(password);
+    }
+
+    @Benchmark
+    public String checkForValidUserName() {
+        return UserNameRecognizer.checkForValidUserName(userName);
+    }
+}
@@ -1,6 +1,8 @@
 module FoundationCode {
 	requires javafx.controls;
 	requires java.sql;
+	requires java.management;
 	
 	opens application to javafx.graphics, javafx.fxml;
+	exports databasePart1 to java.management;
 }